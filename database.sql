@@ -13,6 +13,7 @@ CREATE TABLE IF NOT EXISTS users (
     full_name VARCHAR(100),
     role VARCHAR(20) NOT NULL,
     active BOOLEAN NOT NULL DEFAULT TRUE,
+    tenant_id BIGINT, -- Workspace: ID admin có documents mà user được hỏi (NULL = mọi documents)
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -54,7 +55,12 @@ CREATE TABLE IF NOT EXISTS documents (
     file_size BIGINT NOT NULL,
     extracted_content LONGTEXT,
     summary TEXT,
-    embedding LONGTEXT, -- Vector embedding as JSON
+    embedding LONGTEXT, -- Vector embedding as JSON (legacy)
+    embedding_vector BLOB, -- Vector embedding as float32 little-endian
+    embedding_normalized BOOLEAN, -- embedding_vector is L2-normalized
+    embedding_model VARCHAR(100), -- Embedding model of embedding_vector/embedding
+    shadow_embedding_vector BLOB, -- L2-normalized float32 vector of the model being re-embedded
+    shadow_embedding_model VARCHAR(100), -- Embedding model of shadow_embedding_vector
     processed BOOLEAN NOT NULL DEFAULT FALSE,
     active BOOLEAN NOT NULL DEFAULT TRUE,
     upload_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -67,7 +73,12 @@ CREATE TABLE IF NOT EXISTS document_chunks (
     document_id BIGINT NOT NULL,
     chunk_index INT NOT NULL,
     content TEXT NOT NULL,
-    embedding LONGTEXT, -- Vector embedding as JSON
+    embedding LONGTEXT, -- Vector embedding as JSON (legacy)
+    embedding_vector BLOB, -- Vector embedding as float32 little-endian
+    embedding_normalized BOOLEAN, -- embedding_vector is L2-normalized
+    embedding_model VARCHAR(100), -- Embedding model of embedding_vector/embedding
+    shadow_embedding_vector BLOB, -- L2-normalized float32 vector of the model being re-embedded
+    shadow_embedding_model VARCHAR(100), -- Embedding model of shadow_embedding_vector
     start_position INT NOT NULL,
     end_position INT NOT NULL,
     token_count INT NOT NULL DEFAULT 0,
@@ -77,6 +88,34 @@ CREATE TABLE IF NOT EXISTS document_chunks (
     INDEX idx_chunk_index (chunk_index)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Migration cho database cũ: thêm cột embedding nhị phân
+-- (dữ liệu JSON được chuyển đổi bởi POST /api/admin/embeddings/migrate)
+-- ALTER TABLE documents ADD COLUMN embedding_vector BLOB AFTER embedding;
+-- ALTER TABLE document_chunks ADD COLUMN embedding_vector BLOB AFTER embedding;
+
+-- Migration: cờ embedding đã chuẩn hóa
+-- (vectors cũ được chuẩn hóa bởi POST /api/admin/embeddings/normalize)
+-- ALTER TABLE documents ADD COLUMN embedding_normalized BOOLEAN AFTER embedding_vector;
+-- ALTER TABLE document_chunks ADD COLUMN embedding_normalized BOOLEAN AFTER embedding_vector;
+
+-- 6. Embedding Models Table (registry: model đang phục vụ và model đang re-embed)
+CREATE TABLE IF NOT EXISTS embedding_models (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE,
+    status VARCHAR(20) NOT NULL, -- SERVING | SHADOW | RETIRED
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    activated_at TIMESTAMP NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Migration: embeddings theo model (re-embed bằng POST /api/admin/embeddings/reembed)
+-- (embedding_model của dữ liệu cũ được gán model trong cấu hình ở lần khởi động đầu tiên)
+-- ALTER TABLE documents ADD COLUMN embedding_model VARCHAR(100) AFTER embedding_normalized,
+--     ADD COLUMN shadow_embedding_vector BLOB AFTER embedding_model,
+--     ADD COLUMN shadow_embedding_model VARCHAR(100) AFTER shadow_embedding_vector;
+-- ALTER TABLE document_chunks ADD COLUMN embedding_model VARCHAR(100) AFTER embedding_normalized,
+--     ADD COLUMN shadow_embedding_vector BLOB AFTER embedding_model,
+--     ADD COLUMN shadow_embedding_model VARCHAR(100) AFTER shadow_embedding_vector;
+
 -- Optional: Insert Default Admin (Password: admin123)
 -- Note: Password should be BCrypt encoded. The hash below is for 'admin123'
 INSERT INTO users (username, email, password, full_name, role, active, created_at, updated_at) 
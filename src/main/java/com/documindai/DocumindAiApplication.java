@@ -6,6 +6,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.modelmapper.ModelMapper;
@@ -22,6 +23,7 @@ import org.modelmapper.ModelMapper;
  * @version 1.0.0
  */
 @SpringBootApplication
+@EnableScheduling
 @Slf4j
 public class DocumindAiApplication {
 
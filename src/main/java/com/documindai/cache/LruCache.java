@@ -0,0 +1,114 @@
+package com.documindai.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache LRU giới hạn số entries, mỗi entry hết hạn sau TTL, có đếm hit/miss/eviction
+ *
+ * LinkedHashMap theo thứ tự truy cập: get cũng thay đổi thứ tự nên mọi thao tác dùng chung một lock.
+ * Entry hết hạn được bỏ khi bị đọc tới (lazy), entry ít dùng nhất bị đẩy ra khi vượt maxSize.
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Thống kê của cache tại một thời điểm
+     */
+    public record Stats(int size, int maxSize, long hits, long misses, double hitRate,
+                        long evictions, long expirations) {
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be >= 1");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Lấy value còn hạn, null nếu không có (tính là miss)
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt() > 0) {
+                entries.remove(key);
+                expirations++;
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            long requests = hits + misses;
+            double hitRate = requests == 0 ? 0.0 : (double) hits / requests;
+            return new Stats(entries.size(), maxSize, hits, misses, hitRate, evictions, expirations);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.documindai.cache;
+
+import com.documindai.retrieval.VectorKernel;
+import com.documindai.retrieval.VectorKernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache theo độ gần của query embedding: trả value của query đã cache gần nhất nếu khoảng cách cosine
+ * không vượt maxDistance, và khóa phụ (scope, tập chunk IDs đã retrieve, phiên bản corpus) trùng khớp
+ * Entries của hai scopes (ví dụ hai tenants) không bao giờ dùng lẫn, kể cả khi tập chunk IDs giống nhau (rỗng)
+ *
+ * Số entries nhỏ (vài nghìn) nên lookup là một lượt quét tích vô hướng SIMD trên các query vectors
+ * đã chuẩn hóa. Entry hết hạn sau TTL; khi đầy, entry lâu không được dùng nhất bị thay thế.
+ */
+public class SemanticCache<V> {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private record Entry<V>(long scope, float[] query, long[] chunkIds, long version, V value, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final double minSimilarity;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final List<Entry<V>> entries = new ArrayList<>();
+    private final List<Long> lastAccess = new ArrayList<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public SemanticCache(int maxSize, double maxDistance, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be >= 1");
+        }
+        this.maxSize = maxSize;
+        this.minSimilarity = 1.0 - maxDistance;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Tìm value của query gần nhất thỏa khoảng cách, cùng scope, cùng tập chunk IDs và cùng phiên bản corpus
+     *
+     * @param scope    phạm vi của entry (ví dụ tenant), chỉ khớp với entry cùng scope
+     * @param query    query embedding đã chuẩn hóa
+     * @param chunkIds chunk IDs đã retrieve cho query (không cần sắp xếp)
+     */
+    public V get(long scope, float[] query, long[] chunkIds, long version) {
+        long[] key = sorted(chunkIds);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            int best = -1;
+            double bestScore = minSimilarity;
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry<V> entry = entries.get(i);
+                if (now - entry.expiresAt() > 0) {
+                    removeAt(i);
+                    expirations++;
+                    continue;
+                }
+                if (entry.scope() != scope || entry.version() != version || entry.query().length != query.length
+                        || !Arrays.equals(entry.chunkIds(), key)) {
+                    continue;
+                }
+                double score = KERNEL.dot(query, entry.query());
+                if (score >= bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                misses++;
+                return null;
+            }
+            hits++;
+            lastAccess.set(best, now);
+            return entries.get(best).value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(long scope, float[] query, long[] chunkIds, long version, V value) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (entries.size() >= maxSize) {
+                removeAt(leastRecentlyUsed());
+                evictions++;
+            }
+            entries.add(new Entry<>(scope, query, sorted(chunkIds), version, value, now + ttlNanos));
+            lastAccess.add(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+            lastAccess.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LruCache.Stats stats() {
+        lock.lock();
+        try {
+            long requests = hits + misses;
+            double hitRate = requests == 0 ? 0.0 : (double) hits / requests;
+            return new LruCache.Stats(entries.size(), maxSize, hits, misses, hitRate, evictions, expirations);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int leastRecentlyUsed() {
+        int oldest = 0;
+        for (int i = 1; i < lastAccess.size(); i++) {
+            if (lastAccess.get(i) - lastAccess.get(oldest) < 0) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Xóa bằng cách chuyển phần tử cuối vào chỗ trống (thứ tự không quan trọng)
+     */
+    private void removeAt(int index) {
+        int last = entries.size() - 1;
+        entries.set(index, entries.get(last));
+        lastAccess.set(index, lastAccess.get(last));
+        entries.remove(last);
+        lastAccess.remove(last);
+    }
+
+    private static long[] sorted(long[] chunkIds) {
+        long[] copy = chunkIds.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,54 @@
+package com.documindai.config;
+
+import com.documindai.search.Analyzer;
+import com.documindai.search.StandardAnalyzer;
+import com.documindai.search.TermDictionary;
+import com.documindai.search.VietnameseAnalyzer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Analyzer Configuration
+ * Chọn analyzer cho các lexical index (BM25 chunks, full-text documents) theo app.search.analyzer.type
+ * (standard | vietnamese); index và truy vấn luôn dùng chung một analyzer
+ */
+@Configuration
+@Slf4j
+public class AnalyzerConfig {
+
+    @Value("${app.search.analyzer.type:vietnamese}")
+    private String type;
+
+    @Value("${app.search.analyzer.fold-diacritics:true}")
+    private boolean foldDiacritics;
+
+    @Value("${app.search.analyzer.stopwords-enabled:true}")
+    private boolean stopwordsEnabled;
+
+    @Value("${app.search.analyzer.dictionary-max-entries:200000}")
+    private int dictionaryMaxEntries;
+
+    /**
+     * Analyzer dùng chung cho keyword index và full-text index
+     */
+    @Bean
+    public Analyzer analyzer() {
+        return switch (type.toLowerCase()) {
+            case "standard" -> {
+                log.info("Using standard analyzer for lexical indexes");
+                yield new StandardAnalyzer();
+            }
+            case "vietnamese" -> {
+                log.info("Using Vietnamese analyzer (foldDiacritics={}, stopwords={}, dictionaryMaxEntries={})",
+                        foldDiacritics, stopwordsEnabled, dictionaryMaxEntries);
+                Set<String> stopwords = stopwordsEnabled ? VietnameseAnalyzer.DEFAULT_STOPWORDS : Set.of();
+                yield new VietnameseAnalyzer(new TermDictionary(stopwords, foldDiacritics, dictionaryMaxEntries));
+            }
+            default -> throw new IllegalStateException("Unknown analyzer type: " + type);
+        };
+    }
+}
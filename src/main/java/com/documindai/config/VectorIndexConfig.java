@@ -0,0 +1,166 @@
+package com.documindai.config;
+
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.projection.ChunkVectorView;
+import com.documindai.retrieval.FlatVectorIndex;
+import com.documindai.retrieval.FullPrecisionVectorLoader;
+import com.documindai.retrieval.HnswVectorIndex;
+import com.documindai.retrieval.Int8VectorIndex;
+import com.documindai.retrieval.IvfVectorIndex;
+import com.documindai.retrieval.MappedVectorIndex;
+import com.documindai.retrieval.PartitionedVectorIndex;
+import com.documindai.retrieval.PqVectorIndex;
+import com.documindai.retrieval.TenantShardedVectorIndex;
+import com.documindai.retrieval.VectorIndex;
+import com.documindai.retrieval.VectorIndexFactory;
+import com.documindai.utils.EmbeddingUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Vector Index Configuration
+ * Chọn engine retrieval theo cấu hình app.retrieval.engine (flat | partitioned | hnsw | ivf | int8 | pq | mmap)
+ */
+@Configuration
+@Slf4j
+public class VectorIndexConfig {
+
+    @Value("${app.retrieval.engine:flat}")
+    private String engine;
+
+    @Value("${app.retrieval.tenant-sharding.enabled:true}")
+    private boolean tenantShardingEnabled;
+
+    @Value("${app.retrieval.partitioned.initial-capacity:16}")
+    private int partitionInitialCapacity;
+
+    @Value("${app.retrieval.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${app.retrieval.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${app.retrieval.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    @Value("${app.retrieval.ivf.nlist:256}")
+    private int ivfNlist;
+
+    @Value("${app.retrieval.ivf.nprobe:16}")
+    private int ivfNprobe;
+
+    @Value("${app.retrieval.ivf.retrain-growth-factor:2.0}")
+    private double ivfRetrainGrowthFactor;
+
+    @Value("${app.retrieval.int8.rerank-factor:4}")
+    private int int8RerankFactor;
+
+    @Value("${app.retrieval.pq.subspaces:96}")
+    private int pqSubspaces;
+
+    @Value("${app.retrieval.pq.rerank-factor:8}")
+    private int pqRerankFactor;
+
+    @Value("${app.retrieval.mmap.data-dir:data/vectors}")
+    private String mmapDataDir;
+
+    @Value("${app.retrieval.mmap.segment-capacity:65536}")
+    private int mmapSegmentCapacity;
+
+    @Value("${app.retrieval.mmap.compaction-threshold:0.3}")
+    private double mmapCompactionThreshold;
+
+    /**
+     * Factory tạo vector index cho tìm kiếm chunks, một index cho mỗi embedding model đang dùng
+     * Khi bật tenant sharding, mỗi tenant (admin upload) có một index riêng của engine đã chọn
+     */
+    @Bean
+    public VectorIndexFactory vectorIndexFactory(DocumentChunkRepository chunkRepository) {
+        if (tenantShardingEnabled && "mmap".equalsIgnoreCase(engine)) {
+            // Các shards không thể dùng chung data dir của một index lưu trên disk
+            log.warn("Tenant sharding is not supported by the mmap engine, using a single shared index");
+        } else if (tenantShardingEnabled) {
+            log.info("Sharding vector index by tenant (document uploader)");
+        }
+        return embeddingModel -> {
+            Supplier<VectorIndex> engineFactory =
+                    engineFactory(fullPrecisionVectorLoader(chunkRepository, embeddingModel));
+            if (!tenantShardingEnabled || "mmap".equalsIgnoreCase(engine)) {
+                return engineFactory.get();
+            }
+            return new TenantShardedVectorIndex(engineFactory);
+        };
+    }
+
+    /**
+     * Factory tạo index của engine đã chọn (một index, hoặc một index cho mỗi tenant shard)
+     */
+    private Supplier<VectorIndex> engineFactory(FullPrecisionVectorLoader vectorLoader) {
+        return switch (engine.toLowerCase()) {
+            case "partitioned" -> {
+                log.info("Using exact vector index partitioned by document (initialCapacity={})",
+                        partitionInitialCapacity);
+                yield () -> new PartitionedVectorIndex(() -> new FlatVectorIndex(partitionInitialCapacity));
+            }
+            case "flat" -> {
+                log.info("Using exact (flat) vector index");
+                yield () -> new FlatVectorIndex();
+            }
+            case "hnsw" -> {
+                log.info("Using HNSW vector index (m={}, efConstruction={}, efSearch={})",
+                        hnswM, hnswEfConstruction, hnswEfSearch);
+                yield () -> new HnswVectorIndex(hnswM, hnswEfConstruction, hnswEfSearch);
+            }
+            case "ivf" -> {
+                log.info("Using IVF vector index (nlist={}, nprobe={}, retrainGrowthFactor={})",
+                        ivfNlist, ivfNprobe, ivfRetrainGrowthFactor);
+                yield () -> new IvfVectorIndex(ivfNlist, ivfNprobe, ivfRetrainGrowthFactor);
+            }
+            case "int8" -> {
+                log.info("Using int8 scalar-quantized vector index (rerankFactor={})", int8RerankFactor);
+                yield () -> new Int8VectorIndex(vectorLoader, int8RerankFactor);
+            }
+            case "pq" -> {
+                log.info("Using product-quantized vector index (subspaces={}, rerankFactor={})",
+                        pqSubspaces, pqRerankFactor);
+                yield () -> new PqVectorIndex(pqSubspaces, vectorLoader, pqRerankFactor);
+            }
+            case "mmap" -> {
+                log.info("Using memory-mapped vector index (dataDir={}, segmentCapacity={}, compactionThreshold={})",
+                        mmapDataDir, mmapSegmentCapacity, mmapCompactionThreshold);
+                yield () -> new MappedVectorIndex(Path.of(mmapDataDir), mmapSegmentCapacity, mmapCompactionThreshold);
+            }
+            default -> throw new IllegalStateException("Unknown retrieval engine: " + engine);
+        };
+    }
+
+    /**
+     * Load vectors float32 (đã chuẩn hóa) của một embedding model từ database theo chunk ID (dùng cho re-ranking)
+     */
+    private static FullPrecisionVectorLoader fullPrecisionVectorLoader(DocumentChunkRepository chunkRepository,
+                                                                       String embeddingModel) {
+        return chunkIds -> {
+            Map<Long, float[]> vectors = new HashMap<>();
+            for (ChunkVectorView view : chunkRepository.findVectorsByIdIn(chunkIds)) {
+                float[] vector = null;
+                if (embeddingModel.equals(view.getEmbeddingModel())) {
+                    vector = EmbeddingUtils.readUnitVector(view.getEmbeddingVector(), view.getEmbedding(),
+                            view.getEmbeddingNormalized());
+                } else if (embeddingModel.equals(view.getShadowEmbeddingModel())) {
+                    vector = EmbeddingUtils.readModelVector(view, embeddingModel);
+                }
+                if (vector != null) {
+                    vectors.put(view.getId(), vector);
+                }
+            }
+            return vectors;
+        };
+    }
+}
@@ -1,11 +1,20 @@
 package com.documindai.controller;
 
+import com.documindai.cache.LruCache;
 import com.documindai.dto.response.ApiResponse;
 import com.documindai.dto.response.DocumentResponse;
 import com.documindai.dto.response.UserResponse;
 import com.documindai.model.User;
+import com.documindai.retrieval.KernelBenchmark.BenchmarkReport;
+import com.documindai.retrieval.RecallEvaluator.RecallReport;
+import com.documindai.service.AnswerCacheService;
 import com.documindai.service.DocumentService;
+import com.documindai.service.EmbeddingMigrationService;
+import com.documindai.service.QueryEmbeddingService;
+import com.documindai.service.ReembeddingService;
 import com.documindai.service.UserService;
+import com.documindai.service.VectorIndexDiagnosticsService;
+import com.documindai.service.VectorIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -31,6 +40,12 @@ public class AdminController {
 
     private final DocumentService documentService;
     private final UserService userService;
+    private final EmbeddingMigrationService embeddingMigrationService;
+    private final ReembeddingService reembeddingService;
+    private final VectorIndexService vectorIndexService;
+    private final VectorIndexDiagnosticsService vectorIndexDiagnosticsService;
+    private final QueryEmbeddingService queryEmbeddingService;
+    private final AnswerCacheService answerCacheService;
 
     /**
      * Upload document
@@ -96,6 +111,148 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(document, "Document reprocessed successfully"));
     }
 
+    /**
+     * Migrate embeddings JSON cũ sang định dạng nhị phân float32
+     */
+    @PostMapping("/embeddings/migrate")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> migrateEmbeddings() {
+        log.info("Admin starting embedding migration");
+
+        Map<String, Object> result = embeddingMigrationService.migrateToBinary();
+
+        return ResponseEntity.ok(ApiResponse.success(result, "Embedding migration completed"));
+    }
+
+    /**
+     * Chuẩn hóa L2 các embeddings nhị phân cũ (backfill một lần)
+     */
+    @PostMapping("/embeddings/normalize")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> normalizeEmbeddings() {
+        log.info("Admin starting embedding normalization backfill");
+
+        Map<String, Object> result = embeddingMigrationService.normalizeStored();
+
+        return ResponseEntity.ok(ApiResponse.success(result, "Embedding normalization completed"));
+    }
+
+    /**
+     * Re-embed corpus sang embedding model mới trong background (mặc định model trong cấu hình),
+     * index phục vụ chỉ đổi sang model mới khi job hoàn tất
+     */
+    @PostMapping("/embeddings/reembed")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> startReembedding(
+            @RequestParam(required = false) String model) {
+        log.info("Admin starting re-embedding into model {}", model);
+
+        Map<String, Object> status = reembeddingService.start(model);
+
+        return ResponseEntity.ok(ApiResponse.success(status, "Re-embedding started"));
+    }
+
+    /**
+     * Trạng thái của job re-embedding gần nhất
+     */
+    @GetMapping("/embeddings/reembed")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getReembeddingStatus() {
+        log.info("Admin fetching re-embedding status");
+
+        Map<String, Object> status = reembeddingService.status();
+
+        return ResponseEntity.ok(ApiResponse.success(status, "Re-embedding status retrieved successfully"));
+    }
+
+    /**
+     * Hủy job re-embedding đang chạy (model đang phục vụ giữ nguyên)
+     */
+    @PostMapping("/embeddings/reembed/cancel")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> cancelReembedding() {
+        log.info("Admin cancelling re-embedding");
+
+        Map<String, Object> status = reembeddingService.cancel();
+
+        return ResponseEntity.ok(ApiResponse.success(status, "Re-embedding cancellation requested"));
+    }
+
+    /**
+     * Đo recall@k của vector index đang dùng so với exact scan
+     */
+    @GetMapping("/retrieval/recall")
+    public ResponseEntity<ApiResponse<RecallReport>> evaluateRecall(
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "100") int queries) {
+        log.info("Admin evaluating retrieval recall@{} with {} queries", k, queries);
+
+        RecallReport report = vectorIndexDiagnosticsService.evaluateRecall(k, queries);
+
+        return ResponseEntity.ok(ApiResponse.success(report, "Recall evaluated successfully"));
+    }
+
+    /**
+     * Benchmark throughput của kernel SIMD so với scalar
+     */
+    @GetMapping("/retrieval/kernel-benchmark")
+    public ResponseEntity<ApiResponse<BenchmarkReport>> benchmarkKernel(
+            @RequestParam(defaultValue = "1536") int dimension,
+            @RequestParam(defaultValue = "10000") int vectors,
+            @RequestParam(defaultValue = "20") int rounds) {
+        log.info("Admin benchmarking vector kernel (dimension {}, {} vectors)", dimension, vectors);
+
+        BenchmarkReport report = vectorIndexDiagnosticsService.benchmarkKernel(dimension, vectors, rounds);
+
+        return ResponseEntity.ok(ApiResponse.success(report, "Kernel benchmarked successfully"));
+    }
+
+    /**
+     * Số vectors của từng tenant shard đang nằm trong bộ nhớ
+     */
+    @GetMapping("/retrieval/tenants")
+    public ResponseEntity<ApiResponse<Map<Long, Integer>>> getTenantShards() {
+        log.info("Admin fetching tenant shard sizes");
+
+        Map<Long, Integer> shards = vectorIndexService.tenantShardSizes();
+
+        return ResponseEntity.ok(ApiResponse.success(shards, "Tenant shards retrieved successfully"));
+    }
+
+    /**
+     * Giải phóng shard của một tenant khỏi bộ nhớ (được load lại ở truy vấn kế tiếp của tenant)
+     */
+    @DeleteMapping("/retrieval/tenants/{tenantId}")
+    public ResponseEntity<ApiResponse<Integer>> evictTenantShard(@PathVariable Long tenantId) {
+        log.info("Admin evicting vector shard of tenant {}", tenantId);
+
+        int released = vectorIndexService.evictTenant(tenantId);
+
+        return ResponseEntity.ok(ApiResponse.success(released, "Tenant shard evicted successfully"));
+    }
+
+    /**
+     * Thống kê hit/miss của các caches
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<ApiResponse<Map<String, LruCache.Stats>>> getCacheStats() {
+        log.info("Admin fetching cache statistics");
+
+        Map<String, LruCache.Stats> stats = new HashMap<>();
+        stats.put("queryEmbeddings", queryEmbeddingService.stats());
+        stats.put("answers", answerCacheService.stats());
+
+        return ResponseEntity.ok(ApiResponse.success(stats, "Cache statistics retrieved successfully"));
+    }
+
+    /**
+     * Xóa toàn bộ các caches
+     */
+    @PostMapping("/caches/clear")
+    public ResponseEntity<ApiResponse<Void>> clearCaches() {
+        log.info("Admin clearing caches");
+
+        queryEmbeddingService.clear();
+        answerCacheService.onCorpusChanged();
+
+        return ResponseEntity.ok(ApiResponse.success(null, "Caches cleared successfully"));
+    }
+
     /**
      * Get all users
      */
@@ -108,6 +265,20 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
     }
 
+    /**
+     * Gán user vào workspace (tenant) của một admin
+     */
+    @PutMapping("/users/{id}/tenant")
+    public ResponseEntity<ApiResponse<UserResponse>> assignTenant(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long tenantId) {
+        log.info("Admin assigning user {} to tenant {}", id, tenantId);
+
+        UserResponse user = userService.assignTenant(id, tenantId);
+
+        return ResponseEntity.ok(ApiResponse.success(user, "Tenant assigned successfully"));
+    }
+
     /**
      * Get system statistics
      */
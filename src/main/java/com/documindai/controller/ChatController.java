@@ -4,6 +4,7 @@ import com.documindai.dto.request.ChatRequest;
 import com.documindai.dto.response.ApiResponse;
 import com.documindai.dto.response.ChatResponse;
 import com.documindai.dto.response.ChatSessionResponse;
+import com.documindai.dto.response.DocumentSearchResponse;
 import com.documindai.model.User;
 import com.documindai.service.ChatService;
 import com.documindai.service.UserService;
@@ -141,4 +142,21 @@ public class ChatController {
 
         return ResponseEntity.ok(ApiResponse.success(content, "Document preview retrieved successfully"));
     }
+
+    /**
+     * Full-text search documents (hỗ trợ cụm từ trong dấu nháy kép)
+     */
+    @GetMapping("/documents/search")
+    public ResponseEntity<ApiResponse<DocumentSearchResponse>> searchDocuments(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        log.info("User {} searching documents: {}", userDetails.getUsername(), query);
+
+        DocumentSearchResponse response = documentService.searchDocuments(query, page, size);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Documents searched successfully"));
+    }
 }
@@ -42,6 +42,7 @@ public class UserController {
         response.setFullName(user.getFullName());
         response.setRole(user.getRole().toString());
         response.setActive(user.getActive());
+        response.setTenantId(user.getTenantId());
         response.setCreatedAt(user.getCreatedAt());
 
         return ResponseEntity.ok(ApiResponse.success(response, "Profile retrieved successfully"));
@@ -6,6 +6,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * DTO cho request gửi tin nhắn chat
  */
@@ -25,4 +28,14 @@ public class ChatRequest {
     private Integer maxTokens; // Số tokens tối đa cho response (optional)
     
     private Double temperature; // Temperature cho AI (0.0 - 1.0, optional)
+
+    @Size(max = 50, message = "Chỉ được giới hạn tối đa 50 tài liệu")
+    private List<Long> documentIds; // Chỉ tìm context trong các documents này (optional, null = tất cả documents)
+
+    @Size(max = 20, message = "Chỉ được lọc tối đa 20 loại file")
+    private List<String> fileTypes; // Chỉ tìm trong documents thuộc các loại file này, ví dụ ["pdf", "docx"] (optional)
+
+    private LocalDate uploadedFrom; // Chỉ tìm trong documents upload từ ngày này (optional, yyyy-MM-dd)
+
+    private LocalDate uploadedTo; // Chỉ tìm trong documents upload đến hết ngày này (optional, yyyy-MM-dd)
 }
@@ -0,0 +1,24 @@
+package com.documindai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO cho một trang kết quả tìm kiếm full-text documents
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSearchResponse {
+
+    private String query;
+    private Integer page;
+    private Integer size;
+    private Integer totalHits;
+    private Integer totalPages;
+    private Long tookMs;
+    private List<DocumentSearchResult> results;
+}
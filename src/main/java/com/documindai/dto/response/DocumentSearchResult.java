@@ -0,0 +1,18 @@
+package com.documindai.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO cho một document khớp truy vấn tìm kiếm
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSearchResult {
+
+    private DocumentResponse document;
+    private Double score;
+    private String snippet; // Đoạn nội dung quanh vị trí khớp đầu tiên
+}
@@ -20,6 +20,7 @@ public class UserResponse {
     private String fullName;
     private String role;
     private Boolean active;
+    private Long tenantId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long totalChatSessions;
@@ -0,0 +1,13 @@
+package com.documindai.event;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+
+import java.util.List;
+
+/**
+ * Document đã được xử lý xong (kể cả xử lý lỗi giữa chừng): các chunks đã lưu (có hoặc chưa có embedding)
+ * và document cần được đưa vào các index
+ */
+public record ChunksEmbeddedEvent(Document document, List<DocumentChunk> chunks) {
+}
@@ -0,0 +1,7 @@
+package com.documindai.event;
+
+/**
+ * Document đã bị xóa (soft delete), chunks của nó đã bị xóa khỏi database
+ */
+public record DocumentDeletedEvent(Long documentId) {
+}
@@ -0,0 +1,12 @@
+package com.documindai.event;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+
+import java.util.List;
+
+/**
+ * Document đã được xử lý lại: toàn bộ chunks cũ bị thay bằng các chunks mới
+ */
+public record DocumentReprocessedEvent(Document document, List<DocumentChunk> chunks) {
+}
@@ -0,0 +1,90 @@
+package com.documindai.event;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+import com.documindai.service.AnswerCacheService;
+import com.documindai.service.FullTextIndexService;
+import com.documindai.service.KeywordIndexService;
+import com.documindai.service.VectorIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Cập nhật tăng dần các index trong bộ nhớ (vector, BM25, full-text) và answer cache theo domain events
+ *
+ * Events chỉ được áp dụng sau khi transaction phát ra chúng commit: index không bao giờ thấy dữ liệu
+ * của transaction bị rollback, và dữ liệu mới có thể truy vấn ngay sau commit mà không cần rebuild.
+ * Xóa document là bỏ vectors của document (tombstone hoặc bỏ partition tùy engine), không reload toàn bộ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndexMaintenanceListener {
+
+    private final VectorIndexService vectorIndexService;
+    private final KeywordIndexService keywordIndexService;
+    private final FullTextIndexService fullTextIndexService;
+    private final AnswerCacheService answerCacheService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChunksEmbedded(ChunksEmbeddedEvent event) {
+        Long documentId = event.document().getId();
+        apply("chunks embedded", documentId, () -> indexDocument(event.document(), event.chunks()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDocumentReprocessed(DocumentReprocessedEvent event) {
+        Long documentId = event.document().getId();
+        apply("document reprocessed", documentId, () -> {
+            // Index versioned (chia shard theo tenant, hoặc partitioned) đổi chunks cũ sang chunks mới trong một lần swap;
+            // khi tắt tenant sharding, engine không versioned được sửa tại chỗ và truy vấn song song có thể thấy
+            // document đang được index lại
+            vectorIndexService.reindexDocument(event.document(), event.chunks());
+            keywordIndexService.removeDocument(documentId);
+            keywordIndexService.indexChunks(event.chunks());
+            fullTextIndexService.indexDocument(event.document());
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        apply("document deleted", event.documentId(), () -> {
+            removeDocument(event.documentId());
+            fullTextIndexService.removeDocument(event.documentId());
+        });
+    }
+
+    private void indexDocument(Document document, List<DocumentChunk> chunks) {
+        vectorIndexService.indexChunks(chunks);
+        keywordIndexService.indexChunks(chunks);
+        vectorIndexService.indexDocument(document);
+        fullTextIndexService.indexDocument(document);
+    }
+
+    private void removeDocument(Long documentId) {
+        vectorIndexService.removeDocument(documentId);
+        keywordIndexService.removeDocument(documentId);
+    }
+
+    /**
+     * Áp dụng một event rồi vô hiệu hóa answer cache; lỗi được log lại (transaction đã commit, không rollback được)
+     */
+    private void apply(String event, Long documentId, Runnable update) {
+        long start = System.nanoTime();
+        try {
+            update.run();
+            log.info("Applied '{}' for document {} to in-memory indexes in {} us",
+                    event, documentId, (System.nanoTime() - start) / 1000);
+        } catch (RuntimeException e) {
+            log.error("Failed to apply '{}' for document {} to in-memory indexes, a rebuild may be required: {}",
+                    event, documentId, e.getMessage(), e);
+        } finally {
+            answerCacheService.onCorpusChanged();
+        }
+    }
+}
@@ -44,7 +44,22 @@ public class Document {
     private String summary; // Tóm tắt nội dung do AI tạo
     
     @Column(columnDefinition = "LONGTEXT")
-    private String embedding; // Vector embedding từ OpenAI (JSON format)
+    private String embedding; // Vector embedding từ OpenAI (JSON format, định dạng cũ)
+
+    @Column(name = "embedding_vector", columnDefinition = "BLOB")
+    private byte[] embeddingVector; // Vector embedding (float32 little-endian)
+
+    @Column(name = "embedding_normalized")
+    private Boolean embeddingNormalized; // embeddingVector đã chuẩn hóa L2 (norm = 1) hay chưa
+
+    @Column(name = "embedding_model", length = 100)
+    private String embeddingModel; // Embedding model đã tạo embeddingVector/embedding
+
+    @Column(name = "shadow_embedding_vector", columnDefinition = "BLOB")
+    private byte[] shadowEmbeddingVector; // Vector (đã chuẩn hóa) của model đang re-embed, thay embeddingVector khi đổi model
+
+    @Column(name = "shadow_embedding_model", length = 100)
+    private String shadowEmbeddingModel; // Embedding model của shadowEmbeddingVector
     
     @Column(nullable = false)
     private Boolean processed = false; // Đã xử lý bởi AI chưa
@@ -37,7 +37,22 @@ public class DocumentChunk {
     private String content; // Nội dung text của chunk
 
     @Column(columnDefinition = "LONGTEXT")
-    private String embedding; // Vector embedding (JSON format)
+    private String embedding; // Vector embedding (JSON format, định dạng cũ)
+
+    @Column(name = "embedding_vector", columnDefinition = "BLOB")
+    private byte[] embeddingVector; // Vector embedding (float32 little-endian)
+
+    @Column(name = "embedding_normalized")
+    private Boolean embeddingNormalized; // embeddingVector đã chuẩn hóa L2 (norm = 1) hay chưa
+
+    @Column(name = "embedding_model", length = 100)
+    private String embeddingModel; // Embedding model đã tạo embeddingVector/embedding
+
+    @Column(name = "shadow_embedding_vector", columnDefinition = "BLOB")
+    private byte[] shadowEmbeddingVector; // Vector (đã chuẩn hóa) của model đang re-embed, thay embeddingVector khi đổi model
+
+    @Column(name = "shadow_embedding_model", length = 100)
+    private String shadowEmbeddingModel; // Embedding model của shadowEmbeddingVector
 
     @Column(nullable = false)
     private Integer startPosition; // Vị trí bắt đầu trong document gốc
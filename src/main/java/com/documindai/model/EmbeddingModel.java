@@ -0,0 +1,48 @@
+package com.documindai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity ghi nhận các embedding model đã dùng và model nào đang phục vụ retrieval
+ * Vectors của các model khác nhau không so sánh được, nên tại mỗi thời điểm chỉ có một model SERVING
+ */
+@Entity
+@Table(name = "embedding_models")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String name; // Tên model của OpenAI (ví dụ text-embedding-3-small)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime activatedAt; // Thời điểm model bắt đầu phục vụ
+
+    /**
+     * Trạng thái của model
+     */
+    public enum Status {
+        SERVING, // Embeddings của corpus và câu hỏi đang dùng model này
+        SHADOW, // Corpus đang được re-embed sang model này
+        RETIRED // Không còn dùng
+    }
+}
@@ -47,6 +47,10 @@ public class User {
     @Column(nullable = false)
     private Boolean active = true;
     
+    // Workspace (tenant) của user: ID admin có documents mà user được hỏi (null = mọi documents)
+    @Column(name = "tenant_id")
+    private Long tenantId;
+    
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
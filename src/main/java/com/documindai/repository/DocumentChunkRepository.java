@@ -1,11 +1,21 @@
 package com.documindai.repository;
 
 import com.documindai.model.DocumentChunk;
+import com.documindai.repository.projection.ChunkContentView;
+import com.documindai.repository.projection.ChunkContextView;
+import com.documindai.repository.projection.ChunkIndexView;
+import com.documindai.repository.projection.ChunkRefView;
+import com.documindai.repository.projection.ChunkVectorView;
+import com.documindai.repository.projection.LegacyEmbeddingView;
+import com.documindai.repository.projection.StoredVectorView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,10 +30,64 @@ public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Lo
     List<DocumentChunk> findByDocumentIdOrderByChunkIndexAsc(Long documentId);
 
     /**
-     * Tìm tất cả chunks có embedding (đã được xử lý)
+     * Lấy một batch (chunk ID, document ID, tenant ID, embedding) của các chunks có embedding của model cho trước
+     * (ở slot chính hoặc slot shadow) thuộc documents đang active, theo thứ tự ID
+     * (dùng để build vector index, không hydrate entity)
      */
-    @Query("SELECT dc FROM DocumentChunk dc WHERE dc.embedding IS NOT NULL AND dc.document.active = true")
-    List<DocumentChunk> findAllWithEmbeddings();
+    @Query("SELECT dc.id AS id, d.id AS documentId, d.uploadedBy.id AS tenantId, " +
+           "dc.embeddingVector AS embeddingVector, dc.embedding AS embedding, " +
+           "dc.embeddingNormalized AS embeddingNormalized, dc.embeddingModel AS embeddingModel, " +
+           "dc.shadowEmbeddingVector AS shadowEmbeddingVector, dc.shadowEmbeddingModel AS shadowEmbeddingModel " +
+           "FROM DocumentChunk dc JOIN dc.document d " +
+           "WHERE (dc.embeddingModel = :model OR dc.shadowEmbeddingModel = :model) AND d.active = true " +
+           "AND dc.id > :afterId ORDER BY dc.id")
+    List<ChunkIndexView> findIndexVectors(@Param("model") String model, @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    /**
+     * Như findIndexVectors nhưng chỉ lấy chunks của documents do một tenant (admin) upload
+     * (dùng để load lại shard của tenant đã bị evict)
+     */
+    @Query("SELECT dc.id AS id, d.id AS documentId, d.uploadedBy.id AS tenantId, " +
+           "dc.embeddingVector AS embeddingVector, dc.embedding AS embedding, " +
+           "dc.embeddingNormalized AS embeddingNormalized, dc.embeddingModel AS embeddingModel, " +
+           "dc.shadowEmbeddingVector AS shadowEmbeddingVector, dc.shadowEmbeddingModel AS shadowEmbeddingModel " +
+           "FROM DocumentChunk dc JOIN dc.document d " +
+           "WHERE (dc.embeddingModel = :model OR dc.shadowEmbeddingModel = :model) AND d.active = true " +
+           "AND d.uploadedBy.id = :tenantId AND dc.id > :afterId ORDER BY dc.id")
+    List<ChunkIndexView> findTenantIndexVectors(@Param("model") String model, @Param("tenantId") Long tenantId,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Lấy một batch (chunk ID, document ID) của các chunks có embedding của model cho trước thuộc documents đang active
+     * với ID trong khoảng (afterId, maxId], theo thứ tự ID (dùng để đối chiếu snapshot vector index với database)
+     */
+    @Query("SELECT dc.id AS id, d.id AS documentId FROM DocumentChunk dc JOIN dc.document d " +
+           "WHERE (dc.embeddingModel = :model OR dc.shadowEmbeddingModel = :model) AND d.active = true " +
+           "AND dc.id > :afterId AND dc.id <= :maxId ORDER BY dc.id")
+    List<ChunkRefView> findIndexRefs(@Param("model") String model, @Param("afterId") Long afterId,
+                                     @Param("maxId") Long maxId, Pageable pageable);
+
+    /**
+     * Như findIndexVectors nhưng chỉ lấy chunks của các documents cho trước (dùng để nạp lại documents đã đổi)
+     */
+    @Query("SELECT dc.id AS id, d.id AS documentId, d.uploadedBy.id AS tenantId, " +
+           "dc.embeddingVector AS embeddingVector, dc.embedding AS embedding, " +
+           "dc.embeddingNormalized AS embeddingNormalized, dc.embeddingModel AS embeddingModel, " +
+           "dc.shadowEmbeddingVector AS shadowEmbeddingVector, dc.shadowEmbeddingModel AS shadowEmbeddingModel " +
+           "FROM DocumentChunk dc JOIN dc.document d " +
+           "WHERE (dc.embeddingModel = :model OR dc.shadowEmbeddingModel = :model) AND d.active = true " +
+           "AND d.id IN :documentIds AND dc.id > :afterId ORDER BY dc.id")
+    List<ChunkIndexView> findIndexVectorsByDocumentIdIn(@Param("model") String model,
+                                                        @Param("documentIds") Collection<Long> documentIds,
+                                                        @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Lấy nội dung và tên document của các chunks theo ID trong một query (dùng cho top-k của retrieval)
+     */
+    @Query("SELECT dc.id AS id, d.id AS documentId, d.originalFilename AS documentName, dc.content AS content " +
+           "FROM DocumentChunk dc JOIN dc.document d WHERE dc.id IN :ids")
+    List<ChunkContextView> findContextByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
      * Xóa tất cả chunks của một document
@@ -38,6 +102,106 @@ public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Lo
     /**
      * Tìm chunks chưa có embedding
      */
-    @Query("SELECT dc FROM DocumentChunk dc WHERE dc.embedding IS NULL")
+    @Query("SELECT dc FROM DocumentChunk dc WHERE dc.embedding IS NULL AND dc.embeddingVector IS NULL")
     List<DocumentChunk> findChunksWithoutEmbeddings();
+
+    /**
+     * Lấy một batch chunks còn embedding JSON (chưa migrate), theo thứ tự ID
+     */
+    @Query("SELECT dc.id AS id, dc.embedding AS embedding FROM DocumentChunk dc " +
+           "WHERE dc.embedding IS NOT NULL AND dc.embeddingVector IS NULL AND dc.id > :afterId ORDER BY dc.id")
+    List<LegacyEmbeddingView> findLegacyEmbeddings(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Lấy một batch chunks có embedding nhị phân chưa chuẩn hóa, theo thứ tự ID
+     */
+    @Query("SELECT dc.id AS id, dc.embeddingVector AS embeddingVector FROM DocumentChunk dc " +
+           "WHERE dc.embeddingVector IS NOT NULL AND (dc.embeddingNormalized IS NULL OR dc.embeddingNormalized = false) " +
+           "AND dc.id > :afterId ORDER BY dc.id")
+    List<StoredVectorView> findUnnormalizedVectors(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Ghi embedding nhị phân đã chuẩn hóa và xóa bản JSON cũ của một chunk
+     */
+    @Modifying
+    @Query("UPDATE DocumentChunk dc SET dc.embeddingVector = :vector, dc.embeddingNormalized = true, " +
+           "dc.embedding = NULL WHERE dc.id = :id")
+    int updateEmbeddingVector(@Param("id") Long id, @Param("vector") byte[] vector);
+
+    /**
+     * Lấy embeddings full-precision của các chunks theo ID (dùng cho re-ranking)
+     */
+    @Query("SELECT dc.id AS id, dc.embeddingVector AS embeddingVector, dc.embedding AS embedding, " +
+           "dc.embeddingNormalized AS embeddingNormalized, dc.embeddingModel AS embeddingModel, " +
+           "dc.shadowEmbeddingVector AS shadowEmbeddingVector, dc.shadowEmbeddingModel AS shadowEmbeddingModel " +
+           "FROM DocumentChunk dc WHERE dc.id IN :ids")
+    List<ChunkVectorView> findVectorsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lấy nội dung của tất cả chunks thuộc documents đang active (dùng để build keyword index)
+     */
+    @Query("SELECT dc.id AS id, dc.document.id AS documentId, dc.content AS content FROM DocumentChunk dc " +
+           "WHERE dc.document.active = true")
+    List<ChunkContentView> findActiveChunkContents();
+
+    /**
+     * Lấy một batch nội dung của các chunks (thuộc documents đang active) đã có embedding nhưng chưa có embedding
+     * của model cho trước ở slot nào, theo thứ tự ID (dùng để re-embed corpus sang model mới)
+     */
+    @Query("SELECT dc.id AS id, d.id AS documentId, dc.content AS content FROM DocumentChunk dc JOIN dc.document d " +
+           "WHERE d.active = true AND dc.embeddingModel IS NOT NULL AND dc.embeddingModel <> :model " +
+           "AND (dc.shadowEmbeddingModel IS NULL OR dc.shadowEmbeddingModel <> :model) " +
+           "AND dc.id > :afterId ORDER BY dc.id")
+    List<ChunkContentView> findContentsMissingModel(@Param("model") String model, @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    /**
+     * Ghi vector (đã chuẩn hóa) của model đang re-embed vào slot shadow của một chunk
+     */
+    @Modifying
+    @Query("UPDATE DocumentChunk dc SET dc.shadowEmbeddingVector = :vector, dc.shadowEmbeddingModel = :model " +
+           "WHERE dc.id = :id")
+    int updateShadowEmbedding(@Param("id") Long id, @Param("vector") byte[] vector, @Param("model") String model);
+
+    /**
+     * Thay embedding ở slot chính của một chunk bằng vector (đã chuẩn hóa) của model khác và xóa slot shadow
+     */
+    @Modifying
+    @Query("UPDATE DocumentChunk dc SET dc.embeddingVector = :vector, dc.embeddingNormalized = true, " +
+           "dc.embedding = NULL, dc.embeddingModel = :model, dc.shadowEmbeddingVector = NULL, " +
+           "dc.shadowEmbeddingModel = NULL WHERE dc.id = :id")
+    int replaceEmbedding(@Param("id") Long id, @Param("vector") byte[] vector, @Param("model") String model);
+
+    /**
+     * Lấy một batch ID của các chunks còn dữ liệu ở slot shadow, theo thứ tự ID
+     */
+    @Query("SELECT dc.id FROM DocumentChunk dc WHERE dc.shadowEmbeddingModel IS NOT NULL AND dc.id > :afterId " +
+           "ORDER BY dc.id")
+    List<Long> findShadowSlotIds(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Chuyển vector ở slot shadow của model cho trước sang slot chính (mỗi row đổi nguyên tử, luôn có đúng một slot
+     * chứa vector của model đó)
+     */
+    @Modifying
+    @Query("UPDATE DocumentChunk dc SET dc.embeddingVector = dc.shadowEmbeddingVector, dc.embeddingNormalized = true, " +
+           "dc.embedding = NULL, dc.embeddingModel = dc.shadowEmbeddingModel, dc.shadowEmbeddingVector = NULL, " +
+           "dc.shadowEmbeddingModel = NULL WHERE dc.id IN :ids AND dc.shadowEmbeddingModel = :model")
+    int promoteShadowEmbeddings(@Param("ids") Collection<Long> ids, @Param("model") String model);
+
+    /**
+     * Xóa slot shadow còn lại của các models khác model cho trước (re-embedding bị hủy)
+     */
+    @Modifying
+    @Query("UPDATE DocumentChunk dc SET dc.shadowEmbeddingVector = NULL, dc.shadowEmbeddingModel = NULL " +
+           "WHERE dc.id IN :ids AND dc.shadowEmbeddingModel <> :model")
+    int clearShadowEmbeddings(@Param("ids") Collection<Long> ids, @Param("model") String model);
+
+    /**
+     * Gán model cho các embeddings được ghi trước khi có cột embedding_model
+     */
+    @Modifying
+    @Query("UPDATE DocumentChunk dc SET dc.embeddingModel = :model WHERE dc.embeddingModel IS NULL " +
+           "AND (dc.embeddingVector IS NOT NULL OR dc.embedding IS NOT NULL)")
+    int assignEmbeddingModel(@Param("model") String model);
 }
@@ -2,12 +2,21 @@ package com.documindai.repository;
 
 import com.documindai.model.Document;
 import com.documindai.model.User;
+import com.documindai.repository.projection.DocumentContentView;
+import com.documindai.repository.projection.DocumentMetadataView;
+import com.documindai.repository.projection.DocumentSummaryView;
+import com.documindai.repository.projection.DocumentVectorView;
+import com.documindai.repository.projection.LegacyEmbeddingView;
+import com.documindai.repository.projection.StoredVectorView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -59,11 +68,18 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
        List<Document> findByUploadDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
        /**
-        * Tìm kiếm documents theo filename hoặc nội dung
+        * Lấy documents theo ID kèm người upload trong một query (dùng cho một trang kết quả tìm kiếm)
         */
-       @Query("SELECT d FROM Document d WHERE d.active = true AND " +
-                     "(d.originalFilename LIKE %:keyword% OR d.extractedContent LIKE %:keyword%)")
-       List<Document> searchDocuments(@Param("keyword") String keyword);
+       @Query("SELECT d FROM Document d JOIN FETCH d.uploadedBy WHERE d.id IN :ids")
+       List<Document> findWithUploaderByIdIn(@Param("ids") Collection<Long> ids);
+
+       /**
+        * Lấy một batch tên file và nội dung của documents đang active, theo thứ tự ID
+        * (dùng để build full-text index)
+        */
+       @Query("SELECT d.id AS id, d.originalFilename AS originalFilename, d.extractedContent AS extractedContent " +
+                     "FROM Document d WHERE d.active = true AND d.id > :afterId ORDER BY d.id")
+       List<DocumentContentView> findActiveDocumentContents(@Param("afterId") Long afterId, Pageable pageable);
 
        /**
         * Lấy tất cả documents đã processed để sử dụng cho AI context
@@ -107,4 +123,116 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
         * Đếm số documents đã xử lý và active
         */
        long countByProcessedAndActive(boolean processed, boolean active);
+
+       /**
+        * Lấy embeddings (summary) của model cho trước (ở slot chính hoặc slot shadow) của tất cả documents đang active
+        */
+       @Query("SELECT d.id AS id, d.embeddingVector AS embeddingVector, d.embedding AS embedding, " +
+                     "d.embeddingNormalized AS embeddingNormalized, d.embeddingModel AS embeddingModel, " +
+                     "d.shadowEmbeddingVector AS shadowEmbeddingVector, d.shadowEmbeddingModel AS shadowEmbeddingModel " +
+                     "FROM Document d " +
+                     "WHERE d.active = true AND (d.embeddingModel = :model OR d.shadowEmbeddingModel = :model)")
+       List<DocumentVectorView> findActiveDocumentVectors(@Param("model") String model);
+
+       /**
+        * Như findActiveDocumentVectors nhưng chỉ lấy các documents cho trước (dùng để nạp lại documents đã đổi)
+        */
+       @Query("SELECT d.id AS id, d.embeddingVector AS embeddingVector, d.embedding AS embedding, " +
+                     "d.embeddingNormalized AS embeddingNormalized, d.embeddingModel AS embeddingModel, " +
+                     "d.shadowEmbeddingVector AS shadowEmbeddingVector, d.shadowEmbeddingModel AS shadowEmbeddingModel " +
+                     "FROM Document d WHERE d.active = true AND d.id IN :ids " +
+                     "AND (d.embeddingModel = :model OR d.shadowEmbeddingModel = :model)")
+       List<DocumentVectorView> findActiveDocumentVectorsByIdIn(@Param("model") String model,
+                                                                @Param("ids") Collection<Long> ids);
+
+       /**
+        * Lấy metadata (loại file, ngày upload, active) của các documents đang active (dùng để build bitmap index
+        * metadata; giống vector index, documents đã bị ẩn không nằm trong index)
+        */
+       @Query("SELECT d.id AS id, d.fileType AS fileType, d.uploadDate AS uploadDate, d.active AS active " +
+                     "FROM Document d WHERE d.active = true")
+       List<DocumentMetadataView> findActiveMetadata();
+
+       /**
+        * Lấy một batch documents còn embedding JSON (chưa migrate), theo thứ tự ID
+        */
+       @Query("SELECT d.id AS id, d.embedding AS embedding FROM Document d " +
+                     "WHERE d.embedding IS NOT NULL AND d.embeddingVector IS NULL AND d.id > :afterId ORDER BY d.id")
+       List<LegacyEmbeddingView> findLegacyEmbeddings(@Param("afterId") Long afterId, Pageable pageable);
+
+       /**
+        * Lấy một batch documents có embedding nhị phân chưa chuẩn hóa, theo thứ tự ID
+        */
+       @Query("SELECT d.id AS id, d.embeddingVector AS embeddingVector FROM Document d " +
+                     "WHERE d.embeddingVector IS NOT NULL AND (d.embeddingNormalized IS NULL OR d.embeddingNormalized = false) " +
+                     "AND d.id > :afterId ORDER BY d.id")
+       List<StoredVectorView> findUnnormalizedVectors(@Param("afterId") Long afterId, Pageable pageable);
+
+       /**
+        * Ghi embedding nhị phân đã chuẩn hóa và xóa bản JSON cũ của một document
+        */
+       @Modifying
+       @Query("UPDATE Document d SET d.embeddingVector = :vector, d.embeddingNormalized = true, " +
+                     "d.embedding = NULL WHERE d.id = :id")
+       int updateEmbeddingVector(@Param("id") Long id, @Param("vector") byte[] vector);
+
+       /**
+        * Lấy một batch summary của các documents đang active đã có embedding nhưng chưa có embedding của model
+        * cho trước ở slot nào, theo thứ tự ID (dùng để re-embed corpus sang model mới)
+        */
+       @Query("SELECT d.id AS id, d.summary AS summary FROM Document d " +
+                     "WHERE d.active = true AND d.embeddingModel IS NOT NULL AND d.embeddingModel <> :model " +
+                     "AND (d.shadowEmbeddingModel IS NULL OR d.shadowEmbeddingModel <> :model) " +
+                     "AND d.id > :afterId ORDER BY d.id")
+       List<DocumentSummaryView> findSummariesMissingModel(@Param("model") String model, @Param("afterId") Long afterId,
+                                                           Pageable pageable);
+
+       /**
+        * Ghi vector (đã chuẩn hóa) của model đang re-embed vào slot shadow của một document
+        */
+       @Modifying
+       @Query("UPDATE Document d SET d.shadowEmbeddingVector = :vector, d.shadowEmbeddingModel = :model " +
+                     "WHERE d.id = :id")
+       int updateShadowEmbedding(@Param("id") Long id, @Param("vector") byte[] vector, @Param("model") String model);
+
+       /**
+        * Thay embedding ở slot chính của một document bằng vector (đã chuẩn hóa) của model khác và xóa slot shadow
+        */
+       @Modifying
+       @Query("UPDATE Document d SET d.embeddingVector = :vector, d.embeddingNormalized = true, " +
+                     "d.embedding = NULL, d.embeddingModel = :model, d.shadowEmbeddingVector = NULL, " +
+                     "d.shadowEmbeddingModel = NULL WHERE d.id = :id")
+       int replaceEmbedding(@Param("id") Long id, @Param("vector") byte[] vector, @Param("model") String model);
+
+       /**
+        * Lấy một batch ID của các documents còn dữ liệu ở slot shadow, theo thứ tự ID
+        */
+       @Query("SELECT d.id FROM Document d WHERE d.shadowEmbeddingModel IS NOT NULL AND d.id > :afterId " +
+                     "ORDER BY d.id")
+       List<Long> findShadowSlotIds(@Param("afterId") Long afterId, Pageable pageable);
+
+       /**
+        * Chuyển vector ở slot shadow của model cho trước sang slot chính
+        */
+       @Modifying
+       @Query("UPDATE Document d SET d.embeddingVector = d.shadowEmbeddingVector, d.embeddingNormalized = true, " +
+                     "d.embedding = NULL, d.embeddingModel = d.shadowEmbeddingModel, d.shadowEmbeddingVector = NULL, " +
+                     "d.shadowEmbeddingModel = NULL WHERE d.id IN :ids AND d.shadowEmbeddingModel = :model")
+       int promoteShadowEmbeddings(@Param("ids") Collection<Long> ids, @Param("model") String model);
+
+       /**
+        * Xóa slot shadow còn lại của các models khác model cho trước (re-embedding bị hủy)
+        */
+       @Modifying
+       @Query("UPDATE Document d SET d.shadowEmbeddingVector = NULL, d.shadowEmbeddingModel = NULL " +
+                     "WHERE d.id IN :ids AND d.shadowEmbeddingModel <> :model")
+       int clearShadowEmbeddings(@Param("ids") Collection<Long> ids, @Param("model") String model);
+
+       /**
+        * Gán model cho các embeddings được ghi trước khi có cột embedding_model
+        */
+       @Modifying
+       @Query("UPDATE Document d SET d.embeddingModel = :model WHERE d.embeddingModel IS NULL " +
+                     "AND (d.embeddingVector IS NOT NULL OR d.embedding IS NOT NULL)")
+       int assignEmbeddingModel(@Param("model") String model);
 }
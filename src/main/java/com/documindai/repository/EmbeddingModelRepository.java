@@ -0,0 +1,25 @@
+package com.documindai.repository;
+
+import com.documindai.model.EmbeddingModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository cho EmbeddingModel entity
+ */
+@Repository
+public interface EmbeddingModelRepository extends JpaRepository<EmbeddingModel, Long> {
+
+    /**
+     * Tìm model theo tên
+     */
+    Optional<EmbeddingModel> findByName(String name);
+
+    /**
+     * Tìm các models theo trạng thái
+     */
+    List<EmbeddingModel> findByStatus(EmbeddingModel.Status status);
+}
@@ -0,0 +1,13 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection gồm ID, document ID và nội dung của chunk (không load embedding)
+ */
+public interface ChunkContentView {
+
+    Long getId();
+
+    Long getDocumentId();
+
+    String getContent();
+}
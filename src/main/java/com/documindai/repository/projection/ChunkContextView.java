@@ -0,0 +1,15 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection cho các chunks được chọn làm context: nội dung và document nguồn (không load embedding)
+ */
+public interface ChunkContextView {
+
+    Long getId();
+
+    Long getDocumentId();
+
+    String getDocumentName();
+
+    String getContent();
+}
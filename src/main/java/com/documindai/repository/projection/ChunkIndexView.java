@@ -0,0 +1,14 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection để build vector index: ID chunk, ID document, tenant (admin upload) và embedding
+ * (không load content, không load Document)
+ */
+public interface ChunkIndexView extends ModelVectorView {
+
+    Long getId();
+
+    Long getDocumentId();
+
+    Long getTenantId();
+}
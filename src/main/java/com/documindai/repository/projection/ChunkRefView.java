@@ -0,0 +1,12 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection chỉ gồm ID chunk và ID document (không load embedding), dùng để đối chiếu snapshot vector index
+ * với database
+ */
+public interface ChunkRefView {
+
+    Long getId();
+
+    Long getDocumentId();
+}
@@ -0,0 +1,9 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection chỉ gồm ID và embedding của chunk (không load content)
+ */
+public interface ChunkVectorView extends ModelVectorView {
+
+    Long getId();
+}
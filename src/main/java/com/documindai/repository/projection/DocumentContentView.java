@@ -0,0 +1,13 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection gồm ID, tên file và nội dung đã extract của document (không load embedding)
+ */
+public interface DocumentContentView {
+
+    Long getId();
+
+    String getOriginalFilename();
+
+    String getExtractedContent();
+}
@@ -0,0 +1,17 @@
+package com.documindai.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection metadata dùng để lọc khi retrieval: ID, loại file, ngày upload, trạng thái active
+ */
+public interface DocumentMetadataView {
+
+    Long getId();
+
+    String getFileType();
+
+    LocalDateTime getUploadDate();
+
+    Boolean getActive();
+}
@@ -0,0 +1,11 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection gồm ID và summary của document (không load nội dung, không load embedding)
+ */
+public interface DocumentSummaryView {
+
+    Long getId();
+
+    String getSummary();
+}
@@ -0,0 +1,9 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection chỉ gồm ID và embedding (summary) của document, không load nội dung
+ */
+public interface DocumentVectorView extends ModelVectorView {
+
+    Long getId();
+}
@@ -0,0 +1,11 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection cho các bản ghi còn lưu embedding dạng JSON (chưa migrate sang nhị phân)
+ */
+public interface LegacyEmbeddingView {
+
+    Long getId();
+
+    String getEmbedding();
+}
@@ -0,0 +1,23 @@
+package com.documindai.repository.projection;
+
+/**
+ * Hai slot embedding của một row: slot chính (embeddingVector hoặc embedding JSON cũ, tạo bởi embeddingModel)
+ * và slot shadow (vector của model đang re-embed); retrieval chỉ đọc slot của model đang dùng
+ */
+public interface ModelVectorView {
+
+    byte[] getEmbeddingVector();
+
+    String getEmbedding();
+
+    /**
+     * embeddingVector đã chuẩn hóa L2 hay chưa (null với row cũ)
+     */
+    Boolean getEmbeddingNormalized();
+
+    String getEmbeddingModel();
+
+    byte[] getShadowEmbeddingVector();
+
+    String getShadowEmbeddingModel();
+}
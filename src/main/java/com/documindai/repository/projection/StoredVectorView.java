@@ -0,0 +1,11 @@
+package com.documindai.repository.projection;
+
+/**
+ * Projection gồm ID và embedding nhị phân (dùng cho backfill chuẩn hóa)
+ */
+public interface StoredVectorView {
+
+    Long getId();
+
+    byte[] getEmbeddingVector();
+}
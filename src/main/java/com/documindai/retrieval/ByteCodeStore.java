@@ -0,0 +1,104 @@
+package com.documindai.retrieval;
+
+import java.util.Arrays;
+
+/**
+ * Codes lượng tử hóa (int8, PQ) cùng độ dài lưu trong các segment mảng byte, đánh địa chỉ theo ordinal int
+ *
+ * Cùng cách chia segment với FloatVectorStore: offset trong segment luôn vừa int,
+ * nên ordinal * codeLength không còn giới hạn số vectors của index.
+ * Không thread-safe: index sở hữu store tự đồng bộ.
+ */
+final class ByteCodeStore {
+
+    // 2^26 bytes = 64 MB mỗi segment
+    static final int SEGMENT_ELEMENTS = 1 << 26;
+
+    private final int codeLength;
+    private final int shift;
+    private final int mask;
+    private byte[][] segments;
+    private int capacity;
+
+    ByteCodeStore(int codeLength, int initialCapacity) {
+        this(codeLength, initialCapacity, SEGMENT_ELEMENTS);
+    }
+
+    ByteCodeStore(int codeLength, int initialCapacity, int segmentElements) {
+        if (codeLength < 1) {
+            throw new IllegalArgumentException("Code length must be >= 1");
+        }
+        this.codeLength = codeLength;
+        this.shift = FloatVectorStore.segmentShift(codeLength, segmentElements);
+        this.mask = (1 << shift) - 1;
+        this.capacity = Math.min(Math.max(initialCapacity, 1), 1 << shift);
+        this.segments = new byte[][] {new byte[capacity * codeLength]};
+    }
+
+    private ByteCodeStore(ByteCodeStore source) {
+        this.codeLength = source.codeLength;
+        this.shift = source.shift;
+        this.mask = source.mask;
+        this.capacity = source.capacity;
+        this.segments = new byte[source.segments.length][];
+        for (int s = 0; s < segments.length; s++) {
+            segments[s] = source.segments[s].clone();
+        }
+    }
+
+    /**
+     * Bản sao độc lập với store này (shard copy-on-write)
+     */
+    ByteCodeStore copy() {
+        return new ByteCodeStore(this);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Đảm bảo chứa được required codes; required âm nghĩa là số vectors đã tràn int
+     */
+    void ensureCapacity(int required) {
+        if (required < 0) {
+            throw new IllegalStateException("Code store cannot hold more than " + Integer.MAX_VALUE + " vectors");
+        }
+        if (required <= capacity) {
+            return;
+        }
+        int perSegment = 1 << shift;
+        if (capacity < perSegment) {
+            int grown = (int) Math.min(perSegment, Math.max(required, capacity + (long) (capacity >> 1)));
+            segments[0] = Arrays.copyOf(segments[0], grown * codeLength);
+            capacity = grown;
+        }
+        if (required > capacity) {
+            int count = FloatVectorStore.segmentCount(required, shift);
+            int existing = segments.length;
+            segments = Arrays.copyOf(segments, count);
+            for (int s = existing; s < count; s++) {
+                segments[s] = new byte[perSegment * codeLength];
+            }
+            capacity = (int) Math.min(Integer.MAX_VALUE, (long) count << shift);
+        }
+    }
+
+    /**
+     * Segment chứa code của ordinal, dùng cùng offset(ordinal)
+     */
+    byte[] segment(int ordinal) {
+        return segments[ordinal >>> shift];
+    }
+
+    int offset(int ordinal) {
+        return (ordinal & mask) * codeLength;
+    }
+
+    /**
+     * Copy code từ ordinal from sang ordinal to (dồn mảng khi xóa)
+     */
+    void move(int from, int to) {
+        System.arraycopy(segment(from), offset(from), segment(to), offset(to), codeLength);
+    }
+}
@@ -0,0 +1,17 @@
+package com.documindai.retrieval;
+
+/**
+ * Vector index xóa bằng tombstone, cần compaction định kỳ để thu hồi dung lượng
+ */
+public interface CompactableVectorIndex extends VectorIndex {
+
+    /**
+     * Tỉ lệ tombstone đã vượt ngưỡng compaction
+     */
+    boolean needsCompaction();
+
+    /**
+     * Ghi lại các vectors còn hiệu lực và bỏ phần đã xóa
+     */
+    void compact();
+}
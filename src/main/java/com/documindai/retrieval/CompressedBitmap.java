@@ -0,0 +1,429 @@
+package com.documindai.retrieval;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmap nén cho tập số nguyên không âm (ví dụ document IDs), chia khối theo kiểu Roaring bitmap
+ *
+ * Mỗi khối 65536 giá trị liên tiếp (cùng các bit cao) là một container: khối thưa (tối đa 4096 phần tử)
+ * lưu mảng char đã sắp xếp (2 bytes mỗi phần tử), khối dày lưu bitset 1024 long (8 KB cố định).
+ * AND/OR làm việc trên từng cặp container cùng khóa nên không phải giải nén ra tập đầy đủ.
+ * Không thread-safe: bên sở hữu tự đồng bộ, bitmap trả về từ and/or là bản mới độc lập.
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+
+    public void add(long value) {
+        checkValue(value);
+        long key = value >>> 16;
+        char low = (char) (value & 0xFFFF);
+        Container container = containers.get(key);
+        containers.put(key, container == null ? new ArrayContainer().add(low) : container.add(low));
+    }
+
+    public void remove(long value) {
+        if (value < 0) {
+            return;
+        }
+        long key = value >>> 16;
+        Container container = containers.get(key);
+        if (container == null) {
+            return;
+        }
+        Container updated = container.remove((char) (value & 0xFFFF));
+        if (updated.cardinality() == 0) {
+            containers.remove(key);
+        } else {
+            containers.put(key, updated);
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value < 0) {
+            return false;
+        }
+        Container container = containers.get(value >>> 16);
+        return container != null && container.contains((char) (value & 0xFFFF));
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (Container container : containers.values()) {
+            cardinality += container.cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return containers.isEmpty();
+    }
+
+    /**
+     * Các giá trị theo thứ tự tăng dần
+     */
+    public long[] toArray() {
+        long[] values = new long[(int) cardinality()];
+        int offset = 0;
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            offset = entry.getValue().fill(entry.getKey() << 16, values, offset);
+        }
+        return values;
+    }
+
+    /**
+     * Giao của hai bitmaps
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap smaller = containers.size() <= other.containers.size() ? this : other;
+        CompressedBitmap larger = smaller == this ? other : this;
+        CompressedBitmap result = new CompressedBitmap();
+        for (Map.Entry<Long, Container> entry : smaller.containers.entrySet()) {
+            Container match = larger.containers.get(entry.getKey());
+            if (match == null) {
+                continue;
+            }
+            Container intersection = entry.getValue().and(match);
+            if (intersection.cardinality() > 0) {
+                result.containers.put(entry.getKey(), intersection);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hợp của hai bitmaps
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = copy();
+        for (Map.Entry<Long, Container> entry : other.containers.entrySet()) {
+            Container existing = result.containers.get(entry.getKey());
+            result.containers.put(entry.getKey(),
+                    existing == null ? entry.getValue().copy() : existing.or(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Hợp của nhiều bitmaps
+     */
+    public static CompressedBitmap orAll(Collection<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (CompressedBitmap bitmap : bitmaps) {
+            result = result.or(bitmap);
+        }
+        return result;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        containers.forEach((key, container) -> copy.containers.put(key, container.copy()));
+        return copy;
+    }
+
+    /**
+     * Số bytes ước tính của dữ liệu containers
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Container container : containers.values()) {
+            bytes += container.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static void checkValue(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Bitmap values must be non-negative: " + value);
+        }
+    }
+
+    /**
+     * Container của một khối 65536 giá trị; add/remove trả về container mới nếu phải đổi kiểu lưu trữ
+     */
+    private abstract static class Container {
+
+        abstract Container add(char low);
+
+        abstract Container remove(char low);
+
+        abstract boolean contains(char low);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        abstract int fill(long base, long[] values, int offset);
+
+        abstract long sizeInBytes();
+    }
+
+    /**
+     * Khối thưa: mảng char đã sắp xếp
+     */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        Container add(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            int insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, values.length * 2)));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int index = Arrays.binarySearch(values, 0, size, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[size];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] merged = new char[size + array.size];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < array.size) {
+                if (j == array.size || (i < size && values[i] < array.values[j])) {
+                    merged[count++] = values[i++];
+                } else if (i == size || values[i] > array.values[j]) {
+                    merged[count++] = array.values[j++];
+                } else {
+                    merged[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(merged, count);
+            return count > ARRAY_MAX ? union.toBitmap() : union;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+        }
+
+        @Override
+        int fill(long base, long[] out, int offset) {
+            for (int i = 0; i < size; i++) {
+                out[offset++] = base | values[i];
+            }
+            return offset;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return (long) values.length * Character.BYTES;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Khối dày: bitset 65536 bits
+     */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        void set(char low) {
+            long mask = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & mask) == 0) {
+                words[word] |= mask;
+                cardinality++;
+            }
+        }
+
+        @Override
+        Container add(char low) {
+            set(low);
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long mask = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & mask) != 0) {
+                words[word] &= ~mask;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArrayContainer() : this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer intersection = new BitmapContainer(result, count);
+            return count <= ARRAY_MAX ? intersection.toArrayContainer() : intersection;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer array) {
+                BitmapContainer union = new BitmapContainer(result, cardinality);
+                for (int i = 0; i < array.size; i++) {
+                    union.set(array.values[i]);
+                }
+                return union;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] |= otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        int fill(long base, long[] out, int offset) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    out[offset++] = base | ((long) i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return (long) words.length * Long.BYTES;
+        }
+
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.documindai.retrieval;
+
+/**
+ * Vector index có thể sao chép độc lập, để bản nháp copy-on-write sửa trên bản sao thay vì index đang phục vụ
+ */
+public interface CopyableVectorIndex extends VectorIndex {
+
+    /**
+     * Bản sao độc lập: thay đổi trên bản sao không ảnh hưởng index này và ngược lại
+     */
+    CopyableVectorIndex copy();
+}
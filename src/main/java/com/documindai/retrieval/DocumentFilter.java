@@ -0,0 +1,106 @@
+package com.documindai.retrieval;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Giới hạn tìm kiếm trong một tập documents
+ *
+ * Filter liệt kê được (documentIds() khác null) cho phép các index có bảng document -> vectors
+ * chỉ chấm điểm vectors của các documents đó thay vì quét toàn bộ.
+ */
+public interface DocumentFilter {
+
+    /**
+     * Filter chấp nhận mọi document
+     */
+    DocumentFilter ALL = new DocumentFilter() {
+        @Override
+        public boolean accept(long documentId) {
+            return true;
+        }
+
+        @Override
+        public boolean acceptsAll() {
+            return true;
+        }
+    };
+
+    boolean accept(long documentId);
+
+    /**
+     * Không lọc gì (cho phép đi nhánh tìm kiếm không filter)
+     */
+    default boolean acceptsAll() {
+        return false;
+    }
+
+    /**
+     * Các document IDs được chấp nhận, null nếu filter không liệt kê được
+     */
+    default long[] documentIds() {
+        return null;
+    }
+
+    /**
+     * Giao của hai filters; nếu một bên liệt kê được thì kết quả cũng liệt kê được
+     */
+    default DocumentFilter and(DocumentFilter other) {
+        if (other.acceptsAll()) {
+            return this;
+        }
+        if (acceptsAll()) {
+            return other;
+        }
+        long[] ids = documentIds();
+        if (ids != null) {
+            return of(Arrays.stream(ids).filter(other::accept).boxed().toList());
+        }
+        long[] otherIds = other.documentIds();
+        if (otherIds != null) {
+            return of(Arrays.stream(otherIds).filter(this::accept).boxed().toList());
+        }
+        DocumentFilter self = this;
+        return documentId -> self.accept(documentId) && other.accept(documentId);
+    }
+
+    /**
+     * Filter theo bitmap document IDs (bitmap không được sửa sau khi tạo filter)
+     */
+    static DocumentFilter of(CompressedBitmap bitmap) {
+        return new DocumentFilter() {
+            private long[] ids;
+
+            @Override
+            public boolean accept(long documentId) {
+                return bitmap.contains(documentId);
+            }
+
+            @Override
+            public long[] documentIds() {
+                if (ids == null) {
+                    ids = bitmap.toArray();
+                }
+                return ids;
+            }
+        };
+    }
+
+    /**
+     * Filter theo tập document IDs cố định (mảng đã sort, tra bằng binary search)
+     */
+    static DocumentFilter of(Collection<Long> documentIds) {
+        long[] ids = documentIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        return new DocumentFilter() {
+            @Override
+            public boolean accept(long documentId) {
+                return Arrays.binarySearch(ids, documentId) >= 0;
+            }
+
+            @Override
+            public long[] documentIds() {
+                return ids;
+            }
+        };
+    }
+}
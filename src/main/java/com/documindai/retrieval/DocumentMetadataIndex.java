@@ -0,0 +1,203 @@
+package com.documindai.retrieval;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index metadata của documents (loại file, ngày upload, trạng thái active) dùng để lọc trước khi chấm điểm
+ *
+ * Mỗi giá trị metadata giữ một CompressedBitmap các document IDs. Filter được tính bằng AND/OR trên bitmaps
+ * rồi chuyển thành DocumentFilter liệt kê được, nên index chia partition chỉ quét partitions của documents
+ * thỏa điều kiện, còn index quét tuần tự chỉ tốn một phép kiểm tra bit mỗi vector.
+ * Metadata gắn với document (mọi chunks của document dùng chung), nên bitmap đánh theo document ID.
+ */
+public class DocumentMetadataIndex {
+
+    /**
+     * Metadata của một document
+     */
+    public record Entry(String fileType, LocalDate uploadDate, boolean active) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, CompressedBitmap> byFileType = new HashMap<>();
+    // Epoch day -> documents upload trong ngày đó
+    private final NavigableMap<Long, CompressedBitmap> byUploadDay = new TreeMap<>();
+    private CompressedBitmap active = new CompressedBitmap();
+    private CompressedBitmap all = new CompressedBitmap();
+
+    /**
+     * Thêm (hoặc cập nhật) metadata của một document
+     */
+    public void put(long documentId, String fileType, LocalDate uploadDate, boolean isActive) {
+        Entry entry = new Entry(normalizeFileType(fileType), uploadDate, isActive);
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(documentId);
+            if (entry.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(documentId, previous);
+            }
+            entries.put(documentId, entry);
+            all.add(documentId);
+            if (entry.fileType() != null) {
+                byFileType.computeIfAbsent(entry.fileType(), type -> new CompressedBitmap()).add(documentId);
+            }
+            if (entry.uploadDate() != null) {
+                byUploadDay.computeIfAbsent(entry.uploadDate().toEpochDay(), day -> new CompressedBitmap())
+                        .add(documentId);
+            }
+            if (entry.active()) {
+                active.add(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa metadata của một document
+     */
+    public void remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(documentId);
+            if (previous != null) {
+                unindex(documentId, previous);
+                all.remove(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byFileType.clear();
+            byUploadDay.clear();
+            active = new CompressedBitmap();
+            all = new CompressedBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documents thỏa filter: OR trong cùng một trường, AND giữa các trường
+     */
+    public CompressedBitmap select(MetadataFilter filter) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap result = filter.activeOnly() ? active.copy() : all.copy();
+
+            if (filter.fileTypes() != null && !filter.fileTypes().isEmpty()) {
+                List<CompressedBitmap> matches = new ArrayList<>();
+                for (String fileType : filter.fileTypes()) {
+                    CompressedBitmap bitmap = byFileType.get(normalizeFileType(fileType));
+                    if (bitmap != null) {
+                        matches.add(bitmap);
+                    }
+                }
+                result = result.and(CompressedBitmap.orAll(matches));
+            }
+
+            if (filter.uploadedFrom() != null || filter.uploadedTo() != null) {
+                long from = filter.uploadedFrom() != null ? filter.uploadedFrom().toEpochDay() : Long.MIN_VALUE;
+                long to = filter.uploadedTo() != null ? filter.uploadedTo().toEpochDay() : Long.MAX_VALUE;
+                NavigableMap<Long, CompressedBitmap> days = from <= to
+                        ? byUploadDay.subMap(from, true, to, true)
+                        : new TreeMap<>();
+                result = result.and(CompressedBitmap.orAll(days.values()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * DocumentFilter liệt kê được từ kết quả select (ALL nếu filter không có điều kiện nào)
+     */
+    public DocumentFilter filter(MetadataFilter filter) {
+        if (filter == null || filter.isEmpty() || (filter.onlyActiveCondition() && allActive())) {
+            return DocumentFilter.ALL;
+        }
+        return DocumentFilter.of(select(filter));
+    }
+
+    /**
+     * Số documents và số bytes bitmaps đang giữ
+     */
+    public Map<String, Long> stats() {
+        lock.readLock().lock();
+        try {
+            long bytes = all.sizeInBytes() + active.sizeInBytes();
+            for (CompressedBitmap bitmap : byFileType.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            for (CompressedBitmap bitmap : byUploadDay.values()) {
+                bytes += bitmap.sizeInBytes();
+            }
+            Map<String, Long> stats = new HashMap<>();
+            stats.put("documents", (long) entries.size());
+            stats.put("fileTypes", (long) byFileType.size());
+            stats.put("uploadDays", (long) byUploadDay.size());
+            stats.put("bitmapBytes", bytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean allActive() {
+        lock.readLock().lock();
+        try {
+            return active.cardinality() == all.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(long documentId, Entry entry) {
+        if (entry.fileType() != null) {
+            removeFrom(byFileType, entry.fileType(), documentId);
+        }
+        if (entry.uploadDate() != null) {
+            removeFrom(byUploadDay, entry.uploadDate().toEpochDay(), documentId);
+        }
+        active.remove(documentId);
+    }
+
+    private static <K> void removeFrom(Map<K, CompressedBitmap> bitmaps, K key, long documentId) {
+        CompressedBitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.remove(documentId);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private static String normalizeFileType(String fileType) {
+        if (fileType == null || fileType.isBlank()) {
+            return null;
+        }
+        String normalized = fileType.trim().toLowerCase(Locale.ROOT);
+        return normalized.startsWith(".") ? normalized.substring(1) : normalized;
+    }
+}
@@ -0,0 +1,46 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chấm lại ứng viên của các index nén bằng cosine chính xác trên vectors float32
+ */
+final class ExactReranker {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private ExactReranker() {
+        // Utility class
+    }
+
+    /**
+     * Re-rank ứng viên, giữ top-k có điểm >= threshold
+     * (ứng viên không load được vector full-precision thì giữ điểm xấp xỉ)
+     */
+    static List<ScoredChunk> rerank(FullPrecisionVectorLoader vectorLoader, float[] query,
+                                    List<ScoredChunk> candidates, int k, double threshold) {
+        // Query chuẩn hóa một lần, vectors từ loader đã chuẩn hóa nên cosine = tích vô hướng
+        float[] normalizedQuery = KERNEL.normalize(query);
+        if (normalizedQuery == null) {
+            return new ArrayList<>();
+        }
+        Map<Long, float[]> fullVectors = vectorLoader.loadVectors(
+                candidates.stream().map(ScoredChunk::chunkId).toList());
+
+        List<ScoredChunk> rescored = new ArrayList<>(candidates.size());
+        for (ScoredChunk candidate : candidates) {
+            float[] vector = fullVectors.get(candidate.chunkId());
+            double score = vector != null && vector.length == query.length
+                    ? KERNEL.dot(normalizedQuery, vector)
+                    : candidate.score();
+            if (score >= threshold) {
+                rescored.add(new ScoredChunk(candidate.chunkId(), candidate.documentId(), score));
+            }
+        }
+        rescored.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+        return rescored.size() > k ? new ArrayList<>(rescored.subList(0, k)) : rescored;
+    }
+}
@@ -0,0 +1,260 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Vector index nằm trong bộ nhớ, quét tuần tự (exact search)
+ *
+ * Chunk IDs được lưu trong các mảng primitive liên tục, vectors trong FloatVectorStore
+ * (segment mảng float, không giới hạn bởi i * dimension trong int).
+ * Vectors được chuẩn hóa khi thêm vào, query chuẩn hóa một lần mỗi truy vấn,
+ * nên vòng quét chỉ còn tích vô hướng.
+ * Bảng document -> ordinals cho phép filter liệt kê được chỉ chấm vectors của các documents đó.
+ */
+public class FlatVectorIndex implements SnapshotableVectorIndex, CopyableVectorIndex {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int dimension;
+    private int size;
+    private long[] chunkIds;
+    private long[] documentIds;
+    private FloatVectorStore vectors;
+
+    // Chunk ID -> vị trí (ordinal) trong các mảng
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    // Document ID -> ordinals của các chunks (tăng dần)
+    private final Map<Long, List<Integer>> documentOrdinals = new HashMap<>();
+
+    public FlatVectorIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Index với capacity ban đầu cho trước (partition nhỏ không cấp sẵn mảng cho 1024 vectors)
+     */
+    public FlatVectorIndex(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        chunkIds = new long[capacity];
+        documentIds = new long[capacity];
+    }
+
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        float[] normalized = KERNEL.normalize(vector);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Cannot index zero vector");
+        }
+        addNormalized(chunkId, documentId, normalized);
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+                vectors = new FloatVectorStore(dimension, chunkIds.length);
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + vector.length
+                        + " does not match index dimension " + dimension);
+            }
+
+            Integer existing = ordinals.get(chunkId);
+            int ordinal = existing != null ? existing : size++;
+            ensureCapacity(size);
+            if (existing == null) {
+                documentOrdinals.computeIfAbsent(documentId, id -> new ArrayList<>()).add(ordinal);
+            } else if (documentIds[ordinal] != documentId) {
+                documentOrdinals.get(documentIds[ordinal]).remove(existing);
+                documentOrdinals.computeIfAbsent(documentId, id -> new ArrayList<>()).add(ordinal);
+            }
+
+            chunkIds[ordinal] = chunkId;
+            documentIds[ordinal] = documentId;
+            vectors.set(ordinal, vector);
+            ordinals.put(chunkId, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> rows = documentOrdinals.remove(documentId);
+            if (rows == null || rows.isEmpty()) {
+                return 0;
+            }
+            int[] removedRows = rows.stream().mapToInt(Integer::intValue).sorted().toArray();
+
+            // Chỉ dồn mảng từ row bị xóa đầu tiên trở đi
+            int write = removedRows[0];
+            for (int read = write; read < size; read++) {
+                if (documentIds[read] == documentId) {
+                    ordinals.remove(chunkIds[read]);
+                    continue;
+                }
+                if (write != read) {
+                    chunkIds[write] = chunkIds[read];
+                    documentIds[write] = documentIds[read];
+                    vectors.move(read, write);
+                    ordinals.put(chunkIds[write], write);
+                }
+                write++;
+            }
+            int removed = size - write;
+            size = write;
+
+            // Ordinals phía sau các rows bị xóa dịch lên bằng số rows bị xóa đứng trước chúng
+            for (List<Integer> ordinalsOfDocument : documentOrdinals.values()) {
+                for (int i = 0; i < ordinalsOfDocument.size(); i++) {
+                    int ordinal = ordinalsOfDocument.get(i);
+                    if (ordinal > removedRows[0]) {
+                        ordinalsOfDocument.set(i, ordinal + Arrays.binarySearch(removedRows, ordinal) + 1);
+                    }
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            ordinals.clear();
+            documentOrdinals.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || k <= 0 || query.length != dimension) {
+                return new ArrayList<>();
+            }
+
+            float[] normalized = KERNEL.normalize(query);
+            if (normalized == null) {
+                return new ArrayList<>();
+            }
+
+            FloatVectorStore data = vectors;
+            long[] filterDocuments = filter.documentIds();
+            if (filterDocuments != null) {
+                // Filter liệt kê được: chỉ chấm các vectors của những documents đó
+                int[] rows = documentRows(filterDocuments);
+                TopKHeap top = ParallelTopK.search(rows.length, k, threshold, i -> data.dot(normalized, 0, rows[i]));
+                return top.toScoredChunks(rows, chunkIds, documentIds);
+            }
+
+            // Quét song song, mỗi worker giữ min-heap k phần tử rồi gộp lại
+            long[] documents = documentIds;
+            TopKHeap top = filter.acceptsAll()
+                    ? ParallelTopK.search(size, k, threshold, i -> data.dot(normalized, 0, i))
+                    : ParallelTopK.search(size, k, threshold,
+                            i -> filter.accept(documents[i])
+                                    ? data.dot(normalized, 0, i)
+                                    : Float.NEGATIVE_INFINITY);
+            return top.toScoredChunks(chunkIds, documentIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachVector(VectorVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                visitor.visit(chunkIds[i], documentIds[i], vectors.get(i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bản sao độc lập: chép mảng trực tiếp, không chuẩn hóa lại từng vector như add()
+     */
+    @Override
+    public FlatVectorIndex copy() {
+        lock.readLock().lock();
+        try {
+            FlatVectorIndex copy = new FlatVectorIndex(chunkIds.length);
+            copy.dimension = dimension;
+            copy.size = size;
+            System.arraycopy(chunkIds, 0, copy.chunkIds, 0, size);
+            System.arraycopy(documentIds, 0, copy.documentIds, 0, size);
+            copy.vectors = vectors != null ? vectors.copy() : null;
+            copy.ordinals.putAll(ordinals);
+            documentOrdinals.forEach((documentId, rows) -> copy.documentOrdinals.put(documentId, new ArrayList<>(rows)));
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] documentRows(long[] filterDocuments) {
+        int count = 0;
+        for (long documentId : filterDocuments) {
+            count += documentOrdinals.getOrDefault(documentId, List.of()).size();
+        }
+        int[] rows = new int[count];
+        int next = 0;
+        for (long documentId : filterDocuments) {
+            for (int row : documentOrdinals.getOrDefault(documentId, List.of())) {
+                rows[next++] = row;
+            }
+        }
+        return rows;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= chunkIds.length) {
+            return;
+        }
+        int capacity = FloatVectorStore.grownCapacity(chunkIds.length, required);
+        chunkIds = Arrays.copyOf(chunkIds, capacity);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        vectors.ensureCapacity(capacity);
+    }
+}
@@ -0,0 +1,158 @@
+package com.documindai.retrieval;
+
+import java.util.Arrays;
+
+/**
+ * Vectors float32 cùng độ dài lưu trong các segment mảng, đánh địa chỉ theo ordinal int
+ *
+ * Một mảng float[] phẳng indexed bằng ordinal * dimension tràn int ở khoảng 1.39 triệu vectors 1536 chiều.
+ * Ở đây mỗi segment chứa tối đa SEGMENT_ELEMENTS floats (số vectors mỗi segment là lũy thừa của 2),
+ * offset trong segment luôn vừa int. Segment đầu tăng dần như ArrayList nên index nhỏ không cấp sẵn 64 MB.
+ * Không thread-safe: index sở hữu store tự đồng bộ.
+ */
+final class FloatVectorStore {
+
+    // 2^24 floats = 64 MB mỗi segment
+    static final int SEGMENT_ELEMENTS = 1 << 24;
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private final int dimension;
+    private final int shift;
+    private final int mask;
+    private float[][] segments;
+    private int capacity;
+
+    FloatVectorStore(int dimension, int initialCapacity) {
+        this(dimension, initialCapacity, SEGMENT_ELEMENTS);
+    }
+
+    /**
+     * Store với kích thước segment tùy chọn (test dùng segment nhỏ để phủ đường chia segment)
+     */
+    FloatVectorStore(int dimension, int initialCapacity, int segmentElements) {
+        if (dimension < 1) {
+            throw new IllegalArgumentException("Vector dimension must be >= 1");
+        }
+        this.dimension = dimension;
+        this.shift = segmentShift(dimension, segmentElements);
+        this.mask = (1 << shift) - 1;
+        this.capacity = Math.min(Math.max(initialCapacity, 1), 1 << shift);
+        this.segments = new float[][] {new float[capacity * dimension]};
+    }
+
+    private FloatVectorStore(FloatVectorStore source) {
+        this.dimension = source.dimension;
+        this.shift = source.shift;
+        this.mask = source.mask;
+        this.capacity = source.capacity;
+        this.segments = new float[source.segments.length][];
+        for (int s = 0; s < segments.length; s++) {
+            segments[s] = source.segments[s].clone();
+        }
+    }
+
+    /**
+     * Bản sao độc lập với store này (partition copy-on-write)
+     */
+    FloatVectorStore copy() {
+        return new FloatVectorStore(this);
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Đảm bảo chứa được required vectors; required âm nghĩa là số vectors đã tràn int
+     */
+    void ensureCapacity(int required) {
+        if (required < 0) {
+            throw new IllegalStateException("Vector store cannot hold more than " + Integer.MAX_VALUE + " vectors");
+        }
+        if (required <= capacity) {
+            return;
+        }
+        int perSegment = 1 << shift;
+        if (capacity < perSegment) {
+            int grown = (int) Math.min(perSegment, Math.max(required, capacity + (long) (capacity >> 1)));
+            segments[0] = Arrays.copyOf(segments[0], grown * dimension);
+            capacity = grown;
+        }
+        if (required > capacity) {
+            int count = segmentCount(required, shift);
+            int existing = segments.length;
+            segments = Arrays.copyOf(segments, count);
+            for (int s = existing; s < count; s++) {
+                segments[s] = new float[perSegment * dimension];
+            }
+            capacity = (int) Math.min(Integer.MAX_VALUE, (long) count << shift);
+        }
+    }
+
+    /**
+     * Segment chứa vector của ordinal, dùng cùng offset(ordinal)
+     */
+    float[] segment(int ordinal) {
+        return segments[ordinal >>> shift];
+    }
+
+    int offset(int ordinal) {
+        return (ordinal & mask) * dimension;
+    }
+
+    void set(int ordinal, float[] vector) {
+        System.arraycopy(vector, 0, segment(ordinal), offset(ordinal), dimension);
+    }
+
+    /**
+     * Copy vector từ ordinal from sang ordinal to (dồn mảng khi xóa)
+     */
+    void move(int from, int to) {
+        System.arraycopy(segment(from), offset(from), segment(to), offset(to), dimension);
+    }
+
+    float[] get(int ordinal) {
+        int offset = offset(ordinal);
+        return Arrays.copyOfRange(segment(ordinal), offset, offset + dimension);
+    }
+
+    /**
+     * Tích vô hướng giữa query[queryOffset ..] và vector của ordinal
+     */
+    float dot(float[] query, int queryOffset, int ordinal) {
+        return KERNEL.dot(query, queryOffset, segment(ordinal), offset(ordinal), dimension);
+    }
+
+    /**
+     * Tích vô hướng giữa hai vectors trong store
+     */
+    float dot(int a, int b) {
+        return KERNEL.dot(segment(a), offset(a), segment(b), offset(b), dimension);
+    }
+
+    /**
+     * log2 số vectors mỗi segment: lũy thừa của 2 lớn nhất sao cho segment không vượt quá segmentElements
+     */
+    static int segmentShift(int stride, int segmentElements) {
+        return Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(segmentElements / stride, 1)));
+    }
+
+    static int segmentCount(int required, int shift) {
+        return (int) (((long) required + (1L << shift) - 1) >>> shift);
+    }
+
+    /**
+     * Capacity mới (x1.5) cho các mảng metadata song song với store, không tràn int
+     */
+    static int grownCapacity(int current, int required) {
+        if (required < 0) {
+            throw new IllegalStateException("Vector index cannot hold more than " + Integer.MAX_VALUE + " vectors");
+        }
+        return (int) Math.max(required, Math.min(Integer.MAX_VALUE - 8, current + (long) (current >> 1)));
+    }
+}
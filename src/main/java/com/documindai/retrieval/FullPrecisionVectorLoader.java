@@ -0,0 +1,17 @@
+package com.documindai.retrieval;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Nguồn vectors full-precision (float32) theo chunk ID, dùng để re-rank kết quả của các index nén
+ * Vectors trả về phải đã được chuẩn hóa L2 để re-rank chỉ cần tích vô hướng
+ */
+@FunctionalInterface
+public interface FullPrecisionVectorLoader {
+
+    /**
+     * Load vectors của các chunks, chunk không tìm thấy sẽ không có trong map
+     */
+    Map<Long, float[]> loadVectors(Collection<Long> chunkIds);
+}
@@ -0,0 +1,624 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index dựa trên đồ thị HNSW (Hierarchical Navigable Small World)
+ *
+ * - m: số kết nối tối đa mỗi node ở các tầng trên (tầng 0 dùng 2 * m)
+ * - efConstruction: kích thước danh sách ứng viên khi chèn node
+ * - efSearch: kích thước danh sách ứng viên khi truy vấn (tăng để tăng recall)
+ *
+ * Vectors được chuẩn hóa khi chèn nên similarity là tích vô hướng.
+ * Xóa là tombstone: node vẫn dùng để duyệt đồ thị nhưng không trả về trong kết quả.
+ * Khi số tombstone vượt quá một nửa số node, compaction (chạy từ maintenance) build đồ thị mới
+ * ngoài write lock rồi swap vào, chỉ replay các thay đổi trong lúc build khi giữ write lock.
+ */
+public class HnswVectorIndex implements CompactableVectorIndex, CopyableVectorIndex, SnapshotableVectorIndex {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int FILTERED_EF_MULTIPLIER = 4;
+
+    private final int m;
+    private final int maxConnections0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    private int dimension;
+    private int nodeCount;
+    private int deletedCount;
+    private long[] chunkIds = new long[INITIAL_CAPACITY];
+    private long[] documentIds = new long[INITIAL_CAPACITY];
+    private FloatVectorStore vectors;
+    // links[node][level] = {count, neighbour1, neighbour2, ...}
+    private int[][][] links = new int[INITIAL_CAPACITY][][];
+    private BitSet deleted = new BitSet();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    // Chunk ID -> node còn hiệu lực, Document ID -> các nodes của document
+    private Map<Long, Integer> ordinals = new HashMap<>();
+    private Map<Long, List<Integer>> documentNodes = new HashMap<>();
+    // Tăng mỗi lần clear() để bỏ đồ thị compaction build từ snapshot cũ
+    private long generation;
+
+    public HnswVectorIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW m must be >= 2");
+        }
+        this.m = m;
+        this.maxConnections0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        float[] normalized = KERNEL.normalize(vector);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Cannot index zero vector");
+        }
+        addNormalized(chunkId, documentId, normalized);
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            insert(chunkId, documentId, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> nodes = documentNodes.remove(documentId);
+            if (nodes == null) {
+                return 0;
+            }
+            int removed = 0;
+            for (int node : nodes) {
+                if (markDeleted(node)) {
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            generation++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0 || query.length != dimension) {
+                return new ArrayList<>();
+            }
+            float[] normalized = KERNEL.normalize(query);
+            if (normalized == null) {
+                return new ArrayList<>();
+            }
+
+            long[] filterDocuments = filter.documentIds();
+            if (filterDocuments != null) {
+                // Filter liệt kê được: chấm chính xác các nodes của những documents đó
+                List<Integer> nodes = new ArrayList<>();
+                for (long documentId : filterDocuments) {
+                    nodes.addAll(documentNodes.getOrDefault(documentId, List.of()));
+                }
+                return exactSearch(normalized, nodes, k, threshold);
+            }
+
+            int ep = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                ep = greedyClosest(normalized, ep, level);
+            }
+
+            // Tăng ef theo số tombstones để bù cho các node bị loại khỏi kết quả,
+            // với filter thì mở rộng thêm vì một phần ứng viên sẽ bị loại
+            int ef = Math.max(efSearch, k) + Math.min(deletedCount, k);
+            if (!filter.acceptsAll()) {
+                ef *= FILTERED_EF_MULTIPLIER;
+            }
+            List<Candidate> candidates = sortedDescending(searchLayer(normalized, ep, ef, 0));
+
+            List<ScoredChunk> results = new ArrayList<>(k);
+            for (Candidate candidate : candidates) {
+                if (results.size() >= k || candidate.score() < threshold) {
+                    break;
+                }
+                int node = candidate.node();
+                if (!deleted.get(node) && filter.accept(documentIds[node])) {
+                    results.add(new ScoredChunk(chunkIds[node], documentIds[node], candidate.score()));
+                }
+            }
+
+            // Filter quá hẹp so với vùng đồ thị đã duyệt: quét chính xác các nodes thỏa filter
+            if (results.size() < k && !filter.acceptsAll() && candidates.size() >= ef) {
+                TopKHeap top = ParallelTopK.search(nodeCount, k, threshold,
+                        node -> deleted.get(node) || !filter.accept(documentIds[node])
+                                ? Float.NEGATIVE_INFINITY
+                                : similarity(normalized, node));
+                return top.toScoredChunks(chunkIds, documentIds);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bản sao độc lập của đồ thị (shard copy-on-write): chép vectors và danh sách kề, không chèn lại node nào
+     */
+    @Override
+    public HnswVectorIndex copy() {
+        lock.readLock().lock();
+        try {
+            HnswVectorIndex copy = new HnswVectorIndex(m, efConstruction, efSearch);
+            copy.dimension = dimension;
+            copy.nodeCount = nodeCount;
+            copy.deletedCount = deletedCount;
+            copy.chunkIds = chunkIds.clone();
+            copy.documentIds = documentIds.clone();
+            copy.vectors = vectors != null ? vectors.copy() : null;
+            copy.links = new int[links.length][][];
+            for (int node = 0; node < nodeCount; node++) {
+                int[][] levels = links[node];
+                copy.links[node] = new int[levels.length][];
+                for (int level = 0; level < levels.length; level++) {
+                    copy.links[node][level] = levels[level].clone();
+                }
+            }
+            copy.deleted = (BitSet) deleted.clone();
+            copy.entryPoint = entryPoint;
+            copy.maxLevel = maxLevel;
+            copy.ordinals = new HashMap<>(ordinals);
+            copy.documentNodes = new HashMap<>();
+            documentNodes.forEach((documentId, nodes) -> copy.documentNodes.put(documentId, new ArrayList<>(nodes)));
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Duyệt vectors còn hiệu lực (bỏ qua tombstones)
+     */
+    @Override
+    public void forEachVector(VectorVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int node = 0; node < nodeCount; node++) {
+                if (!deleted.get(node)) {
+                    visitor.visit(chunkIds[node], documentIds[node], vectors.get(node));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Chèn một node vào đồ thị (gọi khi đã giữ write lock)
+     */
+    /**
+     * Chèn vector đã chuẩn hóa (vectors lưu trong index, khi compaction, đã chuẩn hóa sẵn)
+     */
+    private void insert(long chunkId, long documentId, float[] normalized) {
+        if (dimension == 0) {
+            dimension = normalized.length;
+            vectors = new FloatVectorStore(dimension, chunkIds.length);
+        } else if (normalized.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + normalized.length
+                    + " does not match index dimension " + dimension);
+        }
+
+        Integer existing = ordinals.get(chunkId);
+        if (existing != null) {
+            markDeleted(existing);
+        }
+
+        int node = nodeCount++;
+        ensureCapacity(nodeCount);
+        chunkIds[node] = chunkId;
+        documentIds[node] = documentId;
+        vectors.set(node, normalized);
+
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxConnections(l) + 1];
+        }
+        ordinals.put(chunkId, node);
+        documentNodes.computeIfAbsent(documentId, id -> new ArrayList<>()).add(node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(normalized, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = sortedDescending(searchLayer(normalized, ep, efConstruction, l));
+            for (int neighbour : selectNeighbours(candidates, m)) {
+                connect(node, neighbour, l);
+                connect(neighbour, node, l);
+            }
+            ep = candidates.get(0).node();
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Duyệt tham lam ở một tầng, trả về node gần query nhất tìm được
+     */
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float score = similarity(query, neighbours[i]);
+                if (score > best) {
+                    best = score;
+                    current = neighbours[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search ở một tầng, trả về tối đa ef ứng viên tốt nhất (min-heap)
+     */
+    private PriorityQueue<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodeCount);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score).reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+
+        Candidate first = new Candidate(start, similarity(query, start));
+        candidates.add(first);
+        results.add(first);
+        visited.set(start);
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+            int[] neighbours = links[current.node()][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = similarity(query, neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Chọn láng giềng theo heuristic của HNSW: chỉ giữ ứng viên gần query hơn gần các láng giềng đã chọn,
+     * giúp đồ thị giữ được các cạnh "đa hướng" trên dữ liệu phân cụm
+     */
+    private int[] selectNeighbours(List<Candidate> candidatesDescending, int maxCount) {
+        int[] selected = new int[Math.min(maxCount, candidatesDescending.size())];
+        int count = 0;
+        List<Candidate> pruned = new ArrayList<>();
+
+        for (Candidate candidate : candidatesDescending) {
+            if (count >= selected.length) {
+                break;
+            }
+            boolean keep = true;
+            for (int i = 0; i < count; i++) {
+                if (vectors.dot(candidate.node(), selected[i]) > candidate.score()) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate.node();
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        // Bổ sung các ứng viên bị loại nếu chưa đủ số kết nối
+        for (int i = 0; i < pruned.size() && count < selected.length; i++) {
+            selected[count++] = pruned.get(i).node();
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Thêm cạnh from -> to ở một tầng, rút gọn danh sách láng giềng nếu vượt quá giới hạn
+     */
+    private void connect(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        int maxConnections = maxConnections(level);
+        if (count < maxConnections) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) {
+            candidates.add(new Candidate(neighbours[i], vectors.dot(from, neighbours[i])));
+        }
+        candidates.add(new Candidate(to, vectors.dot(from, to)));
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+
+        int[] selected = selectNeighbours(candidates, maxConnections);
+        neighbours[0] = selected.length;
+        System.arraycopy(selected, 0, neighbours, 1, selected.length);
+    }
+
+    private boolean markDeleted(int node) {
+        if (deleted.get(node)) {
+            return false;
+        }
+        deleted.set(node);
+        deletedCount++;
+        ordinals.remove(chunkIds[node], node);
+        return true;
+    }
+
+    @Override
+    public boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return deletedCount > nodeCount / 2;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Build lại đồ thị chỉ với các node còn hiệu lực
+     * Đồ thị mới được dựng ngoài write lock (queries và cập nhật vẫn chạy trên đồ thị cũ),
+     * sau đó dưới write lock replay các node thêm/xóa trong lúc build rồi swap vào.
+     */
+    @Override
+    public void compact() {
+        if (!compactionLock.tryLock()) {
+            return; // Đang compact ở thread khác
+        }
+        try {
+            // 1. Snapshot các node còn hiệu lực
+            int snapshotCount;
+            long snapshotGeneration;
+            int[] liveNodes;
+            long[] liveChunkIds;
+            long[] liveDocumentIds;
+            float[][] liveVectors;
+            lock.readLock().lock();
+            try {
+                if (deletedCount == 0) {
+                    return;
+                }
+                snapshotCount = nodeCount;
+                snapshotGeneration = generation;
+                liveNodes = new int[nodeCount - deletedCount];
+                liveChunkIds = new long[liveNodes.length];
+                liveDocumentIds = new long[liveNodes.length];
+                liveVectors = new float[liveNodes.length][];
+                int i = 0;
+                for (int node = 0; node < nodeCount; node++) {
+                    if (deleted.get(node)) {
+                        continue;
+                    }
+                    liveNodes[i] = node;
+                    liveChunkIds[i] = chunkIds[node];
+                    liveDocumentIds[i] = documentIds[node];
+                    liveVectors[i] = vectors.get(node);
+                    i++;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // 2. Build đồ thị mới ngoài lock: node i của đồ thị mới là liveNodes[i]
+            HnswVectorIndex rebuilt = new HnswVectorIndex(m, efConstruction, efSearch);
+            for (int i = 0; i < liveNodes.length; i++) {
+                rebuilt.insert(liveChunkIds[i], liveDocumentIds[i], liveVectors[i]);
+            }
+
+            // 3. Replay thay đổi trong lúc build rồi swap
+            lock.writeLock().lock();
+            try {
+                if (generation != snapshotGeneration) {
+                    return; // Index đã bị clear trong lúc build
+                }
+                for (int i = 0; i < liveNodes.length; i++) {
+                    if (deleted.get(liveNodes[i])) {
+                        rebuilt.markDeleted(i);
+                    }
+                }
+                for (int node = snapshotCount; node < nodeCount; node++) {
+                    if (!deleted.get(node)) {
+                        rebuilt.insert(chunkIds[node], documentIds[node], vectors.get(node));
+                    }
+                }
+                rebuilt.documentNodes.keySet().retainAll(documentNodes.keySet());
+                adopt(rebuilt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Lấy toàn bộ trạng thái đồ thị của index đã build lại (gọi khi đã giữ write lock)
+     */
+    private void adopt(HnswVectorIndex rebuilt) {
+        if (rebuilt.nodeCount == 0) {
+            reset(); // Giữ dimension của index
+            return;
+        }
+        dimension = rebuilt.dimension;
+        nodeCount = rebuilt.nodeCount;
+        deletedCount = rebuilt.deletedCount;
+        chunkIds = rebuilt.chunkIds;
+        documentIds = rebuilt.documentIds;
+        vectors = rebuilt.vectors;
+        links = rebuilt.links;
+        deleted = rebuilt.deleted;
+        entryPoint = rebuilt.entryPoint;
+        maxLevel = rebuilt.maxLevel;
+        ordinals = rebuilt.ordinals;
+        documentNodes = rebuilt.documentNodes;
+    }
+
+    /**
+     * Bỏ toàn bộ nodes, cấp lại mảng với capacity ban đầu để giải phóng bộ nhớ của đồ thị cũ
+     */
+    private void reset() {
+        nodeCount = 0;
+        deletedCount = 0;
+        deleted = new BitSet();
+        ordinals.clear();
+        documentNodes.clear();
+        chunkIds = new long[INITIAL_CAPACITY];
+        documentIds = new long[INITIAL_CAPACITY];
+        links = new int[INITIAL_CAPACITY][][];
+        vectors = dimension > 0 ? new FloatVectorStore(dimension, INITIAL_CAPACITY) : null;
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    /**
+     * Quét chính xác một tập nodes (bỏ qua tombstones)
+     */
+    private List<ScoredChunk> exactSearch(float[] query, List<Integer> nodes, int k, double threshold) {
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Candidate::score));
+        for (int node : nodes) {
+            if (deleted.get(node)) {
+                continue;
+            }
+            float score = similarity(query, node);
+            if (score < threshold) {
+                continue;
+            }
+            heap.add(new Candidate(node, score));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<ScoredChunk> results = new ArrayList<>(heap.size());
+        for (Candidate candidate : sortedDescending(heap)) {
+            results.add(new ScoredChunk(chunkIds[candidate.node()], documentIds[candidate.node()], candidate.score()));
+        }
+        return results;
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnections0 : m;
+    }
+
+    private float similarity(float[] query, int node) {
+        return vectors.dot(query, 0, node);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= chunkIds.length && required <= links.length) {
+            return;
+        }
+        int capacity = FloatVectorStore.grownCapacity(chunkIds.length, required);
+        chunkIds = Arrays.copyOf(chunkIds, capacity);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        vectors.ensureCapacity(capacity);
+        links = Arrays.copyOf(links, capacity);
+    }
+
+    private static List<Candidate> sortedDescending(PriorityQueue<Candidate> heap) {
+        List<Candidate> list = new ArrayList<>(heap);
+        list.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return list;
+    }
+
+    private record Candidate(int node, float score) {
+    }
+}
@@ -0,0 +1,225 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Vector index lượng tử hóa int8 (scalar quantization), nhỏ hơn float32 4 lần
+ *
+ * Mỗi vector được chuẩn hóa rồi lượng tử hóa đối xứng: code = round(v / maxAbs * 127),
+ * scale = maxAbs / 127. Pass đầu tính điểm xấp xỉ scale * sum(query[d] * code[d]) với query float,
+ * sau đó top (k * rerankFactor) ứng viên được chấm lại bằng cosine chính xác
+ * trên vectors float32 load theo yêu cầu từ FullPrecisionVectorLoader.
+ */
+public class Int8VectorIndex implements CopyableVectorIndex {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FullPrecisionVectorLoader vectorLoader;
+    private final int rerankFactor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int dimension;
+    private int size;
+    private long[] chunkIds = new long[INITIAL_CAPACITY];
+    private long[] documentIds = new long[INITIAL_CAPACITY];
+    private float[] scales = new float[INITIAL_CAPACITY];
+    private ByteCodeStore codes;
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    public Int8VectorIndex(FullPrecisionVectorLoader vectorLoader, int rerankFactor) {
+        this.vectorLoader = vectorLoader;
+        this.rerankFactor = Math.max(rerankFactor, 1);
+    }
+
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+                codes = new ByteCodeStore(dimension, chunkIds.length);
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + vector.length
+                        + " does not match index dimension " + dimension);
+            }
+
+            Integer existing = ordinals.get(chunkId);
+            int ordinal = existing != null ? existing : size++;
+            ensureCapacity(size);
+
+            chunkIds[ordinal] = chunkId;
+            documentIds[ordinal] = documentId;
+            scales[ordinal] = quantize(vector, codes.segment(ordinal), codes.offset(ordinal));
+            ordinals.put(chunkId, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                if (documentIds[read] == documentId) {
+                    ordinals.remove(chunkIds[read]);
+                    continue;
+                }
+                if (write != read) {
+                    chunkIds[write] = chunkIds[read];
+                    documentIds[write] = documentIds[read];
+                    scales[write] = scales[read];
+                    codes.move(read, write);
+                    ordinals.put(chunkIds[write], write);
+                }
+                write++;
+            }
+            int removed = size - write;
+            size = write;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            ordinals.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        List<ScoredChunk> candidates = approximateSearch(query, k * rerankFactor, filter);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        return ExactReranker.rerank(vectorLoader, query, candidates, k, threshold);
+    }
+
+    /**
+     * Bản sao độc lập (shard copy-on-write), chép codes trực tiếp không lượng tử hóa lại
+     */
+    @Override
+    public Int8VectorIndex copy() {
+        lock.readLock().lock();
+        try {
+            Int8VectorIndex copy = new Int8VectorIndex(vectorLoader, rerankFactor);
+            copy.dimension = dimension;
+            copy.size = size;
+            copy.chunkIds = chunkIds.clone();
+            copy.documentIds = documentIds.clone();
+            copy.scales = scales.clone();
+            copy.codes = codes != null ? codes.copy() : null;
+            copy.ordinals.putAll(ordinals);
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pass đầu trên codes int8: trả về top candidateCount theo điểm xấp xỉ
+     */
+    private List<ScoredChunk> approximateSearch(float[] query, int candidateCount, DocumentFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return new ArrayList<>();
+            }
+            float[] normalized = KERNEL.normalize(query);
+            if (normalized == null) {
+                return new ArrayList<>();
+            }
+
+            ByteCodeStore data = codes;
+            float[] scaleData = scales;
+            long[] documents = documentIds;
+            int dim = dimension;
+            TopKHeap top = ParallelTopK.search(size, candidateCount, Double.NEGATIVE_INFINITY, i -> {
+                if (!filter.acceptsAll() && !filter.accept(documents[i])) {
+                    return Float.NEGATIVE_INFINITY;
+                }
+                byte[] segment = data.segment(i);
+                int offset = data.offset(i);
+                float dot = 0f;
+                for (int d = 0; d < dim; d++) {
+                    dot += normalized[d] * segment[offset + d];
+                }
+                return dot * scaleData[i];
+            });
+            return top.toScoredChunks(chunkIds, documentIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lượng tử hóa vector (sau khi chuẩn hóa) vào codes tại offset, trả về scale
+     */
+    private static float quantize(float[] vector, byte[] codes, int offset) {
+        float[] normalized = KERNEL.normalize(vector);
+        if (normalized == null) {
+            Arrays.fill(codes, offset, offset + vector.length, (byte) 0);
+            return 0f;
+        }
+        float maxAbs = 0f;
+        for (float v : normalized) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs / 127f;
+        for (int d = 0; d < normalized.length; d++) {
+            codes[offset + d] = (byte) Math.round(normalized[d] / scale);
+        }
+        return scale;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= chunkIds.length) {
+            return;
+        }
+        int capacity = FloatVectorStore.grownCapacity(chunkIds.length, required);
+        chunkIds = Arrays.copyOf(chunkIds, capacity);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        codes.ensureCapacity(capacity);
+    }
+}
@@ -0,0 +1,467 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted-file (IVF) vector index
+ *
+ * Vectors được phân cụm bằng spherical k-means thành nlist danh sách (coarse quantizer),
+ * khi truy vấn chỉ quét nprobe danh sách có centroid gần query nhất.
+ * Trước khi đủ dữ liệu để train, index quét toàn bộ như flat index.
+ *
+ * Train được thực hiện phần lớn ngoài write lock: k-means và gán cụm chạy trên snapshot,
+ * chỉ bước ghép danh sách (và dọn tombstones) giữ write lock.
+ */
+public class IvfVectorIndex implements TrainableVectorIndex, CopyableVectorIndex, SnapshotableVectorIndex {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+    private static final int INITIAL_CAPACITY = 1024;
+    // Số vectors tối thiểu mỗi cụm để train có ý nghĩa
+    private static final int MIN_POINTS_PER_LIST = 39;
+    // Mẫu training: tối đa 256 vectors mỗi cụm, và không vượt KMeans.MAX_SAMPLE_BYTES
+    private static final int MAX_POINTS_PER_LIST_FOR_TRAINING = 256;
+    private static final int TRAINING_ITERATIONS = 10;
+
+    private final int nlist;
+    private final int nprobe;
+    private final double retrainGrowthFactor;
+    private final Random random = new Random(42);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock trainingLock = new ReentrantLock();
+
+    private int dimension;
+    private int nodeCount;
+    private int deletedCount;
+    private long[] chunkIds = new long[INITIAL_CAPACITY];
+    private long[] documentIds = new long[INITIAL_CAPACITY];
+    private FloatVectorStore vectors;
+    private final BitSet deleted = new BitSet();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, List<Integer>> documentNodes = new HashMap<>();
+
+    // Coarse quantizer (null khi chưa train)
+    private float[] centroids;
+    private int[][] lists;
+    private int[] listSizes;
+    private int trainedSize;
+    // Tăng mỗi lần clear() để bỏ kết quả train dựa trên snapshot cũ
+    private long generation;
+
+    public IvfVectorIndex(int nlist, int nprobe, double retrainGrowthFactor) {
+        if (nlist < 1 || nprobe < 1) {
+            throw new IllegalArgumentException("IVF nlist and nprobe must be >= 1");
+        }
+        this.nlist = nlist;
+        this.nprobe = Math.min(nprobe, nlist);
+        this.retrainGrowthFactor = Math.max(retrainGrowthFactor, 1.1);
+    }
+
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        float[] normalized = KERNEL.normalize(vector);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Cannot index zero vector");
+        }
+        addNormalized(chunkId, documentId, normalized);
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] normalized) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = normalized.length;
+                vectors = new FloatVectorStore(dimension, chunkIds.length);
+            } else if (normalized.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + normalized.length
+                        + " does not match index dimension " + dimension);
+            }
+
+            Integer existing = ordinals.get(chunkId);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+
+            int node = nodeCount++;
+            ensureCapacity(nodeCount);
+            chunkIds[node] = chunkId;
+            documentIds[node] = documentId;
+            vectors.set(node, normalized);
+            ordinals.put(chunkId, node);
+            documentNodes.computeIfAbsent(documentId, id -> new ArrayList<>()).add(node);
+
+            if (centroids != null) {
+                appendToList(KMeans.nearest(centroids, nlist, dimension, normalized, 0, true), node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> nodes = documentNodes.remove(documentId);
+            if (nodes == null) {
+                return 0;
+            }
+            int removed = 0;
+            for (int node : nodes) {
+                if (markDeleted(node)) {
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodeCount = 0;
+            deletedCount = 0;
+            deleted.clear();
+            ordinals.clear();
+            documentNodes.clear();
+            centroids = null;
+            lists = null;
+            listSizes = null;
+            trainedSize = 0;
+            generation++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (nodeCount == 0 || k <= 0 || query.length != dimension) {
+                return new ArrayList<>();
+            }
+            float[] normalized = KERNEL.normalize(query);
+            if (normalized == null) {
+                return new ArrayList<>();
+            }
+
+            PriorityQueue<ScoredChunk> heap = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble(ScoredChunk::score));
+
+            long[] filterDocuments = filter.documentIds();
+            if (filterDocuments != null) {
+                // Filter liệt kê được: chấm chính xác các nodes của những documents đó, không cần qua lists
+                for (long documentId : filterDocuments) {
+                    for (int node : documentNodes.getOrDefault(documentId, List.of())) {
+                        offer(heap, k, threshold, normalized, node, DocumentFilter.ALL);
+                    }
+                }
+            } else if (centroids == null) {
+                for (int node = 0; node < nodeCount; node++) {
+                    offer(heap, k, threshold, normalized, node, filter);
+                }
+            } else {
+                for (int list : nearestLists(normalized)) {
+                    int[] members = lists[list];
+                    for (int i = 0; i < listSizes[list]; i++) {
+                        offer(heap, k, threshold, normalized, members[i], filter);
+                    }
+                }
+            }
+
+            List<ScoredChunk> results = new ArrayList<>(heap);
+            results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bản sao độc lập (shard copy-on-write); centroids không đổi sau khi train nên được dùng chung
+     */
+    @Override
+    public IvfVectorIndex copy() {
+        lock.readLock().lock();
+        try {
+            IvfVectorIndex copy = new IvfVectorIndex(nlist, nprobe, retrainGrowthFactor);
+            copy.dimension = dimension;
+            copy.nodeCount = nodeCount;
+            copy.deletedCount = deletedCount;
+            copy.chunkIds = chunkIds.clone();
+            copy.documentIds = documentIds.clone();
+            copy.vectors = vectors != null ? vectors.copy() : null;
+            copy.deleted.or(deleted);
+            copy.ordinals.putAll(ordinals);
+            documentNodes.forEach((documentId, nodes) -> copy.documentNodes.put(documentId, new ArrayList<>(nodes)));
+            copy.centroids = centroids;
+            if (lists != null) {
+                copy.lists = new int[lists.length][];
+                for (int list = 0; list < lists.length; list++) {
+                    copy.lists[list] = lists[list] != null ? lists[list].clone() : null;
+                }
+                copy.listSizes = listSizes.clone();
+            }
+            copy.trainedSize = trainedSize;
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Duyệt vectors còn hiệu lực (bỏ qua tombstones)
+     */
+    @Override
+    public void forEachVector(VectorVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int node = 0; node < nodeCount; node++) {
+                if (!deleted.get(node)) {
+                    visitor.visit(chunkIds[node], documentIds[node], vectors.get(node));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isTrained() {
+        lock.readLock().lock();
+        try {
+            return centroids != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean needsTraining() {
+        lock.readLock().lock();
+        try {
+            int live = nodeCount - deletedCount;
+            if (centroids == null) {
+                return live >= nlist * MIN_POINTS_PER_LIST;
+            }
+            return live >= trainedSize * retrainGrowthFactor || deletedCount > nodeCount / 2;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void train() {
+        if (!trainingLock.tryLock()) {
+            return; // Đang train ở thread khác
+        }
+        try {
+            // 1. Lấy mẫu training từ snapshot hiện tại
+            int dim;
+            int snapshotCount;
+            long snapshotGeneration;
+            float[] sample;
+            int sampleCount;
+            lock.readLock().lock();
+            try {
+                dim = dimension;
+                snapshotCount = nodeCount;
+                snapshotGeneration = generation;
+                int[] live = liveNodes();
+                if (live.length < nlist) {
+                    return;
+                }
+                sampleCount = KMeans.sampleSize(live.length, nlist * MAX_POINTS_PER_LIST_FOR_TRAINING, nlist, dim);
+                int[] picked = KMeans.sampleWithoutReplacement(live.length, sampleCount, random);
+                sample = new float[sampleCount * dim];
+                for (int i = 0; i < sampleCount; i++) {
+                    int node = live[picked[i]];
+                    System.arraycopy(vectors.segment(node), vectors.offset(node), sample, i * dim, dim);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // 2. K-means ngoài lock, queries vẫn chạy bình thường
+            float[] trained = KMeans.train(sample, sampleCount, dim, nlist, TRAINING_ITERATIONS, true, random);
+
+            // 3. Gán cụm cho các vectors trong snapshot
+            int[] assignments = new int[snapshotCount];
+            lock.readLock().lock();
+            try {
+                if (generation != snapshotGeneration) {
+                    return;
+                }
+                FloatVectorStore data = vectors;
+                IntStream.range(0, snapshotCount).parallel().forEach(node -> assignments[node] =
+                        KMeans.nearest(trained, nlist, dim, data.segment(node), data.offset(node), true));
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // 4. Dọn tombstones và dựng các danh sách
+            lock.writeLock().lock();
+            try {
+                if (generation != snapshotGeneration) {
+                    return; // Index đã bị clear trong lúc train
+                }
+                rebuildLists(trained, assignments, snapshotCount);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            trainingLock.unlock();
+        }
+    }
+
+    /**
+     * Dồn các vectors còn hiệu lực về đầu mảng và phân vào các danh sách theo centroid
+     */
+    private void rebuildLists(float[] trained, int[] assignments, int snapshotCount) {
+        centroids = trained;
+        lists = new int[nlist][];
+        listSizes = new int[nlist];
+        ordinals.clear();
+        documentNodes.clear();
+
+        int write = 0;
+        for (int read = 0; read < nodeCount; read++) {
+            if (deleted.get(read)) {
+                continue;
+            }
+            if (write != read) {
+                chunkIds[write] = chunkIds[read];
+                documentIds[write] = documentIds[read];
+                vectors.move(read, write);
+            }
+            ordinals.put(chunkIds[write], write);
+            documentNodes.computeIfAbsent(documentIds[write], id -> new ArrayList<>()).add(write);
+
+            int list = read < snapshotCount
+                    ? assignments[read]
+                    : KMeans.nearest(centroids, nlist, dimension, vectors.segment(write), vectors.offset(write), true);
+            appendToList(list, write);
+            write++;
+        }
+
+        nodeCount = write;
+        deletedCount = 0;
+        deleted.clear();
+        trainedSize = write;
+    }
+
+    /**
+     * Chọn nprobe danh sách có centroid gần query nhất
+     */
+    private int[] nearestLists(float[] query) {
+        Integer[] order = new Integer[nlist];
+        float[] scores = new float[nlist];
+        for (int c = 0; c < nlist; c++) {
+            order[c] = c;
+            scores[c] = KERNEL.dot(query, 0, centroids, c * dimension, dimension);
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] probes = new int[nprobe];
+        for (int i = 0; i < nprobe; i++) {
+            probes[i] = order[i];
+        }
+        return probes;
+    }
+
+    private void offer(PriorityQueue<ScoredChunk> heap, int k, double threshold, float[] query, int node,
+                       DocumentFilter filter) {
+        if (deleted.get(node) || !filter.accept(documentIds[node])) {
+            return;
+        }
+        double similarity = vectors.dot(query, 0, node);
+        if (similarity < threshold) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(new ScoredChunk(chunkIds[node], documentIds[node], similarity));
+        } else if (similarity > heap.peek().score()) {
+            heap.poll();
+            heap.add(new ScoredChunk(chunkIds[node], documentIds[node], similarity));
+        }
+    }
+
+    private void appendToList(int list, int node) {
+        int[] members = lists[list];
+        if (members == null) {
+            members = new int[16];
+        } else if (listSizes[list] == members.length) {
+            members = Arrays.copyOf(members, members.length * 2);
+        }
+        members[listSizes[list]++] = node;
+        lists[list] = members;
+    }
+
+    private int[] liveNodes() {
+        int[] live = new int[nodeCount - deletedCount];
+        int i = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted.get(node)) {
+                live[i++] = node;
+            }
+        }
+        return live;
+    }
+
+    private boolean markDeleted(int node) {
+        if (deleted.get(node)) {
+            return false;
+        }
+        deleted.set(node);
+        deletedCount++;
+        ordinals.remove(chunkIds[node], node);
+        return true;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= chunkIds.length) {
+            return;
+        }
+        int capacity = FloatVectorStore.grownCapacity(chunkIds.length, required);
+        chunkIds = Arrays.copyOf(chunkIds, capacity);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        vectors.ensureCapacity(capacity);
+    }
+}
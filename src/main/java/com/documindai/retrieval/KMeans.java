@@ -0,0 +1,144 @@
+package com.documindai.retrieval;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * K-means (Lloyd) trên vectors lưu dạng mảng float phẳng (vector i nằm ở data[i * dim .. (i + 1) * dim))
+ *
+ * Chế độ spherical dùng tích vô hướng trên vectors đã chuẩn hóa (phù hợp cosine similarity),
+ * chế độ thường dùng khoảng cách Euclid bình phương.
+ */
+public final class KMeans {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+    // Giới hạn bộ nhớ của mẫu training (mảng float phẳng) bất kể số chiều
+    static final long MAX_SAMPLE_BYTES = 64L * 1024 * 1024;
+
+    private KMeans() {
+        // Utility class
+    }
+
+    /**
+     * Số vectors lấy mẫu để train k cụm: tối đa maxRows và vừa MAX_SAMPLE_BYTES,
+     * nhưng không ít hơn k (k-means cần ít nhất k điểm) và không quá available
+     */
+    static int sampleSize(int available, int maxRows, int k, int dim) {
+        long budgetRows = MAX_SAMPLE_BYTES / ((long) dim * Float.BYTES);
+        long rows = Math.max(Math.min(maxRows, budgetRows), k);
+        return (int) Math.min(available, rows);
+    }
+
+    /**
+     * Train k centroids, trả về mảng phẳng k * dim
+     */
+    public static float[] train(float[] data, int count, int dim, int k, int iterations,
+                                boolean spherical, Random random) {
+        if (count < k) {
+            throw new IllegalArgumentException("Need at least " + k + " vectors to train, got " + count);
+        }
+
+        // Khởi tạo bằng k điểm ngẫu nhiên khác nhau
+        float[] centroids = new float[k * dim];
+        int[] sample = sampleWithoutReplacement(count, k, random);
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(data, sample[c] * dim, centroids, c * dim, dim);
+        }
+
+        int[] assignments = new int[count];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            float[] current = centroids;
+            IntStream.range(0, count).parallel()
+                    .forEach(i -> assignments[i] = nearest(current, k, dim, data, i * dim, spherical));
+
+            float[] sums = new float[k * dim];
+            int[] counts = new int[k];
+            for (int i = 0; i < count; i++) {
+                int c = assignments[i];
+                counts[c]++;
+                int offset = i * dim;
+                int centroidOffset = c * dim;
+                for (int d = 0; d < dim; d++) {
+                    sums[centroidOffset + d] += data[offset + d];
+                }
+            }
+
+            for (int c = 0; c < k; c++) {
+                int centroidOffset = c * dim;
+                if (counts[c] == 0) {
+                    // Cụm rỗng: lấy một điểm ngẫu nhiên làm centroid mới
+                    System.arraycopy(data, random.nextInt(count) * dim, sums, centroidOffset, dim);
+                } else {
+                    float inverse = 1f / counts[c];
+                    for (int d = 0; d < dim; d++) {
+                        sums[centroidOffset + d] *= inverse;
+                    }
+                }
+                if (spherical) {
+                    normalizeInPlace(sums, centroidOffset, dim);
+                }
+            }
+            centroids = sums;
+        }
+        return centroids;
+    }
+
+    /**
+     * Tìm centroid gần vector nhất
+     */
+    public static int nearest(float[] centroids, int k, int dim, float[] vector, int offset, boolean spherical) {
+        int best = 0;
+        float bestScore = spherical ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+            int centroidOffset = c * dim;
+            float score = 0f;
+            if (spherical) {
+                score = KERNEL.dot(centroids, centroidOffset, vector, offset, dim);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = c;
+                }
+            } else {
+                for (int d = 0; d < dim; d++) {
+                    float diff = centroids[centroidOffset + d] - vector[offset + d];
+                    score += diff * diff;
+                }
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = c;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lấy ngẫu nhiên k chỉ số khác nhau trong [0, count)
+     */
+    public static int[] sampleWithoutReplacement(int count, int k, Random random) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(count - i);
+            int tmp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = tmp;
+        }
+        int[] sample = new int[k];
+        System.arraycopy(indices, 0, sample, 0, k);
+        return sample;
+    }
+
+    private static void normalizeInPlace(float[] data, int offset, int dim) {
+        float sum = KERNEL.squaredNorm(data, offset, dim);
+        if (sum == 0f) {
+            return;
+        }
+        float inverseNorm = (float) (1.0 / Math.sqrt(sum));
+        for (int d = 0; d < dim; d++) {
+            data[offset + d] *= inverseNorm;
+        }
+    }
+}
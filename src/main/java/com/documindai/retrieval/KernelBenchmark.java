@@ -0,0 +1,96 @@
+package com.documindai.retrieval;
+
+import java.util.Random;
+
+/**
+ * Benchmark throughput của kernel đang dùng so với kernel scalar trên dữ liệu ngẫu nhiên
+ *
+ * Đo hai trường hợp: từng cặp vector (cosine, như khi chấm điểm từng chunk)
+ * và batch một query với nhiều vectors liên tiếp (như vòng quét của index).
+ */
+public final class KernelBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    // Giữ kết quả để JIT không loại bỏ vòng lặp đo
+    private static volatile double sink;
+
+    private KernelBenchmark() {
+        // Utility class
+    }
+
+    public static BenchmarkReport run(int dimension, int vectorCount, int rounds) {
+        Random random = new Random(42);
+        float[] query = new float[dimension];
+        float[] data = new float[vectorCount * dimension];
+        for (int d = 0; d < dimension; d++) {
+            query[d] = (float) random.nextGaussian();
+        }
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (float) random.nextGaussian();
+        }
+        float[][] pairs = new float[vectorCount][];
+        for (int i = 0; i < vectorCount; i++) {
+            pairs[i] = new float[dimension];
+            System.arraycopy(data, i * dimension, pairs[i], 0, dimension);
+        }
+
+        VectorKernel scalar = VectorKernels.scalar();
+        VectorKernel kernel = VectorKernels.get();
+        float[] scores = new float[vectorCount];
+
+        // Warm-up để JIT compile cả hai kernels trước khi đo
+        for (int w = 0; w < WARMUP_ROUNDS; w++) {
+            measurePairs(scalar, query, pairs, rounds);
+            measurePairs(kernel, query, pairs, rounds);
+            measureBatch(scalar, query, data, vectorCount, scores, rounds);
+            measureBatch(kernel, query, data, vectorCount, scores, rounds);
+        }
+
+        long scalarPairNanos = measurePairs(scalar, query, pairs, rounds);
+        long kernelPairNanos = measurePairs(kernel, query, pairs, rounds);
+        long scalarBatchNanos = measureBatch(scalar, query, data, vectorCount, scores, rounds);
+        long kernelBatchNanos = measureBatch(kernel, query, data, vectorCount, scores, rounds);
+
+        double operations = (double) vectorCount * rounds;
+        return new BenchmarkReport(kernel.name(), dimension, vectorCount, rounds,
+                operations * 1e9 / scalarPairNanos,
+                operations * 1e9 / kernelPairNanos,
+                operations * 1e9 / scalarBatchNanos,
+                operations * 1e9 / kernelBatchNanos,
+                (double) scalarPairNanos / kernelPairNanos,
+                (double) scalarBatchNanos / kernelBatchNanos);
+    }
+
+    private static long measurePairs(VectorKernel kernel, float[] query, float[][] pairs, int rounds) {
+        double total = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (float[] vector : pairs) {
+                total += kernel.cosine(query, vector);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = total;
+        return Math.max(elapsed, 1);
+    }
+
+    private static long measureBatch(VectorKernel kernel, float[] query, float[] data, int count,
+                                     float[] scores, int rounds) {
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            kernel.dotBatch(query, data, count, scores);
+        }
+        sink = scores[0];
+        return Math.max(System.nanoTime() - start, 1);
+    }
+
+    /**
+     * Kết quả benchmark: throughput (số cặp vector mỗi giây) của scalar và kernel đang dùng
+     */
+    public record BenchmarkReport(String kernel, int dimension, int vectors, int rounds,
+                                  double scalarPairsPerSecond, double kernelPairsPerSecond,
+                                  double scalarBatchPerSecond, double kernelBatchPerSecond,
+                                  double pairSpeedup, double batchSpeedup) {
+    }
+}
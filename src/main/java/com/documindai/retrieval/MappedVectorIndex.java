@@ -0,0 +1,362 @@
+package com.documindai.retrieval;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Exact vector index lưu vectors trong các segment files map vào bộ nhớ (off-heap)
+ *
+ * Vectors được chuẩn hóa rồi ghi nối vào segment đang mở, segment đầy thì tạo segment mới.
+ * Vòng chấm điểm đọc trực tiếp từ MappedByteBuffer nên corpus nằm trong page cache của OS
+ * thay vì heap JVM; khi khởi động lại chỉ cần map lại các files để phục vụ truy vấn ngay.
+ * Xóa chỉ ghi tombstone, compaction chép các records còn hiệu lực sang segment mới và bỏ segment cũ.
+ */
+public class MappedVectorIndex implements CompactableVectorIndex, PersistentVectorIndex {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final double compactionThreshold;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<VectorSegment> segments = new ArrayList<>();
+    private VectorSegment active;
+    private int nextSegmentId;
+    private int dimension;
+
+    private final Map<Long, Location> locations = new HashMap<>();
+    private final Map<Long, List<Long>> documentChunks = new HashMap<>();
+
+    private record Location(VectorSegment segment, int ordinal) {
+    }
+
+    public MappedVectorIndex(Path directory, int segmentCapacity, double compactionThreshold) {
+        if (segmentCapacity < 1) {
+            throw new IllegalArgumentException("Segment capacity must be >= 1");
+        }
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        this.compactionThreshold = compactionThreshold;
+        open();
+    }
+
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        float[] normalized = KERNEL.normalize(vector);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Cannot index zero vector");
+        }
+        addNormalized(chunkId, documentId, normalized);
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] normalized) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = normalized.length;
+            } else if (normalized.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + normalized.length
+                        + " does not match index dimension " + dimension);
+            }
+
+            Location existing = locations.remove(chunkId);
+            if (existing != null) {
+                existing.segment().delete(existing.ordinal());
+                removeFromDocument(existing.segment().documentId(existing.ordinal()), chunkId);
+            }
+            append(chunkId, documentId, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> chunkIds = documentChunks.remove(documentId);
+            if (chunkIds == null) {
+                return 0;
+            }
+            for (Long chunkId : chunkIds) {
+                Location location = locations.remove(chunkId);
+                if (location != null) {
+                    location.segment().delete(location.ordinal());
+                }
+            }
+            return chunkIds.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (VectorSegment segment : segments) {
+                segment.closeAndDelete();
+            }
+            segments.clear();
+            active = null;
+            dimension = 0;
+            locations.clear();
+            documentChunks.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (k <= 0 || locations.isEmpty() || query.length != dimension) {
+                return new ArrayList<>();
+            }
+            float[] normalized = KERNEL.normalize(query);
+            if (normalized == null) {
+                return new ArrayList<>();
+            }
+
+            PriorityQueue<ScoredChunk> heap = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble(ScoredChunk::score));
+            long[] filterDocuments = filter.documentIds();
+            if (filterDocuments != null) {
+                // Filter liệt kê được: chỉ chấm các records của những documents đó
+                for (long documentId : filterDocuments) {
+                    for (Long chunkId : documentChunks.getOrDefault(documentId, List.of())) {
+                        Location location = locations.get(chunkId);
+                        offer(heap, k, threshold, location.segment(), location.ordinal(),
+                                location.segment().dot(normalized, location.ordinal()));
+                    }
+                }
+            } else {
+                boolean filtered = !filter.acceptsAll();
+                for (VectorSegment segment : segments) {
+                    // Mỗi segment được quét song song, top-k của segment gộp vào top-k chung
+                    boolean hasDeletes = segment.deletedCount() > 0;
+                    TopKHeap top = ParallelTopK.search(segment.count(), k, threshold,
+                            i -> (hasDeletes && segment.isDeleted(i))
+                                    || (filtered && !filter.accept(segment.documentId(i)))
+                                    ? Float.NEGATIVE_INFINITY
+                                    : segment.dot(normalized, i));
+                    for (int j = 0; j < top.size(); j++) {
+                        offer(heap, k, threshold, segment, top.ordinal(j), top.score(j));
+                    }
+                }
+            }
+
+            List<ScoredChunk> results = new ArrayList<>(heap);
+            results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return locations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Có segment đã đóng với tỉ lệ tombstone vượt ngưỡng
+     */
+    @Override
+    public boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return segments.stream().anyMatch(this::shouldCompact);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            float[] buffer = new float[dimension];
+            Iterator<VectorSegment> iterator = segments.iterator();
+            List<VectorSegment> compacted = new ArrayList<>();
+            while (iterator.hasNext()) {
+                VectorSegment segment = iterator.next();
+                if (!shouldCompact(segment)) {
+                    continue;
+                }
+                iterator.remove();
+                compacted.add(segment);
+            }
+
+            for (VectorSegment segment : compacted) {
+                for (int i = 0; i < segment.count(); i++) {
+                    if (segment.isDeleted(i)) {
+                        continue;
+                    }
+                    segment.readVector(i, buffer);
+                    long chunkId = segment.chunkId(i);
+                    VectorSegment target = writableSegment();
+                    int ordinal = target.append(chunkId, segment.documentId(i), buffer);
+                    locations.put(chunkId, new Location(target, ordinal));
+                }
+            }
+            if (active != null) {
+                active.force();
+            }
+            for (VectorSegment segment : compacted) {
+                segment.closeAndDelete();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            for (VectorSegment segment : segments) {
+                segment.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (VectorSegment segment : segments) {
+                segment.close();
+            }
+            segments.clear();
+            active = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Map lại các segments có sẵn trong thư mục và dựng bảng chunkId -> vị trí từ phần ID của records
+     */
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(file -> VectorSegment.parseId(file) >= 0)
+                        .sorted(Comparator.comparingInt(VectorSegment::parseId))
+                        .toList();
+            }
+            for (Path file : files) {
+                VectorSegment segment = VectorSegment.open(file, VectorSegment.parseId(file));
+                if (dimension == 0) {
+                    dimension = segment.dimension();
+                } else if (segment.dimension() != dimension) {
+                    segment.close();
+                    throw new IllegalStateException("Segment " + file + " has dimension " + segment.dimension()
+                            + " but index dimension is " + dimension);
+                }
+                segments.add(segment);
+                nextSegmentId = segment.id() + 1;
+                for (int i = 0; i < segment.count(); i++) {
+                    if (segment.isDeleted(i)) {
+                        continue;
+                    }
+                    // Segments được duyệt theo thứ tự ghi, bản ghi sau thay thế bản ghi trước
+                    long chunkId = segment.chunkId(i);
+                    Location previous = locations.put(chunkId, new Location(segment, i));
+                    if (previous != null) {
+                        previous.segment().delete(previous.ordinal());
+                        removeFromDocument(previous.segment().documentId(previous.ordinal()), chunkId);
+                    }
+                    documentChunks.computeIfAbsent(segment.documentId(i), id -> new ArrayList<>()).add(chunkId);
+                }
+            }
+            if (!segments.isEmpty() && !segments.get(segments.size() - 1).isFull()) {
+                active = segments.get(segments.size() - 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open vector segments in " + directory, e);
+        }
+    }
+
+    private static void offer(PriorityQueue<ScoredChunk> heap, int k, double threshold,
+                              VectorSegment segment, int ordinal, double score) {
+        if (score < threshold) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(new ScoredChunk(segment.chunkId(ordinal), segment.documentId(ordinal), score));
+        } else if (score > heap.peek().score()) {
+            heap.poll();
+            heap.add(new ScoredChunk(segment.chunkId(ordinal), segment.documentId(ordinal), score));
+        }
+    }
+
+    private void append(long chunkId, long documentId, float[] normalized) {
+        VectorSegment target = writableSegment();
+        int ordinal = target.append(chunkId, documentId, normalized);
+        locations.put(chunkId, new Location(target, ordinal));
+        documentChunks.computeIfAbsent(documentId, id -> new ArrayList<>()).add(chunkId);
+    }
+
+    private VectorSegment writableSegment() {
+        if (active == null || active.isFull()) {
+            if (active != null) {
+                active.force();
+            }
+            active = VectorSegment.create(directory, nextSegmentId++, dimension, segmentCapacity);
+            segments.add(active);
+        }
+        return active;
+    }
+
+    private boolean shouldCompact(VectorSegment segment) {
+        return segment != active && segment.count() > 0
+                && (double) segment.deletedCount() / segment.count() >= compactionThreshold;
+    }
+
+    private void removeFromDocument(long documentId, long chunkId) {
+        List<Long> chunkIds = documentChunks.get(documentId);
+        if (chunkIds == null) {
+            return;
+        }
+        chunkIds.remove(Long.valueOf(chunkId));
+        if (chunkIds.isEmpty()) {
+            documentChunks.remove(documentId);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.documindai.retrieval;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Điều kiện lọc documents theo metadata khi retrieval
+ *
+ * Các giá trị trong cùng một trường được OR (fileTypes = {pdf, docx} nghĩa là pdf hoặc docx),
+ * các trường khác nhau được AND. Trường null hoặc rỗng thì không lọc theo trường đó.
+ * Khoảng ngày upload tính cả hai đầu.
+ */
+public record MetadataFilter(Set<String> fileTypes, LocalDate uploadedFrom, LocalDate uploadedTo,
+                             boolean activeOnly) {
+
+    /**
+     * Không lọc gì ngoài việc chỉ lấy documents đang active
+     */
+    public static final MetadataFilter NONE = new MetadataFilter(null, null, null, true);
+
+    /**
+     * Không có điều kiện nào cần tra bitmap
+     */
+    public boolean isEmpty() {
+        return !activeOnly && !hasValueConditions();
+    }
+
+    /**
+     * Chỉ có điều kiện active (không lọc theo loại file hay ngày upload)
+     */
+    public boolean onlyActiveCondition() {
+        return activeOnly && !hasValueConditions();
+    }
+
+    private boolean hasValueConditions() {
+        return (fileTypes != null && !fileTypes.isEmpty()) || uploadedFrom != null || uploadedTo != null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.documindai.retrieval;
+
+/**
+ * Index chunks và index embedding summary của documents (chunk ID = document ID) cho vectors của một embedding model
+ */
+public record ModelIndex(String model, VectorIndex index, VectorIndex documentIndex) {
+}
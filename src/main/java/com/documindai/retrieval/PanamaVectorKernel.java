@@ -0,0 +1,112 @@
+package com.documindai.retrieval;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Kernel SIMD dùng FloatVector của jdk.incubator.vector
+ *
+ * Mỗi lượt xử lý SPECIES.length() phần tử (8 lanes với AVX2, 16 với AVX-512) bằng fma,
+ * phần dư cuối vector chạy scalar. Class này chỉ được load qua reflection trong VectorKernels
+ * để runtime không có module jdk.incubator.vector vẫn chạy được.
+ */
+final class PanamaVectorKernel implements VectorKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public String name() {
+        return "panama-" + SPECIES.vectorBitSize() + "bit";
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] query, ByteBuffer data, int byteOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector vq = FloatVector.fromArray(SPECIES, query, i);
+            FloatVector vd = FloatVector.fromByteBuffer(SPECIES, data, byteOffset + i * Float.BYTES,
+                    ByteOrder.LITTLE_ENDIAN);
+            acc = vq.fma(vd, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        ByteBuffer view = data.order() == ByteOrder.LITTLE_ENDIAN
+                ? data
+                : data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (; i < length; i++) {
+            sum += query[i] * view.getFloat(byteOffset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredNorm(float[] a, int offset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, offset + i);
+            acc = va.fma(va, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float v = a[offset + i];
+            sum += v * v;
+        }
+        return sum;
+    }
+
+    @Override
+    public double cosine(float[] a, float[] b) {
+        FloatVector dotAcc = FloatVector.zero(SPECIES);
+        FloatVector normAAcc = FloatVector.zero(SPECIES);
+        FloatVector normBAcc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(a.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            dotAcc = va.fma(vb, dotAcc);
+            normAAcc = va.fma(va, normAAcc);
+            normBAcc = vb.fma(vb, normBAcc);
+        }
+        float dot = dotAcc.reduceLanes(VectorOperators.ADD);
+        float normA = normAAcc.reduceLanes(VectorOperators.ADD);
+        float normB = normBAcc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0f || normB == 0f) {
+            return 0.0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -0,0 +1,93 @@
+package com.documindai.retrieval;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Quét top-k song song trên ForkJoinPool riêng của retrieval
+ *
+ * Dải ordinals [0, size) được chia đôi đệ quy tới khi nhỏ hơn ngưỡng tuần tự,
+ * mỗi worker giữ một TopKHeap kích thước k và các heap được gộp lại khi join,
+ * nên tổng chi phí là O(N log k) chia đều cho các cores thay vì sort toàn bộ N điểm.
+ */
+final class ParallelTopK {
+
+    /**
+     * Dưới ngưỡng này quét tuần tự (chi phí fork lớn hơn lợi ích)
+     */
+    static final int SEQUENTIAL_THRESHOLD = 4096;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private ParallelTopK() {
+        // Utility class
+    }
+
+    /**
+     * Chấm điểm một ordinal, trả về Float.NEGATIVE_INFINITY để bỏ qua (ví dụ record đã xóa)
+     */
+    @FunctionalInterface
+    interface OrdinalScorer {
+        float score(int ordinal);
+    }
+
+    /**
+     * Top-k ordinals có điểm >= threshold trong [0, size)
+     */
+    static TopKHeap search(int size, int k, double threshold, OrdinalScorer scorer) {
+        if (size <= SEQUENTIAL_THRESHOLD) {
+            return scan(0, size, k, threshold, scorer);
+        }
+        return POOL.invoke(new ScanTask(0, size, k, threshold, scorer));
+    }
+
+    /**
+     * Chạy tác vụ fan-out (ví dụ parallel stream qua các partitions) trên pool của retrieval thay vì common pool
+     */
+    static <T> T fanOut(Callable<T> task) {
+        return POOL.submit(task).join();
+    }
+
+    private static TopKHeap scan(int from, int to, int k, double threshold, OrdinalScorer scorer) {
+        TopKHeap heap = new TopKHeap(k);
+        for (int i = from; i < to; i++) {
+            float score = scorer.score(i);
+            if (score != Float.NEGATIVE_INFINITY && score >= threshold) {
+                heap.offer(i, score);
+            }
+        }
+        return heap;
+    }
+
+    private static final class ScanTask extends RecursiveTask<TopKHeap> {
+
+        private final int from;
+        private final int to;
+        private final int k;
+        private final double threshold;
+        private final OrdinalScorer scorer;
+
+        private ScanTask(int from, int to, int k, double threshold, OrdinalScorer scorer) {
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.threshold = threshold;
+            this.scorer = scorer;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return scan(from, to, k, threshold, scorer);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(from, middle, k, threshold, scorer);
+            left.fork();
+            TopKHeap right = new ScanTask(middle, to, k, threshold, scorer).compute();
+            TopKHeap merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Tìm top-k trên nhiều index con (partitions, shards) rồi gộp kết quả
+ *
+ * Ít vectors thì tìm tuần tự, nhiều thì fan-out song song trên pool của retrieval.
+ * Mỗi index con trả top-k đã sắp xếp nên bước gộp dùng min-heap k phần tử và dừng sớm trên từng danh sách.
+ */
+final class PartitionFanOut {
+
+    private static final Comparator<ScoredChunk> BY_SCORE = Comparator.comparingDouble(ScoredChunk::score);
+
+    private PartitionFanOut() {
+        // Utility class
+    }
+
+    static List<ScoredChunk> search(List<VectorIndex> targets, float[] query, int k, double threshold,
+                                    DocumentFilter filter) {
+        if (targets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (targets.size() == 1) {
+            return targets.get(0).search(query, k, threshold, filter);
+        }
+
+        int vectorCount = targets.stream().mapToInt(VectorIndex::size).sum();
+        List<List<ScoredChunk>> partitionHits = vectorCount <= ParallelTopK.SEQUENTIAL_THRESHOLD
+                ? targets.stream().map(p -> p.search(query, k, threshold, filter)).toList()
+                : ParallelTopK.fanOut(() -> targets.parallelStream()
+                        .map(p -> p.search(query, k, threshold, filter))
+                        .toList());
+        return merge(partitionHits, k);
+    }
+
+    /**
+     * Gộp top-k của các index con (mỗi danh sách đã sắp xếp điểm giảm dần) bằng min-heap k phần tử
+     */
+    private static List<ScoredChunk> merge(List<List<ScoredChunk>> partitionHits, int k) {
+        PriorityQueue<ScoredChunk> top = new PriorityQueue<>(k, BY_SCORE);
+        for (List<ScoredChunk> hits : partitionHits) {
+            for (ScoredChunk hit : hits) {
+                if (top.size() < k) {
+                    top.add(hit);
+                } else if (hit.score() > top.peek().score()) {
+                    top.poll();
+                    top.add(hit);
+                } else {
+                    // Phần còn lại của danh sách này có điểm thấp hơn
+                    break;
+                }
+            }
+        }
+        List<ScoredChunk> results = new ArrayList<>(top);
+        results.sort(BY_SCORE.reversed());
+        return results;
+    }
+}
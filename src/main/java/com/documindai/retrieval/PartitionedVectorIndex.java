@@ -0,0 +1,292 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Vector index chia partition theo document: mỗi document có một index con riêng
+ *
+ * Truy vấn giới hạn trong một số documents (filter liệt kê được) chỉ quét partitions của các documents đó,
+ * chi phí tỉ lệ với số chunks của chúng thay vì toàn bộ corpus.
+ * Truy vấn toàn cục fan-out song song qua mọi partitions rồi gộp top-k của từng partition.
+ * Xóa document là bỏ cả partition, không phải dồn lại mảng của index chung.
+ *
+ * Partitions được publish theo generation bất biến: writer dựng partitions mới cho các documents đã đổi
+ * (copy partition cũ nếu chỉ thêm vectors), chép bảng partitions rồi swap, nên partition đã publish không bao giờ
+ * bị sửa và readers (kể cả trong lúc reprocess một document) không chờ lock nào.
+ */
+public class PartitionedVectorIndex implements SnapshotableVectorIndex, VersionedVectorIndex {
+
+    /**
+     * Một generation: bảng partitions không đổi sau khi publish
+     */
+    private record Generation(long version, Map<Long, VectorIndex> partitions, int dimension, int size) {
+
+        static final Generation EMPTY = new Generation(0, Map.of(), 0, 0);
+    }
+
+    private final Supplier<VectorIndex> partitionFactory;
+    private final AtomicReference<Generation> current = new AtomicReference<>(Generation.EMPTY);
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final boolean snapshotSupported;
+
+    public PartitionedVectorIndex(Supplier<VectorIndex> partitionFactory) {
+        this.partitionFactory = partitionFactory;
+        this.snapshotSupported = partitionFactory.get() instanceof SnapshotableVectorIndex partition
+                && partition.snapshotSupported();
+    }
+
+    /**
+     * Mỗi lần gọi publish một generation: thêm vào document đã có chép cả partition của document đó,
+     * nên nạp nhiều vectors cần gom trong một update() để chỉ chép một lần
+     */
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        update(draft -> draft.add(chunkId, documentId, vector));
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] vector) {
+        update(draft -> draft.addNormalized(chunkId, documentId, vector));
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        int[] removed = {0};
+        update(draft -> removed[0] = draft.removeDocument(documentId));
+        return removed[0];
+    }
+
+    @Override
+    public void clear() {
+        update(Draft::clear);
+    }
+
+    @Override
+    public Draft edit() {
+        if (writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("A draft of this index is already open in the current thread");
+        }
+        writeLock.lock();
+        return new PartitionDraft(current.get());
+    }
+
+    @Override
+    public long version() {
+        return current.get().version();
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        Generation generation = current.get();
+        if (k <= 0 || query.length != generation.dimension()) {
+            return new ArrayList<>();
+        }
+
+        // Mỗi partition chỉ chứa một document nên filter được áp dụng ở mức partition, không kiểm tra từng vector
+        return PartitionFanOut.search(selectPartitions(generation, filter), query, k, threshold, DocumentFilter.ALL);
+    }
+
+    @Override
+    public void forEachVector(VectorVisitor visitor) {
+        for (VectorIndex partition : current.get().partitions().values()) {
+            ((SnapshotableVectorIndex) partition).forEachVector(visitor);
+        }
+    }
+
+    @Override
+    public boolean snapshotSupported() {
+        return snapshotSupported;
+    }
+
+    @Override
+    public int size() {
+        return current.get().size();
+    }
+
+    @Override
+    public int dimension() {
+        return current.get().dimension();
+    }
+
+    /**
+     * Số partitions (documents) hiện có
+     */
+    public int partitionCount() {
+        return current.get().partitions().size();
+    }
+
+    private static List<VectorIndex> selectPartitions(Generation generation, DocumentFilter filter) {
+        Map<Long, VectorIndex> partitions = generation.partitions();
+        List<VectorIndex> targets = new ArrayList<>();
+        if (filter.acceptsAll()) {
+            targets.addAll(partitions.values());
+            return targets;
+        }
+        long[] documentIds = filter.documentIds();
+        if (documentIds != null) {
+            for (long documentId : documentIds) {
+                VectorIndex partition = partitions.get(documentId);
+                if (partition != null) {
+                    targets.add(partition);
+                }
+            }
+            return targets;
+        }
+        for (Map.Entry<Long, VectorIndex> entry : partitions.entrySet()) {
+            if (filter.accept(entry.getKey())) {
+                targets.add(entry.getValue());
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Bản nháp: partitions của documents đã đổi là bản riêng chưa publish, null nghĩa là document bị xóa
+     */
+    private final class PartitionDraft implements Draft {
+
+        private final Generation base;
+        private final Map<Long, VectorIndex> changed = new HashMap<>();
+        private boolean cleared;
+        private int dimension;
+        private boolean open = true;
+
+        PartitionDraft(Generation base) {
+            this.base = base;
+            this.dimension = base.dimension();
+        }
+
+        @Override
+        public void add(long chunkId, long documentId, float[] vector) {
+            partitionOf(documentId, vector).add(chunkId, documentId, vector);
+        }
+
+        @Override
+        public void addNormalized(long chunkId, long documentId, float[] vector) {
+            partitionOf(documentId, vector).addNormalized(chunkId, documentId, vector);
+        }
+
+        /**
+         * Partition có thể sửa của document (bản sao của partition đã publish hoặc partition mới)
+         */
+        private VectorIndex partitionOf(long documentId, float[] vector) {
+            checkOpen();
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (dimension != vector.length) {
+                throw new IllegalArgumentException("Vector dimension " + vector.length
+                        + " does not match index dimension " + dimension);
+            }
+            VectorIndex partition = changed.get(documentId);
+            if (partition == null) {
+                VectorIndex published = changed.containsKey(documentId) ? null : basePartition(documentId);
+                partition = published != null ? copy(published) : partitionFactory.get();
+                changed.put(documentId, partition);
+            }
+            return partition;
+        }
+
+        @Override
+        public int removeDocument(long documentId) {
+            checkOpen();
+            VectorIndex partition = changed.containsKey(documentId)
+                    ? changed.get(documentId)
+                    : basePartition(documentId);
+            changed.put(documentId, null);
+            return partition != null ? partition.size() : 0;
+        }
+
+        @Override
+        public void clear() {
+            checkOpen();
+            changed.clear();
+            cleared = true;
+            dimension = 0;
+        }
+
+        @Override
+        public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+            throw new UnsupportedOperationException("Drafts are not searchable");
+        }
+
+        @Override
+        public int size() {
+            int size = cleared ? 0 : base.size();
+            for (Map.Entry<Long, VectorIndex> entry : changed.entrySet()) {
+                VectorIndex previous = basePartition(entry.getKey());
+                size += (entry.getValue() != null ? entry.getValue().size() : 0)
+                        - (previous != null ? previous.size() : 0);
+            }
+            return size;
+        }
+
+        @Override
+        public int dimension() {
+            return dimension;
+        }
+
+        @Override
+        public void publish() {
+            checkOpen();
+            Map<Long, VectorIndex> partitions = cleared ? new HashMap<>() : new HashMap<>(base.partitions());
+            int size = size();
+            changed.forEach((documentId, partition) -> {
+                if (partition == null || partition.size() == 0) {
+                    partitions.remove(documentId);
+                } else {
+                    partitions.put(documentId, partition);
+                }
+            });
+            current.set(new Generation(base.version() + 1, Collections.unmodifiableMap(partitions), dimension, size));
+            release();
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                release();
+            }
+        }
+
+        private VectorIndex basePartition(long documentId) {
+            return cleared ? null : base.partitions().get(documentId);
+        }
+
+        /**
+         * Partition đã publish không được sửa: vector đầu tiên thêm vào document đã có trong mỗi draft
+         * chép partition ra bản mới (O(số chunks của document)), các vectors sau trong cùng draft ghi vào bản đó
+         */
+        private VectorIndex copy(VectorIndex published) {
+            if (published instanceof FlatVectorIndex flat) {
+                return flat.copy();
+            }
+            if (!(published instanceof SnapshotableVectorIndex source)) {
+                throw new UnsupportedOperationException("Partitions of type " + published.getClass().getSimpleName()
+                        + " cannot be copied, remove the document before adding vectors");
+            }
+            VectorIndex partition = partitionFactory.get();
+            source.forEachVector(partition::add);
+            return partition;
+        }
+
+        private void checkOpen() {
+            if (!open) {
+                throw new IllegalStateException("Draft is already closed");
+            }
+        }
+
+        private void release() {
+            open = false;
+            changed.clear();
+            writeLock.unlock();
+        }
+    }
+}
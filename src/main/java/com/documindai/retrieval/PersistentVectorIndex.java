@@ -0,0 +1,17 @@
+package com.documindai.retrieval;
+
+/**
+ * Vector index lưu trên disk, dữ liệu còn nguyên sau khi khởi động lại
+ */
+public interface PersistentVectorIndex extends VectorIndex {
+
+    /**
+     * Đẩy các thay đổi đang nằm trong page cache xuống disk
+     */
+    void flush();
+
+    /**
+     * Flush và đóng các file đang mở
+     */
+    void close();
+}
@@ -0,0 +1,319 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Vector index nén bằng product quantization: mỗi chunk chỉ chiếm m bytes
+ *
+ * Trước khi train, vectors (đã chuẩn hóa) được giữ dạng float32 và tìm kiếm chính xác.
+ * Khi đủ dữ liệu, codebooks được train một lần, toàn bộ vectors được mã hóa và bộ đệm float32 được giải phóng.
+ * Truy vấn dùng bảng tra tích vô hướng (ADC), sau đó top (k * rerankFactor) ứng viên
+ * được chấm lại bằng cosine chính xác trên vectors full-precision load từ FullPrecisionVectorLoader.
+ */
+public class PqVectorIndex implements TrainableVectorIndex, CopyableVectorIndex {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_POINTS_PER_CENTROID = 39;
+    // Mẫu training: tối đa 256 vectors mỗi centroid, và không vượt KMeans.MAX_SAMPLE_BYTES
+    private static final int MAX_TRAINING_POINTS = 256 * ProductQuantizer.CENTROIDS_PER_SUBSPACE;
+    private static final int TRAINING_ITERATIONS = 10;
+
+    private final int subspaces;
+    private final FullPrecisionVectorLoader vectorLoader;
+    private final int rerankFactor;
+    private final Random random = new Random(42);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock trainingLock = new ReentrantLock();
+
+    private int dimension;
+    private int size;
+    private long[] chunkIds = new long[INITIAL_CAPACITY];
+    private long[] documentIds = new long[INITIAL_CAPACITY];
+    // Bộ đệm float32 trước khi train (null sau khi train)
+    private FloatVectorStore rawVectors;
+    // Codes PQ, m bytes mỗi vector (null trước khi train)
+    private ByteCodeStore codes;
+    private ProductQuantizer quantizer;
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    public PqVectorIndex(int subspaces, FullPrecisionVectorLoader vectorLoader, int rerankFactor) {
+        if (subspaces < 1) {
+            throw new IllegalArgumentException("PQ sub-spaces must be >= 1");
+        }
+        this.subspaces = subspaces;
+        this.vectorLoader = vectorLoader;
+        this.rerankFactor = Math.max(rerankFactor, 1);
+    }
+
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        float[] normalized = KERNEL.normalize(vector);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Cannot index zero vector");
+        }
+        addNormalized(chunkId, documentId, normalized);
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] normalized) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                if (normalized.length % subspaces != 0) {
+                    throw new IllegalArgumentException("Vector dimension " + normalized.length
+                            + " is not divisible by number of PQ sub-spaces " + subspaces);
+                }
+                dimension = normalized.length;
+                rawVectors = new FloatVectorStore(dimension, chunkIds.length);
+            } else if (normalized.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + normalized.length
+                        + " does not match index dimension " + dimension);
+            }
+
+            Integer existing = ordinals.get(chunkId);
+            int ordinal = existing != null ? existing : size++;
+            ensureCapacity(size);
+
+            chunkIds[ordinal] = chunkId;
+            documentIds[ordinal] = documentId;
+            if (quantizer != null) {
+                quantizer.encode(normalized, 0, codes.segment(ordinal), codes.offset(ordinal));
+            } else {
+                rawVectors.set(ordinal, normalized);
+            }
+            ordinals.put(chunkId, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                if (documentIds[read] == documentId) {
+                    ordinals.remove(chunkIds[read]);
+                    continue;
+                }
+                if (write != read) {
+                    chunkIds[write] = chunkIds[read];
+                    documentIds[write] = documentIds[read];
+                    if (quantizer != null) {
+                        codes.move(read, write);
+                    } else {
+                        rawVectors.move(read, write);
+                    }
+                    ordinals.put(chunkIds[write], write);
+                }
+                write++;
+            }
+            int removed = size - write;
+            size = write;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            ordinals.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        List<ScoredChunk> candidates = approximateSearch(query, k * rerankFactor, filter);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        return ExactReranker.rerank(vectorLoader, query, candidates, k, threshold);
+    }
+
+    /**
+     * Bản sao độc lập (shard copy-on-write); codebooks không đổi sau khi train nên được dùng chung
+     */
+    @Override
+    public PqVectorIndex copy() {
+        lock.readLock().lock();
+        try {
+            PqVectorIndex copy = new PqVectorIndex(subspaces, vectorLoader, rerankFactor);
+            copy.dimension = dimension;
+            copy.size = size;
+            copy.chunkIds = chunkIds.clone();
+            copy.documentIds = documentIds.clone();
+            copy.rawVectors = rawVectors != null ? rawVectors.copy() : null;
+            copy.codes = codes != null ? codes.copy() : null;
+            copy.quantizer = quantizer;
+            copy.ordinals.putAll(ordinals);
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isTrained() {
+        lock.readLock().lock();
+        try {
+            return quantizer != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * PQ chỉ train một lần (bộ đệm float32 được giải phóng sau khi train)
+     */
+    @Override
+    public boolean needsTraining() {
+        lock.readLock().lock();
+        try {
+            return quantizer == null && size >= ProductQuantizer.CENTROIDS_PER_SUBSPACE * MIN_POINTS_PER_CENTROID;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void train() {
+        if (!trainingLock.tryLock()) {
+            return;
+        }
+        try {
+            int dim;
+            float[] sample;
+            int sampleCount;
+            lock.readLock().lock();
+            try {
+                if (quantizer != null || size < ProductQuantizer.CENTROIDS_PER_SUBSPACE) {
+                    return;
+                }
+                dim = dimension;
+                sampleCount = KMeans.sampleSize(size, MAX_TRAINING_POINTS, ProductQuantizer.CENTROIDS_PER_SUBSPACE, dim);
+                int[] picked = KMeans.sampleWithoutReplacement(size, sampleCount, random);
+                sample = new float[sampleCount * dim];
+                for (int i = 0; i < sampleCount; i++) {
+                    System.arraycopy(rawVectors.segment(picked[i]), rawVectors.offset(picked[i]), sample, i * dim, dim);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // Train codebooks ngoài lock
+            ProductQuantizer trained = ProductQuantizer.train(sample, sampleCount, dim, subspaces,
+                    TRAINING_ITERATIONS, random);
+
+            // Mã hóa toàn bộ bộ đệm và chuyển sang codes
+            lock.writeLock().lock();
+            try {
+                ByteCodeStore encoded = new ByteCodeStore(subspaces, chunkIds.length);
+                encoded.ensureCapacity(chunkIds.length);
+                FloatVectorStore data = rawVectors;
+                IntStream.range(0, size).parallel().forEach(i -> trained.encode(data.segment(i), data.offset(i),
+                        encoded.segment(i), encoded.offset(i)));
+                codes = encoded;
+                quantizer = trained;
+                rawVectors = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            trainingLock.unlock();
+        }
+    }
+
+    /**
+     * Pass đầu: điểm chính xác trên bộ đệm float32 (trước khi train) hoặc điểm ADC trên codes PQ
+     */
+    private List<ScoredChunk> approximateSearch(float[] query, int candidateCount, DocumentFilter filter) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return new ArrayList<>();
+            }
+            float[] normalized = KERNEL.normalize(query);
+            if (normalized == null) {
+                return new ArrayList<>();
+            }
+
+            long[] documents = documentIds;
+            boolean filtered = !filter.acceptsAll();
+            TopKHeap top;
+            if (quantizer != null) {
+                ProductQuantizer pq = quantizer;
+                float[] table = pq.innerProductTable(normalized);
+                ByteCodeStore data = codes;
+                top = ParallelTopK.search(size, candidateCount, Double.NEGATIVE_INFINITY,
+                        i -> filtered && !filter.accept(documents[i])
+                                ? Float.NEGATIVE_INFINITY
+                                : pq.score(table, data.segment(i), data.offset(i)));
+            } else {
+                FloatVectorStore data = rawVectors;
+                top = ParallelTopK.search(size, candidateCount, Double.NEGATIVE_INFINITY,
+                        i -> filtered && !filter.accept(documents[i])
+                                ? Float.NEGATIVE_INFINITY
+                                : data.dot(normalized, 0, i));
+            }
+            return top.toScoredChunks(chunkIds, documentIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= chunkIds.length) {
+            return;
+        }
+        int capacity = FloatVectorStore.grownCapacity(chunkIds.length, required);
+        chunkIds = Arrays.copyOf(chunkIds, capacity);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        if (quantizer != null) {
+            codes.ensureCapacity(capacity);
+        } else {
+            rawVectors.ensureCapacity(capacity);
+        }
+    }
+}
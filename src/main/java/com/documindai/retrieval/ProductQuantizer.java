@@ -0,0 +1,114 @@
+package com.documindai.retrieval;
+
+import java.util.Random;
+
+/**
+ * Product quantization codec
+ *
+ * Vector dimension d được chia thành m sub-vectors (mỗi sub-vector d / m chiều),
+ * mỗi sub-space có codebook 256 centroids (train bằng k-means), nên một vector được mã hóa thành m bytes.
+ * Khi truy vấn dùng asymmetric distance computation: tính sẵn bảng tích vô hướng
+ * giữa query và mọi centroid (m x 256), điểm của một vector là tổng m giá trị tra bảng.
+ */
+public class ProductQuantizer {
+
+    public static final int CENTROIDS_PER_SUBSPACE = 256;
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private final int dimension;
+    private final int subspaces;
+    private final int subDimension;
+    // codebooks[(j * 256 + c) * subDimension ..] = centroid c của sub-space j
+    private final float[] codebooks;
+
+    private ProductQuantizer(int dimension, int subspaces, float[] codebooks) {
+        this.dimension = dimension;
+        this.subspaces = subspaces;
+        this.subDimension = dimension / subspaces;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * Train codebooks trên count vectors (mảng phẳng count * dimension)
+     */
+    public static ProductQuantizer train(float[] data, int count, int dimension, int subspaces,
+                                         int iterations, Random random) {
+        if (dimension % subspaces != 0) {
+            throw new IllegalArgumentException("Dimension " + dimension
+                    + " is not divisible by number of PQ sub-spaces " + subspaces);
+        }
+        int subDimension = dimension / subspaces;
+        float[] codebooks = new float[subspaces * CENTROIDS_PER_SUBSPACE * subDimension];
+        float[] subVectors = new float[count * subDimension];
+
+        for (int j = 0; j < subspaces; j++) {
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(data, i * dimension + j * subDimension, subVectors, i * subDimension, subDimension);
+            }
+            float[] centroids = KMeans.train(subVectors, count, subDimension, CENTROIDS_PER_SUBSPACE,
+                    iterations, false, random);
+            System.arraycopy(centroids, 0, codebooks, j * CENTROIDS_PER_SUBSPACE * subDimension, centroids.length);
+        }
+        return new ProductQuantizer(dimension, subspaces, codebooks);
+    }
+
+    /**
+     * Mã hóa vector (tại offset) thành m bytes ghi vào codes tại codeOffset
+     */
+    public void encode(float[] vector, int offset, byte[] codes, int codeOffset) {
+        for (int j = 0; j < subspaces; j++) {
+            int best = 0;
+            float bestDistance = Float.POSITIVE_INFINITY;
+            int subOffset = offset + j * subDimension;
+            for (int c = 0; c < CENTROIDS_PER_SUBSPACE; c++) {
+                int centroidOffset = (j * CENTROIDS_PER_SUBSPACE + c) * subDimension;
+                float distance = 0f;
+                for (int d = 0; d < subDimension; d++) {
+                    float diff = vector[subOffset + d] - codebooks[centroidOffset + d];
+                    distance += diff * diff;
+                }
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = c;
+                }
+            }
+            codes[codeOffset + j] = (byte) best;
+        }
+    }
+
+    /**
+     * Bảng tích vô hướng giữa query và mọi centroid: table[j * 256 + c]
+     */
+    public float[] innerProductTable(float[] query) {
+        float[] table = new float[subspaces * CENTROIDS_PER_SUBSPACE];
+        for (int j = 0; j < subspaces; j++) {
+            int subOffset = j * subDimension;
+            for (int c = 0; c < CENTROIDS_PER_SUBSPACE; c++) {
+                int centroidOffset = (j * CENTROIDS_PER_SUBSPACE + c) * subDimension;
+                table[j * CENTROIDS_PER_SUBSPACE + c] = KERNEL.dot(query, subOffset, codebooks, centroidOffset,
+                        subDimension);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Điểm xấp xỉ của một vector đã mã hóa theo bảng tra của query
+     */
+    public float score(float[] table, byte[] codes, int codeOffset) {
+        float sum = 0f;
+        for (int j = 0; j < subspaces; j++) {
+            sum += table[j * CENTROIDS_PER_SUBSPACE + (codes[codeOffset + j] & 0xFF)];
+        }
+        return sum;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int subspaces() {
+        return subspaces;
+    }
+}
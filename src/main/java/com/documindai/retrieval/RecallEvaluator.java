@@ -0,0 +1,162 @@
+package com.documindai.retrieval;
+
+import com.documindai.retrieval.SnapshotableVectorIndex.VectorVisitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Đo recall@k của một index xấp xỉ so với exact scan trên cùng tập queries
+ *
+ * Ground truth được tính bằng một lượt duyệt corpus cho mọi queries (không build index exact riêng),
+ * nên chỉ các vectors query được giữ lại thêm trong bộ nhớ.
+ */
+public final class RecallEvaluator {
+
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private RecallEvaluator() {
+        // Utility class
+    }
+
+    /**
+     * Nguồn vectors của corpus, duyệt được nhiều lần (ví dụ SnapshotableVectorIndex::forEachVector)
+     */
+    @FunctionalInterface
+    public interface Corpus {
+        void forEachVector(VectorVisitor visitor);
+    }
+
+    /**
+     * Chọn ngẫu nhiên (reservoir sampling) tối đa count vectors của corpus làm queries trong một lượt duyệt
+     */
+    public static List<Query> sampleQueries(Corpus corpus, int count, long seed) {
+        List<Query> queries = new ArrayList<>(Math.max(count, 0));
+        if (count <= 0) {
+            return queries;
+        }
+        Random random = new Random(seed);
+        long[] seen = {0};
+        corpus.forEachVector((chunkId, documentId, vector) -> {
+            long index = seen[0]++;
+            if (index < count) {
+                queries.add(new Query(vector, chunkId));
+            } else {
+                long slot = (long) (random.nextDouble() * (index + 1));
+                if (slot < count) {
+                    queries.set((int) slot, new Query(vector, chunkId));
+                }
+            }
+        });
+        return queries;
+    }
+
+    /**
+     * Recall@k = tỉ lệ chunk IDs trong top-k chính xác cũng xuất hiện trong top-k của index cần đánh giá
+     * Query lấy từ chính corpus nên chunk của query bị loại khỏi cả hai top-k,
+     * nếu không top-1 luôn là chính nó và recall bị thổi phồng
+     * Thời gian exact mỗi query là thời gian lượt duyệt corpus chia đều cho các queries
+     */
+    public static RecallReport evaluate(Corpus corpus, VectorIndex candidate, List<Query> queries, int k) {
+        long start = System.nanoTime();
+        List<Set<Long>> expected = exactTopK(corpus, queries, k);
+        long exactNanos = System.nanoTime() - start;
+
+        long candidateNanos = 0;
+        long relevant = 0;
+        long found = 0;
+        for (int q = 0; q < queries.size(); q++) {
+            Query query = queries.get(q);
+            start = System.nanoTime();
+            List<ScoredChunk> actual = candidate.search(query.vector(), k + 1, -1.0);
+            candidateNanos += System.nanoTime() - start;
+
+            Set<Long> expectedIds = expected.get(q);
+            for (long chunkId : topChunkIds(actual, query.chunkId(), k)) {
+                if (expectedIds.contains(chunkId)) {
+                    found++;
+                }
+            }
+            relevant += expectedIds.size();
+        }
+
+        int count = Math.max(queries.size(), 1);
+        double recall = relevant == 0 ? 0.0 : (double) found / relevant;
+        return new RecallReport(k, queries.size(), recall,
+                exactNanos / 1000.0 / count, candidateNanos / 1000.0 / count);
+    }
+
+    /**
+     * Top-k cosine chính xác (không gồm chunk của query) của mọi queries trong một lượt duyệt corpus
+     */
+    private static List<Set<Long>> exactTopK(Corpus corpus, List<Query> queries, int k) {
+        int count = queries.size();
+        float[][] normalized = new float[count][];
+        List<PriorityQueue<ScoredChunk>> heaps = new ArrayList<>(count);
+        for (Query query : queries) {
+            normalized[heaps.size()] = KERNEL.normalize(query.vector());
+            heaps.add(new PriorityQueue<>(k + 1, Comparator.comparingDouble(ScoredChunk::score)));
+        }
+
+        corpus.forEachVector((chunkId, documentId, vector) -> {
+            float norm = KERNEL.norm(vector);
+            if (norm == 0f) {
+                return;
+            }
+            for (int q = 0; q < count; q++) {
+                if (normalized[q] == null || chunkId == queries.get(q).chunkId()) {
+                    continue;
+                }
+                float score = KERNEL.dot(normalized[q], vector) / norm;
+                PriorityQueue<ScoredChunk> heap = heaps.get(q);
+                if (heap.size() < k) {
+                    heap.add(new ScoredChunk(chunkId, documentId, score));
+                } else if (k > 0 && score > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(new ScoredChunk(chunkId, documentId, score));
+                }
+            }
+        });
+
+        List<Set<Long>> expected = new ArrayList<>(count);
+        for (PriorityQueue<ScoredChunk> heap : heaps) {
+            List<ScoredChunk> hits = new ArrayList<>(heap);
+            hits.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+            Set<Long> chunkIds = new LinkedHashSet<>();
+            hits.forEach(hit -> chunkIds.add(hit.chunkId()));
+            expected.add(chunkIds);
+        }
+        return expected;
+    }
+
+    private static Set<Long> topChunkIds(List<ScoredChunk> hits, long queryChunkId, int k) {
+        Set<Long> chunkIds = new LinkedHashSet<>();
+        for (ScoredChunk hit : hits) {
+            if (chunkIds.size() >= k) {
+                break;
+            }
+            if (hit.chunkId() != queryChunkId) {
+                chunkIds.add(hit.chunkId());
+            }
+        }
+        return chunkIds;
+    }
+
+    /**
+     * Query đánh giá: vector của chunk chunkId trong corpus
+     */
+    public record Query(float[] vector, long chunkId) {
+    }
+
+    /**
+     * Kết quả đánh giá: recall và thời gian trung bình mỗi query (micro giây)
+     */
+    public record RecallReport(int k, int queries, double recall,
+                               double exactAvgMicros, double candidateAvgMicros) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.documindai.retrieval;
+
+import java.util.List;
+
+/**
+ * Phạm vi tìm kiếm context của một câu hỏi
+ *
+ * tenantId: chỉ documents do tenant (admin) đó upload (null = mọi tenant)
+ * documentIds: chỉ các documents này (null hoặc rỗng = không giới hạn)
+ * metadata: điều kiện lọc theo loại file, ngày upload, trạng thái active
+ */
+public record RetrievalScope(Long tenantId, List<Long> documentIds, MetadataFilter metadata) {
+
+    /**
+     * Toàn bộ documents đang active
+     */
+    public static final RetrievalScope ALL = new RetrievalScope(null, null, MetadataFilter.NONE);
+}
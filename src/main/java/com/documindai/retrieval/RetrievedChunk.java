@@ -0,0 +1,11 @@
+package com.documindai.retrieval;
+
+/**
+ * Kết quả retrieval đã load đủ cho chat: chunk, document nguồn và điểm
+ *
+ * @param score      điểm xếp hạng (cosine, hoặc điểm RRF ở chế độ hybrid)
+ * @param similarity cosine similarity với query, null nếu chunk chỉ đến từ keyword index
+ */
+public record RetrievedChunk(long chunkId, long documentId, String documentName, String content,
+                             double score, Double similarity) {
+}
@@ -0,0 +1,62 @@
+package com.documindai.retrieval;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Kernel vòng lặp scalar, dùng khi không có Vector API
+ */
+final class ScalarVectorKernel implements VectorKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] query, ByteBuffer data, int byteOffset, int length) {
+        ByteBuffer view = data.order() == ByteOrder.LITTLE_ENDIAN
+                ? data
+                : data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            sum += query[i] * view.getFloat(byteOffset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredNorm(float[] a, int offset, int length) {
+        float sum = 0f;
+        for (int i = 0; i < length; i++) {
+            float v = a[offset + i];
+            sum += v * v;
+        }
+        return sum;
+    }
+
+    @Override
+    public double cosine(float[] a, float[] b) {
+        float dot = 0f;
+        float normA = 0f;
+        float normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0f || normB == 0f) {
+            return 0.0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -0,0 +1,7 @@
+package com.documindai.retrieval;
+
+/**
+ * Kết quả tìm kiếm trong vector index: chunk ID, document ID và điểm similarity
+ */
+public record ScoredChunk(long chunkId, long documentId, double score) {
+}
@@ -0,0 +1,27 @@
+package com.documindai.retrieval;
+
+/**
+ * Vector index giữ vectors float32 đầy đủ nên có thể ghi ra snapshot và nạp lại bằng add()
+ */
+public interface SnapshotableVectorIndex extends VectorIndex {
+
+    /**
+     * Nhận lần lượt từng vector trong index
+     */
+    @FunctionalInterface
+    interface VectorVisitor {
+        void visit(long chunkId, long documentId, float[] vector);
+    }
+
+    /**
+     * Duyệt mọi vectors hiện có (vector truyền cho visitor là bản sao, visitor được giữ lại)
+     */
+    void forEachVector(VectorVisitor visitor);
+
+    /**
+     * Index (và mọi index con nếu có) thực sự giữ vectors đầy đủ
+     */
+    default boolean snapshotSupported() {
+        return true;
+    }
+}
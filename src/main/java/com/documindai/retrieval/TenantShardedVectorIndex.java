@@ -0,0 +1,498 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Vector index chia shard theo tenant (admin upload document): mỗi tenant có một index con riêng
+ *
+ * Truy vấn của một tenant chỉ chạm vectors trong shard của tenant đó, nên latency không tăng theo số tenants.
+ * Mỗi shard được đo kích thước và có thể bị evict độc lập; tenant đã bị evict phải được load lại
+ * (startLoad trên bản nháp rồi add) trước khi tìm kiếm, trong lúc đó các vectors mới của tenant bị bỏ qua
+ * (chúng đã nằm trong database nên có mặt khi shard được load lại).
+ * Truy vấn không gắn tenant fan-out qua các shards đang nằm trong bộ nhớ; bên gọi phải load lại mọi tenant
+ * trong evictedTenants() trước, nếu không kết quả sẽ thiếu documents của các tenants đó.
+ *
+ * Bảng shards được publish theo generation bất biến như PartitionedVectorIndex: bản nháp chỉ mở bản nháp
+ * (shard versioned) hoặc bản sao (engine khác) của các shards đã đổi, hoặc dựng shard mới, nên readers
+ * không chờ lock và không thấy trạng thái dở dang kể cả khi rebuild toàn bộ. Engine của shard phải là
+ * VersionedVectorIndex hoặc CopyableVectorIndex; sao chép tốn O(kích thước shard) cho mỗi lần cập nhật.
+ * Train/compact chạy trên shard đang phục vụ trong lúc bản sao của nó đang mở sẽ mất khi bản sao được publish
+ * và được làm lại ở lần bảo trì sau.
+ */
+public class TenantShardedVectorIndex implements SnapshotableVectorIndex, VersionedVectorIndex {
+
+    /**
+     * Thêm vector vào shard của một tenant chỉ định
+     */
+    public interface TenantWriter {
+        void add(long tenantId, long chunkId, long documentId, float[] vector);
+
+        /**
+         * Như add() với vector đã chuẩn hóa L2 (xem VectorIndex.addNormalized)
+         */
+        void addNormalized(long tenantId, long chunkId, long documentId, float[] vector);
+    }
+
+    /**
+     * Một generation: bảng shards và tenant của từng document không đổi sau khi publish
+     */
+    private record Generation(long version, Map<Long, VectorIndex> shards, Map<Long, Long> documentTenants,
+                              int dimension) {
+
+        static final Generation EMPTY = new Generation(0, Map.of(), Map.of(), 0);
+    }
+
+    private final Supplier<VectorIndex> shardFactory;
+    private final AtomicReference<Generation> current = new AtomicReference<>(Generation.EMPTY);
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Set<Long> evicted = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> lastAccess = new ConcurrentHashMap<>();
+
+    private final boolean snapshotSupported;
+
+    public TenantShardedVectorIndex(Supplier<VectorIndex> shardFactory) {
+        this.shardFactory = shardFactory;
+        this.snapshotSupported = shardFactory.get() instanceof SnapshotableVectorIndex shard
+                && shard.snapshotSupported();
+    }
+
+    /**
+     * Thêm (hoặc thay thế) vector của một chunk vào shard của tenant
+     */
+    public void add(long tenantId, long chunkId, long documentId, float[] vector) {
+        updateShards(draft -> draft.add(tenantId, chunkId, documentId, vector));
+    }
+
+    /**
+     * Như add(tenantId, ...) với vector đã chuẩn hóa L2
+     */
+    public void addNormalized(long tenantId, long chunkId, long documentId, float[] vector) {
+        updateShards(draft -> draft.addNormalized(tenantId, chunkId, documentId, vector));
+    }
+
+    /**
+     * Thêm vector của document đã biết tenant (document chưa gán tenant thì không thể định tuyến)
+     */
+    @Override
+    public void add(long chunkId, long documentId, float[] vector) {
+        updateShards(draft -> draft.add(chunkId, documentId, vector));
+    }
+
+    @Override
+    public void addNormalized(long chunkId, long documentId, float[] vector) {
+        updateShards(draft -> draft.addNormalized(chunkId, documentId, vector));
+    }
+
+    @Override
+    public int removeDocument(long documentId) {
+        int[] removed = {0};
+        updateShards(draft -> removed[0] = draft.removeDocument(documentId));
+        return removed[0];
+    }
+
+    @Override
+    public void clear() {
+        updateShards(ShardedDraft::clear);
+    }
+
+    /**
+     * Một thay đổi qua bản nháp có định tuyến theo tenant
+     */
+    private void updateShards(Consumer<ShardedDraft> changes) {
+        try (ShardedDraft draft = edit()) {
+            changes.accept(draft);
+            draft.publish();
+        }
+    }
+
+    @Override
+    public ShardedDraft edit() {
+        if (writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("A draft of this index is already open in the current thread");
+        }
+        writeLock.lock();
+        return new ShardedDraft(current.get());
+    }
+
+    @Override
+    public long version() {
+        return current.get().version();
+    }
+
+    /**
+     * Tìm trên mọi shards đang nằm trong bộ nhớ (không gồm tenants đã bị evict)
+     */
+    @Override
+    public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+        Generation generation = current.get();
+        if (k <= 0 || query.length != generation.dimension()) {
+            return new ArrayList<>();
+        }
+        return PartitionFanOut.search(new ArrayList<>(generation.shards().values()), query, k, threshold, filter);
+    }
+
+    /**
+     * Tìm chỉ trong shard của một tenant
+     */
+    public List<ScoredChunk> search(long tenantId, float[] query, int k, double threshold, DocumentFilter filter) {
+        lastAccess.put(tenantId, System.nanoTime());
+        Generation generation = current.get();
+        VectorIndex shard = generation.shards().get(tenantId);
+        if (shard == null || k <= 0 || query.length != generation.dimension()) {
+            return new ArrayList<>();
+        }
+        return shard.search(query, k, threshold, filter);
+    }
+
+    /**
+     * Shard của tenant đã bị evict, cần load lại trước khi tìm kiếm
+     */
+    public boolean isEvicted(long tenantId) {
+        return evicted.contains(tenantId);
+    }
+
+    /**
+     * Các tenants đã bị evict và chưa được load lại
+     */
+    public Set<Long> evictedTenants() {
+        return Set.copyOf(evicted);
+    }
+
+    /**
+     * Bỏ shard của tenant khỏi bộ nhớ, trả về số vectors đã giải phóng
+     */
+    public int evict(long tenantId) {
+        writeLock.lock();
+        try {
+            evicted.add(tenantId);
+            lastAccess.remove(tenantId);
+            Generation generation = current.get();
+            VectorIndex shard = generation.shards().get(tenantId);
+            if (shard == null) {
+                return 0;
+            }
+            Map<Long, VectorIndex> shards = new HashMap<>(generation.shards());
+            shards.remove(tenantId);
+            current.set(new Generation(generation.version() + 1, Collections.unmodifiableMap(shards),
+                    generation.documentTenants(), generation.dimension()));
+            return shard.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Tenant đang nằm trong bộ nhớ được truy vấn lâu nhất (null nếu không còn tenant nào ngoài excluded)
+     */
+    public Long leastRecentlyUsedTenant(long excludedTenantId) {
+        Long result = null;
+        long oldest = Long.MAX_VALUE;
+        for (Long tenantId : current.get().shards().keySet()) {
+            if (tenantId == excludedTenantId) {
+                continue;
+            }
+            long accessed = lastAccess.getOrDefault(tenantId, 0L);
+            if (result == null || accessed < oldest) {
+                result = tenantId;
+                oldest = accessed;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Số vectors của từng shard đang nằm trong bộ nhớ
+     */
+    public Map<Long, Integer> shardSizes() {
+        Map<Long, Integer> sizes = new HashMap<>();
+        current.get().shards().forEach((tenantId, shard) -> sizes.put(tenantId, shard.size()));
+        return sizes;
+    }
+
+    /**
+     * Số shards đang nằm trong bộ nhớ
+     */
+    public int shardCount() {
+        return current.get().shards().size();
+    }
+
+    /**
+     * Duyệt các shards (dùng cho training/compaction của từng shard)
+     */
+    public void forEachShard(Consumer<VectorIndex> consumer) {
+        current.get().shards().values().forEach(consumer);
+    }
+
+    /**
+     * Duyệt vectors của các shards đang nằm trong bộ nhớ (shard đã evict được load lại từ database khi cần)
+     */
+    @Override
+    public void forEachVector(VectorVisitor visitor) {
+        for (VectorIndex shard : current.get().shards().values()) {
+            ((SnapshotableVectorIndex) shard).forEachVector(visitor);
+        }
+    }
+
+    @Override
+    public boolean snapshotSupported() {
+        return snapshotSupported;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (VectorIndex shard : current.get().shards().values()) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return current.get().dimension();
+    }
+
+    /**
+     * Bản nháp định tuyến theo tenant: shard đã publish được sửa qua bản nháp của chính nó (nếu versioned)
+     * hoặc trên bản sao của nó; shard mới (hoặc mọi shard sau clear) được dựng riêng.
+     * Readers chỉ thấy thay đổi khi publish, đóng bản nháp chưa publish không để lại gì trên shards đang phục vụ.
+     */
+    public final class ShardedDraft implements Draft, TenantWriter {
+
+        private final Generation base;
+        // Tenant ID -> index nhận thay đổi (bản nháp của shard đã publish, hoặc shard mới)
+        private final Map<Long, VectorIndex> targets = new HashMap<>();
+        private final Map<Long, VectorIndex> newShards = new HashMap<>();
+        private final List<Draft> shardDrafts = new ArrayList<>();
+        private final Set<Long> loading = new HashSet<>();
+        private Map<Long, Long> documentTenants;
+        private boolean cleared;
+        private int dimension;
+        private boolean open = true;
+
+        ShardedDraft(Generation base) {
+            this.base = base;
+            this.documentTenants = base.documentTenants();
+            this.dimension = base.dimension();
+        }
+
+        @Override
+        public void add(long tenantId, long chunkId, long documentId, float[] vector) {
+            VectorIndex shard = shardFor(tenantId, documentId, vector);
+            if (shard != null) {
+                shard.add(chunkId, documentId, vector);
+            }
+        }
+
+        @Override
+        public void addNormalized(long tenantId, long chunkId, long documentId, float[] vector) {
+            VectorIndex shard = shardFor(tenantId, documentId, vector);
+            if (shard != null) {
+                shard.addNormalized(chunkId, documentId, vector);
+            }
+        }
+
+        @Override
+        public void add(long chunkId, long documentId, float[] vector) {
+            add(tenantOf(documentId), chunkId, documentId, vector);
+        }
+
+        @Override
+        public void addNormalized(long chunkId, long documentId, float[] vector) {
+            addNormalized(tenantOf(documentId), chunkId, documentId, vector);
+        }
+
+        private long tenantOf(long documentId) {
+            Long tenantId = documentTenants.get(documentId);
+            if (tenantId == null) {
+                throw new IllegalArgumentException("Document " + documentId + " is not assigned to a tenant");
+            }
+            return tenantId;
+        }
+
+        /**
+         * Ghi nhận tenant của document và trả về shard nhận vector; null nếu tenant đã bị evict và chưa load lại
+         */
+        private VectorIndex shardFor(long tenantId, long documentId, float[] vector) {
+            checkOpen();
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (dimension != vector.length) {
+                throw new IllegalArgumentException("Vector dimension " + vector.length
+                        + " does not match index dimension " + dimension);
+            }
+            Long previousTenant = writableTenants().put(documentId, tenantId);
+            if (previousTenant != null && previousTenant != tenantId) {
+                // Document đổi tenant: bỏ vectors cũ ở shard trước
+                VectorIndex previous = target(previousTenant, false);
+                if (previous != null) {
+                    previous.removeDocument(documentId);
+                }
+            }
+            if (!cleared && evicted.contains(tenantId) && !loading.contains(tenantId)) {
+                return null;
+            }
+            return target(tenantId, true);
+        }
+
+        @Override
+        public int removeDocument(long documentId) {
+            checkOpen();
+            Long tenantId = documentTenants.get(documentId);
+            if (tenantId == null) {
+                return 0;
+            }
+            writableTenants().remove(documentId);
+            VectorIndex shard = target(tenantId, false);
+            return shard != null ? shard.removeDocument(documentId) : 0;
+        }
+
+        @Override
+        public void clear() {
+            checkOpen();
+            abortShardDrafts();
+            targets.clear();
+            newShards.clear();
+            documentTenants = new HashMap<>();
+            cleared = true;
+            dimension = 0;
+        }
+
+        /**
+         * Bắt đầu load lại shard của tenant: các lần add tiếp theo của tenant được ghi vào shard,
+         * tenant hết bị đánh dấu evicted khi bản nháp được publish
+         */
+        public void startLoad(long tenantId) {
+            checkOpen();
+            loading.add(tenantId);
+            target(tenantId, true);
+        }
+
+        @Override
+        public List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter) {
+            throw new UnsupportedOperationException("Drafts are not searchable");
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Map.Entry<Long, VectorIndex> entry : base.shards().entrySet()) {
+                if (!cleared && !targets.containsKey(entry.getKey())) {
+                    size += entry.getValue().size();
+                }
+            }
+            for (VectorIndex target : targets.values()) {
+                size += target.size();
+            }
+            return size;
+        }
+
+        @Override
+        public int dimension() {
+            return dimension;
+        }
+
+        @Override
+        public void publish() {
+            checkOpen();
+            // Shards đã publish đổi generation của chính chúng trước, rồi bảng shards mới được swap vào
+            for (Draft shardDraft : shardDrafts) {
+                shardDraft.publish();
+            }
+            shardDrafts.clear();
+            Map<Long, VectorIndex> shards = cleared ? new HashMap<>() : new HashMap<>(base.shards());
+            shards.putAll(newShards);
+            current.set(new Generation(base.version() + 1, Collections.unmodifiableMap(shards),
+                    documentTenants == base.documentTenants()
+                            ? documentTenants
+                            : Collections.unmodifiableMap(documentTenants),
+                    dimension));
+            if (cleared) {
+                evicted.clear();
+                lastAccess.keySet().retainAll(shards.keySet());
+            }
+            for (Long tenantId : loading) {
+                evicted.remove(tenantId);
+                lastAccess.put(tenantId, System.nanoTime());
+            }
+            release();
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                abortShardDrafts();
+                release();
+            }
+        }
+
+        /**
+         * Index nhận thay đổi của tenant; create = false thì không dựng shard mới cho tenant chưa có shard
+         */
+        private VectorIndex target(long tenantId, boolean create) {
+            VectorIndex target = targets.get(tenantId);
+            if (target != null) {
+                return target;
+            }
+            VectorIndex published = cleared ? null : base.shards().get(tenantId);
+            if (published == null) {
+                if (!create) {
+                    return null;
+                }
+                target = shardFactory.get();
+                newShards.put(tenantId, target);
+            } else if (published instanceof VersionedVectorIndex versioned) {
+                Draft shardDraft = versioned.edit();
+                shardDrafts.add(shardDraft);
+                target = shardDraft;
+            } else if (published instanceof CopyableVectorIndex copyable) {
+                // Engine không versioned: sửa trên bản sao, bản sao thay shard cũ khi publish
+                target = copyable.copy();
+                newShards.put(tenantId, target);
+            } else {
+                throw new IllegalStateException("Shard engine " + published.getClass().getSimpleName()
+                        + " supports neither drafts nor copies");
+            }
+            targets.put(tenantId, target);
+            return target;
+        }
+
+        private Map<Long, Long> writableTenants() {
+            if (documentTenants == base.documentTenants()) {
+                documentTenants = new HashMap<>(base.documentTenants());
+            }
+            return documentTenants;
+        }
+
+        private void abortShardDrafts() {
+            for (Draft shardDraft : shardDrafts) {
+                shardDraft.close();
+            }
+            shardDrafts.clear();
+        }
+
+        private void checkOpen() {
+            if (!open) {
+                throw new IllegalStateException("Draft is already closed");
+            }
+        }
+
+        private void release() {
+            open = false;
+            targets.clear();
+            newShards.clear();
+            writeLock.unlock();
+        }
+    }
+}
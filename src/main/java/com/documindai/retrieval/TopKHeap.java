@@ -0,0 +1,123 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Min-heap giới hạn k phần tử trên mảng primitive (ordinal, score), không tạo object cho mỗi ứng viên
+ *
+ * Gốc heap là điểm thấp nhất trong top-k hiện tại, ứng viên chỉ được thêm khi vượt điểm đó.
+ */
+final class TopKHeap {
+
+    private final int capacity;
+    private final int[] ordinals;
+    private final float[] scores;
+    private int size;
+
+    TopKHeap(int capacity) {
+        this.capacity = capacity;
+        this.ordinals = new int[capacity];
+        this.scores = new float[capacity];
+    }
+
+    /**
+     * Thêm ứng viên nếu heap chưa đầy hoặc điểm cao hơn điểm thấp nhất
+     */
+    void offer(int ordinal, float score) {
+        if (size < capacity) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            ordinals[0] = ordinal;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Gộp top-k của heap khác vào heap này
+     */
+    void merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ordinals[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Chuyển sang ScoredChunk (ordinal tra trong chunkIds/documentIds), sắp xếp điểm giảm dần
+     */
+    List<ScoredChunk> toScoredChunks(long[] chunkIds, long[] documentIds) {
+        List<ScoredChunk> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int ordinal = ordinals[i];
+            results.add(new ScoredChunk(chunkIds[ordinal], documentIds[ordinal], scores[i]));
+        }
+        results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+        return results;
+    }
+
+    /**
+     * Như toScoredChunks(chunkIds, documentIds) khi heap chấm trên một tập con: ordinal của heap là chỉ số trong rows
+     */
+    List<ScoredChunk> toScoredChunks(int[] rows, long[] chunkIds, long[] documentIds) {
+        List<ScoredChunk> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int row = rows[ordinals[i]];
+            results.add(new ScoredChunk(chunkIds[row], documentIds[row], scores[i]));
+        }
+        results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+        return results;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int ordinal(int index) {
+        return ordinals[index];
+    }
+
+    float score(int index) {
+        return scores[index];
+    }
+
+    private void siftUp(int index) {
+        int ordinal = ordinals[index];
+        float score = scores[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            ordinals[index] = ordinals[parent];
+            scores[index] = scores[parent];
+            index = parent;
+        }
+        ordinals[index] = ordinal;
+        scores[index] = score;
+    }
+
+    private void siftDown(int index) {
+        int ordinal = ordinals[index];
+        float score = scores[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            ordinals[index] = ordinals[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ordinals[index] = ordinal;
+        scores[index] = score;
+    }
+}
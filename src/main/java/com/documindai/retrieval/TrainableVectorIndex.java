@@ -0,0 +1,22 @@
+package com.documindai.retrieval;
+
+/**
+ * Vector index cần được train (ví dụ: IVF, product quantization) trước khi tìm kiếm hiệu quả
+ */
+public interface TrainableVectorIndex extends VectorIndex {
+
+    /**
+     * Index đã đủ dữ liệu để train lần đầu, hoặc corpus đã tăng đủ nhiều để train lại
+     */
+    boolean needsTraining();
+
+    /**
+     * Train (hoặc train lại) index trên các vectors hiện có
+     */
+    void train();
+
+    /**
+     * Index đã được train hay chưa
+     */
+    boolean isTrained();
+}
@@ -0,0 +1,55 @@
+package com.documindai.retrieval;
+
+import java.util.List;
+
+/**
+ * Interface chung cho các vector index dùng trong retrieval (exact hoặc approximate)
+ * Similarity được tính theo cosine, điểm càng cao càng giống
+ */
+public interface VectorIndex {
+
+    /**
+     * Thêm (hoặc thay thế) vector của một chunk
+     */
+    void add(long chunkId, long documentId, float[] vector);
+
+    /**
+     * Như add() với vector đã chuẩn hóa L2 (norm = 1): engine chuẩn hóa khi thêm thì bỏ qua bước đó
+     * Bên gọi bảo đảm norm, vector chưa chuẩn hóa sẽ cho điểm cosine sai
+     */
+    default void addNormalized(long chunkId, long documentId, float[] vector) {
+        add(chunkId, documentId, vector);
+    }
+
+    /**
+     * Xóa tất cả vectors của một document, trả về số vectors đã xóa
+     */
+    int removeDocument(long documentId);
+
+    /**
+     * Xóa toàn bộ index
+     */
+    void clear();
+
+    /**
+     * Tìm top-k chunks có similarity cao nhất với query (chỉ lấy các kết quả >= threshold)
+     */
+    default List<ScoredChunk> search(float[] query, int k, double threshold) {
+        return search(query, k, threshold, DocumentFilter.ALL);
+    }
+
+    /**
+     * Tìm top-k chunks chỉ trong các documents được filter chấp nhận
+     */
+    List<ScoredChunk> search(float[] query, int k, double threshold, DocumentFilter filter);
+
+    /**
+     * Số vectors hiện có trong index
+     */
+    int size();
+
+    /**
+     * Số chiều của vectors (0 nếu index rỗng)
+     */
+    int dimension();
+}
@@ -0,0 +1,12 @@
+package com.documindai.retrieval;
+
+/**
+ * Tạo vector index rỗng của engine đã cấu hình cho vectors của một embedding model
+ * Index nén re-rank bằng vectors full-precision của đúng model đó, nên index của model đang phục vụ và
+ * index shadow (model đang re-embed) có thể tồn tại song song
+ */
+@FunctionalInterface
+public interface VectorIndexFactory {
+
+    VectorIndex create(String embeddingModel);
+}
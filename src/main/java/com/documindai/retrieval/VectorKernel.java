@@ -0,0 +1,71 @@
+package com.documindai.retrieval;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kernel tính toán trên vectors float32 primitive (tích vô hướng, norm, cosine)
+ *
+ * Implementation mặc định là SIMD qua jdk.incubator.vector, fallback về vòng lặp scalar
+ * khi module không có trong runtime (xem VectorKernels).
+ */
+public interface VectorKernel {
+
+    /**
+     * Tên kernel (dùng cho log và benchmark)
+     */
+    String name();
+
+    /**
+     * Tích vô hướng của length phần tử bắt đầu từ aOffset và bOffset
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Tích vô hướng giữa query và vector float32 little-endian nằm trong buffer tại byteOffset
+     */
+    float dot(float[] query, ByteBuffer data, int byteOffset, int length);
+
+    /**
+     * Tổng bình phương length phần tử bắt đầu từ offset
+     */
+    float squaredNorm(float[] a, int offset, int length);
+
+    /**
+     * Cosine similarity, tính tích vô hướng và hai norms trong cùng một lượt
+     */
+    double cosine(float[] a, float[] b);
+
+    default float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Điểm của một query với count vectors liên tiếp trong data (mảng phẳng count * query.length)
+     */
+    default void dotBatch(float[] query, float[] data, int count, float[] scores) {
+        int dimension = query.length;
+        for (int i = 0; i < count; i++) {
+            scores[i] = dot(query, 0, data, i * dimension, dimension);
+        }
+    }
+
+    default float norm(float[] a) {
+        return (float) Math.sqrt(squaredNorm(a, 0, a.length));
+    }
+
+    /**
+     * Trả về bản sao đã chuẩn hóa về độ dài 1, null nếu là vector 0
+     */
+    default float[] normalize(float[] vector) {
+        float sum = squaredNorm(vector, 0, vector.length);
+        if (sum == 0f) {
+            return null;
+        }
+        float inverseNorm = (float) (1.0 / Math.sqrt(sum));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverseNorm;
+        }
+        return normalized;
+    }
+}
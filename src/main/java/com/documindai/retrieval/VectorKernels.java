@@ -0,0 +1,59 @@
+package com.documindai.retrieval;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chọn VectorKernel dùng chung cho toàn bộ retrieval
+ *
+ * Thử load PanamaVectorKernel (cần --add-modules jdk.incubator.vector lúc chạy),
+ * nếu module không có hoặc CPU không có thanh ghi SIMD đủ rộng thì dùng ScalarVectorKernel.
+ * Có thể ép dùng scalar bằng system property documind.vector.kernel=scalar.
+ */
+@Slf4j
+public final class VectorKernels {
+
+    private static final String PANAMA_KERNEL = "com.documindai.retrieval.PanamaVectorKernel";
+    private static final int MIN_LANES = 4;
+
+    private static final VectorKernel SCALAR = new ScalarVectorKernel();
+    private static final VectorKernel INSTANCE = load();
+
+    private VectorKernels() {
+        // Utility class
+    }
+
+    /**
+     * Kernel đang dùng
+     */
+    public static VectorKernel get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Kernel scalar (baseline cho benchmark)
+     */
+    public static VectorKernel scalar() {
+        return SCALAR;
+    }
+
+    private static VectorKernel load() {
+        if ("scalar".equalsIgnoreCase(System.getProperty("documind.vector.kernel"))) {
+            log.info("Using scalar vector kernel (forced by documind.vector.kernel)");
+            return SCALAR;
+        }
+        try {
+            Class<?> type = Class.forName(PANAMA_KERNEL);
+            int lanes = (int) type.getDeclaredMethod("lanes").invoke(null);
+            if (lanes < MIN_LANES) {
+                log.info("Vector API preferred species has only {} float lanes, using scalar vector kernel", lanes);
+                return SCALAR;
+            }
+            VectorKernel kernel = (VectorKernel) type.getDeclaredConstructor().newInstance();
+            log.info("Using {} vector kernel ({} float lanes)", kernel.name(), lanes);
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.info("jdk.incubator.vector is not available ({}), using scalar vector kernel", e.toString());
+            return SCALAR;
+        }
+    }
+}
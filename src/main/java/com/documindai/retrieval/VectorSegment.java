@@ -0,0 +1,289 @@
+package com.documindai.retrieval;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Segment file chứa vectors, map thẳng vào bộ nhớ (off-heap)
+ *
+ * File có dung lượng cố định (capacity records), chỉ ghi nối thêm:
+ * header 32 bytes (magic, version, dimension, capacity, count) rồi các records
+ * [chunkId (8) | documentId (8) | vector float32 đã chuẩn hóa (4 * dimension)], little-endian.
+ * Record đã xóa được đánh dấu tombstone trong file .del đi kèm (danh sách ordinals int32).
+ */
+final class VectorSegment implements Closeable {
+
+    static final String FILE_SUFFIX = ".vec";
+    static final String TOMBSTONE_SUFFIX = ".del";
+
+    private static final int MAGIC = 0x444D5653; // "DMVS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final int RECORD_HEADER_BYTES = 16;
+    private static final VectorKernel KERNEL = VectorKernels.get();
+
+    private final int id;
+    private final Path file;
+    private final Path tombstoneFile;
+    private final int dimension;
+    private final int capacity;
+    private final int recordBytes;
+
+    private final FileChannel channel;
+    private final FileChannel tombstoneChannel;
+    private final MappedByteBuffer buffer;
+    // View float trên toàn bộ file, index = byte offset / 4
+    private final FloatBuffer floats;
+
+    private final BitSet deleted = new BitSet();
+    private int count;
+    private int deletedCount;
+
+    private VectorSegment(int id, Path file, int dimension, int capacity, FileChannel channel) throws IOException {
+        this.id = id;
+        this.file = file;
+        this.tombstoneFile = tombstonePath(file);
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.recordBytes = RECORD_HEADER_BYTES + dimension * Float.BYTES;
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes(dimension, capacity));
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.floats = buffer.asFloatBuffer();
+        this.tombstoneChannel = FileChannel.open(tombstoneFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Tạo segment mới rỗng
+     */
+    static VectorSegment create(Path directory, int id, int dimension, int capacity) {
+        // Offsets dùng int nên một segment không vượt quá 2 GB
+        int maxCapacity = (int) ((Integer.MAX_VALUE - HEADER_BYTES) / (RECORD_HEADER_BYTES + (long) dimension * Float.BYTES));
+        capacity = Math.min(capacity, maxCapacity);
+        Path file = directory.resolve(fileName(id));
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            VectorSegment segment = new VectorSegment(id, file, dimension, capacity, channel);
+            segment.buffer.putInt(0, MAGIC);
+            segment.buffer.putInt(4, VERSION);
+            segment.buffer.putInt(8, dimension);
+            segment.buffer.putInt(12, capacity);
+            segment.buffer.putInt(COUNT_OFFSET, 0);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create vector segment " + file, e);
+        }
+    }
+
+    /**
+     * Mở lại segment đã có trên disk cùng với tombstones của nó
+     */
+    static VectorSegment open(Path file, int id) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                channel.close();
+                throw new IllegalStateException("Not a vector segment file: " + file);
+            }
+            int dimension = header.getInt(8);
+            int capacity = header.getInt(12);
+            VectorSegment segment = new VectorSegment(id, file, dimension, capacity, channel);
+            segment.count = Math.min(segment.buffer.getInt(COUNT_OFFSET), capacity);
+            segment.loadTombstones();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open vector segment " + file, e);
+        }
+    }
+
+    static String fileName(int id) {
+        return String.format("segment-%06d%s", id, FILE_SUFFIX);
+    }
+
+    /**
+     * Đọc ID segment từ tên file, -1 nếu không phải file segment
+     */
+    static int parseId(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("segment-") || !name.endsWith(FILE_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring("segment-".length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Ghi nối record (vector đã chuẩn hóa), trả về ordinal hoặc -1 nếu segment đã đầy
+     */
+    int append(long chunkId, long documentId, float[] normalized) {
+        if (count >= capacity) {
+            return -1;
+        }
+        int ordinal = count;
+        int offset = recordOffset(ordinal);
+        buffer.putLong(offset, chunkId);
+        buffer.putLong(offset + 8, documentId);
+        int floatOffset = (offset + RECORD_HEADER_BYTES) / Float.BYTES;
+        floats.put(floatOffset, normalized, 0, dimension);
+        // Count được ghi sau record để record dở dang không bao giờ được đọc lại
+        count++;
+        buffer.putInt(COUNT_OFFSET, count);
+        return ordinal;
+    }
+
+    /**
+     * Đánh dấu tombstone cho record
+     */
+    void delete(int ordinal) {
+        if (ordinal >= count || deleted.get(ordinal)) {
+            return;
+        }
+        deleted.set(ordinal);
+        deletedCount++;
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putInt(0, ordinal);
+        try {
+            tombstoneChannel.write(entry, tombstoneChannel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write tombstone to " + tombstoneFile, e);
+        }
+    }
+
+    /**
+     * Tích vô hướng giữa query (đã chuẩn hóa) và vector của record, đọc thẳng từ mapping
+     */
+    float dot(float[] query, int ordinal) {
+        return KERNEL.dot(query, buffer, recordOffset(ordinal) + RECORD_HEADER_BYTES, dimension);
+    }
+
+    /**
+     * Copy vector của record ra mảng heap (dùng khi compaction)
+     */
+    void readVector(int ordinal, float[] target) {
+        floats.get((recordOffset(ordinal) + RECORD_HEADER_BYTES) / Float.BYTES, target, 0, dimension);
+    }
+
+    long chunkId(int ordinal) {
+        return buffer.getLong(recordOffset(ordinal));
+    }
+
+    long documentId(int ordinal) {
+        return buffer.getLong(recordOffset(ordinal) + 8);
+    }
+
+    boolean isDeleted(int ordinal) {
+        return deleted.get(ordinal);
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    int id() {
+        return id;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    int liveCount() {
+        return count - deletedCount;
+    }
+
+    void force() {
+        buffer.force();
+        try {
+            tombstoneChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not flush tombstones of " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            force();
+        } finally {
+            closeQuietly(channel);
+            closeQuietly(tombstoneChannel);
+        }
+    }
+
+    /**
+     * Đóng và xóa file segment cùng file tombstone
+     * Mapping chỉ được giải phóng khi GC thu hồi buffer, trên Linux file đã xóa vẫn đọc được tới lúc đó
+     */
+    void closeAndDelete() {
+        closeQuietly(channel);
+        closeQuietly(tombstoneChannel);
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(tombstoneFile);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+            tombstoneFile.toFile().deleteOnExit();
+        }
+    }
+
+    private void loadTombstones() throws IOException {
+        long size = tombstoneChannel.size();
+        ByteBuffer entries = ByteBuffer.allocate((int) (size - size % Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+        tombstoneChannel.read(entries, 0);
+        entries.flip();
+        while (entries.remaining() >= Integer.BYTES) {
+            int ordinal = entries.getInt();
+            if (ordinal >= 0 && ordinal < count && !deleted.get(ordinal)) {
+                deleted.set(ordinal);
+                deletedCount++;
+            }
+        }
+    }
+
+    private int recordOffset(int ordinal) {
+        return HEADER_BYTES + ordinal * recordBytes;
+    }
+
+    private static long fileBytes(int dimension, int capacity) {
+        return HEADER_BYTES + (long) capacity * (RECORD_HEADER_BYTES + dimension * Float.BYTES);
+    }
+
+    private static Path tombstonePath(Path file) {
+        String name = file.getFileName().toString();
+        return file.resolveSibling(name.substring(0, name.length() - FILE_SUFFIX.length()) + TOMBSTONE_SUFFIX);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Không còn gì để làm với file đang đóng
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.documindai.retrieval;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot nhị phân của vector index trên disk: vectors kèm chunk ID, document ID, tenant ID và watermark của corpus
+ *
+ * Định dạng: header (magic, version, embedding model, dimension, thời điểm tạo), các records
+ * (chunk ID, document ID, tenant ID, dimension float32), record kết thúc (chunk ID = -1), số records,
+ * watermark (chunk ID lớn nhất đã ghi) và CRC32.
+ * File được ghi vào file tạm rồi rename nguyên tử, nên snapshot đang dùng không bao giờ bị ghi dở;
+ * file hỏng (sai magic, thiếu dữ liệu, sai CRC) hoặc của embedding model khác bị từ chối khi đọc.
+ */
+public final class VectorSnapshot {
+
+    private static final int MAGIC = 0x444D5653; // "DMVS"
+    private static final int VERSION = 2;
+    private static final long END_OF_RECORDS = -1L;
+
+    private VectorSnapshot() {
+        // Utility class
+    }
+
+    /**
+     * Thông tin của snapshot đã đọc
+     */
+    public record Header(String model, int dimension, long watermark, long createdAt, long count) {
+    }
+
+    /**
+     * Nhận từng record khi đọc snapshot
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long chunkId, long documentId, long tenantId, float[] vector);
+    }
+
+    /**
+     * Bắt đầu ghi snapshot vectors của một embedding model vào target (qua file tạm bên cạnh)
+     */
+    public static Writer writer(Path target, String model, int dimension) throws IOException {
+        return new Writer(target, model, dimension);
+    }
+
+    /**
+     * Đọc toàn bộ snapshot của embedding model cho trước, trả về header sau khi đã kiểm tra số records và CRC
+     * Snapshot của model khác bị từ chối trước khi đọc record nào
+     */
+    public static Header read(Path source, String model, RecordVisitor visitor) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(source), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a vector snapshot: " + source);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported vector snapshot version " + version);
+            }
+            String snapshotModel = in.readUTF();
+            if (!snapshotModel.equals(model)) {
+                throw new IOException("Vector snapshot was written for embedding model " + snapshotModel);
+            }
+            int dimension = in.readInt();
+            long createdAt = in.readLong();
+
+            byte[] bytes = new byte[dimension * Float.BYTES];
+            FloatBuffer floats = ByteBuffer.wrap(bytes).asFloatBuffer();
+            long count = 0;
+            while (true) {
+                long chunkId = in.readLong();
+                if (chunkId == END_OF_RECORDS) {
+                    break;
+                }
+                long documentId = in.readLong();
+                long tenantId = in.readLong();
+                in.readFully(bytes);
+                float[] vector = new float[dimension];
+                floats.get(0, vector);
+                visitor.visit(chunkId, documentId, tenantId, vector);
+                count++;
+            }
+
+            long expectedCount = in.readLong();
+            long watermark = in.readLong();
+            long checksum = crc.getValue();
+            long expectedChecksum = in.readLong();
+            if (expectedCount != count || expectedChecksum != checksum) {
+                throw new IOException("Corrupted vector snapshot: " + source);
+            }
+            return new Header(snapshotModel, dimension, watermark, createdAt, count);
+        }
+    }
+
+    /**
+     * Ghi snapshot theo từng record; chỉ thay file đích khi commit()
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final int dimension;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private final ByteBuffer vectorBytes;
+        private long count;
+        private long watermark;
+        private boolean committed;
+
+        private Writer(Path target, String model, int dimension) throws IOException {
+            this.target = target;
+            this.dimension = dimension;
+            this.vectorBytes = ByteBuffer.allocate(dimension * Float.BYTES);
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            this.temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            this.out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(model);
+            out.writeInt(dimension);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        public void write(long chunkId, long documentId, long tenantId, float[] vector) throws IOException {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + vector.length
+                        + " does not match snapshot dimension " + dimension);
+            }
+            out.writeLong(chunkId);
+            out.writeLong(documentId);
+            out.writeLong(tenantId);
+            vectorBytes.asFloatBuffer().put(vector);
+            out.write(vectorBytes.array());
+            watermark = Math.max(watermark, chunkId);
+            count++;
+        }
+
+        /**
+         * Ghi phần kết thúc rồi rename file tạm thành file đích
+         */
+        public void commit() throws IOException {
+            out.writeLong(END_OF_RECORDS);
+            out.writeLong(count);
+            out.writeLong(watermark);
+            out.flush();
+            // CRC tính trên mọi bytes trước nó
+            out.writeLong(crc.getValue());
+            out.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long watermark() {
+            return watermark;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.documindai.retrieval;
+
+import java.util.function.Consumer;
+
+/**
+ * Vector index publish dữ liệu theo các generation bất biến (copy-on-write)
+ *
+ * Readers lấy generation hiện tại qua một tham chiếu nguyên tử và tìm trên nó mà không chờ lock nào.
+ * Writers mở bản nháp trên generation hiện tại, dựng lại chỉ phần đã đổi rồi swap generation mới vào;
+ * generation cũ được GC thu hồi khi truy vấn cuối cùng còn giữ nó kết thúc.
+ */
+public interface VersionedVectorIndex extends VectorIndex {
+
+    /**
+     * Số thứ tự của generation đang được publish
+     */
+    long version();
+
+    /**
+     * Mở bản nháp trên generation hiện tại; writers khác chờ tới khi bản nháp được publish hoặc đóng
+     */
+    Draft edit();
+
+    /**
+     * Áp dụng một nhóm thay đổi rồi publish chúng trong một generation (readers thấy tất cả hoặc không gì)
+     * Exception trong changes bỏ toàn bộ bản nháp
+     */
+    default void update(Consumer<? super Draft> changes) {
+        try (Draft draft = edit()) {
+            changes.accept(draft);
+            draft.publish();
+        }
+    }
+
+    /**
+     * Bản nháp của generation kế tiếp: add, removeDocument, clear chỉ hiển thị với readers sau publish()
+     * Bản nháp chỉ dùng trong thread đã mở nó và không hỗ trợ tìm kiếm
+     */
+    interface Draft extends VectorIndex, AutoCloseable {
+
+        /**
+         * Swap generation mới vào và nhả quyền ghi
+         */
+        void publish();
+
+        /**
+         * Bỏ bản nháp nếu chưa publish và nhả quyền ghi
+         */
+        @Override
+        void close();
+    }
+}
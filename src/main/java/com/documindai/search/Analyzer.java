@@ -0,0 +1,33 @@
+package com.documindai.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chuyển text thành danh sách terms cho lexical index (dùng chung cho index và query)
+ */
+public interface Analyzer {
+
+    /**
+     * Term cùng vị trí (thứ tự từ) trong text, các terms phụ của một từ dùng chung vị trí với nó
+     */
+    record Token(String term, int position) {
+    }
+
+    /**
+     * Tách và chuẩn hóa text thành tokens theo thứ tự xuất hiện
+     */
+    List<Token> tokenize(String text);
+
+    /**
+     * Chỉ lấy terms (bỏ vị trí)
+     */
+    default List<String> analyze(String text) {
+        List<Token> tokens = tokenize(text);
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            terms.add(token.term());
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,303 @@
+package com.documindai.search;
+
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.ScoredChunk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index trong bộ nhớ trên nội dung chunks, xếp hạng theo BM25
+ *
+ * Mỗi term có một postings list (ordinal chunk, term frequency) trên mảng primitive.
+ * Xóa chỉ đánh dấu tombstone; như Lucene, document frequency và số chunks dùng cho IDF
+ * vẫn tính cả chunks đã xóa cho tới khi compaction loại bỏ chúng khỏi postings.
+ */
+public class Bm25Index {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Analyzer analyzer;
+    private final double k1;
+    private final double b;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int count;
+    private long[] chunkIds = new long[INITIAL_CAPACITY];
+    private long[] documentIds = new long[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private long totalLength;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, List<Integer>> documentOrdinals = new HashMap<>();
+
+    public Bm25Index(Analyzer analyzer, double k1, double b) {
+        this.analyzer = analyzer;
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Thêm (hoặc thay thế) nội dung của một chunk
+     */
+    public void add(long chunkId, long documentId, String content) {
+        Map<String, Integer> frequencies = termFrequencies(analyzer.analyze(content));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.remove(chunkId);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+
+            int ordinal = count++;
+            ensureCapacity(count);
+            chunkIds[ordinal] = chunkId;
+            documentIds[ordinal] = documentId;
+            lengths[ordinal] = length;
+            totalLength += length;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(ordinal, entry.getValue());
+            }
+            ordinals.put(chunkId, ordinal);
+            documentOrdinals.computeIfAbsent(documentId, id -> new ArrayList<>()).add(ordinal);
+
+            if (deletedCount > (count - deletedCount)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Đánh dấu xóa tất cả chunks của một document, trả về số chunks đã xóa
+     */
+    public int removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> removed = documentOrdinals.remove(documentId);
+            if (removed == null) {
+                return 0;
+            }
+            for (int ordinal : removed) {
+                ordinals.remove(chunkIds[ordinal]);
+                markDeleted(ordinal);
+            }
+            if (deletedCount > (count - deletedCount)) {
+                compact();
+            }
+            return removed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            count = 0;
+            totalLength = 0;
+            deleted.clear();
+            deletedCount = 0;
+            postings.clear();
+            ordinals.clear();
+            documentOrdinals.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top-k chunks theo điểm BM25 của query (chỉ các chunks chứa ít nhất một term của query)
+     */
+    public List<ScoredChunk> search(String query, int k, DocumentFilter filter) {
+        List<String> terms = new ArrayList<>(termFrequencies(analyzer.analyze(query)).keySet());
+        if (terms.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (count == deletedCount) {
+                return new ArrayList<>();
+            }
+            double averageLength = Math.max((double) totalLength / count, 1.0);
+            float[] scores = new float[count];
+            BitSet touched = new BitSet(count);
+
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (count - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = list.ordinals[i];
+                    if (deleted.get(ordinal)) {
+                        continue;
+                    }
+                    int tf = list.frequencies[i];
+                    double norm = k1 * (1 - b + b * lengths[ordinal] / averageLength);
+                    scores[ordinal] += (float) (idf * tf * (k1 + 1) / (tf + norm));
+                    touched.set(ordinal);
+                }
+            }
+
+            PriorityQueue<ScoredChunk> heap = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble(ScoredChunk::score));
+            for (int ordinal = touched.nextSetBit(0); ordinal >= 0; ordinal = touched.nextSetBit(ordinal + 1)) {
+                if (!filter.acceptsAll() && !filter.accept(documentIds[ordinal])) {
+                    continue;
+                }
+                double score = scores[ordinal];
+                if (heap.size() < k) {
+                    heap.add(new ScoredChunk(chunkIds[ordinal], documentIds[ordinal], score));
+                } else if (score > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(new ScoredChunk(chunkIds[ordinal], documentIds[ordinal], score));
+                }
+            }
+            List<ScoredChunk> results = new ArrayList<>(heap);
+            results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Số chunks còn hiệu lực
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Số terms khác nhau trong từ điển
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markDeleted(int ordinal) {
+        if (!deleted.get(ordinal)) {
+            deleted.set(ordinal);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * Loại bỏ chunks đã xóa khỏi postings và đánh số lại ordinals (gọi khi đã giữ write lock)
+     */
+    private void compact() {
+        int[] remap = new int[count];
+        int write = 0;
+        long length = 0;
+        for (int read = 0; read < count; read++) {
+            if (deleted.get(read)) {
+                remap[read] = -1;
+                continue;
+            }
+            remap[read] = write;
+            chunkIds[write] = chunkIds[read];
+            documentIds[write] = documentIds[read];
+            lengths[write] = lengths[read];
+            length += lengths[read];
+            write++;
+        }
+
+        postings.values().removeIf(list -> list.remap(remap) == 0);
+
+        ordinals.clear();
+        documentOrdinals.clear();
+        for (int ordinal = 0; ordinal < write; ordinal++) {
+            ordinals.put(chunkIds[ordinal], ordinal);
+            documentOrdinals.computeIfAbsent(documentIds[ordinal], id -> new ArrayList<>()).add(ordinal);
+        }
+        count = write;
+        totalLength = length;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= chunkIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, chunkIds.length + (chunkIds.length >> 1));
+        chunkIds = Arrays.copyOf(chunkIds, capacity);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    private static Map<String, Integer> termFrequencies(List<String> terms) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * Postings list của một term: ordinals tăng dần cùng term frequency
+     */
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        /**
+         * Đánh số lại theo remap (-1 = đã xóa), trả về số postings còn lại
+         */
+        int remap(int[] remap) {
+            int write = 0;
+            for (int read = 0; read < size; read++) {
+                int ordinal = remap[ordinals[read]];
+                if (ordinal < 0) {
+                    continue;
+                }
+                ordinals[write] = ordinal;
+                frequencies[write] = frequencies[read];
+                write++;
+            }
+            size = write;
+            return size;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.documindai.search;
+
+import java.text.Normalizer;
+
+/**
+ * Bỏ dấu tiếng Việt (và dấu Latin nói chung): "hợp đồng" -> "hop dong", "đ" -> "d"
+ *
+ * Bảng ánh xạ ký tự có dấu -> ký tự gốc được tính sẵn một lần cho các khối Latin,
+ * nên fold chỉ là một vòng tra bảng trên từng ký tự, không dùng regex hay Normalizer.
+ */
+public final class DiacriticFolder {
+
+    private static final char FIRST = 'À';
+    private static final char LAST = 'ỿ';
+    private static final char[] TABLE = buildTable();
+
+    private DiacriticFolder() {
+    }
+
+    /**
+     * Trả về text đã bỏ dấu (chính text nếu không có ký tự nào thay đổi)
+     */
+    public static String fold(String text) {
+        char[] folded = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char base = map(c);
+            if (base != c) {
+                if (folded == null) {
+                    folded = text.toCharArray();
+                }
+                folded[i] = base;
+            }
+        }
+        if (folded == null) {
+            return removeCombiningMarks(text);
+        }
+        return removeCombiningMarks(new String(folded));
+    }
+
+    private static char map(char c) {
+        if (c < FIRST || c > LAST) {
+            return c;
+        }
+        return TABLE[c - FIRST];
+    }
+
+    /**
+     * Dấu kết hợp rời (text chưa ở dạng NFC) bị bỏ đi
+     */
+    private static String removeCombiningMarks(String text) {
+        int i = 0;
+        while (i < text.length() && Character.getType(text.charAt(i)) != Character.NON_SPACING_MARK) {
+            i++;
+        }
+        if (i == text.length()) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static char[] buildTable() {
+        char[] table = new char[LAST - FIRST + 1];
+        for (char c = FIRST; c <= LAST; c++) {
+            char base = c;
+            if (c == 'đ') {
+                base = 'd';
+            } else if (c == 'Đ') {
+                base = 'D';
+            } else if (Character.isLetter(c)) {
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                char first = decomposed.charAt(0);
+                if (decomposed.length() > 1 && first < 0x80) {
+                    base = first;
+                }
+            }
+            table[c - FIRST] = base;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,429 @@
+package com.documindai.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index full-text trên documents với positional postings (tên file và nội dung)
+ *
+ * Mỗi field có postings riêng: ordinal document, term frequency và danh sách vị trí của term,
+ * nên cụm từ được kiểm tra chính xác mà không cần đọc lại text. Điểm là tổng BM25 của các fields
+ * (tên file nhân titleBoost). Xóa chỉ đánh dấu tombstone, compaction chạy khi số document đã xóa
+ * vượt số document còn hiệu lực.
+ */
+public class FullTextIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Một document khớp truy vấn cùng điểm của nó
+     */
+    public record Hit(long documentId, double score) {
+    }
+
+    /**
+     * Một trang kết quả đã xếp hạng cùng tổng số documents khớp
+     */
+    public record SearchResult(List<Hit> hits, int totalHits) {
+    }
+
+    private final Analyzer analyzer;
+    private final double k1;
+    private final double b;
+    private final double titleBoost;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int count;
+    private long[] documentIds = new long[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    private final Field title = new Field();
+    private final Field content = new Field();
+
+    public FullTextIndex(Analyzer analyzer, double k1, double b, double titleBoost) {
+        this.analyzer = analyzer;
+        this.k1 = k1;
+        this.b = b;
+        this.titleBoost = titleBoost;
+    }
+
+    /**
+     * Thêm (hoặc thay thế) một document
+     */
+    public void add(long documentId, String titleText, String contentText) {
+        // Phân tích text ngoài lock
+        FieldDocument titleDocument = FieldDocument.of(analyzer.tokenize(titleText));
+        FieldDocument contentDocument = FieldDocument.of(analyzer.tokenize(contentText));
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.remove(documentId);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+
+            int ordinal = count++;
+            ensureCapacity(count);
+            documentIds[ordinal] = documentId;
+            title.add(ordinal, titleDocument);
+            content.add(ordinal, contentDocument);
+            ordinals.put(documentId, ordinal);
+
+            if (deletedCount > (count - deletedCount)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Đánh dấu xóa một document, trả về false nếu document không có trong index
+     */
+    public boolean remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(documentId);
+            if (ordinal == null) {
+                return false;
+            }
+            markDeleted(ordinal);
+            if (deletedCount > (count - deletedCount)) {
+                compact();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            count = 0;
+            deleted.clear();
+            deletedCount = 0;
+            ordinals.clear();
+            title.clear();
+            content.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xếp hạng documents khớp truy vấn, trả về trang [offset, offset + limit)
+     */
+    public SearchResult search(SearchQuery query, int offset, int limit) {
+        if (query.isEmpty() || limit <= 0) {
+            return new SearchResult(new ArrayList<>(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (count == deletedCount) {
+                return new SearchResult(new ArrayList<>(), 0);
+            }
+            float[] scores = new float[count];
+            BitSet matched = new BitSet(count);
+            for (String term : query.terms()) {
+                title.score(term, titleBoost, scores, matched);
+                content.score(term, 1.0, scores, matched);
+            }
+
+            // Mọi cụm từ phải xuất hiện (trong tên file hoặc nội dung)
+            for (SearchQuery.Phrase phrase : query.phrases()) {
+                BitSet phraseMatches = title.phraseMatches(phrase);
+                phraseMatches.or(content.phraseMatches(phrase));
+                matched.and(phraseMatches);
+            }
+
+            int totalHits = matched.cardinality();
+            int wanted = (int) Math.min((long) offset + limit, totalHits);
+            if (offset >= wanted) {
+                return new SearchResult(new ArrayList<>(), totalHits);
+            }
+
+            PriorityQueue<Hit> heap = new PriorityQueue<>(wanted + 1, Comparator.comparingDouble(Hit::score));
+            for (int ordinal = matched.nextSetBit(0); ordinal >= 0; ordinal = matched.nextSetBit(ordinal + 1)) {
+                double score = scores[ordinal];
+                if (heap.size() < wanted) {
+                    heap.add(new Hit(documentIds[ordinal], score));
+                } else if (score > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(new Hit(documentIds[ordinal], score));
+                }
+            }
+            List<Hit> ranked = new ArrayList<>(heap);
+            ranked.sort(Comparator.comparingDouble(Hit::score).reversed());
+            return new SearchResult(new ArrayList<>(ranked.subList(offset, ranked.size())), totalHits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Số documents còn hiệu lực
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Số terms khác nhau trong nội dung
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return content.postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markDeleted(int ordinal) {
+        if (!deleted.get(ordinal)) {
+            deleted.set(ordinal);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * Loại bỏ documents đã xóa và đánh số lại ordinals (gọi khi đã giữ write lock)
+     */
+    private void compact() {
+        int[] remap = new int[count];
+        int write = 0;
+        for (int read = 0; read < count; read++) {
+            if (deleted.get(read)) {
+                remap[read] = -1;
+                continue;
+            }
+            remap[read] = write;
+            documentIds[write] = documentIds[read];
+            write++;
+        }
+        title.remap(remap);
+        content.remap(remap);
+
+        ordinals.clear();
+        for (int ordinal = 0; ordinal < write; ordinal++) {
+            ordinals.put(documentIds[ordinal], ordinal);
+        }
+        count = write;
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= documentIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, documentIds.length + (documentIds.length >> 1));
+        documentIds = Arrays.copyOf(documentIds, capacity);
+    }
+
+    /**
+     * Terms của một field trong một document: vị trí của từng term và độ dài field (số vị trí)
+     */
+    private record FieldDocument(Map<String, int[]> positions, int length) {
+
+        static FieldDocument of(List<Analyzer.Token> tokens) {
+            Map<String, List<Integer>> grouped = new LinkedHashMap<>();
+            int length = 0;
+            for (Analyzer.Token token : tokens) {
+                grouped.computeIfAbsent(token.term(), term -> new ArrayList<>()).add(token.position());
+                length = Math.max(length, token.position() + 1);
+            }
+            Map<String, int[]> positions = new LinkedHashMap<>();
+            grouped.forEach((term, list) -> positions.put(term, list.stream().mapToInt(Integer::intValue).toArray()));
+            return new FieldDocument(positions, length);
+        }
+    }
+
+    /**
+     * Postings và độ dài của một field
+     */
+    private final class Field {
+
+        private int[] lengths = new int[INITIAL_CAPACITY];
+        private long totalLength;
+        private final Map<String, PositionalPostings> postings = new HashMap<>();
+
+        void add(int ordinal, FieldDocument document) {
+            if (ordinal >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, Math.max(ordinal + 1, lengths.length + (lengths.length >> 1)));
+            }
+            lengths[ordinal] = document.length();
+            totalLength += document.length();
+            document.positions().forEach((term, positions) ->
+                    postings.computeIfAbsent(term, t -> new PositionalPostings()).add(ordinal, positions));
+        }
+
+        /**
+         * Cộng điểm BM25 của term vào scores cho mọi document chứa nó
+         */
+        void score(String term, double boost, float[] scores, BitSet matched) {
+            PositionalPostings list = postings.get(term);
+            if (list == null) {
+                return;
+            }
+            double averageLength = Math.max((double) totalLength / count, 1.0);
+            double idf = Math.log(1.0 + (count - list.size + 0.5) / (list.size + 0.5));
+            for (int i = 0; i < list.size; i++) {
+                int ordinal = list.ordinals[i];
+                if (deleted.get(ordinal)) {
+                    continue;
+                }
+                int tf = list.frequency(i);
+                double norm = k1 * (1 - b + b * lengths[ordinal] / averageLength);
+                scores[ordinal] += (float) (boost * idf * tf * (k1 + 1) / (tf + norm));
+                matched.set(ordinal);
+            }
+        }
+
+        /**
+         * Documents chứa cụm từ: duyệt postings của term đầu, tra các terms còn lại bằng binary search
+         */
+        BitSet phraseMatches(SearchQuery.Phrase phrase) {
+            BitSet matches = new BitSet(count);
+            String[] terms = phrase.terms();
+            int[] offsets = phrase.offsets();
+            PositionalPostings[] lists = new PositionalPostings[terms.length];
+            for (int t = 0; t < terms.length; t++) {
+                lists[t] = postings.get(terms[t]);
+                if (lists[t] == null) {
+                    return matches;
+                }
+            }
+
+            int[] entries = new int[terms.length];
+            PositionalPostings lead = lists[0];
+            for (int i = 0; i < lead.size; i++) {
+                int ordinal = lead.ordinals[i];
+                if (deleted.get(ordinal)) {
+                    continue;
+                }
+                entries[0] = i;
+                boolean all = true;
+                for (int t = 1; t < terms.length && all; t++) {
+                    entries[t] = Arrays.binarySearch(lists[t].ordinals, 0, lists[t].size, ordinal);
+                    all = entries[t] >= 0;
+                }
+                if (all && containsPhrase(lists, entries, offsets)) {
+                    matches.set(ordinal);
+                }
+            }
+            return matches;
+        }
+
+        private boolean containsPhrase(PositionalPostings[] lists, int[] entries, int[] offsets) {
+            PositionalPostings lead = lists[0];
+            for (int p = lead.positionStarts[entries[0]]; p < lead.positionStarts[entries[0] + 1]; p++) {
+                int start = lead.positions[p] - offsets[0];
+                boolean all = true;
+                for (int t = 1; t < lists.length && all; t++) {
+                    PositionalPostings list = lists[t];
+                    int from = list.positionStarts[entries[t]];
+                    int to = list.positionStarts[entries[t] + 1];
+                    all = Arrays.binarySearch(list.positions, from, to, start + offsets[t]) >= 0;
+                }
+                if (all) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void remap(int[] remap) {
+            long length = 0;
+            for (int read = 0; read < remap.length; read++) {
+                int ordinal = remap[read];
+                if (ordinal >= 0) {
+                    lengths[ordinal] = lengths[read];
+                    length += lengths[read];
+                }
+            }
+            totalLength = length;
+            postings.values().removeIf(list -> list.remap(remap) == 0);
+        }
+
+        void clear() {
+            totalLength = 0;
+            postings.clear();
+        }
+    }
+
+    /**
+     * Postings list có vị trí: ordinals tăng dần, vị trí của entry i nằm trong
+     * positions[positionStarts[i], positionStarts[i + 1])
+     */
+    private static final class PositionalPostings {
+
+        private int[] ordinals = new int[4];
+        private int[] positionStarts = new int[5];
+        private int[] positions = new int[8];
+        private int size;
+
+        void add(int ordinal, int[] termPositions) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+                positionStarts = Arrays.copyOf(positionStarts, ordinals.length + 1);
+            }
+            int start = positionStarts[size];
+            int end = start + termPositions.length;
+            if (end > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(end, positions.length * 2));
+            }
+            System.arraycopy(termPositions, 0, positions, start, termPositions.length);
+            ordinals[size] = ordinal;
+            size++;
+            positionStarts[size] = end;
+        }
+
+        int frequency(int entry) {
+            return positionStarts[entry + 1] - positionStarts[entry];
+        }
+
+        /**
+         * Đánh số lại theo remap (-1 = đã xóa), trả về số entries còn lại
+         */
+        int remap(int[] remap) {
+            int write = 0;
+            int positionWrite = 0;
+            for (int read = 0; read < size; read++) {
+                int ordinal = remap[ordinals[read]];
+                int from = positionStarts[read];
+                int to = positionStarts[read + 1];
+                if (ordinal < 0) {
+                    continue;
+                }
+                System.arraycopy(positions, from, positions, positionWrite, to - from);
+                ordinals[write] = ordinal;
+                positionStarts[write] = positionWrite;
+                positionWrite += to - from;
+                write++;
+            }
+            size = write;
+            positionStarts[size] = positionWrite;
+            return size;
+        }
+    }
+}
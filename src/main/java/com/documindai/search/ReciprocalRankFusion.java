@@ -0,0 +1,41 @@
+package com.documindai.search;
+
+import com.documindai.retrieval.ScoredChunk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gộp nhiều danh sách kết quả đã xếp hạng bằng reciprocal rank fusion
+ *
+ * Điểm của một chunk = tổng 1 / (rrfK + rank) trên các danh sách chứa nó (rank bắt đầu từ 1),
+ * chỉ dựa vào thứ hạng nên không cần chuẩn hóa thang điểm giữa BM25 và cosine.
+ */
+public final class ReciprocalRankFusion {
+
+    private ReciprocalRankFusion() {
+    }
+
+    /**
+     * Gộp các rankings, trả về tối đa limit chunks theo điểm RRF giảm dần
+     * Khi hòa điểm, chunk xuất hiện trước (theo thứ tự rankings) đứng trước
+     */
+    public static List<ScoredChunk> fuse(List<List<ScoredChunk>> rankings, int rrfK, int limit) {
+        Map<Long, ScoredChunk> fused = new LinkedHashMap<>();
+        for (List<ScoredChunk> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                ScoredChunk hit = ranking.get(rank);
+                double contribution = 1.0 / (rrfK + rank + 1);
+                fused.merge(hit.chunkId(), new ScoredChunk(hit.chunkId(), hit.documentId(), contribution),
+                        (current, added) -> new ScoredChunk(current.chunkId(), current.documentId(),
+                                current.score() + added.score()));
+            }
+        }
+        List<ScoredChunk> results = new ArrayList<>(fused.values());
+        results.sort(Comparator.comparingDouble(ScoredChunk::score).reversed());
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+}
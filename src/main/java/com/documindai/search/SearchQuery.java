@@ -0,0 +1,69 @@
+package com.documindai.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Truy vấn full-text đã phân tích: các terms tự do và các cụm từ đặt trong dấu nháy kép
+ *
+ * Document khớp khi chứa mọi cụm từ (đúng thứ tự, liền nhau) và ít nhất một term;
+ * terms của cụm từ cũng được tính vào điểm BM25.
+ */
+public record SearchQuery(List<String> terms, List<Phrase> phrases) {
+
+    /**
+     * Cụm từ: terms cùng vị trí tương đối của chúng trong cụm
+     */
+    public record Phrase(String text, String[] terms, int[] offsets) {
+    }
+
+    /**
+     * Parse text truy vấn, ví dụ: {@code hợp đồng "điều khoản thanh toán"}
+     */
+    public static SearchQuery parse(String text, Analyzer analyzer) {
+        Set<String> terms = new LinkedHashSet<>();
+        List<Phrase> phrases = new ArrayList<>();
+        if (text == null) {
+            return new SearchQuery(List.of(), List.of());
+        }
+
+        String[] parts = text.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<Analyzer.Token> tokens = analyzer.tokenize(parts[i]);
+            for (Analyzer.Token token : tokens) {
+                terms.add(token.term());
+            }
+            // Phần lẻ nằm giữa hai dấu nháy là cụm từ (dấu nháy cuối không đóng thì coi như terms tự do)
+            boolean quoted = i % 2 == 1 && i < parts.length - 1;
+            if (quoted && !tokens.isEmpty()) {
+                phrases.add(toPhrase(parts[i].trim(), tokens));
+            }
+        }
+        return new SearchQuery(new ArrayList<>(terms), phrases);
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    /**
+     * Mỗi vị trí chỉ lấy term đầu tiên (term nguyên vẹn, không lấy các phần con)
+     */
+    private static Phrase toPhrase(String text, List<Analyzer.Token> tokens) {
+        List<String> terms = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        int first = tokens.get(0).position();
+        int last = -1;
+        for (Analyzer.Token token : tokens) {
+            if (token.position() == last) {
+                continue;
+            }
+            terms.add(token.term());
+            offsets.add(token.position() - first);
+            last = token.position();
+        }
+        return new Phrase(text, terms.toArray(new String[0]), offsets.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
@@ -0,0 +1,85 @@
+package com.documindai.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Analyzer mặc định: lowercase, tách theo ký tự không phải chữ/số
+ *
+ * Các ký tự nối (- _ . /) nằm giữa hai ký tự chữ/số được giữ lại để mã định danh như
+ * "ABC-123" hay "v2.1" thành một term nguyên vẹn, đồng thời các phần con cũng được phát ra
+ * ("abc", "123") ở cùng vị trí để truy vấn theo từng phần vẫn khớp.
+ */
+public class StandardAnalyzer implements Analyzer {
+
+    @Override
+    public List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int length = normalized.length();
+        int start = -1;
+        boolean compound = false;
+        int position = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? normalized.charAt(i) : ' ';
+            if (isWordChar(c)) {
+                if (start < 0) {
+                    start = i;
+                    compound = false;
+                }
+            } else if (start >= 0 && isConnector(c) && i + 1 < length
+                    && isWordChar(normalized.charAt(i + 1))) {
+                compound = true;
+            } else if (start >= 0) {
+                emit(normalized.substring(start, i), compound, position++, tokens);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Chuẩn hóa toàn bộ text trước khi tách từ
+     */
+    protected String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ký tự thuộc một từ (chữ, số, hoặc dấu kết hợp còn sót lại sau chuẩn hóa)
+     */
+    protected boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    /**
+     * Phát term tại vị trí cho trước; lớp con có thể lọc (stopwords) hoặc thêm biến thể
+     */
+    protected void addTerm(String term, int position, List<Token> tokens) {
+        tokens.add(new Token(term, position));
+    }
+
+    private void emit(String word, boolean compound, int position, List<Token> tokens) {
+        addTerm(word, position, tokens);
+        if (!compound) {
+            return;
+        }
+        int partStart = 0;
+        for (int i = 0; i <= word.length(); i++) {
+            if (i == word.length() || isConnector(word.charAt(i))) {
+                if (i > partStart) {
+                    addTerm(word.substring(partStart, i), position, tokens);
+                }
+                partStart = i + 1;
+            }
+        }
+    }
+
+    private static boolean isConnector(char c) {
+        return c == '-' || c == '_' || c == '.' || c == '/';
+    }
+}
@@ -0,0 +1,75 @@
+package com.documindai.search;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Từ điển term: ánh xạ một từ (đã NFC + lowercase) tới kết quả phân tích của nó
+ *
+ * Tiếng Việt chỉ có vài nghìn âm tiết khác nhau nên hầu hết lookups trúng từ điển;
+ * bỏ dấu và kiểm tra stopword chỉ chạy một lần cho mỗi từ mới, các lần sau là một hash probe.
+ * Stopwords được tính sẵn khi khởi tạo, số entries được giới hạn để text rác không làm phình bộ nhớ.
+ */
+public class TermDictionary {
+
+    /**
+     * Kết quả phân tích của một từ: dạng bỏ dấu (null nếu không khác hoặc không bật) và cờ stopword
+     */
+    public record Entry(String term, String folded, boolean stopword) {
+    }
+
+    private final boolean foldDiacritics;
+    private final int maxEntries;
+    private final Map<String, Boolean> stopwords = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public TermDictionary(Collection<String> stopwords, boolean foldDiacritics, int maxEntries) {
+        this.foldDiacritics = foldDiacritics;
+        this.maxEntries = maxEntries;
+        for (String stopword : stopwords) {
+            this.stopwords.put(stopword, Boolean.TRUE);
+            // Khi bỏ dấu, truy vấn không dấu ("cua") cũng phải được lọc như "của"
+            if (foldDiacritics) {
+                this.stopwords.put(DiacriticFolder.fold(stopword), Boolean.TRUE);
+            }
+        }
+        for (String stopword : this.stopwords.keySet()) {
+            entries.put(stopword, new Entry(stopword, null, true));
+        }
+    }
+
+    /**
+     * Tra (hoặc phân tích rồi ghi nhớ) một từ
+     */
+    public Entry lookup(String term) {
+        Entry entry = entries.get(term);
+        if (entry != null) {
+            return entry;
+        }
+        entry = analyze(term);
+        if (entries.size() < maxEntries) {
+            entries.putIfAbsent(term, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Số entries hiện có
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry analyze(String term) {
+        String folded = null;
+        if (foldDiacritics) {
+            String candidate = DiacriticFolder.fold(term);
+            if (!candidate.equals(term)) {
+                folded = candidate;
+            }
+        }
+        boolean stopword = stopwords.containsKey(term);
+        return new Entry(term, folded, stopword);
+    }
+}
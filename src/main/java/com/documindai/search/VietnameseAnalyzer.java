@@ -0,0 +1,64 @@
+package com.documindai.search;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Analyzer cho tiếng Việt: chuẩn hóa NFC, lowercase, tách theo âm tiết, bỏ stopwords, tùy chọn bỏ dấu
+ *
+ * Tiếng Việt viết mỗi âm tiết cách nhau bằng khoảng trắng, nên mỗi âm tiết là một term; từ ghép nhiều âm tiết
+ * ("hợp đồng") được khớp chính xác bằng truy vấn cụm từ nhờ positional postings.
+ * Stopwords bị bỏ nhưng vẫn giữ chỗ vị trí để cụm từ chứa stopword vẫn khớp đúng khoảng cách.
+ * Khi bật bỏ dấu, mỗi âm tiết có dấu phát thêm dạng không dấu ở cùng vị trí: truy vấn không dấu
+ * ("hop dong") vẫn khớp, còn truy vấn có dấu khớp cả hai dạng nên được xếp hạng cao hơn.
+ */
+public class VietnameseAnalyzer extends StandardAnalyzer {
+
+    /**
+     * Stopwords mặc định (mức âm tiết) cho tiếng Việt và tiếng Anh
+     * Các từ mang nghĩa phủ định ("không", "chưa") được giữ lại vì đổi nghĩa câu
+     */
+    public static final Set<String> DEFAULT_STOPWORDS = Set.of(
+            "và", "của", "là", "các", "những", "có", "được", "cho", "trong", "với", "này", "một",
+            "để", "thì", "mà", "đã", "khi", "như", "từ", "theo", "về", "tại", "bị", "cũng", "nên",
+            "vì", "do", "ra", "vào", "lại", "nhưng", "hay", "hoặc", "rằng", "đó", "nó", "sẽ", "đang",
+            "ở", "trên", "nếu", "thế", "vậy", "rồi", "đây", "ấy", "nhiều", "mỗi", "việc",
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of",
+            "on", "or", "that", "the", "this", "to", "was", "were", "with");
+
+    private final TermDictionary dictionary;
+
+    public VietnameseAnalyzer(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Số entries trong từ điển term
+     */
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    @Override
+    protected String normalize(String text) {
+        // Cùng một chữ có thể đến ở dạng dựng sẵn (NFC) hoặc tổ hợp (NFD) tùy nguồn (PDF, Word, bàn phím)
+        String composed = Normalizer.isNormalized(text, Normalizer.Form.NFC)
+                ? text
+                : Normalizer.normalize(text, Normalizer.Form.NFC);
+        return composed.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    protected void addTerm(String term, int position, List<Token> tokens) {
+        TermDictionary.Entry entry = dictionary.lookup(term);
+        if (entry.stopword()) {
+            return;
+        }
+        tokens.add(new Token(entry.term(), position));
+        if (entry.folded() != null) {
+            tokens.add(new Token(entry.folded(), position));
+        }
+    }
+}
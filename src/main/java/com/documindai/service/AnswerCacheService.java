@@ -0,0 +1,43 @@
+package com.documindai.service;
+
+import com.documindai.cache.LruCache;
+
+import java.util.List;
+
+/**
+ * Service cache câu trả lời theo độ gần ngữ nghĩa của câu hỏi
+ * Câu trả lời chỉ được dùng lại trong cùng tenant, khi câu hỏi gần giống, cùng tập chunks đã retrieve
+ * và corpus chưa thay đổi
+ */
+public interface AnswerCacheService {
+
+    /**
+     * Phiên bản hiện tại của corpus, tăng mỗi khi documents được upload, reprocess hoặc xóa
+     */
+    long corpusVersion();
+
+    /**
+     * Tìm câu trả lời đã cache, null nếu không có
+     *
+     * @param tenantId      tenant (workspace) của user hỏi, null nếu user không gắn tenant
+     * @param queryVector   embedding đã chuẩn hóa của câu hỏi
+     * @param chunkIds      chunk IDs đã retrieve cho câu hỏi
+     * @param corpusVersion phiên bản corpus đọc trước khi retrieve
+     */
+    String findAnswer(Long tenantId, float[] queryVector, List<Long> chunkIds, long corpusVersion);
+
+    /**
+     * Cache câu trả lời (bỏ qua nếu corpus đã đổi phiên bản trong lúc tạo câu trả lời)
+     */
+    void putAnswer(Long tenantId, float[] queryVector, List<Long> chunkIds, long corpusVersion, String answer);
+
+    /**
+     * Đánh dấu corpus đã thay đổi: tăng phiên bản và xóa toàn bộ cache
+     */
+    void onCorpusChanged();
+
+    /**
+     * Thống kê hit/miss của cache
+     */
+    LruCache.Stats stats();
+}
@@ -2,6 +2,8 @@ package com.documindai.service;
 
 import com.documindai.model.Document;
 import com.documindai.model.DocumentChunk;
+import com.documindai.retrieval.RetrievalScope;
+import com.documindai.retrieval.RetrievedChunk;
 
 import java.util.List;
 
@@ -31,7 +33,11 @@ public interface DocumentChunkingService {
     List<DocumentChunk> saveChunks(List<DocumentChunk> chunks);
 
     /**
-     * Tìm các chunks có nội dung tương tự với query
+     * Tìm các chunks có nội dung tương tự với query (queryVector là embedding của query)
+     * Ở chế độ hybrid: gộp kết quả vector và BM25 (theo text của query) bằng reciprocal rank fusion
+     * scope giới hạn tìm kiếm theo tenant, danh sách documents và metadata (lọc trước khi chấm điểm)
+     * Kết quả mang sẵn điểm và tên document nguồn, theo thứ tự xếp hạng
      */
-    List<DocumentChunk> findSimilarChunks(String queryEmbedding, int limit, double threshold);
+    List<RetrievedChunk> findSimilarChunks(String query, float[] queryVector, RetrievalScope scope,
+                                           int limit, double threshold);
 }
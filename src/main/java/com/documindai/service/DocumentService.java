@@ -1,6 +1,7 @@
 package com.documindai.service;
 
 import com.documindai.dto.response.DocumentResponse;
+import com.documindai.dto.response.DocumentSearchResponse;
 import com.documindai.model.Document;
 import com.documindai.model.User;
 import org.springframework.web.multipart.MultipartFile;
@@ -61,4 +62,9 @@ public interface DocumentService {
      * Reprocess document (regenerate chunks and embeddings)
      */
     DocumentResponse reprocessDocument(Long id);
+
+    /**
+     * Tìm kiếm full-text documents theo tên file và nội dung, kết quả xếp hạng và phân trang
+     */
+    DocumentSearchResponse searchDocuments(String query, int page, int size);
 }
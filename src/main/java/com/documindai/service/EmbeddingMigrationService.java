@@ -0,0 +1,19 @@
+package com.documindai.service;
+
+import java.util.Map;
+
+/**
+ * Service interface cho migration embeddings (JSON LONGTEXT sang nhị phân float32, chuẩn hóa L2)
+ */
+public interface EmbeddingMigrationService {
+
+    /**
+     * Chuyển tất cả embeddings JSON còn lại (chunks và documents) sang cột nhị phân
+     */
+    Map<String, Object> migrateToBinary();
+
+    /**
+     * Chuẩn hóa L2 (một lần) các embeddings nhị phân được ghi trước khi có cờ embedding_normalized
+     */
+    Map<String, Object> normalizeStored();
+}
@@ -0,0 +1,39 @@
+package com.documindai.service;
+
+/**
+ * Service quản lý embedding model của corpus (registry trong bảng embedding_models)
+ * Một model SERVING dùng cho embeddings mới và câu hỏi; khi đang re-embed còn có một model SHADOW,
+ * embeddings mới được ghi cho cả hai model để corpus của model SHADOW không bị thiếu
+ */
+public interface EmbeddingModelService {
+
+    /**
+     * Model đang phục vụ
+     */
+    String servingModel();
+
+    /**
+     * Model đang được re-embed (null nếu không có)
+     */
+    String shadowModel();
+
+    /**
+     * Model trong cấu hình openai.embedding.model (model đích mặc định của re-embedding)
+     */
+    String configuredModel();
+
+    /**
+     * Bắt đầu re-embed sang model: từ giờ embeddings mới được ghi cho cả model này
+     */
+    void startShadow(String model);
+
+    /**
+     * Dừng re-embed (hủy hoặc lỗi): model shadow trở lại RETIRED, slot shadow đã ghi được giữ để chạy lại
+     */
+    void endShadow();
+
+    /**
+     * Chuyển model shadow thành model phục vụ, model phục vụ cũ thành RETIRED
+     */
+    void activate(String model);
+}
@@ -0,0 +1,35 @@
+package com.documindai.service;
+
+import com.documindai.model.Document;
+import com.documindai.search.FullTextIndex.SearchResult;
+
+/**
+ * Service interface cho full-text index của documents (tên file và nội dung đã extract)
+ */
+public interface FullTextIndexService {
+
+    /**
+     * Build lại toàn bộ index từ database
+     */
+    void rebuild();
+
+    /**
+     * Thêm (hoặc cập nhật) một document vào index
+     */
+    void indexDocument(Document document);
+
+    /**
+     * Xóa một document khỏi index
+     */
+    void removeDocument(Long documentId);
+
+    /**
+     * Tìm documents theo truy vấn (hỗ trợ cụm từ trong dấu nháy kép), trả về trang [offset, offset + limit)
+     */
+    SearchResult search(String query, int offset, int limit);
+
+    /**
+     * Số documents hiện có trong index
+     */
+    int size();
+}
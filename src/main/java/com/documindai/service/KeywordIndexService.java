@@ -0,0 +1,38 @@
+package com.documindai.service;
+
+import com.documindai.model.DocumentChunk;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.ScoredChunk;
+
+import java.util.List;
+
+/**
+ * Service interface cho keyword index (BM25) nằm trong bộ nhớ
+ */
+public interface KeywordIndexService {
+
+    /**
+     * Build lại toàn bộ index từ nội dung chunks trong database
+     */
+    void rebuild();
+
+    /**
+     * Thêm (hoặc cập nhật) nội dung của các chunks vào index
+     */
+    void indexChunks(List<DocumentChunk> chunks);
+
+    /**
+     * Xóa tất cả chunks của một document khỏi index
+     */
+    void removeDocument(Long documentId);
+
+    /**
+     * Tìm top-k chunks theo điểm BM25 của query, chỉ trong các documents được filter chấp nhận
+     */
+    List<ScoredChunk> search(String query, int limit, DocumentFilter filter);
+
+    /**
+     * Số chunks hiện có trong index
+     */
+    int size();
+}
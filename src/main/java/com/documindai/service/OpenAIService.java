@@ -10,9 +10,14 @@ import java.util.List;
 public interface OpenAIService {
 
     /**
-     * Tạo embedding cho text
+     * Tạo embedding cho text bằng embedding model cho trước
      */
-    List<Double> createEmbedding(String text);
+    List<Double> createEmbedding(String text, String model);
+
+    /**
+     * Tạo embeddings cho nhiều texts trong một request, theo đúng thứ tự của texts
+     */
+    List<List<Double>> createEmbeddings(List<String> texts, String model);
 
     /**
      * Chat completion với context từ documents
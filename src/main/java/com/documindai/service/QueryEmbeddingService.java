@@ -0,0 +1,26 @@
+package com.documindai.service;
+
+import com.documindai.cache.LruCache;
+
+/**
+ * Service tạo embedding cho câu hỏi của người dùng, có cache theo nội dung câu hỏi đã chuẩn hóa
+ */
+public interface QueryEmbeddingService {
+
+    /**
+     * Embedding đã chuẩn hóa (độ dài 1) của query theo embedding model cho trước,
+     * mảng rỗng nếu OpenAI không trả về embedding
+     * Mảng trả về có thể được chia sẻ giữa các lần gọi, không được sửa
+     */
+    float[] embedQuery(String query, String model);
+
+    /**
+     * Thống kê hit/miss của cache
+     */
+    LruCache.Stats stats();
+
+    /**
+     * Xóa toàn bộ cache
+     */
+    void clear();
+}
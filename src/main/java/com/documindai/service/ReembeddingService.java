@@ -0,0 +1,26 @@
+package com.documindai.service;
+
+import java.util.Map;
+
+/**
+ * Service re-embed corpus sang embedding model mới (blue/green)
+ * Job chạy nền với giới hạn throughput: ghi vector của model mới vào slot shadow, build index shadow,
+ * rồi đổi nguyên tử index phục vụ sang model mới; corpus vẫn được phục vụ bằng model cũ trong suốt quá trình
+ */
+public interface ReembeddingService {
+
+    /**
+     * Bắt đầu re-embed corpus sang model (null = openai.embedding.model trong cấu hình), trả về trạng thái job
+     */
+    Map<String, Object> start(String model);
+
+    /**
+     * Trạng thái của job re-embedding gần nhất
+     */
+    Map<String, Object> status();
+
+    /**
+     * Hủy job đang chạy: index shadow bị bỏ, model đang phục vụ giữ nguyên
+     */
+    Map<String, Object> cancel();
+}
@@ -44,4 +44,9 @@ public interface UserService {
      * Đếm số users theo role
      */
     long countUsersByRole(String role);
+
+    /**
+     * Gán user vào workspace (tenant) của một admin (null = được hỏi trên mọi documents)
+     */
+    UserResponse assignTenant(Long userId, Long tenantId);
 }
@@ -0,0 +1,49 @@
+package com.documindai.service;
+
+import com.documindai.retrieval.ModelIndex;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Service quản lý alias trỏ tới vector index của embedding model đang phục vụ và index shadow khi re-embedding
+ */
+public interface VectorIndexAliasService {
+
+    /**
+     * Index của embedding model đang phục vụ truy vấn
+     */
+    ModelIndex serving();
+
+    /**
+     * Embedding model của index đang phục vụ truy vấn
+     */
+    String servingModel();
+
+    /**
+     * Cập nhật index phục vụ rồi đồng bộ các documents đã đổi sang index shadow (nếu có)
+     * Alias không đổi trong lúc cập nhật nên không thay đổi nào bị lỡ khi đổi sang index shadow
+     */
+    void updateServing(Collection<Long> changedDocuments, Consumer<ModelIndex> changes);
+
+    /**
+     * Build index shadow cho embedding model mới từ các slot embedding của model đó trong database
+     * Index phục vụ vẫn nhận truy vấn; documents thay đổi trong lúc build được đồng bộ sang index shadow sau đó
+     */
+    void buildShadow(String model);
+
+    /**
+     * Nạp lại từ database vectors của các documents cho index của model (phục vụ hoặc shadow)
+     */
+    void reloadDocuments(String model, Collection<Long> documentIds);
+
+    /**
+     * Đổi nguyên tử alias phục vụ truy vấn sang index shadow đã build của model
+     */
+    void promoteShadow(String model);
+
+    /**
+     * Bỏ index shadow (re-embedding bị hủy hoặc lỗi)
+     */
+    void discardShadow();
+}
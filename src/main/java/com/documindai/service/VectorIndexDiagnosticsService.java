@@ -0,0 +1,23 @@
+package com.documindai.service;
+
+import com.documindai.retrieval.KernelBenchmark.BenchmarkReport;
+import com.documindai.retrieval.RecallEvaluator.RecallReport;
+
+/**
+ * Service đo chất lượng và hiệu năng của vector index
+ */
+public interface VectorIndexDiagnosticsService {
+
+    /**
+     * Đo recall@k của index đang dùng so với exact scan, dùng queryCount vectors chunk ngẫu nhiên làm query
+     * Exact scan duyệt chính index đang phục vụ (hoặc database nếu engine không giữ vectors đầy đủ), không chép corpus
+     */
+    RecallReport evaluateRecall(int k, int queryCount);
+
+    /**
+     * Benchmark kernel tính điểm đang dùng so với kernel scalar
+     * BadRequestException nếu dimension ngoài [1, 4096], vectorCount * dimension vượt giới hạn bộ nhớ
+     * hoặc rounds ngoài [1, 100]
+     */
+    BenchmarkReport benchmarkKernel(int dimension, int vectorCount, int rounds);
+}
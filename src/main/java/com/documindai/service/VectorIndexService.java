@@ -0,0 +1,81 @@
+package com.documindai.service;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.MetadataFilter;
+import com.documindai.retrieval.ScoredChunk;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service interface cho vector index nằm trong bộ nhớ
+ */
+public interface VectorIndexService {
+
+    /**
+     * Build lại toàn bộ index từ database
+     */
+    void rebuild();
+
+    /**
+     * Thêm (hoặc cập nhật) vectors của các chunks vào index
+     */
+    void indexChunks(List<DocumentChunk> chunks);
+
+    /**
+     * Thay toàn bộ vectors của một document (sau reprocess) bằng vectors của các chunks mới trong một lần cập nhật
+     */
+    void reindexDocument(Document document, List<DocumentChunk> chunks);
+
+    /**
+     * Thêm (hoặc cập nhật) embedding summary của document vào index mức document
+     */
+    void indexDocument(Document document);
+
+    /**
+     * Xóa tất cả vectors của một document khỏi index (cả chunks và summary)
+     */
+    void removeDocument(Long documentId);
+
+    /**
+     * Tìm top-k chunks tương tự với query vector, chỉ trong các documents được filter chấp nhận
+     * tenantId khác null: chỉ tìm trong documents do tenant (admin) đó upload, trên shard riêng của tenant;
+     * tenantId null: tìm trên mọi tenants (shards đã bị evict được load lại trước)
+     * Ở chế độ two-stage (truy vấn toàn cục): xếp hạng documents theo embedding summary trước,
+     * rồi chỉ chấm chunks của top-N documents
+     */
+    List<ScoredChunk> search(float[] queryVector, Long tenantId, int limit, double threshold, DocumentFilter filter);
+
+    /**
+     * Filter documents thỏa điều kiện metadata, tính từ bitmap index (ALL nếu không có điều kiện)
+     */
+    DocumentFilter metadataFilter(MetadataFilter filter);
+
+    /**
+     * Filter chỉ chấp nhận documents của một tenant (ALL nếu tenantId null)
+     */
+    DocumentFilter tenantFilter(Long tenantId);
+
+    /**
+     * Số vectors của từng tenant shard đang nằm trong bộ nhớ (rỗng nếu không chia shard theo tenant)
+     */
+    Map<Long, Integer> tenantShardSizes();
+
+    /**
+     * Giải phóng shard của một tenant khỏi bộ nhớ, trả về số vectors đã giải phóng
+     * Shard được load lại ở truy vấn kế tiếp của tenant hoặc ở truy vấn toàn cục (user không thuộc tenant) kế tiếp
+     */
+    int evictTenant(Long tenantId);
+
+    /**
+     * Số vectors hiện có trong index
+     */
+    int size();
+
+    /**
+     * Embedding model của vectors trong index đang phục vụ truy vấn (câu hỏi phải được embed bằng model này)
+     */
+    String servingModel();
+}
@@ -0,0 +1,18 @@
+package com.documindai.service;
+
+/**
+ * Service ghi snapshot của vector index ra disk và nạp lại snapshot khi khởi động
+ */
+public interface VectorSnapshotService {
+
+    /**
+     * Nạp index phục vụ từ snapshot rồi replay thay đổi từ database; false nếu snapshot bị tắt, không có,
+     * hỏng hoặc là snapshot của embedding model khác (khi đó index cần được build lại từ database)
+     */
+    boolean restoreSnapshot();
+
+    /**
+     * Ghi snapshot của index phục vụ nếu index đã thay đổi kể từ snapshot trước
+     */
+    void writeSnapshot();
+}
@@ -0,0 +1,79 @@
+package com.documindai.service.impl;
+
+import com.documindai.cache.LruCache;
+import com.documindai.cache.SemanticCache;
+import com.documindai.service.AnswerCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation của AnswerCacheService trên SemanticCache
+ */
+@Service
+@Slf4j
+public class AnswerCacheServiceImpl implements AnswerCacheService {
+
+    private final boolean enabled;
+    private final SemanticCache<String> cache;
+    private final AtomicLong corpusVersion = new AtomicLong();
+
+    public AnswerCacheServiceImpl(@Value("${app.cache.answer.enabled:true}") boolean enabled,
+                                  @Value("${app.cache.answer.max-size:1000}") int maxSize,
+                                  @Value("${app.cache.answer.max-distance:0.05}") double maxDistance,
+                                  @Value("${app.cache.answer.ttl-minutes:1440}") long ttlMinutes) {
+        this.enabled = enabled;
+        this.cache = new SemanticCache<>(maxSize, maxDistance, ttlMinutes * 60_000L);
+    }
+
+    @Override
+    public long corpusVersion() {
+        return corpusVersion.get();
+    }
+
+    @Override
+    public String findAnswer(Long tenantId, float[] queryVector, List<Long> chunkIds, long version) {
+        if (!enabled || queryVector.length == 0 || version != corpusVersion.get()) {
+            return null;
+        }
+        String answer = cache.get(scopeOf(tenantId), queryVector, toArray(chunkIds), version);
+        if (answer != null) {
+            log.info("Answer cache hit ({} chunks, corpus version {})", chunkIds.size(), version);
+        }
+        return answer;
+    }
+
+    @Override
+    public void putAnswer(Long tenantId, float[] queryVector, List<Long> chunkIds, long version, String answer) {
+        if (!enabled || queryVector.length == 0 || answer == null || version != corpusVersion.get()) {
+            return;
+        }
+        cache.put(scopeOf(tenantId), queryVector, toArray(chunkIds), version, answer);
+    }
+
+    @Override
+    public void onCorpusChanged() {
+        long version = corpusVersion.incrementAndGet();
+        cache.invalidateAll();
+        log.info("Corpus changed, answer cache invalidated (corpus version {})", version);
+    }
+
+    @Override
+    public LruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Scope của cache theo tenant; -1 cho user không gắn tenant (hỏi trên mọi documents)
+     */
+    private static long scopeOf(Long tenantId) {
+        return tenantId != null ? tenantId : -1L;
+    }
+
+    private static long[] toArray(List<Long> chunkIds) {
+        return chunkIds.stream().mapToLong(Long::longValue).toArray();
+    }
+}
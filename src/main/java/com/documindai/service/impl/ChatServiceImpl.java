@@ -6,15 +6,19 @@ import com.documindai.dto.response.ChatSessionResponse;
 import com.documindai.exception.BadRequestException;
 import com.documindai.exception.ResourceNotFoundException;
 import com.documindai.model.ChatSession;
-import com.documindai.model.DocumentChunk;
 import com.documindai.model.Message;
 import com.documindai.model.User;
 import com.documindai.repository.ChatSessionRepository;
 import com.documindai.repository.MessageRepository;
+import com.documindai.retrieval.MetadataFilter;
+import com.documindai.retrieval.RetrievalScope;
+import com.documindai.retrieval.RetrievedChunk;
+import com.documindai.service.AnswerCacheService;
 import com.documindai.service.ChatService;
 import com.documindai.service.DocumentChunkingService;
 import com.documindai.service.OpenAIService;
-import com.documindai.utils.EmbeddingUtils;
+import com.documindai.service.QueryEmbeddingService;
+import com.documindai.service.VectorIndexService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,7 +28,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -38,7 +45,10 @@ public class ChatServiceImpl implements ChatService {
     private final ChatSessionRepository sessionRepository;
     private final MessageRepository messageRepository;
     private final OpenAIService openAIService;
+    private final QueryEmbeddingService queryEmbeddingService;
+    private final AnswerCacheService answerCacheService;
     private final DocumentChunkingService chunkingService;
+    private final VectorIndexService vectorIndexService;
     private final ObjectMapper objectMapper;
 
     @Value("${app.max.context.chunks:5}")
@@ -50,6 +60,9 @@ public class ChatServiceImpl implements ChatService {
     @Value("${app.conversation.context.messages:10}")
     private int conversationContextMessages;
 
+    @Value("${app.cache.answer.first-turn-only:true}")
+    private boolean answerCacheFirstTurnOnly;
+
     @Override
     @Transactional
     public ChatResponse sendMessage(ChatRequest request, User user) {
@@ -86,15 +99,29 @@ public class ChatServiceImpl implements ChatService {
         userMessage.setContent(request.getMessage());
         userMessage = messageRepository.save(userMessage);
 
-        // Tạo embedding cho user query
-        List<Double> queryEmbedding = openAIService.createEmbedding(request.getMessage());
-        String queryEmbeddingJson = EmbeddingUtils.serializeEmbedding(queryEmbedding);
-
-        // Tìm relevant document chunks
-        List<DocumentChunk> relevantChunks = chunkingService.findSimilarChunks(
-                queryEmbeddingJson,
-                maxContextChunks,
-                similarityThreshold);
+        RetrievalScope scope = buildRetrievalScope(request, user);
+        float[] queryVector;
+        long corpusVersion;
+        List<RetrievedChunk> relevantChunks;
+        String embeddingModel;
+        int attempts = 0;
+        do {
+            // Tạo embedding cho user query bằng model của index đang phục vụ (lấy từ cache nếu câu hỏi đã được hỏi gần đây)
+            embeddingModel = vectorIndexService.servingModel();
+            queryVector = queryEmbeddingService.embedQuery(request.getMessage(), embeddingModel);
+
+            // Phiên bản corpus đọc trước khi retrieve, câu trả lời chỉ được cache nếu corpus không đổi trong lúc xử lý
+            corpusVersion = answerCacheService.corpusVersion();
+
+            // Tìm relevant document chunks trong workspace (tenant) của user, giới hạn theo documents và metadata nếu có
+            relevantChunks = chunkingService.findSimilarChunks(
+                    request.getMessage(),
+                    queryVector,
+                    scope,
+                    maxContextChunks,
+                    similarityThreshold);
+            // Index đổi sang embedding model khác trong lúc retrieve: embed lại câu hỏi và retrieve lại một lần
+        } while (!embeddingModel.equals(vectorIndexService.servingModel()) && ++attempts < 2);
 
         log.info("Found {} relevant chunks for query", relevantChunks.size());
 
@@ -102,6 +129,9 @@ public class ChatServiceImpl implements ChatService {
         List<Message> conversationHistory = messageRepository
                 .findByChatSessionIdOrderByTimestampAsc(session.getId());
 
+        // History chỉ có message hiện tại: câu trả lời không phụ thuộc hội thoại trước nên dùng được cache
+        boolean answerCacheable = !answerCacheFirstTurnOnly || conversationHistory.size() <= 1;
+
         // Giới hạn số lượng messages trong history
         if (conversationHistory.size() > conversationContextMessages) {
             conversationHistory = conversationHistory.subList(
@@ -111,14 +141,25 @@ public class ChatServiceImpl implements ChatService {
 
         // Tạo context từ relevant chunks
         List<String> contextChunks = relevantChunks.stream()
-                .map(DocumentChunk::getContent)
+                .map(RetrievedChunk::content)
                 .collect(Collectors.toList());
 
-        // Gọi OpenAI để tạo response
-        String aiResponse = openAIService.chatWithContext(
-                request.getMessage(),
-                contextChunks,
-                conversationHistory);
+        // Dùng lại câu trả lời cho câu hỏi gần giống với cùng context, nếu không thì gọi OpenAI
+        List<Long> chunkIds = relevantChunks.stream()
+                .map(RetrievedChunk::chunkId)
+                .collect(Collectors.toList());
+        String aiResponse = answerCacheable
+                ? answerCacheService.findAnswer(scope.tenantId(), queryVector, chunkIds, corpusVersion)
+                : null;
+        if (aiResponse == null) {
+            aiResponse = openAIService.chatWithContext(
+                    request.getMessage(),
+                    contextChunks,
+                    conversationHistory);
+            if (answerCacheable) {
+                answerCacheService.putAnswer(scope.tenantId(), queryVector, chunkIds, corpusVersion, aiResponse);
+            }
+        }
 
         // Lưu AI response
         Message assistantMessage = new Message();
@@ -131,7 +172,7 @@ public class ChatServiceImpl implements ChatService {
             assistantMessage.setContext(String.join("\n---\n", contextChunks));
 
             List<Long> sourceDocIds = relevantChunks.stream()
-                    .map(chunk -> chunk.getDocument().getId())
+                    .map(RetrievedChunk::documentId)
                     .distinct()
                     .collect(Collectors.toList());
 
@@ -141,11 +182,11 @@ public class ChatServiceImpl implements ChatService {
                 log.error("Error serializing source documents", e);
             }
 
-            // Tính confidence score dựa trên similarity
+            // Confidence score = trung bình cosine similarity mà retrieval đã tính (bỏ qua chunks chỉ khớp keyword)
             double avgSimilarity = relevantChunks.stream()
-                    .mapToDouble(chunk -> {
-                        return EmbeddingUtils.calculateSimilarity(queryEmbeddingJson, chunk.getEmbedding());
-                    })
+                    .map(RetrievedChunk::similarity)
+                    .filter(Objects::nonNull)
+                    .mapToDouble(Double::doubleValue)
                     .average()
                     .orElse(0.0);
 
@@ -169,7 +210,7 @@ public class ChatServiceImpl implements ChatService {
 
         if (!relevantChunks.isEmpty()) {
             List<String> sourceDocNames = relevantChunks.stream()
-                    .map(chunk -> chunk.getDocument().getOriginalFilename())
+                    .map(RetrievedChunk::documentName)
                     .distinct()
                     .collect(Collectors.toList());
             response.setSourceDocuments(sourceDocNames);
@@ -249,6 +290,19 @@ public class ChatServiceImpl implements ChatService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Phạm vi retrieval của request: tenant của user, documents được chỉ định và bộ lọc metadata
+     */
+    private RetrievalScope buildRetrievalScope(ChatRequest request, User user) {
+        if (request.getUploadedFrom() != null && request.getUploadedTo() != null
+                && request.getUploadedFrom().isAfter(request.getUploadedTo())) {
+            throw new BadRequestException("uploadedFrom must not be after uploadedTo");
+        }
+        Set<String> fileTypes = request.getFileTypes() != null ? new HashSet<>(request.getFileTypes()) : null;
+        MetadataFilter metadata = new MetadataFilter(fileTypes, request.getUploadedFrom(), request.getUploadedTo(), true);
+        return new RetrievalScope(user.getTenantId(), request.getDocumentIds(), metadata);
+    }
+
     /**
      * Generate session title từ first message
      */
@@ -3,9 +3,16 @@ package com.documindai.service.impl;
 import com.documindai.model.Document;
 import com.documindai.model.DocumentChunk;
 import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.projection.ChunkContextView;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.RetrievalScope;
+import com.documindai.retrieval.RetrievedChunk;
+import com.documindai.retrieval.ScoredChunk;
+import com.documindai.search.ReciprocalRankFusion;
 import com.documindai.service.DocumentChunkingService;
+import com.documindai.service.KeywordIndexService;
+import com.documindai.service.VectorIndexService;
 import com.documindai.utils.DocumentProcessor;
-import com.documindai.utils.EmbeddingUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,8 +20,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +36,8 @@ public class DocumentChunkingServiceImpl implements DocumentChunkingService {
 
     private final DocumentChunkRepository chunkRepository;
     private final DocumentProcessor documentProcessor;
+    private final VectorIndexService vectorIndexService;
+    private final KeywordIndexService keywordIndexService;
 
     @Value("${app.document.chunk.size:1000}")
     private int chunkSize;
@@ -34,6 +45,15 @@ public class DocumentChunkingServiceImpl implements DocumentChunkingService {
     @Value("${app.document.chunk.overlap:200}")
     private int chunkOverlap;
 
+    @Value("${app.retrieval.hybrid.enabled:true}")
+    private boolean hybridEnabled;
+
+    @Value("${app.retrieval.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${app.retrieval.hybrid.candidate-multiplier:4}")
+    private int candidateMultiplier;
+
     @Override
     @Transactional
     public List<DocumentChunk> chunkDocument(Document document, String extractedText) {
@@ -91,56 +111,76 @@ public class DocumentChunkingServiceImpl implements DocumentChunkingService {
     }
 
     @Override
-    public List<DocumentChunk> findSimilarChunks(String queryEmbedding, int limit, double threshold) {
-        // Lấy tất cả chunks có embedding
-        List<DocumentChunk> allChunks = chunkRepository.findAllWithEmbeddings();
-
-        log.info("Total chunks with embeddings from DB: {}", allChunks.size());
-        
-        if (allChunks.isEmpty()) {
-            log.warn("No chunks with embeddings found");
+    public List<RetrievedChunk> findSimilarChunks(String query, float[] queryVector, RetrievalScope scope,
+                                                  int limit, double threshold) {
+        if (queryVector == null || queryVector.length == 0) {
+            log.warn("Invalid query embedding");
             return new ArrayList<>();
         }
 
-        // Log first chunk for debugging
-        if (!allChunks.isEmpty()) {
-            DocumentChunk first = allChunks.get(0);
-            log.info("First chunk ID: {}, Doc ID: {}, Embedding length: {}", 
-                first.getId(), first.getDocument().getId(), 
-                first.getEmbedding() != null ? first.getEmbedding().length() : 0);
-            
-            // Calculate similarity for first chunk to debug
-            double firstSim = EmbeddingUtils.calculateSimilarity(queryEmbedding, first.getEmbedding());
-            log.info("Query embedding length: {}, First chunk similarity: {}", 
-                queryEmbedding != null ? queryEmbedding.length() : 0, firstSim);
+        // Câu hỏi giới hạn trong một số documents chỉ quét partitions của các documents đó;
+        // điều kiện metadata được tính trước thành bitmap documents nên chỉ vectors hợp lệ được chấm điểm
+        Long tenantId = scope.tenantId();
+        DocumentFilter filter = scope.documentIds() == null || scope.documentIds().isEmpty()
+                ? DocumentFilter.ALL
+                : DocumentFilter.of(scope.documentIds());
+        filter = filter.and(vectorIndexService.metadataFilter(scope.metadata()));
+
+        List<ScoredChunk> hits;
+        Map<Long, Double> similarities;
+        if (hybridEnabled && query != null && !query.isBlank()) {
+            // Lấy nhiều ứng viên hơn từ mỗi nguồn rồi gộp bằng reciprocal rank fusion
+            int candidates = limit * Math.max(candidateMultiplier, 1);
+            List<ScoredChunk> vectorHits = vectorIndexService.search(queryVector, tenantId, candidates, threshold, filter);
+            // Keyword index không chia shard nên giới hạn tenant bằng filter
+            List<ScoredChunk> keywordHits = keywordIndexService.search(query, candidates,
+                    vectorIndexService.tenantFilter(tenantId).and(filter));
+            hits = ReciprocalRankFusion.fuse(List.of(vectorHits, keywordHits), rrfK, limit);
+            similarities = toScoreMap(vectorHits);
+
+            log.info("Hybrid search: {} vector hits above threshold {}, {} keyword hits, {} fused (index sizes: {} / {})",
+                    vectorHits.size(), threshold, keywordHits.size(), hits.size(),
+                    vectorIndexService.size(), keywordIndexService.size());
+        } else {
+            // Tìm top-k trên vector index trong bộ nhớ, không quét bảng document_chunks
+            hits = vectorIndexService.search(queryVector, tenantId, limit, threshold, filter);
+            similarities = toScoreMap(hits);
+
+            log.info("Found {} similar chunks above threshold {} (index size: {})",
+                    hits.size(), threshold, vectorIndexService.size());
         }
 
-        // Tính similarity cho mỗi chunk
-        List<ChunkWithSimilarity> chunksWithSimilarity = allChunks.stream()
-                .map(chunk -> {
-                    double similarity = EmbeddingUtils.calculateSimilarity(
-                            queryEmbedding,
-                            chunk.getEmbedding());
-                    if (similarity > 0.3) {
-                        log.debug("Chunk {} similarity: {}", chunk.getId(), similarity);
-                    }
-                    return new ChunkWithSimilarity(chunk, similarity);
-                })
-                .filter(cws -> cws.similarity >= threshold)
-                .sorted(Comparator.comparingDouble(ChunkWithSimilarity::similarity).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        log.info("Found {} similar chunks above threshold {}", chunksWithSimilarity.size(), threshold);
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return chunksWithSimilarity.stream()
-                .map(ChunkWithSimilarity::chunk)
+        // Một query duy nhất lấy nội dung và tên document của top-k, giữ nguyên thứ tự xếp hạng
+        List<Long> chunkIds = hits.stream()
+                .map(ScoredChunk::chunkId)
                 .collect(Collectors.toList());
+        Map<Long, ChunkContextView> contextById = chunkRepository.findContextByIdIn(chunkIds).stream()
+                .collect(Collectors.toMap(ChunkContextView::getId, Function.identity()));
+
+        List<RetrievedChunk> results = new ArrayList<>(hits.size());
+        for (ScoredChunk hit : hits) {
+            ChunkContextView context = contextById.get(hit.chunkId());
+            if (context == null) {
+                continue;
+            }
+            results.add(new RetrievedChunk(hit.chunkId(), context.getDocumentId(), context.getDocumentName(),
+                    context.getContent(), hit.score(), similarities.get(hit.chunkId())));
+        }
+        return results;
     }
 
     /**
-     * Helper record để lưu chunk với similarity score
+     * Điểm cosine theo chunk ID từ kết quả vector index
      */
-    private record ChunkWithSimilarity(DocumentChunk chunk, double similarity) {
+    private static Map<Long, Double> toScoreMap(List<ScoredChunk> hits) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (ScoredChunk hit : hits) {
+            scores.put(hit.chunkId(), hit.score());
+        }
+        return scores;
     }
 }
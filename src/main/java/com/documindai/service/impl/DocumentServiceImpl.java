@@ -1,6 +1,11 @@
 package com.documindai.service.impl;
 
 import com.documindai.dto.response.DocumentResponse;
+import com.documindai.dto.response.DocumentSearchResponse;
+import com.documindai.dto.response.DocumentSearchResult;
+import com.documindai.event.ChunksEmbeddedEvent;
+import com.documindai.event.DocumentDeletedEvent;
+import com.documindai.event.DocumentReprocessedEvent;
 import com.documindai.exception.BadRequestException;
 import com.documindai.exception.FileStorageException;
 import com.documindai.exception.ResourceNotFoundException;
@@ -8,14 +13,19 @@ import com.documindai.model.Document;
 import com.documindai.model.DocumentChunk;
 import com.documindai.model.User;
 import com.documindai.repository.DocumentRepository;
+import com.documindai.search.FullTextIndex;
+import com.documindai.search.FullTextIndex.SearchResult;
 import com.documindai.service.DocumentChunkingService;
 import com.documindai.service.DocumentService;
+import com.documindai.service.EmbeddingModelService;
+import com.documindai.service.FullTextIndexService;
 import com.documindai.service.OpenAIService;
 import com.documindai.utils.DocumentProcessor;
-import com.documindai.utils.EmbeddingUtils;
+import com.documindai.utils.EmbeddingCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -29,7 +39,11 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +58,9 @@ public class DocumentServiceImpl implements DocumentService {
     private final DocumentProcessor documentProcessor;
     private final DocumentChunkingService chunkingService;
     private final OpenAIService openAIService;
+    private final EmbeddingModelService embeddingModelService;
+    private final FullTextIndexService fullTextIndexService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.upload.dir}")
     private String uploadDir;
@@ -51,6 +68,12 @@ public class DocumentServiceImpl implements DocumentService {
     @Value("${app.upload.allowed-extensions}")
     private String allowedExtensions;
 
+    @Value("${app.search.max-page-size:100}")
+    private int maxSearchPageSize;
+
+    @Value("${app.search.snippet-length:200}")
+    private int snippetLength;
+
     @Override
     @Transactional
     public DocumentResponse uploadDocument(MultipartFile file, User admin) {
@@ -109,7 +132,9 @@ public class DocumentServiceImpl implements DocumentService {
     private void processDocumentAsync(Document document, File file) {
         // Trong production, nên sử dụng @Async hoặc message queue
         // Ở đây xử lý đồng bộ để đơn giản
+        // Các index trong bộ nhớ được cập nhật qua event sau khi transaction commit
 
+        List<DocumentChunk> chunks = List.of();
         try {
             log.info("Processing document ID: {}", document.getId());
 
@@ -126,30 +151,28 @@ public class DocumentServiceImpl implements DocumentService {
             log.info("Created summary for document");
 
             // 3. Chia thành chunks
-            List<DocumentChunk> chunks = chunkingService.chunkDocument(document, extractedText);
+            chunks = chunkingService.chunkDocument(document, extractedText);
 
             log.info("Created {} chunks for document", chunks.size());
 
-            // 4. Tạo embeddings cho mỗi chunk
+            // 4. Tạo embeddings cho mỗi chunk (bằng model đang phục vụ, và cả model đang re-embed nếu có)
+            String servingModel = embeddingModelService.servingModel();
+            String shadowModel = embeddingModelService.shadowModel();
             for (DocumentChunk chunk : chunks) {
                 try {
-                    List<Double> embedding = openAIService.createEmbedding(chunk.getContent());
-                    String embeddingJson = EmbeddingUtils.serializeEmbedding(embedding);
-                    chunk.setEmbedding(embeddingJson);
+                    embed(chunk.getContent(), servingModel, shadowModel).applyTo(chunk);
                 } catch (Exception e) {
                     log.error("Error creating embedding for chunk {}: {}", chunk.getId(), e.getMessage());
                 }
             }
             
             // Save chunks with embeddings
-            chunkingService.saveChunks(chunks);
+            chunks = chunkingService.saveChunks(chunks);
             log.info("Saved embeddings for {} chunks", chunks.size());
 
             // 5. Tạo embedding cho toàn bộ document (hoặc summary)
             try {
-                List<Double> docEmbedding = openAIService.createEmbedding(summary);
-                String embeddingJson = EmbeddingUtils.serializeEmbedding(docEmbedding);
-                document.setEmbedding(embeddingJson);
+                embed(summary, servingModel, shadowModel).applyTo(document);
             } catch (Exception e) {
                 log.error("Error creating document embedding: {}", e.getMessage());
             }
@@ -157,6 +180,7 @@ public class DocumentServiceImpl implements DocumentService {
             // 6. Đánh dấu là đã xử lý
             document.setProcessed(true);
             documentRepository.save(document);
+            eventPublisher.publishEvent(new ChunksEmbeddedEvent(document, chunks));
 
             log.info("Document processing completed for ID: {}", document.getId());
 
@@ -164,6 +188,8 @@ public class DocumentServiceImpl implements DocumentService {
             log.error("Error processing document {}: {}", document.getId(), e.getMessage(), e);
             document.setProcessed(false);
             documentRepository.save(document);
+            // Tên file (và nội dung nếu đã extract được) vẫn tìm kiếm được, các chunks đã lưu vẫn được index
+            eventPublisher.publishEvent(new ChunksEmbeddedEvent(document, chunks));
         }
     }
 
@@ -217,6 +243,7 @@ public class DocumentServiceImpl implements DocumentService {
         // Soft delete document
         document.setActive(false);
         documentRepository.save(document);
+        eventPublisher.publishEvent(new DocumentDeletedEvent(id));
 
         log.info("Document deleted successfully");
     }
@@ -237,6 +264,81 @@ public class DocumentServiceImpl implements DocumentService {
         return document.getExtractedContent();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentSearchResponse searchDocuments(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be empty");
+        }
+        if (page < 0 || size < 1) {
+            throw new BadRequestException("Invalid page or size");
+        }
+        size = Math.min(size, maxSearchPageSize);
+
+        long start = System.currentTimeMillis();
+        SearchResult result = fullTextIndexService.search(query, page * size, size);
+
+        // Chỉ load các documents của trang hiện tại, giữ nguyên thứ tự xếp hạng
+        List<Long> ids = result.hits().stream()
+                .map(FullTextIndex.Hit::documentId)
+                .collect(Collectors.toList());
+        Map<Long, Document> documentsById = documentRepository.findWithUploaderByIdIn(ids).stream()
+                .collect(Collectors.toMap(Document::getId, Function.identity()));
+
+        List<DocumentSearchResult> results = result.hits().stream()
+                .map(hit -> {
+                    Document document = documentsById.get(hit.documentId());
+                    if (document == null) {
+                        return null;
+                    }
+                    return new DocumentSearchResult(mapToResponse(document), hit.score(),
+                            buildSnippet(document.getExtractedContent(), query));
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        long tookMs = System.currentTimeMillis() - start;
+        int totalPages = (result.totalHits() + size - 1) / size;
+        log.info("Full-text search '{}' matched {} documents in {} ms", query, result.totalHits(), tookMs);
+
+        return new DocumentSearchResponse(query, page, size, result.totalHits(), totalPages, tookMs, results);
+    }
+
+    /**
+     * Cắt đoạn nội dung quanh lần xuất hiện đầu tiên của cụm từ / từ trong truy vấn
+     */
+    private String buildSnippet(String content, String query) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        String lowerContent = content.toLowerCase(Locale.ROOT);
+        int match = -1;
+        int matchLength = 0;
+        // Ưu tiên cụm từ trong dấu nháy, sau đó tới từng từ
+        String[] phrases = query.split("\"");
+        for (int i = 1; i < phrases.length && match < 0; i += 2) {
+            String phrase = phrases[i].trim().toLowerCase(Locale.ROOT);
+            if (!phrase.isEmpty()) {
+                match = lowerContent.indexOf(phrase);
+                matchLength = phrase.length();
+            }
+        }
+        for (String word : query.replace("\"", " ").toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (match >= 0) {
+                break;
+            }
+            if (!word.isEmpty()) {
+                match = lowerContent.indexOf(word);
+                matchLength = word.length();
+            }
+        }
+
+        int from = match < 0 ? 0 : Math.min(content.length(), Math.max(0, match + matchLength / 2 - snippetLength / 2));
+        int to = Math.min(content.length(), from + snippetLength);
+        String snippet = content.substring(from, to).replaceAll("\\s+", " ").trim();
+        return (from > 0 ? "..." : "") + snippet + (to < content.length() ? "..." : "");
+    }
+
     /**
      * Validate uploaded file
      */
@@ -320,11 +422,11 @@ public class DocumentServiceImpl implements DocumentService {
             
             // 3. Create embeddings for each chunk
             int embeddedCount = 0;
+            String servingModel = embeddingModelService.servingModel();
+            String shadowModel = embeddingModelService.shadowModel();
             for (DocumentChunk chunk : chunks) {
                 try {
-                    List<Double> embedding = openAIService.createEmbedding(chunk.getContent());
-                    String embeddingJson = EmbeddingUtils.serializeEmbedding(embedding);
-                    chunk.setEmbedding(embeddingJson);
+                    embed(chunk.getContent(), servingModel, shadowModel).applyTo(chunk);
                     embeddedCount++;
                 } catch (Exception e) {
                     log.error("Error creating embedding for chunk {}: {}", chunk.getId(), e.getMessage());
@@ -332,12 +434,14 @@ public class DocumentServiceImpl implements DocumentService {
             }
             
             // 4. Save chunks with embeddings
-            chunkingService.saveChunks(chunks);
+            chunks = chunkingService.saveChunks(chunks);
             log.info("Saved embeddings for {} chunks", embeddedCount);
             
             // 5. Mark as processed
             document.setProcessed(true);
             documentRepository.save(document);
+            // Index chỉ đổi sang chunks mới khi transaction commit; nếu rollback thì chunks cũ vẫn được phục vụ
+            eventPublisher.publishEvent(new DocumentReprocessedEvent(document, chunks));
             
             log.info("Document reprocessing completed for ID: {}", id);
             
@@ -348,4 +452,45 @@ public class DocumentServiceImpl implements DocumentService {
             throw new BadRequestException("Failed to reprocess document: " + e.getMessage());
         }
     }
+
+    /**
+     * Tạo embedding của text bằng model đang phục vụ và, khi đang re-embed, bằng cả model shadow
+     * Lỗi ở model shadow không làm hỏng việc xử lý: job re-embedding bổ sung vector còn thiếu trước khi đổi model
+     */
+    private Embeddings embed(String text, String servingModel, String shadowModel) {
+        // Chuẩn hóa một lần khi ghi, retrieval chỉ cần tích vô hướng
+        byte[] vector = EmbeddingCodec.encodeNormalized(openAIService.createEmbedding(text, servingModel));
+        byte[] shadowVector = null;
+        if (shadowModel != null) {
+            try {
+                shadowVector = EmbeddingCodec.encodeNormalized(openAIService.createEmbedding(text, shadowModel));
+            } catch (Exception e) {
+                log.warn("Error creating {} embedding: {}", shadowModel, e.getMessage());
+            }
+        }
+        return new Embeddings(servingModel, vector, shadowVector != null ? shadowModel : null, shadowVector);
+    }
+
+    /**
+     * Embeddings của một text cho slot chính và slot shadow
+     */
+    private record Embeddings(String model, byte[] vector, String shadowModel, byte[] shadowVector) {
+
+        void applyTo(DocumentChunk chunk) {
+            chunk.setEmbeddingVector(vector);
+            chunk.setEmbeddingNormalized(true);
+            chunk.setEmbeddingModel(model);
+            chunk.setShadowEmbeddingVector(shadowVector);
+            chunk.setShadowEmbeddingModel(shadowModel);
+        }
+
+        void applyTo(Document document) {
+            document.setEmbeddingVector(vector);
+            document.setEmbedding(null);
+            document.setEmbeddingNormalized(true);
+            document.setEmbeddingModel(model);
+            document.setShadowEmbeddingVector(shadowVector);
+            document.setShadowEmbeddingModel(shadowModel);
+        }
+    }
 }
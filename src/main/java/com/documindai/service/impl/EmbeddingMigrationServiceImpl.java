@@ -0,0 +1,159 @@
+package com.documindai.service.impl;
+
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.projection.LegacyEmbeddingView;
+import com.documindai.repository.projection.StoredVectorView;
+import com.documindai.service.EmbeddingMigrationService;
+import com.documindai.utils.EmbeddingCodec;
+import com.documindai.utils.EmbeddingUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Implementation của EmbeddingMigrationService
+ * Migrate theo từng batch (keyset pagination theo ID), mỗi batch là một transaction riêng
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingMigrationServiceImpl implements EmbeddingMigrationService {
+
+    private final DocumentChunkRepository chunkRepository;
+    private final DocumentRepository documentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.embedding.migration.enabled:false}")
+    private boolean migrateOnStartup;
+
+    @Value("${app.embedding.migration.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Tự động migrate khi khởi động nếu được bật trong cấu hình
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (migrateOnStartup) {
+            migrateToBinary();
+        }
+    }
+
+    @Override
+    public Map<String, Object> migrateToBinary() {
+        long start = System.currentTimeMillis();
+        log.info("Starting embedding migration (JSON -> float32 binary), batch size {}", batchSize);
+
+        MigrationResult chunks = migrate("chunks", chunkRepository::findLegacyEmbeddings,
+                LegacyEmbeddingView::getId, row -> EmbeddingUtils.parseVector(row.getEmbedding()),
+                chunkRepository::updateEmbeddingVector);
+        MigrationResult documents = migrate("documents", documentRepository::findLegacyEmbeddings,
+                LegacyEmbeddingView::getId, row -> EmbeddingUtils.parseVector(row.getEmbedding()),
+                documentRepository::updateEmbeddingVector);
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Embedding migration completed in {} ms: {} chunks, {} documents migrated",
+                elapsed, chunks.migrated(), documents.migrated());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("chunksMigrated", chunks.migrated());
+        result.put("chunksFailed", chunks.failed());
+        result.put("documentsMigrated", documents.migrated());
+        result.put("documentsFailed", documents.failed());
+        result.put("elapsedMs", elapsed);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> normalizeStored() {
+        long start = System.currentTimeMillis();
+        log.info("Starting embedding normalization backfill, batch size {}", batchSize);
+
+        MigrationResult chunks = migrate("chunks", chunkRepository::findUnnormalizedVectors,
+                StoredVectorView::getId, row -> decode(row.getEmbeddingVector()),
+                chunkRepository::updateEmbeddingVector);
+        MigrationResult documents = migrate("documents", documentRepository::findUnnormalizedVectors,
+                StoredVectorView::getId, row -> decode(row.getEmbeddingVector()),
+                documentRepository::updateEmbeddingVector);
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Embedding normalization completed in {} ms: {} chunks, {} documents normalized",
+                elapsed, chunks.migrated(), documents.migrated());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("chunksNormalized", chunks.migrated());
+        result.put("chunksFailed", chunks.failed());
+        result.put("documentsNormalized", documents.migrated());
+        result.put("documentsFailed", documents.failed());
+        result.put("elapsedMs", elapsed);
+        return result;
+    }
+
+    /**
+     * Migrate một bảng: đọc batch, decode sang float[], chuẩn hóa L2 rồi ghi lại dạng nhị phân
+     */
+    private <T> MigrationResult migrate(String table,
+                                        BiFunction<Long, PageRequest, List<T>> batchLoader,
+                                        Function<T, Long> idGetter,
+                                        Function<T, float[]> vectorReader,
+                                        BiConsumer<Long, byte[]> updater) {
+        long afterId = 0L;
+        int migrated = 0;
+        int failed = 0;
+
+        while (true) {
+            final long cursor = afterId;
+            List<T> batch = batchLoader.apply(cursor, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            int[] counts = transactionTemplate.execute(status -> {
+                int ok = 0;
+                int bad = 0;
+                for (T row : batch) {
+                    float[] vector = vectorReader.apply(row);
+                    if (vector == null || vector.length == 0) {
+                        log.warn("Cannot read embedding of {} ID {}, skipping", table, idGetter.apply(row));
+                        bad++;
+                        continue;
+                    }
+                    updater.accept(idGetter.apply(row), EmbeddingCodec.encode(EmbeddingUtils.normalize(vector)));
+                    ok++;
+                }
+                return new int[]{ok, bad};
+            });
+
+            migrated += counts[0];
+            failed += counts[1];
+            afterId = idGetter.apply(batch.get(batch.size() - 1));
+            log.info("Migrated {} {} so far (last ID {})", migrated, table, afterId);
+        }
+
+        return new MigrationResult(migrated, failed);
+    }
+
+    private static float[] decode(byte[] embeddingVector) {
+        try {
+            return EmbeddingCodec.decode(embeddingVector);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record MigrationResult(int migrated, int failed) {
+    }
+}
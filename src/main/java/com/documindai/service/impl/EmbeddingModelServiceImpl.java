@@ -0,0 +1,136 @@
+package com.documindai.service.impl;
+
+import com.documindai.model.EmbeddingModel;
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.EmbeddingModelRepository;
+import com.documindai.service.EmbeddingModelService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementation của EmbeddingModelService
+ * Model đang phục vụ được lưu trong database nên đổi openai.embedding.model trong cấu hình không làm corpus
+ * bị trộn vectors của hai models: cấu hình mới chỉ là đích cho lần re-embedding kế tiếp
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingModelServiceImpl implements EmbeddingModelService {
+
+    private final EmbeddingModelRepository modelRepository;
+    private final DocumentChunkRepository chunkRepository;
+    private final DocumentRepository documentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${openai.embedding.model}")
+    private String configuredModel;
+
+    private volatile String servingModel;
+    private volatile String shadowModel;
+
+    /**
+     * Đọc model đang phục vụ; lần đầu chạy thì đăng ký model trong cấu hình và gán nó cho các embeddings đã có
+     * Re-embedding dở dang của lần chạy trước không được tiếp tục tự động (slot shadow vẫn được giữ)
+     */
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<EmbeddingModel> serving = modelRepository.findByStatus(EmbeddingModel.Status.SERVING);
+            if (serving.isEmpty()) {
+                EmbeddingModel model = modelRepository.findByName(configuredModel).orElseGet(EmbeddingModel::new);
+                model.setName(configuredModel);
+                model.setStatus(EmbeddingModel.Status.SERVING);
+                model.setActivatedAt(LocalDateTime.now());
+                modelRepository.save(model);
+                int chunks = chunkRepository.assignEmbeddingModel(configuredModel);
+                int documents = documentRepository.assignEmbeddingModel(configuredModel);
+                log.info("Registered embedding model {} ({} chunks, {} documents)", configuredModel, chunks, documents);
+                servingModel = configuredModel;
+            } else {
+                servingModel = serving.get(0).getName();
+            }
+            for (EmbeddingModel interrupted : modelRepository.findByStatus(EmbeddingModel.Status.SHADOW)) {
+                log.warn("Re-embedding into model {} was interrupted, start it again to resume", interrupted.getName());
+                interrupted.setStatus(EmbeddingModel.Status.RETIRED);
+                modelRepository.save(interrupted);
+            }
+        });
+        if (!servingModel.equals(configuredModel)) {
+            log.warn("Serving embedding model {} differs from configured model {}, "
+                    + "re-embed the corpus (POST /admin/embeddings/reembed) to switch", servingModel, configuredModel);
+        } else {
+            log.info("Serving embedding model: {}", servingModel);
+        }
+    }
+
+    @Override
+    public String servingModel() {
+        return servingModel;
+    }
+
+    @Override
+    public String shadowModel() {
+        return shadowModel;
+    }
+
+    @Override
+    public String configuredModel() {
+        return configuredModel;
+    }
+
+    @Override
+    public synchronized void startShadow(String model) {
+        if (model.equals(servingModel)) {
+            throw new IllegalStateException("Embedding model " + model + " is already serving");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            EmbeddingModel shadow = modelRepository.findByName(model).orElseGet(EmbeddingModel::new);
+            shadow.setName(model);
+            shadow.setStatus(EmbeddingModel.Status.SHADOW);
+            modelRepository.save(shadow);
+        });
+        shadowModel = model;
+    }
+
+    @Override
+    public synchronized void endShadow() {
+        String model = shadowModel;
+        if (model == null) {
+            return;
+        }
+        shadowModel = null;
+        transactionTemplate.executeWithoutResult(status -> modelRepository.findByName(model).ifPresent(shadow -> {
+            shadow.setStatus(EmbeddingModel.Status.RETIRED);
+            modelRepository.save(shadow);
+        }));
+    }
+
+    @Override
+    public synchronized void activate(String model) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (EmbeddingModel previous : modelRepository.findByStatus(EmbeddingModel.Status.SERVING)) {
+                previous.setStatus(EmbeddingModel.Status.RETIRED);
+                modelRepository.save(previous);
+            }
+            EmbeddingModel activated = modelRepository.findByName(model).orElseGet(EmbeddingModel::new);
+            activated.setName(model);
+            activated.setStatus(EmbeddingModel.Status.SERVING);
+            activated.setActivatedAt(LocalDateTime.now());
+            modelRepository.save(activated);
+        });
+        String previous = servingModel;
+        servingModel = model;
+        if (model.equals(shadowModel)) {
+            shadowModel = null;
+        }
+        log.info("Embedding model {} is now serving (was {})", model, previous);
+    }
+}
@@ -0,0 +1,99 @@
+package com.documindai.service.impl;
+
+import com.documindai.model.Document;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.projection.DocumentContentView;
+import com.documindai.search.Analyzer;
+import com.documindai.search.FullTextIndex;
+import com.documindai.search.FullTextIndex.SearchResult;
+import com.documindai.search.SearchQuery;
+import com.documindai.service.FullTextIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Implementation của FullTextIndexService
+ * Index được build theo batch khi ứng dụng khởi động, sau đó cập nhật khi documents được upload/reprocess/xóa
+ */
+@Service
+@Slf4j
+public class FullTextIndexServiceImpl implements FullTextIndexService {
+
+    private static final int REBUILD_BATCH_SIZE = 100;
+
+    private final DocumentRepository documentRepository;
+    private final Analyzer analyzer;
+    private final FullTextIndex index;
+
+    public FullTextIndexServiceImpl(DocumentRepository documentRepository,
+                                    Analyzer analyzer,
+                                    @Value("${app.search.bm25.k1:1.2}") double k1,
+                                    @Value("${app.search.bm25.b:0.75}") double b,
+                                    @Value("${app.search.title-boost:2.0}") double titleBoost) {
+        this.documentRepository = documentRepository;
+        this.analyzer = analyzer;
+        this.index = new FullTextIndex(analyzer, k1, b, titleBoost);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        log.info("Building full-text document index...");
+
+        index.clear();
+        long afterId = 0L;
+        while (true) {
+            List<DocumentContentView> batch = documentRepository.findActiveDocumentContents(
+                    afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (DocumentContentView view : batch) {
+                index.add(view.getId(), view.getOriginalFilename(), view.getExtractedContent());
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+
+        log.info("Full-text index built with {} documents ({} terms) in {} ms",
+                index.size(), index.termCount(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void indexDocument(Document document) {
+        if (document.getId() == null) {
+            return;
+        }
+        index.add(document.getId(), document.getOriginalFilename(), document.getExtractedContent());
+        log.debug("Indexed document {} for full-text search", document.getId());
+    }
+
+    @Override
+    public void removeDocument(Long documentId) {
+        if (index.remove(documentId)) {
+            log.info("Removed document {} from full-text index", documentId);
+        }
+    }
+
+    @Override
+    public SearchResult search(String query, int offset, int limit) {
+        return index.search(SearchQuery.parse(query, analyzer), offset, limit);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,89 @@
+package com.documindai.service.impl;
+
+import com.documindai.model.DocumentChunk;
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.projection.ChunkContentView;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.ScoredChunk;
+import com.documindai.search.Analyzer;
+import com.documindai.search.Bm25Index;
+import com.documindai.service.KeywordIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Implementation của KeywordIndexService
+ * Index được build một lần khi ứng dụng khởi động, sau đó cập nhật khi chunks được lưu/xóa
+ */
+@Service
+@Slf4j
+public class KeywordIndexServiceImpl implements KeywordIndexService {
+
+    private final DocumentChunkRepository chunkRepository;
+    private final Bm25Index index;
+
+    public KeywordIndexServiceImpl(DocumentChunkRepository chunkRepository,
+                                   Analyzer analyzer,
+                                   @Value("${app.retrieval.bm25.k1:1.2}") double k1,
+                                   @Value("${app.retrieval.bm25.b:0.75}") double b) {
+        this.chunkRepository = chunkRepository;
+        this.index = new Bm25Index(analyzer, k1, b);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        log.info("Building in-memory keyword index...");
+
+        index.clear();
+        for (ChunkContentView view : chunkRepository.findActiveChunkContents()) {
+            if (view.getContent() != null) {
+                index.add(view.getId(), view.getDocumentId(), view.getContent());
+            }
+        }
+
+        log.info("Keyword index built with {} chunks ({} terms) in {} ms",
+                index.size(), index.termCount(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void indexChunks(List<DocumentChunk> chunks) {
+        int indexed = 0;
+        for (DocumentChunk chunk : chunks) {
+            if (chunk.getId() == null || chunk.getContent() == null) {
+                continue;
+            }
+            index.add(chunk.getId(), chunk.getDocument().getId(), chunk.getContent());
+            indexed++;
+        }
+        log.debug("Indexed {} chunks for keyword search", indexed);
+    }
+
+    @Override
+    public void removeDocument(Long documentId) {
+        int removed = index.removeDocument(documentId);
+        log.info("Removed {} chunks of document {} from keyword index", removed, documentId);
+    }
+
+    @Override
+    public List<ScoredChunk> search(String query, int limit, DocumentFilter filter) {
+        return index.search(query, limit, filter);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+}
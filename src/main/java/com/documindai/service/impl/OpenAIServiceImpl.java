@@ -7,6 +7,7 @@ import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
+import com.theokanning.openai.embedding.Embedding;
 import com.theokanning.openai.embedding.EmbeddingRequest;
 import com.theokanning.openai.embedding.EmbeddingResult;
 import com.theokanning.openai.service.OpenAiService;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -31,9 +33,6 @@ public class OpenAIServiceImpl implements OpenAIService {
     @Value("${openai.model}")
     private String model;
 
-    @Value("${openai.embedding.model}")
-    private String embeddingModel;
-
     @Value("${openai.max.tokens}")
     private int maxTokens;
 
@@ -58,25 +57,38 @@ public class OpenAIServiceImpl implements OpenAIService {
     }
 
     @Override
-    public List<Double> createEmbedding(String text) {
+    public List<Double> createEmbedding(String text, String model) {
+        List<List<Double>> embeddings = createEmbeddings(List.of(text), model);
+        if (embeddings.isEmpty()) {
+            log.error("No embedding data returned from OpenAI");
+            return new ArrayList<>();
+        }
+        return embeddings.get(0);
+    }
+
+    @Override
+    public List<List<Double>> createEmbeddings(List<String> texts, String model) {
         try {
-            log.debug("Creating embedding for text of length: {}", text.length());
+            log.debug("Creating {} embeddings with model {}", texts.size(), model);
 
             EmbeddingRequest embeddingRequest = EmbeddingRequest.builder()
-                    .model(embeddingModel)
-                    .input(List.of(text))
+                    .model(model)
+                    .input(texts)
                     .build();
 
             EmbeddingResult result = openAiService.createEmbeddings(embeddingRequest);
 
-            if (result.getData() != null && !result.getData().isEmpty()) {
-                List<Double> embedding = result.getData().get(0).getEmbedding();
-                log.debug("Successfully created embedding with {} dimensions", embedding.size());
-                return embedding;
+            if (result.getData() == null || result.getData().isEmpty()) {
+                return new ArrayList<>();
             }
-
-            log.error("No embedding data returned from OpenAI");
-            return new ArrayList<>();
+            // Giữ đúng thứ tự input (OpenAI trả index của từng input)
+            List<List<Double>> embeddings = new ArrayList<>(texts.size());
+            result.getData().stream()
+                    .sorted(Comparator.comparingInt(Embedding::getIndex))
+                    .forEach(embedding -> embeddings.add(embedding.getEmbedding()));
+            log.debug("Successfully created {} embeddings with {} dimensions",
+                    embeddings.size(), embeddings.get(0).size());
+            return embeddings;
 
         } catch (Exception e) {
             log.error("Error creating embedding: {}", e.getMessage(), e);
@@ -0,0 +1,98 @@
+package com.documindai.service.impl;
+
+import com.documindai.cache.LruCache;
+import com.documindai.service.OpenAIService;
+import com.documindai.service.QueryEmbeddingService;
+import com.documindai.utils.EmbeddingUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementation của QueryEmbeddingService
+ * Cache LRU + TTL, key là SHA-256 của (tên model embedding, query đã chuẩn hóa),
+ * value là vector float32 đã chuẩn hóa nên cache hit đi thẳng vào retrieval
+ */
+@Service
+@Slf4j
+public class QueryEmbeddingServiceImpl implements QueryEmbeddingService {
+
+    private final OpenAIService openAIService;
+    private final boolean enabled;
+    private final LruCache<QueryKey, float[]> cache;
+
+    /**
+     * 128 bit đầu của SHA-256, không giữ lại text câu hỏi trong cache
+     */
+    private record QueryKey(long high, long low) {
+    }
+
+    public QueryEmbeddingServiceImpl(OpenAIService openAIService,
+                                     @Value("${app.cache.query-embedding.enabled:true}") boolean enabled,
+                                     @Value("${app.cache.query-embedding.max-size:10000}") int maxSize,
+                                     @Value("${app.cache.query-embedding.ttl-minutes:60}") long ttlMinutes) {
+        this.openAIService = openAIService;
+        this.enabled = enabled;
+        this.cache = new LruCache<>(maxSize, ttlMinutes * 60_000L);
+    }
+
+    @Override
+    public float[] embedQuery(String query, String model) {
+        QueryKey key = enabled ? keyOf(query, model) : null;
+        if (key != null) {
+            float[] cached = cache.get(key);
+            if (cached != null) {
+                log.debug("Query embedding cache hit");
+                return cached;
+            }
+        }
+
+        List<Double> embedding = openAIService.createEmbedding(query, model);
+        if (embedding == null || embedding.isEmpty()) {
+            return new float[0];
+        }
+        float[] vector = EmbeddingUtils.normalize(EmbeddingUtils.toFloatArray(embedding));
+        if (key != null) {
+            cache.put(key, vector);
+        }
+        return vector;
+    }
+
+    @Override
+    public LruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+        log.info("Query embedding cache cleared");
+    }
+
+    /**
+     * Chuẩn hóa query (NFC, lowercase, gộp khoảng trắng) rồi hash cùng tên model
+     */
+    private QueryKey keyOf(String query, String model) {
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFC)
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+            return new QueryKey(hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.documindai.service.impl;
+
+import com.documindai.exception.BadRequestException;
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.projection.ChunkContentView;
+import com.documindai.repository.projection.DocumentSummaryView;
+import com.documindai.service.AnswerCacheService;
+import com.documindai.service.EmbeddingModelService;
+import com.documindai.service.OpenAIService;
+import com.documindai.service.ReembeddingService;
+import com.documindai.service.VectorIndexAliasService;
+import com.documindai.service.VectorSnapshotService;
+import com.documindai.utils.EmbeddingCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Implementation của ReembeddingService
+ * Các bước của job (chạy trên một thread nền riêng):
+ * 1. Đăng ký model SHADOW: từ đây upload/reprocess ghi embedding cho cả model phục vụ và model shadow
+ * 2. Embed theo từng batch (keyset pagination, giới hạn số vectors mỗi giây) các chunks/documents chưa có
+ *    vector của model shadow, ghi vào slot shadow
+ * 3. Build index shadow từ database, embed phần còn sót rồi nạp lại các documents đó vào index shadow
+ * 4. Đổi alias phục vụ sang index shadow và chuyển model shadow thành SERVING
+ * 5. Embed lại bằng model mới các rows còn sót (xử lý xong trước khi dual-write bắt đầu) và chuyển slot shadow
+ *    sang slot chính
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReembeddingServiceImpl implements ReembeddingService {
+
+    private final DocumentChunkRepository chunkRepository;
+    private final DocumentRepository documentRepository;
+    private final OpenAIService openAIService;
+    private final EmbeddingModelService embeddingModelService;
+    private final VectorIndexAliasService aliasService;
+    private final VectorSnapshotService snapshotService;
+    private final AnswerCacheService answerCacheService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.embedding.reembed.batch-size:64}")
+    private int batchSize;
+
+    @Value("${app.embedding.reembed.max-vectors-per-second:20}")
+    private double maxVectorsPerSecond;
+
+    @Value("${app.embedding.reembed.max-passes:3}")
+    private int maxPasses;
+
+    @Value("${app.embedding.reembed.promote-batch-size:1000}")
+    private int promoteBatchSize;
+
+    // Job và sweep chạy lần lượt trên cùng một thread nền
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reembedding");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Job gần nhất (đang chạy hoặc đã kết thúc)
+    private volatile Job job;
+
+    /**
+     * Giai đoạn của job
+     */
+    private enum Phase {
+        EMBEDDING, BUILDING_INDEX, CATCHING_UP, PROMOTING, FINALIZING, COMPLETED, CANCELLED, FAILED;
+
+        boolean finished() {
+            return this == COMPLETED || this == CANCELLED || this == FAILED;
+        }
+    }
+
+    /**
+     * Trạng thái của một job re-embedding
+     */
+    private static final class Job {
+
+        private final String model;
+        private final String previousModel;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile Phase phase = Phase.EMBEDDING;
+        private volatile boolean cancelRequested;
+        private volatile int chunksEmbedded;
+        private volatile int documentsEmbedded;
+        private volatile int failed;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        Job(String model, String previousModel) {
+            this.model = model;
+            this.previousModel = previousModel;
+        }
+
+        void checkCancelled() {
+            if (cancelRequested) {
+                throw new CancellationException("Re-embedding cancelled");
+            }
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> start(String model) {
+        String target = model != null && !model.isBlank() ? model.trim() : embeddingModelService.configuredModel();
+        if (job != null && !job.phase.finished()) {
+            throw new BadRequestException("Re-embedding into " + job.model + " is already running");
+        }
+        if (target.equals(embeddingModelService.servingModel())) {
+            throw new BadRequestException("Embedding model " + target + " is already serving");
+        }
+        Job started = new Job(target, embeddingModelService.servingModel());
+        job = started;
+        executor.submit(() -> run(started));
+        log.info("Re-embedding from {} to {} scheduled", started.previousModel, target);
+        return toStatus(started);
+    }
+
+    @Override
+    public Map<String, Object> status() {
+        Job current = job;
+        if (current == null) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("servingModel", embeddingModelService.servingModel());
+            return status;
+        }
+        return toStatus(current);
+    }
+
+    @Override
+    public synchronized Map<String, Object> cancel() {
+        Job current = job;
+        if (current == null || current.phase.finished()) {
+            throw new BadRequestException("No re-embedding job is running");
+        }
+        if (current.phase == Phase.FINALIZING) {
+            throw new BadRequestException("Embedding model " + current.model + " is already serving");
+        }
+        current.cancelRequested = true;
+        log.info("Cancelling re-embedding into {}", current.model);
+        return toStatus(current);
+    }
+
+    /**
+     * Định kỳ (khi không có job) embed bằng model phục vụ các rows còn sót và chuyển slot shadow của model phục vụ
+     * sang slot chính, ví dụ khi ứng dụng dừng giữa bước cuối của job
+     */
+    @Scheduled(fixedDelayString = "${app.embedding.reembed.sweep-interval-ms:3600000}",
+            initialDelayString = "${app.embedding.reembed.sweep-interval-ms:3600000}")
+    public void scheduleSweep() {
+        Job current = job;
+        if (current != null && !current.phase.finished()) {
+            return;
+        }
+        executor.submit(() -> {
+            if (embeddingModelService.shadowModel() != null) {
+                return;
+            }
+            try {
+                finalizeModel(embeddingModelService.servingModel(), null, false);
+            } catch (RuntimeException e) {
+                log.warn("Embedding sweep failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Job current = job;
+        if (current != null) {
+            current.cancelRequested = true;
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        String model = job.model;
+        long start = System.currentTimeMillis();
+        boolean promoted = false;
+        log.info("Re-embedding corpus from {} to {}", job.previousModel, model);
+        try {
+            embeddingModelService.startShadow(model);
+
+            // Embeddings mới đã được ghi cho cả model shadow; các lượt sau chỉ còn rows đang xử lý lúc bắt đầu
+            Throttle throttle = new Throttle(maxVectorsPerSecond);
+            for (int pass = 1; pass <= maxPasses; pass++) {
+                int embedded = embedMissing(job, model, throttle, false, new HashSet<>());
+                log.info("Re-embedding pass {}: {} vectors of {} written", pass, embedded, model);
+                if (embedded == 0) {
+                    break;
+                }
+            }
+
+            job.checkCancelled();
+            job.phase = Phase.BUILDING_INDEX;
+            aliasService.buildShadow(model);
+
+            // Rows đổi giữa lượt embed cuối và lúc index shadow bắt đầu nhận cập nhật
+            job.checkCancelled();
+            job.phase = Phase.CATCHING_UP;
+            Set<Long> documents = new HashSet<>();
+            embedMissing(job, model, throttle, false, documents);
+            aliasService.reloadDocuments(model, documents);
+
+            job.checkCancelled();
+            job.phase = Phase.PROMOTING;
+            aliasService.promoteShadow(model);
+            promoted = true;
+            // Snapshot của model cũ không dùng được nữa
+            snapshotService.writeSnapshot();
+            embeddingModelService.activate(model);
+            // Câu trả lời đã cache được tính trên corpus của model cũ
+            answerCacheService.onCorpusChanged();
+
+            job.phase = Phase.FINALIZING;
+            finalizeModel(model, throttle, true);
+
+            job.phase = Phase.COMPLETED;
+            log.info("Re-embedding from {} to {} completed in {} ms: {} chunks, {} documents embedded, {} failed",
+                    job.previousModel, model, System.currentTimeMillis() - start,
+                    job.chunksEmbedded, job.documentsEmbedded, job.failed);
+        } catch (CancellationException e) {
+            job.phase = Phase.CANCELLED;
+            log.info("Re-embedding into {} cancelled, still serving {}", model, job.previousModel);
+        } catch (RuntimeException e) {
+            job.error = e.getMessage();
+            job.phase = Phase.FAILED;
+            log.error("Re-embedding into {} failed: {}", model, e.getMessage(), e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            if (!promoted) {
+                aliasService.discardShadow();
+                embeddingModelService.endShadow();
+            }
+        }
+    }
+
+    /**
+     * Một lượt embed (bằng model cho trước) các chunks và documents chưa có vector của model ở slot nào
+     * Trong job: ghi vào slot shadow; sau khi đổi model (replace): ghi đè slot chính
+     * ID các documents được ghi được thêm vào documents, trả về số vectors đã ghi
+     */
+    private int embedMissing(Job job, String model, Throttle throttle, boolean replace, Set<Long> documents) {
+        int chunks = embedMissing(job, model, throttle, documents,
+                (afterId, page) -> chunkRepository.findContentsMissingModel(model, afterId, page),
+                ChunkContentView::getId, ChunkContentView::getDocumentId, ChunkContentView::getContent,
+                replace ? (id, vector) -> chunkRepository.replaceEmbedding(id, vector, model)
+                        : (id, vector) -> chunkRepository.updateShadowEmbedding(id, vector, model),
+                count -> job.chunksEmbedded += count);
+        int summaries = embedMissing(job, model, throttle, documents,
+                (afterId, page) -> documentRepository.findSummariesMissingModel(model, afterId, page),
+                DocumentSummaryView::getId, DocumentSummaryView::getId, DocumentSummaryView::getSummary,
+                replace ? (id, vector) -> documentRepository.replaceEmbedding(id, vector, model)
+                        : (id, vector) -> documentRepository.updateShadowEmbedding(id, vector, model),
+                count -> job.documentsEmbedded += count);
+        return chunks + summaries;
+    }
+
+    /**
+     * Embed một bảng theo từng batch: một request embeddings cho cả batch, ghi kết quả trong một transaction
+     * Batch lỗi được bỏ qua (lượt sau hoặc sweep sẽ thử lại)
+     * Bộ đếm của job (progress) được cộng sau mỗi batch để status phản ánh cả lượt đang chạy hoặc bị hủy giữa chừng
+     */
+    private <T> int embedMissing(Job job, String model, Throttle throttle, Set<Long> documents,
+                                 BiFunction<Long, Pageable, List<T>> batchLoader,
+                                 Function<T, Long> idGetter,
+                                 Function<T, Long> documentIdGetter,
+                                 Function<T, String> textGetter,
+                                 BiConsumer<Long, byte[]> writer,
+                                 IntConsumer progress) {
+        long afterId = 0L;
+        int embedded = 0;
+        while (true) {
+            if (job != null) {
+                job.checkCancelled();
+            }
+            List<T> batch = batchLoader.apply(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return embedded;
+            }
+            afterId = idGetter.apply(batch.get(batch.size() - 1));
+
+            List<T> rows = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            for (T row : batch) {
+                String text = textGetter.apply(row);
+                if (text != null && !text.isBlank()) {
+                    rows.add(row);
+                    texts.add(text);
+                }
+            }
+            if (rows.isEmpty()) {
+                continue;
+            }
+
+            throttle.acquire(rows.size());
+            try {
+                List<List<Double>> embeddings = openAIService.createEmbeddings(texts, model);
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < rows.size(); i++) {
+                        writer.accept(idGetter.apply(rows.get(i)), EmbeddingCodec.encodeNormalized(embeddings.get(i)));
+                    }
+                });
+                for (T row : rows) {
+                    documents.add(documentIdGetter.apply(row));
+                }
+                embedded += rows.size();
+                if (job != null) {
+                    progress.accept(rows.size());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Error creating {} embeddings for batch ending at ID {}: {}", model, afterId, e.getMessage());
+                if (job != null) {
+                    job.failed += rows.size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Hoàn tất việc đổi sang model đang phục vụ: embed bằng model này các rows còn thiếu vector của nó (ghi đè
+     * slot chính, nạp lại vào index), chuyển slot shadow của nó sang slot chính và (khi clearOthers) xóa slot
+     * shadow của các models khác
+     */
+    private void finalizeModel(String model, Throttle throttle, boolean clearOthers) {
+        Set<Long> documents = new HashSet<>();
+        int stragglers = embedMissing(null, model, throttle != null ? throttle : new Throttle(maxVectorsPerSecond),
+                true, documents);
+        if (stragglers > 0) {
+            aliasService.reloadDocuments(model, documents);
+            log.info("Embedded {} vectors of {} documents missing from {}", stragglers, documents.size(), model);
+        }
+
+        int chunks = promoteSlots(model, clearOthers, chunkRepository::findShadowSlotIds,
+                chunkRepository::promoteShadowEmbeddings, chunkRepository::clearShadowEmbeddings);
+        int summaries = promoteSlots(model, clearOthers, documentRepository::findShadowSlotIds,
+                documentRepository::promoteShadowEmbeddings, documentRepository::clearShadowEmbeddings);
+        if (chunks + summaries > 0) {
+            log.info("Moved {} chunk and {} document embeddings of {} to the primary slot", chunks, summaries, model);
+        }
+    }
+
+    /**
+     * Chuyển slot shadow của model sang slot chính theo từng batch, mỗi batch là một transaction riêng
+     */
+    private int promoteSlots(String model, boolean clearOthers,
+                             BiFunction<Long, Pageable, List<Long>> idLoader,
+                             BiFunction<Collection<Long>, String, Integer> promoter,
+                             BiFunction<Collection<Long>, String, Integer> cleaner) {
+        long afterId = 0L;
+        int promoted = 0;
+        while (true) {
+            List<Long> ids = idLoader.apply(afterId, PageRequest.of(0, promoteBatchSize));
+            if (ids.isEmpty()) {
+                return promoted;
+            }
+            Integer count = transactionTemplate.execute(status -> {
+                int moved = promoter.apply(ids, model);
+                if (clearOthers) {
+                    cleaner.apply(ids, model);
+                }
+                return moved;
+            });
+            promoted += count != null ? count : 0;
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private Map<String, Object> toStatus(Job job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("model", job.model);
+        status.put("previousModel", job.previousModel);
+        status.put("servingModel", embeddingModelService.servingModel());
+        status.put("phase", job.phase.name());
+        status.put("chunksEmbedded", job.chunksEmbedded);
+        status.put("documentsEmbedded", job.documentsEmbedded);
+        status.put("failed", job.failed);
+        status.put("startedAt", job.startedAt);
+        status.put("finishedAt", job.finishedAt);
+        status.put("error", job.error);
+        return status;
+    }
+
+    /**
+     * Giới hạn số vectors embed mỗi giây (0 = không giới hạn) để job không chiếm hết quota API của upload và chat
+     */
+    private static final class Throttle {
+
+        private final double permitsPerSecond;
+        // Thời điểm vectors kế tiếp được phép embed (không tích lũy quota khi job đang làm việc khác)
+        private long nextFreeNanos = System.nanoTime();
+
+        Throttle(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        void acquire(int count) {
+            if (permitsPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long waitNanos = nextFreeNanos - now;
+            nextFreeNanos = Math.max(nextFreeNanos, now) + (long) (count * 1_000_000_000L / permitsPerSecond);
+            if (waitNanos <= 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Re-embedding interrupted");
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.documindai.service.impl;
 
 import com.documindai.dto.response.UserResponse;
+import com.documindai.exception.BadRequestException;
 import com.documindai.exception.ResourceNotFoundException;
 import com.documindai.model.Role;
 import com.documindai.model.User;
@@ -9,6 +10,7 @@ import com.documindai.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -69,6 +71,18 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    @Override
+    @Transactional
+    public UserResponse assignTenant(Long userId, Long tenantId) {
+        User user = getUserById(userId);
+        if (tenantId != null && !getUserById(tenantId).isAdmin()) {
+            throw new BadRequestException("Tenant must be an admin user");
+        }
+        user.setTenantId(tenantId);
+        log.info("Assigned user {} to tenant {}", user.getUsername(), tenantId);
+        return mapToResponse(userRepository.save(user));
+    }
+
     /**
      * Map User entity to UserResponse DTO
      */
@@ -80,6 +94,7 @@ public class UserServiceImpl implements UserService {
         response.setFullName(user.getFullName());
         response.setRole(user.getRole().toString());
         response.setActive(user.getActive());
+        response.setTenantId(user.getTenantId());
         response.setCreatedAt(user.getCreatedAt());
         return response;
     }
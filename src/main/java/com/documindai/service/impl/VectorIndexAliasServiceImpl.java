@@ -0,0 +1,229 @@
+package com.documindai.service.impl;
+
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.PersistentVectorIndex;
+import com.documindai.retrieval.TenantShardedVectorIndex;
+import com.documindai.service.EmbeddingModelService;
+import com.documindai.service.VectorIndexAliasService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Implementation của VectorIndexAliasService
+ * Index shadow của model mới được dựng song song với index phục vụ rồi alias được đổi nguyên tử sang nó
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorIndexAliasServiceImpl implements VectorIndexAliasService {
+
+    private final VectorIndexLoader loader;
+    private final EmbeddingModelService embeddingModelService;
+
+    /**
+     * Index shadow: trong lúc build, documents thay đổi được để dành và đồng bộ từ database sau khi build xong
+     */
+    private static final class ShadowIndex {
+
+        private final ModelIndex target;
+        private final Set<Long> pendingDocuments = ConcurrentHashMap.newKeySet();
+        // Chỉ đổi khi giữ write lock của alias
+        private boolean building = true;
+
+        ShadowIndex(ModelIndex target) {
+            this.target = target;
+        }
+    }
+
+    // Alias phục vụ truy vấn, đổi nguyên tử sang index của model mới khi re-embedding hoàn tất
+    private final AtomicReference<ModelIndex> serving = new AtomicReference<>();
+
+    // Index của model đang re-embed (null nếu không có), nhận các documents thay đổi như index phục vụ
+    private volatile ShadowIndex shadow;
+
+    // Cập nhật index giữ read lock; mở, đổi và bỏ index shadow giữ write lock nên không cập nhật nào bị lỡ
+    private final ReentrantReadWriteLock aliasLock = new ReentrantReadWriteLock();
+
+    // Documents được đồng bộ sang index shadow lần lượt
+    private final Object shadowSyncLock = new Object();
+
+    /**
+     * Tạo index (rỗng) cho embedding model đang phục vụ
+     */
+    @PostConstruct
+    public void init() {
+        serving.set(loader.newModelIndex(embeddingModelService.servingModel()));
+    }
+
+    @Override
+    public ModelIndex serving() {
+        return serving.get();
+    }
+
+    @Override
+    public String servingModel() {
+        return serving.get().model();
+    }
+
+    @Override
+    public void updateServing(Collection<Long> changedDocuments, Consumer<ModelIndex> changes) {
+        withAliasReadLock(() -> {
+            changes.accept(serving.get());
+            shadowChanged(changedDocuments);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void buildShadow(String model) {
+        ModelIndex current = serving.get();
+        if (current.index() instanceof PersistentVectorIndex) {
+            throw new IllegalStateException("Re-embedding is not supported by the mmap engine");
+        }
+        if (current.model().equals(model)) {
+            throw new IllegalStateException("Embedding model " + model + " is already serving");
+        }
+        ShadowIndex created = new ShadowIndex(loader.newModelIndex(model));
+        aliasLock.writeLock().lock();
+        try {
+            if (shadow != null) {
+                throw new IllegalStateException("A shadow vector index is already open for embedding model "
+                        + shadow.target.model());
+            }
+            shadow = created;
+        } finally {
+            aliasLock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        log.info("Building shadow vector index for embedding model {}...", model);
+        ModelIndex target = created.target;
+        try {
+            loader.loadVectors(target, new HashSet<>());
+            if (target.index() instanceof TenantShardedVectorIndex sharded) {
+                loader.evictExcessShards(sharded, null);
+            }
+            loader.rebuildDocumentIndex(target);
+            loader.maintain(target.index());
+        } catch (RuntimeException e) {
+            discardShadow();
+            throw e;
+        }
+
+        // Từ đây documents thay đổi được đồng bộ ngay; những documents đổi trong lúc build được đồng bộ lại một lần
+        Set<Long> pending;
+        aliasLock.writeLock().lock();
+        try {
+            created.building = false;
+            pending = new HashSet<>(created.pendingDocuments);
+            created.pendingDocuments.clear();
+        } finally {
+            aliasLock.writeLock().unlock();
+        }
+        if (!pending.isEmpty()) {
+            withAliasReadLock(() -> syncShadow(target, pending));
+        }
+        log.info("Shadow vector index for {} built with {} vectors (dimension {}) in {} ms, "
+                        + "{} documents changed during build",
+                model, target.index().size(), target.index().dimension(), System.currentTimeMillis() - start,
+                pending.size());
+    }
+
+    @Override
+    public void reloadDocuments(String model, Collection<Long> documentIds) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        withAliasReadLock(() -> {
+            ModelIndex current = serving.get();
+            if (current.model().equals(model)) {
+                loader.reloadDocuments(current, documentIds);
+            } else if (shadow != null && shadow.target.model().equals(model)) {
+                shadowChanged(documentIds);
+            } else {
+                log.debug("No vector index for embedding model {}, ignoring reload of {} documents",
+                        model, documentIds.size());
+            }
+        });
+    }
+
+    @Override
+    public void promoteShadow(String model) {
+        ModelIndex previous;
+        ModelIndex promoted;
+        aliasLock.writeLock().lock();
+        try {
+            ShadowIndex current = shadow;
+            if (current == null || current.building || !current.target.model().equals(model)) {
+                throw new IllegalStateException("No shadow vector index built for embedding model " + model);
+            }
+            promoted = current.target;
+            previous = serving.getAndSet(promoted);
+            shadow = null;
+            loader.markChanged();
+        } finally {
+            aliasLock.writeLock().unlock();
+        }
+        log.info("Vector index now serving embedding model {} ({} vectors, dimension {}), replacing {} ({} vectors)",
+                promoted.model(), promoted.index().size(), promoted.index().dimension(),
+                previous.model(), previous.index().size());
+    }
+
+    @Override
+    public void discardShadow() {
+        aliasLock.writeLock().lock();
+        try {
+            if (shadow == null) {
+                return;
+            }
+            log.info("Discarding shadow vector index for embedding model {}", shadow.target.model());
+            shadow = null;
+        } finally {
+            aliasLock.writeLock().unlock();
+        }
+    }
+
+    private void withAliasReadLock(Runnable action) {
+        aliasLock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            aliasLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents đã đổi trong database: index shadow đang build thì để dành, nếu không thì đồng bộ ngay
+     * Index shadow luôn nạp lại documents từ database (idempotent) thay vì áp dụng thay đổi,
+     * nên không trùng hay sót vectors so với những gì build đã đọc
+     * Gọi khi đang giữ read lock của alias
+     */
+    private void shadowChanged(Collection<Long> documentIds) {
+        ShadowIndex current = shadow;
+        if (current == null || documentIds.isEmpty()) {
+            return;
+        }
+        if (current.building) {
+            current.pendingDocuments.addAll(documentIds);
+        } else {
+            syncShadow(current.target, documentIds);
+        }
+    }
+
+    private void syncShadow(ModelIndex target, Collection<Long> documentIds) {
+        synchronized (shadowSyncLock) {
+            loader.reloadDocuments(target, documentIds);
+        }
+    }
+}
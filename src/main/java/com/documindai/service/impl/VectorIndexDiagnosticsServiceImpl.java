@@ -0,0 +1,79 @@
+package com.documindai.service.impl;
+
+import com.documindai.exception.BadRequestException;
+import com.documindai.retrieval.KernelBenchmark;
+import com.documindai.retrieval.KernelBenchmark.BenchmarkReport;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.RecallEvaluator;
+import com.documindai.retrieval.RecallEvaluator.RecallReport;
+import com.documindai.retrieval.SnapshotableVectorIndex;
+import com.documindai.service.VectorIndexAliasService;
+import com.documindai.service.VectorIndexDiagnosticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Implementation của VectorIndexDiagnosticsService
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorIndexDiagnosticsServiceImpl implements VectorIndexDiagnosticsService {
+
+    // Giới hạn của benchmark: dữ liệu được cấp hai lần (mảng phẳng và từng vector), 16M floats ~ 128 MB heap
+    private static final int MAX_BENCHMARK_DIMENSION = 4096;
+    private static final long MAX_BENCHMARK_FLOATS = 16L * 1024 * 1024;
+    private static final int MAX_BENCHMARK_ROUNDS = 100;
+
+    private final VectorIndexAliasService aliasService;
+    private final VectorIndexLoader loader;
+
+    @Override
+    @Transactional(readOnly = true)
+    public RecallReport evaluateRecall(int k, int queryCount) {
+        if (k < 1 || queryCount < 1) {
+            throw new BadRequestException("k and queries must be at least 1");
+        }
+        ModelIndex current = aliasService.serving();
+        log.info("Evaluating recall@{} of {} with {} queries",
+                k, current.index().getClass().getSimpleName(), queryCount);
+
+        // Ground truth quét chính index đang phục vụ; engine không giữ vectors đầy đủ thì đọc lần lượt từ database
+        RecallEvaluator.Corpus corpus = current.index() instanceof SnapshotableVectorIndex snapshotable
+                && snapshotable.snapshotSupported()
+                ? snapshotable::forEachVector
+                : visitor -> loader.forEachIndexVector(current.model(),
+                        (view, vector) -> visitor.visit(view.getId(), view.getDocumentId(), vector));
+
+        // Queries lấy từ corpus: chunk của mỗi query bị loại khỏi ground truth và kết quả
+        List<RecallEvaluator.Query> queries = RecallEvaluator.sampleQueries(corpus, queryCount, 42);
+
+        RecallReport report = RecallEvaluator.evaluate(corpus, current.index(), queries, k);
+        log.info("Recall@{} = {} (exact {} us/query, index {} us/query)",
+                k, report.recall(), report.exactAvgMicros(), report.candidateAvgMicros());
+        return report;
+    }
+
+    @Override
+    public BenchmarkReport benchmarkKernel(int dimension, int vectorCount, int rounds) {
+        if (dimension < 1 || dimension > MAX_BENCHMARK_DIMENSION) {
+            throw new BadRequestException("Dimension must be between 1 and " + MAX_BENCHMARK_DIMENSION);
+        }
+        if (vectorCount < 1 || (long) vectorCount * dimension > MAX_BENCHMARK_FLOATS) {
+            throw new BadRequestException("Vectors must be at least 1 and vectors * dimension at most "
+                    + MAX_BENCHMARK_FLOATS);
+        }
+        if (rounds < 1 || rounds > MAX_BENCHMARK_ROUNDS) {
+            throw new BadRequestException("Rounds must be between 1 and " + MAX_BENCHMARK_ROUNDS);
+        }
+        log.info("Benchmarking vector kernel (dimension {}, {} vectors, {} rounds)", dimension, vectorCount, rounds);
+        BenchmarkReport report = KernelBenchmark.run(dimension, vectorCount, rounds);
+        log.info("Kernel {}: pair speedup {}x, batch speedup {}x",
+                report.kernel(), report.pairSpeedup(), report.batchSpeedup());
+        return report;
+    }
+}
@@ -0,0 +1,430 @@
+package com.documindai.service.impl;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.projection.ChunkIndexView;
+import com.documindai.repository.projection.DocumentMetadataView;
+import com.documindai.repository.projection.DocumentVectorView;
+import com.documindai.retrieval.CompactableVectorIndex;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.DocumentMetadataIndex;
+import com.documindai.retrieval.FlatVectorIndex;
+import com.documindai.retrieval.MetadataFilter;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.PersistentVectorIndex;
+import com.documindai.retrieval.TenantShardedVectorIndex;
+import com.documindai.retrieval.TrainableVectorIndex;
+import com.documindai.retrieval.VectorIndex;
+import com.documindai.retrieval.VectorIndexFactory;
+import com.documindai.retrieval.VersionedVectorIndex;
+import com.documindai.utils.EmbeddingUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Nạp vectors từ database vào vector index và giữ thông tin mức document (tenant, metadata),
+ * dùng chung bởi các services của vector index
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class VectorIndexLoader {
+
+    private final DocumentChunkRepository chunkRepository;
+    private final DocumentRepository documentRepository;
+    private final VectorIndexFactory indexFactory;
+
+    // Document ID -> tenant ID (admin upload), dùng để lọc theo tenant khi index không chia shard
+    private final Map<Long, Long> documentTenants = new ConcurrentHashMap<>();
+
+    // Bitmaps metadata (loại file, ngày upload, active) để lọc documents trước khi chấm điểm
+    private final DocumentMetadataIndex metadataIndex = new DocumentMetadataIndex();
+
+    // Số lần index phục vụ bị thay đổi, để biết snapshot đã cũ chưa
+    private final AtomicLong changes = new AtomicLong();
+
+    @Value("${app.retrieval.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${app.retrieval.tenant-sharding.max-resident-shards:0}")
+    private int maxResidentShards;
+
+    ModelIndex newModelIndex(String model) {
+        return new ModelIndex(model, indexFactory.create(model), new FlatVectorIndex());
+    }
+
+    long changeCount() {
+        return changes.get();
+    }
+
+    void markChanged() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Nạp toàn bộ vectors của model của index từ database trong một lần cập nhật
+     */
+    void loadVectors(ModelIndex target, Set<Long> indexedDocuments) {
+        String model = target.model();
+        updateIndex(target.index(), draft -> {
+            draft.clear();
+            forEachIndexVector(model, (view, vector) -> {
+                addIndexVector(draft, view, vector);
+                indexedDocuments.add(view.getDocumentId());
+            });
+        });
+    }
+
+    /**
+     * Áp dụng một nhóm thay đổi lên index: index versioned nhận chúng trên bản nháp và publish một lần,
+     * engine khác được sửa trực tiếp
+     */
+    static void updateIndex(VectorIndex index, Consumer<VectorIndex> changes) {
+        if (index instanceof VersionedVectorIndex versioned) {
+            versioned.update(changes);
+        } else {
+            changes.accept(index);
+        }
+    }
+
+    int addChunks(VectorIndex target, String model, List<DocumentChunk> chunks) {
+        int indexed = 0;
+        for (DocumentChunk chunk : chunks) {
+            if (chunk.getId() == null) {
+                continue;
+            }
+            try {
+                float[] vector = EmbeddingUtils.readModelUnitVector(chunk.getEmbeddingVector(), chunk.getEmbedding(),
+                        chunk.getEmbeddingNormalized(), chunk.getEmbeddingModel(), chunk.getShadowEmbeddingVector(),
+                        chunk.getShadowEmbeddingModel(), model);
+                if (vector == null || vector.length == 0) {
+                    continue;
+                }
+                Document document = chunk.getDocument();
+                addUnitVector(target, document.getUploadedBy().getId(), chunk.getId(), document.getId(), vector);
+                putMetadata(document.getId(), document.getFileType(), document.getUploadDate(), document.getActive());
+                indexed++;
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping chunk {}: {}", chunk.getId(), e.getMessage());
+            }
+        }
+        return indexed;
+    }
+
+    void indexDocument(ModelIndex target, Document document) {
+        try {
+            float[] vector = EmbeddingUtils.readModelUnitVector(document.getEmbeddingVector(),
+                    document.getEmbedding(), document.getEmbeddingNormalized(), document.getEmbeddingModel(),
+                    document.getShadowEmbeddingVector(), document.getShadowEmbeddingModel(), target.model());
+            if (vector == null || vector.length == 0) {
+                return;
+            }
+            target.documentIndex().addNormalized(document.getId(), document.getId(), vector);
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping summary embedding of document {}: {}", document.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Bỏ tenant và metadata của document đã bị xóa
+     */
+    void forgetDocument(Long documentId) {
+        markChanged();
+        documentTenants.remove(documentId);
+        metadataIndex.remove(documentId);
+    }
+
+    /**
+     * Thay vectors (chunks và summary) của các documents trong index bằng vectors của model đọc từ database,
+     * trong một lần cập nhật; document đã bị xóa hoặc ẩn thì chỉ bị bỏ khỏi index
+     */
+    void reloadDocuments(ModelIndex target, Collection<Long> documentIds) {
+        List<Long> reloaded = new ArrayList<>(documentIds);
+        updateIndex(target.index(), draft -> reloadChunkVectors(draft, target.model(), reloaded));
+        for (Long documentId : reloaded) {
+            target.documentIndex().removeDocument(documentId);
+        }
+        for (int from = 0; from < reloaded.size(); from += rebuildBatchSize) {
+            List<Long> batch = reloaded.subList(from, Math.min(from + rebuildBatchSize, reloaded.size()));
+            for (DocumentVectorView view : documentRepository.findActiveDocumentVectorsByIdIn(target.model(), batch)) {
+                addDocumentVector(target, view);
+            }
+        }
+    }
+
+    /**
+     * Bỏ vectors của các documents khỏi index (hoặc bản nháp) rồi nạp lại vectors của model từ database
+     */
+    void reloadChunkVectors(VectorIndex draft, String model, List<Long> documentIds) {
+        markChanged();
+        for (Long documentId : documentIds) {
+            draft.removeDocument(documentId);
+        }
+        for (int from = 0; from < documentIds.size(); from += rebuildBatchSize) {
+            List<Long> batch = documentIds.subList(from, Math.min(from + rebuildBatchSize, documentIds.size()));
+            forEachIndexVector(model,
+                    (after, page) -> chunkRepository.findIndexVectorsByDocumentIdIn(model, batch, after, page),
+                    (view, vector) -> addIndexVector(draft, view, vector));
+        }
+    }
+
+    /**
+     * Thêm vector vào index hoặc bản nháp (vào shard của tenant nếu index chia shard) và ghi nhận tenant của document
+     */
+    void addVector(VectorIndex target, Long tenantId, long chunkId, long documentId, float[] vector) {
+        markChanged();
+        documentTenants.put(documentId, tenantId);
+        if (target instanceof TenantShardedVectorIndex.TenantWriter sharded) {
+            sharded.add(tenantId, chunkId, documentId, vector);
+        } else {
+            target.add(chunkId, documentId, vector);
+        }
+    }
+
+    /**
+     * Như addVector với vector đã chuẩn hóa L2 (đọc qua readModelUnitVector hoặc từ snapshot):
+     * index không chuẩn hóa lại
+     */
+    void addUnitVector(VectorIndex target, Long tenantId, long chunkId, long documentId, float[] vector) {
+        markChanged();
+        documentTenants.put(documentId, tenantId);
+        if (target instanceof TenantShardedVectorIndex.TenantWriter sharded) {
+            sharded.addNormalized(tenantId, chunkId, documentId, vector);
+        } else {
+            target.addNormalized(chunkId, documentId, vector);
+        }
+    }
+
+    /**
+     * Thêm vector (đã chuẩn hóa) do forEachIndexVector trả về
+     */
+    void addIndexVector(VectorIndex target, ChunkIndexView view, float[] vector) {
+        addUnitVector(target, view.getTenantId(), view.getId(), view.getDocumentId(), vector);
+    }
+
+    /**
+     * Tenant của document, -1 nếu không rõ
+     */
+    long tenantOf(long documentId) {
+        return documentTenants.getOrDefault(documentId, -1L);
+    }
+
+    void forgetTenant(Long documentId) {
+        documentTenants.remove(documentId);
+    }
+
+    void retainTenants(Set<Long> documentIds) {
+        documentTenants.keySet().retainAll(documentIds);
+    }
+
+    void clearTenants() {
+        documentTenants.clear();
+    }
+
+    DocumentFilter tenantFilter(Long tenantId) {
+        if (tenantId == null) {
+            return DocumentFilter.ALL;
+        }
+        return documentId -> Objects.equals(documentTenants.get(documentId), tenantId);
+    }
+
+    DocumentFilter metadataFilter(MetadataFilter filter) {
+        return metadataIndex.filter(filter);
+    }
+
+    /**
+     * Train lại các index cần training (IVF, PQ) khi corpus đã tăng đủ nhiều
+     * và compact các index xóa bằng tombstone (mmap, HNSW)
+     */
+    void maintain(VectorIndex index) {
+        if (index instanceof TenantShardedVectorIndex sharded) {
+            sharded.forEachShard(this::maintainShard);
+        } else {
+            maintainShard(index);
+        }
+        if (index instanceof PersistentVectorIndex persistent) {
+            persistent.flush();
+        }
+    }
+
+    private void maintainShard(VectorIndex shard) {
+        if (shard instanceof TrainableVectorIndex trainable && trainable.needsTraining()) {
+            long start = System.currentTimeMillis();
+            log.info("Training vector index on {} vectors...", trainable.size());
+            trainable.train();
+            log.info("Vector index trained in {} ms", System.currentTimeMillis() - start);
+        }
+        if (shard instanceof CompactableVectorIndex compactable && compactable.needsCompaction()) {
+            long start = System.currentTimeMillis();
+            log.info("Compacting vector index ({} live vectors)...", compactable.size());
+            compactable.compact();
+            log.info("Vector index compacted in {} ms", System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Shard của tenant đã bị evict thì load lại trước khi tìm kiếm
+     */
+    void ensureResident(TenantShardedVectorIndex sharded, String model, long tenantId) {
+        if (sharded.isEvicted(tenantId)) {
+            loadTenantShard(sharded, model, tenantId, true);
+        }
+    }
+
+    /**
+     * Load lại mọi shards đã bị evict; không evict shard khác lúc này vì truy vấn toàn cục cần tất cả
+     */
+    void ensureAllResident(TenantShardedVectorIndex sharded, String model) {
+        for (Long tenantId : sharded.evictedTenants()) {
+            loadTenantShard(sharded, model, tenantId, false);
+        }
+    }
+
+    /**
+     * Load lại shard của tenant từ database, rồi (khi enforceLimit) evict bớt shards ít dùng nếu vượt giới hạn
+     */
+    private synchronized void loadTenantShard(TenantShardedVectorIndex sharded, String model, long tenantId,
+                                              boolean enforceLimit) {
+        if (!sharded.isEvicted(tenantId)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // Tenant chỉ hết bị đánh dấu evicted khi shard đã load xong được publish
+        try (TenantShardedVectorIndex.ShardedDraft draft = sharded.edit()) {
+            draft.startLoad(tenantId);
+            forEachIndexVector(model,
+                    (afterId, page) -> chunkRepository.findTenantIndexVectors(model, tenantId, afterId, page),
+                    (view, vector) -> addIndexVector(draft, view, vector));
+            draft.publish();
+        }
+        log.info("Loaded vector shard of tenant {} ({} vectors) in {} ms",
+                tenantId, sharded.shardSizes().getOrDefault(tenantId, 0), System.currentTimeMillis() - start);
+        if (enforceLimit) {
+            evictExcessShards(sharded, tenantId);
+        }
+    }
+
+    /**
+     * Giữ số shards trong bộ nhớ không vượt max-resident-shards (0 = không giới hạn), evict shard lâu không truy vấn nhất
+     */
+    void evictExcessShards(TenantShardedVectorIndex sharded, Long keepTenantId) {
+        if (maxResidentShards <= 0) {
+            return;
+        }
+        long keep = keepTenantId != null ? keepTenantId : Long.MIN_VALUE;
+        while (sharded.shardCount() > maxResidentShards) {
+            Long victim = sharded.leastRecentlyUsedTenant(keep);
+            if (victim == null) {
+                return;
+            }
+            evict(sharded, victim);
+        }
+    }
+
+    int evict(TenantShardedVectorIndex sharded, Long tenantId) {
+        int released = sharded.evict(tenantId);
+        log.info("Evicted vector shard of tenant {} ({} vectors)", tenantId, released);
+        return released;
+    }
+
+    /**
+     * Duyệt vectors của một embedding model của mọi chunks đang active
+     */
+    void forEachIndexVector(String model, BiConsumer<ChunkIndexView, float[]> consumer) {
+        forEachIndexVector(model, (afterId, page) -> chunkRepository.findIndexVectors(model, afterId, page), consumer);
+    }
+
+    /**
+     * Duyệt vectors (đã chuẩn hóa L2) của một embedding model của các chunks đang active theo từng batch
+     * (projection, không hydrate entity)
+     */
+    void forEachIndexVector(String model, BiFunction<Long, Pageable, List<ChunkIndexView>> batchQuery,
+                            BiConsumer<ChunkIndexView, float[]> consumer) {
+        long afterId = 0L;
+        while (true) {
+            List<ChunkIndexView> batch = batchQuery.apply(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (ChunkIndexView view : batch) {
+                try {
+                    float[] vector = EmbeddingUtils.readModelUnitVector(view, model);
+                    if (vector != null && vector.length > 0) {
+                        consumer.accept(view, vector);
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping chunk {}: {}", view.getId(), e.getMessage());
+                }
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    int batchSize() {
+        return rebuildBatchSize;
+    }
+
+    /**
+     * Build lại bitmap index metadata từ các documents đang active
+     */
+    void rebuildMetadataIndex() {
+        metadataIndex.clear();
+        for (DocumentMetadataView view : documentRepository.findActiveMetadata()) {
+            putMetadata(view.getId(), view.getFileType(), view.getUploadDate(), view.getActive());
+        }
+        log.info("Document metadata index built: {}", metadataIndex.stats());
+    }
+
+    /**
+     * Index metadata chỉ giữ documents đang active như vector index, nên bộ lọc chỉ có điều kiện active là ALL
+     */
+    private void putMetadata(Long documentId, String fileType, LocalDateTime uploadDate, Boolean active) {
+        if (!Boolean.TRUE.equals(active)) {
+            metadataIndex.remove(documentId);
+            return;
+        }
+        metadataIndex.put(documentId, fileType, uploadDate != null ? uploadDate.toLocalDate() : null,
+                Boolean.TRUE.equals(active));
+    }
+
+    /**
+     * Build lại index mức document từ embedding summary (của model của index) của các documents đang active
+     */
+    void rebuildDocumentIndex(ModelIndex target) {
+        target.documentIndex().clear();
+        for (DocumentVectorView view : documentRepository.findActiveDocumentVectors(target.model())) {
+            addDocumentVector(target, view);
+        }
+        log.info("Document summary index built with {} documents", target.documentIndex().size());
+    }
+
+    private void addDocumentVector(ModelIndex target, DocumentVectorView view) {
+        try {
+            float[] vector = EmbeddingUtils.readModelUnitVector(view, target.model());
+            if (vector != null && vector.length > 0) {
+                target.documentIndex().addNormalized(view.getId(), view.getId(), vector);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping summary embedding of document {}: {}", view.getId(), e.getMessage());
+        }
+    }
+}
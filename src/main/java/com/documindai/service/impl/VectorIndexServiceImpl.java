@@ -0,0 +1,240 @@
+package com.documindai.service.impl;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.MetadataFilter;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.PersistentVectorIndex;
+import com.documindai.retrieval.ScoredChunk;
+import com.documindai.retrieval.TenantShardedVectorIndex;
+import com.documindai.retrieval.VectorIndex;
+import com.documindai.service.VectorIndexAliasService;
+import com.documindai.service.VectorIndexService;
+import com.documindai.service.VectorSnapshotService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation của VectorIndexService
+ * Index được build khi ứng dụng khởi động (hoặc nạp từ snapshot), sau đó cập nhật khi chunks được lưu/xóa
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorIndexServiceImpl implements VectorIndexService {
+
+    private final VectorIndexAliasService aliasService;
+    private final VectorSnapshotService snapshotService;
+    private final VectorIndexLoader loader;
+
+    @Value("${app.retrieval.two-stage.enabled:false}")
+    private boolean twoStageEnabled;
+
+    @Value("${app.retrieval.two-stage.top-documents:20}")
+    private int twoStageTopDocuments;
+
+    /**
+     * Build index khi ứng dụng đã sẵn sàng
+     * Index lưu trên disk đã có dữ liệu thì dùng luôn, không cần load lại từ database;
+     * có snapshot thì nạp snapshot rồi chỉ replay phần đã đổi, nếu không thì build lại toàn bộ.
+     * Listener chạy xong thì Spring Boot mới chuyển readiness sang ACCEPTING_TRAFFIC.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ModelIndex current = aliasService.serving();
+        if (current.index() instanceof PersistentVectorIndex && current.index().size() > 0) {
+            log.info("Serving {} vectors (dimension {}) from persisted vector index",
+                    current.index().size(), current.index().dimension());
+            loader.rebuildDocumentIndex(current);
+            loader.rebuildMetadataIndex();
+            maintainIndex();
+            return;
+        }
+        if (snapshotService.restoreSnapshot()) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Ghi snapshot (hoặc flush và đóng index lưu trên disk) khi ứng dụng dừng
+     */
+    @PreDestroy
+    public void onShutdown() {
+        snapshotService.writeSnapshot();
+        if (aliasService.serving().index() instanceof PersistentVectorIndex persistent) {
+            persistent.close();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ModelIndex target = aliasService.serving();
+        log.info("Building in-memory vector index for embedding model {}...", target.model());
+
+        // Truy vấn tiếp tục dùng index hiện tại cho tới khi index mới được publish
+        Set<Long> indexedDocuments = new HashSet<>();
+        loader.loadVectors(target, indexedDocuments);
+        loader.retainTenants(indexedDocuments);
+
+        log.info("Vector index built with {} vectors (dimension {}) in {} ms",
+                target.index().size(), target.index().dimension(), System.currentTimeMillis() - start);
+
+        if (target.index() instanceof TenantShardedVectorIndex sharded) {
+            log.info("Vector index sharded across {} tenants", sharded.shardCount());
+            loader.evictExcessShards(sharded, null);
+        }
+
+        loader.rebuildDocumentIndex(target);
+        loader.rebuildMetadataIndex();
+
+        maintainIndex();
+    }
+
+    /**
+     * Định kỳ train lại các index cần training (IVF, PQ) khi corpus đã tăng đủ nhiều
+     * và compact các index xóa bằng tombstone (mmap, HNSW)
+     */
+    @Scheduled(fixedDelayString = "${app.retrieval.maintenance-interval-ms:600000}",
+            initialDelayString = "${app.retrieval.maintenance-interval-ms:600000}")
+    public void maintainIndex() {
+        loader.maintain(aliasService.serving().index());
+    }
+
+    @Override
+    public void indexChunks(List<DocumentChunk> chunks) {
+        int[] indexed = {0};
+        Set<Long> documentIds = new HashSet<>();
+        for (DocumentChunk chunk : chunks) {
+            documentIds.add(chunk.getDocument().getId());
+        }
+        aliasService.updateServing(documentIds, target -> VectorIndexLoader.updateIndex(target.index(),
+                draft -> indexed[0] = loader.addChunks(draft, target.model(), chunks)));
+        log.debug("Indexed {} chunk vectors", indexed[0]);
+    }
+
+    @Override
+    public void reindexDocument(Document document, List<DocumentChunk> chunks) {
+        int[] indexed = {0};
+        int[] removed = {0};
+        aliasService.updateServing(List.of(document.getId()), target -> {
+            // Bỏ vectors cũ và thêm vectors mới trong cùng một generation: truy vấn thấy bản cũ hoặc bản mới của document
+            VectorIndexLoader.updateIndex(target.index(), draft -> {
+                removed[0] = draft.removeDocument(document.getId());
+                indexed[0] = loader.addChunks(draft, target.model(), chunks);
+            });
+            target.documentIndex().removeDocument(document.getId());
+            loader.indexDocument(target, document);
+        });
+        log.info("Reindexed document {}: {} vectors replaced by {}", document.getId(), removed[0], indexed[0]);
+    }
+
+    @Override
+    public void indexDocument(Document document) {
+        if (document.getId() == null) {
+            return;
+        }
+        aliasService.updateServing(List.of(document.getId()), target -> loader.indexDocument(target, document));
+    }
+
+    @Override
+    public void removeDocument(Long documentId) {
+        loader.forgetDocument(documentId);
+        int[] removed = {0};
+        aliasService.updateServing(List.of(documentId), target -> {
+            target.documentIndex().removeDocument(documentId);
+            removed[0] = target.index().removeDocument(documentId);
+        });
+        log.info("Removed {} vectors of document {} from index", removed[0], documentId);
+    }
+
+    @Override
+    public List<ScoredChunk> search(float[] queryVector, Long tenantId, int limit, double threshold,
+                                    DocumentFilter filter) {
+        ModelIndex current = aliasService.serving();
+        VectorIndex index = current.index();
+        VectorIndex documentIndex = current.documentIndex();
+        if (tenantId != null) {
+            // Shard của tenant chỉ chứa documents của tenant đó, không cần lọc thêm
+            if (index instanceof TenantShardedVectorIndex sharded) {
+                loader.ensureResident(sharded, current.model(), tenantId);
+                return sharded.search(tenantId, queryVector, limit, threshold, filter);
+            }
+            filter = tenantFilter(tenantId).and(filter);
+        } else if (index instanceof TenantShardedVectorIndex sharded) {
+            // Truy vấn toàn cục cần mọi shards: shards đã evict được load lại, không trả kết quả thiếu
+            loader.ensureAllResident(sharded, current.model());
+        }
+
+        // Truy vấn đã giới hạn documents thì không cần stage chọn documents
+        if (!filter.acceptsAll()) {
+            return index.search(queryVector, limit, threshold, filter);
+        }
+        if (!twoStageEnabled || documentIndex.size() == 0) {
+            return index.search(queryVector, limit, threshold);
+        }
+
+        // Stage 1: xếp hạng documents theo embedding summary
+        List<ScoredChunk> topDocuments = documentIndex.search(queryVector, twoStageTopDocuments, -1.0);
+        if (topDocuments.isEmpty()) {
+            return index.search(queryVector, limit, threshold);
+        }
+
+        // Stage 2: chỉ chấm chunks thuộc top-N documents
+        DocumentFilter candidates = DocumentFilter.of(topDocuments.stream().map(ScoredChunk::documentId).toList());
+        List<ScoredChunk> hits = index.search(queryVector, limit, threshold, candidates);
+        log.debug("Two-stage search: {} candidate documents, {} chunk hits", topDocuments.size(), hits.size());
+        return hits;
+    }
+
+    @Override
+    public DocumentFilter metadataFilter(MetadataFilter filter) {
+        return loader.metadataFilter(filter);
+    }
+
+    @Override
+    public DocumentFilter tenantFilter(Long tenantId) {
+        return loader.tenantFilter(tenantId);
+    }
+
+    @Override
+    public Map<Long, Integer> tenantShardSizes() {
+        if (aliasService.serving().index() instanceof TenantShardedVectorIndex sharded) {
+            return sharded.shardSizes();
+        }
+        return Map.of();
+    }
+
+    @Override
+    public int evictTenant(Long tenantId) {
+        if (!(aliasService.serving().index() instanceof TenantShardedVectorIndex sharded)) {
+            return 0;
+        }
+        return loader.evict(sharded, tenantId);
+    }
+
+    @Override
+    public int size() {
+        return aliasService.serving().index().size();
+    }
+
+    @Override
+    public String servingModel() {
+        return aliasService.servingModel();
+    }
+}
@@ -0,0 +1,247 @@
+package com.documindai.service.impl;
+
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.projection.ChunkRefView;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.PersistentVectorIndex;
+import com.documindai.retrieval.SnapshotableVectorIndex;
+import com.documindai.retrieval.TenantShardedVectorIndex;
+import com.documindai.retrieval.VectorIndex;
+import com.documindai.retrieval.VectorSnapshot;
+import com.documindai.service.VectorIndexAliasService;
+import com.documindai.service.VectorSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation của VectorSnapshotService
+ * Khi khởi động chỉ phần corpus đã đổi sau watermark của snapshot được đọc lại từ database
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorSnapshotServiceImpl implements VectorSnapshotService {
+
+    private final DocumentChunkRepository chunkRepository;
+    private final VectorIndexAliasService aliasService;
+    private final VectorIndexLoader loader;
+
+    @Value("${app.retrieval.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${app.retrieval.snapshot.path:data/snapshots/vector-index.snap}")
+    private String snapshotPath;
+
+    private final Object snapshotLock = new Object();
+
+    // Số thay đổi của index và model tại snapshot gần nhất (model null: chưa có snapshot)
+    private long snapshotChanges = -1L;
+    private String snapshotModel;
+
+    @Override
+    public boolean restoreSnapshot() {
+        if (!snapshotsEnabled()) {
+            return false;
+        }
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) {
+            log.info("No vector index snapshot at {}, building index from database", path);
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        ModelIndex target = aliasService.serving();
+        loader.clearTenants();
+        boolean[] changed = {false};
+        try {
+            VectorIndexLoader.updateIndex(target.index(), draft -> {
+                draft.clear();
+                SnapshotContents contents = new SnapshotContents();
+                VectorSnapshot.Header header;
+                try {
+                    header = VectorSnapshot.read(path, target.model(), (chunkId, documentId, tenantId, vector) -> {
+                        // Tenant không rõ: document sẽ được nạp lại từ database khi đối chiếu
+                        if (tenantId >= 0) {
+                            loader.addUnitVector(draft, tenantId, chunkId, documentId, vector);
+                            contents.add(chunkId, documentId);
+                        }
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                log.info("Loaded {} vectors (dimension {}) from snapshot {} (watermark {}) in {} ms",
+                        header.count(), header.dimension(), path, header.watermark(),
+                        System.currentTimeMillis() - start);
+                changed[0] = replayChanges(draft, target.model(), header.watermark(), contents);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unusable vector index snapshot {}: {}", path, e.getMessage());
+            loader.clearTenants();
+            return false;
+        }
+        log.info("Vector index restored with {} vectors in {} ms",
+                target.index().size(), System.currentTimeMillis() - start);
+
+        if (target.index() instanceof TenantShardedVectorIndex sharded) {
+            log.info("Vector index sharded across {} tenants", sharded.shardCount());
+            loader.evictExcessShards(sharded, null);
+        }
+
+        loader.rebuildDocumentIndex(target);
+        loader.rebuildMetadataIndex();
+        loader.maintain(target.index());
+        if (!changed[0]) {
+            synchronized (snapshotLock) {
+                snapshotChanges = loader.changeCount();
+                snapshotModel = target.model();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Định kỳ ghi snapshot của index nếu index đã thay đổi kể từ snapshot trước
+     * Index được duyệt trong lúc vẫn nhận cập nhật; chunk thêm/xóa giữa chừng sẽ được phát hiện
+     * và nạp lại khi đối chiếu snapshot với database lúc khởi động
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.retrieval.snapshot.interval-ms:600000}",
+            initialDelayString = "${app.retrieval.snapshot.interval-ms:600000}")
+    public void writeSnapshot() {
+        synchronized (snapshotLock) {
+            ModelIndex current = aliasService.serving();
+            long changes = loader.changeCount();
+            boolean stale = changes != snapshotChanges || !current.model().equals(snapshotModel);
+            if (snapshotsEnabled() && current.index().dimension() > 0 && stale
+                    && writeSnapshot(Path.of(snapshotPath), current)) {
+                snapshotChanges = changes;
+                snapshotModel = current.model();
+            }
+        }
+    }
+
+    private boolean writeSnapshot(Path path, ModelIndex current) {
+        long start = System.currentTimeMillis();
+        try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, current.model(), current.index().dimension())) {
+            ((SnapshotableVectorIndex) current.index()).forEachVector((chunkId, documentId, vector) -> {
+                try {
+                    writer.write(chunkId, documentId, loader.tenantOf(documentId), vector);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.commit();
+            log.info("Vector index snapshot written to {}: {} vectors, watermark {} in {} ms",
+                    path, writer.count(), writer.watermark(), System.currentTimeMillis() - start);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write vector index snapshot to {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot chỉ dùng được cho index giữ vectors đầy đủ trong bộ nhớ (index mmap tự lưu trên disk)
+     */
+    private boolean snapshotsEnabled() {
+        VectorIndex index = aliasService.serving().index();
+        return snapshotEnabled && !(index instanceof PersistentVectorIndex)
+                && index instanceof SnapshotableVectorIndex snapshotable && snapshotable.snapshotSupported();
+    }
+
+    /**
+     * Đối chiếu snapshot với database và chỉ nạp lại phần đã đổi sau khi snapshot được ghi:
+     * documents đã bị xóa/ẩn, documents có chunks thêm hoặc mất (ID không quá watermark), và chunks mới hơn watermark
+     * Chunks không bao giờ đổi document, nên số chunks khớp theo từng document đủ để phát hiện chunks bị xóa
+     */
+    private boolean replayChanges(VectorIndex draft, String model, long watermark, SnapshotContents contents) {
+        long[] chunkIds = contents.sortedChunkIds();
+        Map<Long, Integer> matched = new HashMap<>();
+        Set<Long> changedDocuments = new HashSet<>();
+        long afterId = 0L;
+        while (true) {
+            List<ChunkRefView> batch = chunkRepository.findIndexRefs(model, afterId, watermark,
+                    PageRequest.of(0, loader.batchSize()));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (ChunkRefView ref : batch) {
+                if (Arrays.binarySearch(chunkIds, ref.getId()) >= 0) {
+                    matched.merge(ref.getDocumentId(), 1, Integer::sum);
+                } else {
+                    changedDocuments.add(ref.getDocumentId());
+                }
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+
+        int removedDocuments = 0;
+        for (Map.Entry<Long, Integer> entry : contents.documentChunkCounts.entrySet()) {
+            Integer live = matched.get(entry.getKey());
+            if (live == null) {
+                draft.removeDocument(entry.getKey());
+                loader.forgetTenant(entry.getKey());
+                removedDocuments++;
+            } else if (!live.equals(entry.getValue())) {
+                changedDocuments.add(entry.getKey());
+            }
+        }
+
+        List<Long> reloaded = new ArrayList<>(changedDocuments);
+        for (Long documentId : reloaded) {
+            loader.forgetTenant(documentId);
+        }
+        loader.reloadChunkVectors(draft, model, reloaded);
+
+        int[] newChunks = {0};
+        loader.forEachIndexVector(model,
+                (after, page) -> chunkRepository.findIndexVectors(model, Math.max(after, watermark), page),
+                (view, vector) -> {
+                    loader.addIndexVector(draft, view, vector);
+                    newChunks[0]++;
+                });
+
+        log.info("Snapshot replay: {} documents removed, {} documents reloaded, {} chunks newer than watermark",
+                removedDocuments, reloaded.size(), newChunks[0]);
+        return removedDocuments > 0 || !reloaded.isEmpty() || newChunks[0] > 0;
+    }
+
+    /**
+     * Chunk IDs và số chunks của từng document đã nạp từ snapshot
+     */
+    private static final class SnapshotContents {
+
+        private long[] chunkIds = new long[1024];
+        private int size;
+        private final Map<Long, Integer> documentChunkCounts = new HashMap<>();
+
+        void add(long chunkId, long documentId) {
+            if (size == chunkIds.length) {
+                chunkIds = Arrays.copyOf(chunkIds, size * 2);
+            }
+            chunkIds[size++] = chunkId;
+            documentChunkCounts.merge(documentId, 1, Integer::sum);
+        }
+
+        long[] sortedChunkIds() {
+            long[] sorted = Arrays.copyOf(chunkIds, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
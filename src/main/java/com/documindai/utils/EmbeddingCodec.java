@@ -0,0 +1,78 @@
+package com.documindai.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Codec cho embedding dạng nhị phân: float32 little-endian, 4 bytes mỗi chiều
+ * (vector 1536 chiều chiếm 6 KB thay vì ~30 KB JSON)
+ */
+public class EmbeddingCodec {
+
+    public static final int BYTES_PER_DIMENSION = Float.BYTES;
+
+    private EmbeddingCodec() {
+        // Utility class
+    }
+
+    /**
+     * Encode vector float thành mảng bytes float32 little-endian
+     */
+    public static byte[] encode(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * BYTES_PER_DIMENSION)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    /**
+     * Encode embedding trả về từ OpenAI (List<Double>) thành bytes float32 little-endian
+     */
+    public static byte[] encode(List<Double> embedding) {
+        if (embedding == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.size() * BYTES_PER_DIMENSION)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (Double value : embedding) {
+            buffer.putFloat(value.floatValue());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Chuẩn hóa L2 embedding trả về từ OpenAI rồi encode (vector 0 được giữ nguyên)
+     */
+    public static byte[] encodeNormalized(List<Double> embedding) {
+        if (embedding == null) {
+            return null;
+        }
+        return encode(EmbeddingUtils.normalize(EmbeddingUtils.toFloatArray(embedding)));
+    }
+
+    /**
+     * Decode bytes float32 little-endian trực tiếp thành mảng float
+     */
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length % BYTES_PER_DIMENSION != 0) {
+            throw new IllegalArgumentException("Invalid embedding length: " + bytes.length + " bytes");
+        }
+        float[] vector = new float[bytes.length / BYTES_PER_DIMENSION];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * Số chiều của embedding đã encode
+     */
+    public static int dimension(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length / BYTES_PER_DIMENSION;
+    }
+}
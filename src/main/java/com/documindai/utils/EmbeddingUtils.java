@@ -1,5 +1,7 @@
 package com.documindai.utils;
 
+import com.documindai.repository.projection.ModelVectorView;
+import com.documindai.retrieval.VectorKernels;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -20,27 +22,13 @@ public class EmbeddingUtils {
      * @param vector1 Vector thứ nhất
      * @param vector2 Vector thứ hai
      * @return Cosine similarity (0-1)
+     * @throws IllegalArgumentException nếu hai vectors khác số chiều (thường là embeddings của hai models khác nhau)
      */
     public static double cosineSimilarity(List<Double> vector1, List<Double> vector2) {
-        if (vector1 == null || vector2 == null || vector1.size() != vector2.size()) {
+        if (vector1 == null || vector2 == null) {
             return 0.0;
         }
-
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int i = 0; i < vector1.size(); i++) {
-            dotProduct += vector1.get(i) * vector2.get(i);
-            norm1 += Math.pow(vector1.get(i), 2);
-            norm2 += Math.pow(vector2.get(i), 2);
-        }
-
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
-        }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return cosineSimilarity(toFloatArray(vector1), toFloatArray(vector2));
     }
 
     /**
@@ -81,4 +69,148 @@ public class EmbeddingUtils {
 
         return cosineSimilarity(queryVector, docVector);
     }
+
+    /**
+     * Chuyển embedding dạng List<Double> sang mảng float primitive
+     */
+    public static float[] toFloatArray(List<Double> embedding) {
+        if (embedding == null) {
+            return null;
+        }
+        float[] vector = new float[embedding.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Parse JSON embedding trực tiếp thành mảng float (không tạo List<Double> trung gian)
+     */
+    public static float[] parseVector(String embeddingJson) {
+        if (embeddingJson == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(embeddingJson, float[].class);
+        } catch (Exception e) {
+            log.error("Error parsing embedding vector", e);
+            return null;
+        }
+    }
+
+    /**
+     * Đọc vector từ cột nhị phân (ưu tiên) hoặc cột JSON cũ chưa được migrate
+     */
+    public static float[] readVector(byte[] embeddingVector, String embeddingJson) {
+        if (embeddingVector != null) {
+            return EmbeddingCodec.decode(embeddingVector);
+        }
+        return parseVector(embeddingJson);
+    }
+
+    /**
+     * Đọc vector của một embedding model từ hai slot của row: slot chính nếu do model đó tạo, nếu không thì slot shadow
+     * (luôn đã chuẩn hóa); null nếu row chưa có vector của model đó
+     */
+    public static float[] readModelVector(byte[] embeddingVector, String embeddingJson, String embeddingModel,
+                                          byte[] shadowVector, String shadowModel, String model) {
+        if (model.equals(embeddingModel)) {
+            return readVector(embeddingVector, embeddingJson);
+        }
+        if (model.equals(shadowModel) && shadowVector != null) {
+            return EmbeddingCodec.decode(shadowVector);
+        }
+        return null;
+    }
+
+    /**
+     * Như readModelVector cho một row đọc qua projection
+     */
+    public static float[] readModelVector(ModelVectorView view, String model) {
+        return readModelVector(view.getEmbeddingVector(), view.getEmbedding(), view.getEmbeddingModel(),
+                view.getShadowEmbeddingVector(), view.getShadowEmbeddingModel(), model);
+    }
+
+    /**
+     * Như readModelVector nhưng trả về vector đã chuẩn hóa L2: slot shadow và slot chính có cờ normalized
+     * được dùng nguyên, row cũ được chuẩn hóa khi đọc
+     *
+     * @throws IllegalArgumentException nếu vector của row cũ là vector 0
+     */
+    public static float[] readModelUnitVector(byte[] embeddingVector, String embeddingJson, Boolean normalized,
+                                              String embeddingModel, byte[] shadowVector, String shadowModel,
+                                              String model) {
+        if (model.equals(embeddingModel)) {
+            float[] vector = readVector(embeddingVector, embeddingJson);
+            if (vector == null || vector.length == 0
+                    || (Boolean.TRUE.equals(normalized) && embeddingVector != null)) {
+                return vector;
+            }
+            float[] unit = VectorKernels.get().normalize(vector);
+            if (unit == null) {
+                throw new IllegalArgumentException("Cannot index zero vector");
+            }
+            return unit;
+        }
+        if (model.equals(shadowModel) && shadowVector != null) {
+            return EmbeddingCodec.decode(shadowVector);
+        }
+        return null;
+    }
+
+    /**
+     * Như readModelUnitVector cho một row đọc qua projection
+     */
+    public static float[] readModelUnitVector(ModelVectorView view, String model) {
+        return readModelUnitVector(view.getEmbeddingVector(), view.getEmbedding(), view.getEmbeddingNormalized(),
+                view.getEmbeddingModel(), view.getShadowEmbeddingVector(), view.getShadowEmbeddingModel(), model);
+    }
+
+    /**
+     * Đọc vector đã chuẩn hóa: dùng luôn nếu cờ normalized bật, ngược lại chuẩn hóa khi đọc
+     */
+    public static float[] readUnitVector(byte[] embeddingVector, String embeddingJson, Boolean normalized) {
+        float[] vector = readVector(embeddingVector, embeddingJson);
+        if (vector == null || (Boolean.TRUE.equals(normalized) && embeddingVector != null)) {
+            return vector;
+        }
+        return normalize(vector);
+    }
+
+    /**
+     * Chuẩn hóa L2 (trả về bản sao, vector 0 được giữ nguyên)
+     */
+    public static float[] normalize(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        float[] normalized = VectorKernels.get().normalize(vector);
+        return normalized != null ? normalized : vector;
+    }
+
+    /**
+     * Tích vô hướng, bằng cosine similarity khi cả hai vectors đã chuẩn hóa
+     */
+    public static double dotProduct(float[] vector1, float[] vector2) {
+        if (vector1 == null || vector2 == null || vector1.length != vector2.length) {
+            return 0.0;
+        }
+        return VectorKernels.get().dot(vector1, vector2);
+    }
+
+    /**
+     * Cosine similarity giữa hai vectors float (SIMD kernel nếu có Vector API)
+     * Khác số chiều là lỗi (vectors của hai embedding models khác nhau không so sánh được), không trả về 0
+     */
+    public static double cosineSimilarity(float[] vector1, float[] vector2) {
+        if (vector1 == null || vector2 == null) {
+            return 0.0;
+        }
+        if (vector1.length != vector2.length) {
+            throw new IllegalArgumentException("Cannot compare vectors of dimension " + vector1.length
+                    + " and " + vector2.length + " (embeddings of different models?)");
+        }
+        return VectorKernels.get().cosine(vector1, vector2);
+    }
 }
@@ -0,0 +1,94 @@
+package com.documindai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyAccessedEntry() {
+        LruCache<String, Integer> cache = new LruCache<>(2, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Truy cập "a" nên "b" trở thành entry cũ nhất
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    @Test
+    void evictsInAccessOrderAcrossSeveralInserts() {
+        LruCache<String, Integer> cache = new LruCache<>(3, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        // Thứ tự truy cập sau đây: c, a, b (get và ghi đè đều tính là truy cập)
+        cache.get("a");
+        cache.put("b", 20);
+
+        cache.put("d", 4);
+        assertEquals(1, cache.stats().evictions());
+        cache.put("e", 5);
+        assertEquals(2, cache.stats().evictions());
+
+        // "c" bị loại trước, rồi tới "a"
+        assertNull(cache.get("c"));
+        assertNull(cache.get("a"));
+        assertEquals(20, cache.get("b"));
+        assertEquals(4, cache.get("d"));
+        assertEquals(5, cache.get("e"));
+        assertEquals(3, cache.stats().size());
+    }
+
+    @Test
+    void expiredEntriesAreMissesOnRead() throws InterruptedException {
+        LruCache<String, Integer> cache = new LruCache<>(10, 1);
+        cache.put("a", 1);
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        LruCache.Stats stats = cache.stats();
+        assertEquals(1, stats.expirations());
+        assertEquals(1, stats.misses());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    void statsCountHitsAndMisses() {
+        LruCache<String, Integer> cache = new LruCache<>(10, 60_000);
+        assertEquals(0.0, cache.stats().hitRate());
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        LruCache.Stats stats = cache.stats();
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.75, stats.hitRate(), 1e-9);
+        assertEquals(10, stats.maxSize());
+    }
+
+    @Test
+    void invalidationRemovesEntries() {
+        LruCache<String, Integer> cache = new LruCache<>(10, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.stats().size());
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, Integer>(0, 60_000));
+    }
+}
@@ -0,0 +1,116 @@
+package com.documindai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SemanticCacheTest {
+
+    private static final long TENANT = 7;
+    private static final long[] CHUNKS = {3, 1, 2};
+
+    @Test
+    void nearbyQueryHitsAndDistantQueryMisses() {
+        SemanticCache<String> cache = new SemanticCache<>(10, 0.05, 60_000);
+        cache.put(TENANT, unit(1f, 0f), CHUNKS, 1, "answer");
+
+        // cos ≈ 0.995 nằm trong khoảng cách 0.05, cos ≈ 0.8 thì không
+        assertEquals("answer", cache.get(TENANT, unit(1f, 0.1f), CHUNKS, 1));
+        assertNull(cache.get(TENANT, unit(0.8f, 0.6f), CHUNKS, 1));
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void similarityExactlyAtThresholdHits() {
+        // maxDistance 0.5: cos = 0.5 (biểu diễn chính xác) là hit, cos ngay dưới 0.5 là miss
+        SemanticCache<String> cache = new SemanticCache<>(10, 0.5, 60_000);
+        cache.put(TENANT, new float[]{1f, 0f}, CHUNKS, 1, "answer");
+
+        assertEquals("answer", cache.get(TENANT, new float[]{0.5f, 0.8660254f}, CHUNKS, 1));
+        assertNull(cache.get(TENANT, new float[]{Math.nextDown(0.5f), 0.8660254f}, CHUNKS, 1));
+    }
+
+    @Test
+    void entriesOfOtherScopesNeverMatch() {
+        SemanticCache<String> cache = new SemanticCache<>(10, 0.05, 60_000);
+        float[] query = unit(1f, 0f);
+        // Tập chunk IDs rỗng (không retrieve được gì) giống nhau ở mọi tenant: chỉ scope phân biệt được
+        cache.put(TENANT, query, new long[0], 1, "tenant 7");
+
+        assertNull(cache.get(TENANT + 1, query, new long[0], 1));
+        assertEquals("tenant 7", cache.get(TENANT, query, new long[0], 1));
+
+        cache.put(TENANT + 1, query, new long[0], 1, "tenant 8");
+        assertEquals("tenant 7", cache.get(TENANT, query, new long[0], 1));
+        assertEquals("tenant 8", cache.get(TENANT + 1, query, new long[0], 1));
+    }
+
+    @Test
+    void closestMatchingEntryWins() {
+        SemanticCache<String> cache = new SemanticCache<>(10, 0.1, 60_000);
+        cache.put(TENANT, unit(1f, 0f), CHUNKS, 1, "first");
+        cache.put(TENANT, unit(1f, 0.3f), CHUNKS, 1, "second");
+
+        assertEquals("second", cache.get(TENANT, unit(1f, 0.25f), CHUNKS, 1));
+        assertEquals("first", cache.get(TENANT, unit(1f, 0.02f), CHUNKS, 1));
+    }
+
+    @Test
+    void versionAndChunkSetMustMatch() {
+        SemanticCache<String> cache = new SemanticCache<>(10, 0.05, 60_000);
+        float[] query = unit(1f, 0f);
+        cache.put(TENANT, query, CHUNKS, 1, "answer");
+
+        // Thứ tự chunk IDs không quan trọng
+        assertEquals("answer", cache.get(TENANT, query, new long[]{1, 2, 3}, 1));
+        assertNull(cache.get(TENANT, query, CHUNKS, 2));
+        assertNull(cache.get(TENANT, query, new long[]{1, 2}, 1));
+        assertNull(cache.get(TENANT, query, new long[]{1, 2, 4}, 1));
+        assertNull(cache.get(TENANT, new float[]{1f, 0f, 0f}, CHUNKS, 1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() throws InterruptedException {
+        SemanticCache<String> cache = new SemanticCache<>(2, 0.01, 60_000);
+        float[] a = unit(1f, 0f);
+        float[] b = unit(0f, 1f);
+        float[] c = unit(-1f, 0f);
+        cache.put(TENANT, a, CHUNKS, 1, "a");
+        Thread.sleep(1);
+        cache.put(TENANT, b, CHUNKS, 1, "b");
+        Thread.sleep(1);
+        // Truy cập "a" nên "b" bị loại khi thêm "c"
+        assertEquals("a", cache.get(TENANT, a, CHUNKS, 1));
+        Thread.sleep(1);
+        cache.put(TENANT, c, CHUNKS, 1, "c");
+
+        assertNull(cache.get(TENANT, b, CHUNKS, 1));
+        assertEquals("a", cache.get(TENANT, a, CHUNKS, 1));
+        assertEquals("c", cache.get(TENANT, c, CHUNKS, 1));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void expiredEntriesAndInvalidation() throws InterruptedException {
+        SemanticCache<String> expiring = new SemanticCache<>(10, 0.05, 1);
+        expiring.put(TENANT, unit(1f, 0f), CHUNKS, 1, "answer");
+        Thread.sleep(5);
+        assertNull(expiring.get(TENANT, unit(1f, 0f), CHUNKS, 1));
+        assertEquals(1, expiring.stats().expirations());
+        assertEquals(0, expiring.stats().size());
+
+        SemanticCache<String> cache = new SemanticCache<>(10, 0.05, 60_000);
+        cache.put(TENANT, unit(1f, 0f), CHUNKS, 1, "answer");
+        cache.invalidateAll();
+        assertNull(cache.get(TENANT, unit(1f, 0f), CHUNKS, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SemanticCache<String>(0, 0.05, 60_000));
+    }
+
+    private static float[] unit(float x, float y) {
+        float norm = (float) Math.sqrt(x * x + y * y);
+        return new float[]{x / norm, y / norm};
+    }
+}
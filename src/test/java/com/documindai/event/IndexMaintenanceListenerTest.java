@@ -0,0 +1,148 @@
+package com.documindai.event;
+
+import com.documindai.model.Document;
+import com.documindai.model.DocumentChunk;
+import com.documindai.service.AnswerCacheService;
+import com.documindai.service.FullTextIndexService;
+import com.documindai.service.KeywordIndexService;
+import com.documindai.service.VectorIndexService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class IndexMaintenanceListenerTest {
+
+    private AnnotationConfigApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private VectorIndexService vectorIndexService;
+    private KeywordIndexService keywordIndexService;
+    private FullTextIndexService fullTextIndexService;
+    private AnswerCacheService answerCacheService;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(Config.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        vectorIndexService = context.getBean(VectorIndexService.class);
+        keywordIndexService = context.getBean(KeywordIndexService.class);
+        fullTextIndexService = context.getBean(FullTextIndexService.class);
+        answerCacheService = context.getBean(AnswerCacheService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void eventsOfRolledBackTransactionAreNotIndexed() {
+        Document document = document();
+        List<DocumentChunk> chunks = List.of(new DocumentChunk());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            context.publishEvent(new ChunksEmbeddedEvent(document, chunks));
+            context.publishEvent(new DocumentDeletedEvent(2L));
+            status.setRollbackOnly();
+        });
+
+        verifyNoInteractions(vectorIndexService, keywordIndexService, fullTextIndexService, answerCacheService);
+    }
+
+    @Test
+    void eventsAreIndexedOnlyAfterCommit() {
+        Document document = document();
+        List<DocumentChunk> chunks = List.of(new DocumentChunk());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            context.publishEvent(new ChunksEmbeddedEvent(document, chunks));
+            // Trong transaction: chưa có gì được áp dụng
+            verify(vectorIndexService, never()).indexChunks(any());
+        });
+
+        verify(vectorIndexService).indexChunks(chunks);
+        verify(keywordIndexService).indexChunks(chunks);
+        verify(vectorIndexService).indexDocument(document);
+        verify(fullTextIndexService).indexDocument(document);
+        verify(answerCacheService).onCorpusChanged();
+        verify(vectorIndexService, never()).removeDocument(anyLong());
+    }
+
+    private static Document document() {
+        Document document = new Document();
+        document.setId(1L);
+        return document;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import(IndexMaintenanceListener.class)
+    static class Config {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new NoOpTransactionManager();
+        }
+
+        @Bean
+        VectorIndexService vectorIndexService() {
+            return mock(VectorIndexService.class);
+        }
+
+        @Bean
+        KeywordIndexService keywordIndexService() {
+            return mock(KeywordIndexService.class);
+        }
+
+        @Bean
+        FullTextIndexService fullTextIndexService() {
+            return mock(FullTextIndexService.class);
+        }
+
+        @Bean
+        AnswerCacheService answerCacheService() {
+            return mock(AnswerCacheService.class);
+        }
+    }
+
+    /**
+     * Transaction manager không có tài nguyên: chỉ chạy vòng đời commit/rollback và transaction synchronization
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
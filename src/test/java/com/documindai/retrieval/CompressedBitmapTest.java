@@ -0,0 +1,74 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTest {
+
+    @Test
+    void addRemoveAndContainsAcrossContainers() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(1);
+        bitmap.add(70_000);
+        bitmap.add(1L << 40);
+        bitmap.add(1);
+
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(bitmap.contains(70_000));
+        assertArrayEquals(new long[]{1, 70_000, 1L << 40}, bitmap.toArray());
+
+        bitmap.remove(70_000);
+        bitmap.remove(5);
+        assertFalse(bitmap.contains(70_000));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    @Test
+    void denseContainerKeepsValuesWhenConvertedBackAndForth() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        LongStream.range(0, 10_000).forEach(bitmap::add);
+        assertEquals(10_000, bitmap.cardinality());
+
+        LongStream.range(0, 9_000).forEach(bitmap::remove);
+        assertArrayEquals(LongStream.range(9_000, 10_000).toArray(), bitmap.toArray());
+    }
+
+    @Test
+    void andAndOrMatchSetOperations() {
+        CompressedBitmap evens = new CompressedBitmap();
+        CompressedBitmap thirds = new CompressedBitmap();
+        TreeSet<Long> expectedAnd = new TreeSet<>();
+        TreeSet<Long> expectedOr = new TreeSet<>();
+        for (long i = 0; i < 200_000; i++) {
+            if (i % 2 == 0) {
+                evens.add(i);
+                expectedOr.add(i);
+            }
+            if (i % 3 == 0) {
+                thirds.add(i);
+                expectedOr.add(i);
+            }
+            if (i % 6 == 0) {
+                expectedAnd.add(i);
+            }
+        }
+
+        assertArrayEquals(toArray(expectedAnd), evens.and(thirds).toArray());
+        assertArrayEquals(toArray(expectedOr), evens.or(thirds).toArray());
+        assertArrayEquals(toArray(expectedOr), CompressedBitmap.orAll(List.of(evens, thirds)).toArray());
+        // and/or trả về bitmap mới, không sửa đầu vào
+        assertEquals(100_000, evens.cardinality());
+    }
+
+    private static long[] toArray(TreeSet<Long> values) {
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+}
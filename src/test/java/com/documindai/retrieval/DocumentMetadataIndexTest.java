@@ -0,0 +1,62 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentMetadataIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void activeOnlyFilterAcceptsAllWhenEveryIndexedDocumentIsActive() {
+        DocumentMetadataIndex index = new DocumentMetadataIndex();
+        index.put(1, "pdf", DAY, true);
+        index.put(2, "docx", DAY, true);
+
+        assertSame(DocumentFilter.ALL, index.filter(MetadataFilter.NONE));
+    }
+
+    @Test
+    void removedDocumentsDoNotForceEnumeratedFilter() {
+        DocumentMetadataIndex index = new DocumentMetadataIndex();
+        index.put(1, "pdf", DAY, true);
+        index.put(2, "pdf", DAY, true);
+        index.remove(2);
+
+        DocumentFilter filter = index.filter(MetadataFilter.NONE);
+        assertTrue(filter.acceptsAll());
+    }
+
+    @Test
+    void combinesFileTypeAndUploadDateConditions() {
+        DocumentMetadataIndex index = new DocumentMetadataIndex();
+        index.put(1, ".PDF", DAY, true);
+        index.put(2, "pdf", DAY.plusDays(10), true);
+        index.put(3, "docx", DAY, true);
+        index.put(4, "pdf", DAY, false);
+
+        DocumentFilter filter = index.filter(new MetadataFilter(Set.of("pdf", "txt"), DAY, DAY.plusDays(1), true));
+
+        assertArrayEquals(new long[]{1}, filter.documentIds());
+        assertFalse(filter.accept(4));
+    }
+
+    @Test
+    void updatingMetadataMovesDocumentBetweenBitmaps() {
+        DocumentMetadataIndex index = new DocumentMetadataIndex();
+        index.put(1, "pdf", DAY, true);
+        index.put(1, "docx", DAY, true);
+
+        MetadataFilter pdf = new MetadataFilter(Set.of("pdf"), null, null, true);
+        MetadataFilter docx = new MetadataFilter(Set.of("docx"), null, null, true);
+        assertArrayEquals(new long[0], index.filter(pdf).documentIds());
+        assertArrayEquals(new long[]{1}, index.filter(docx).documentIds());
+    }
+}
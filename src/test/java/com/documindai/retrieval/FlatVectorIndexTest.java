@@ -0,0 +1,123 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FlatVectorIndexTest {
+
+    private static final int DIMENSION = 24;
+
+    @Test
+    void searchMatchesBruteForceCosine() {
+        // Vượt ngưỡng quét tuần tự để phủ cả nhánh fork-join
+        float[][] vectors = VectorFixtures.clustered(6_000, DIMENSION, 30, 21);
+        FlatVectorIndex index = new FlatVectorIndex();
+        VectorFixtures.addAll(index, vectors);
+
+        for (float[] query : VectorFixtures.clustered(10, DIMENSION, 30, 22)) {
+            List<ScoredChunk> results = index.search(query, 10, -1.0, DocumentFilter.ALL);
+            assertEquals(VectorFixtures.exactTopK(vectors, query, 10, Set.of()), VectorFixtures.chunkIds(results));
+            ScoredChunk top = results.get(0);
+            assertEquals(VectorFixtures.cosine(query, vectors[(int) top.chunkId() - 1]), top.score(), 1e-5);
+        }
+    }
+
+    @Test
+    void removeDocumentCompactsAndKeepsOtherVectorsSearchable() {
+        float[][] vectors = VectorFixtures.clustered(200, DIMENSION, 4, 23);
+        FlatVectorIndex index = new FlatVectorIndex(8);
+        VectorFixtures.addAll(index, vectors);
+
+        assertEquals(VectorFixtures.CHUNKS_PER_DOCUMENT, index.removeDocument(3));
+        assertEquals(190, index.size());
+        float[] query = vectors[25];
+        assertEquals(VectorFixtures.exactTopK(vectors, query, 5, Set.of(3L)),
+                VectorFixtures.chunkIds(index.search(query, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void thresholdAndDocumentFilterAreApplied() {
+        FlatVectorIndex index = new FlatVectorIndex();
+        index.add(1, 10, new float[]{1f, 0f});
+        index.add(2, 20, new float[]{1f, 1f});
+        index.add(3, 30, new float[]{0f, 1f});
+
+        assertEquals(List.of(1L, 2L), VectorFixtures.chunkIds(index.search(new float[]{2f, 0f}, 5, 0.5, DocumentFilter.ALL)));
+        assertEquals(List.of(2L, 3L),
+                VectorFixtures.chunkIds(index.search(new float[]{1f, 0f}, 5, -1.0, DocumentFilter.of(Set.of(20L, 30L)))));
+    }
+
+    @Test
+    void reAddingChunkReplacesItsVector() {
+        FlatVectorIndex index = new FlatVectorIndex();
+        index.add(1, 10, new float[]{1f, 0f});
+        index.add(1, 10, new float[]{0f, 3f});
+
+        assertEquals(1, index.size());
+        List<float[]> stored = new ArrayList<>();
+        index.forEachVector((chunkId, documentId, vector) -> stored.add(vector));
+        assertArrayEquals(new float[]{0f, 1f}, stored.get(0), 1e-6f);
+        assertThrows(IllegalArgumentException.class, () -> index.add(2, 10, new float[]{1f, 0f, 0f}));
+        assertThrows(IllegalArgumentException.class, () -> index.add(2, 10, new float[]{0f, 0f}));
+    }
+
+    @Test
+    void addNormalizedStoresVectorWithoutRenormalizing() {
+        FlatVectorIndex index = new FlatVectorIndex();
+        // Vector chưa chuẩn hóa được giữ nguyên: chứng tỏ addNormalized không chuẩn hóa lại
+        index.addNormalized(1, 10, new float[]{0.5f, 0f});
+        index.add(2, 10, new float[]{0f, 3f});
+
+        List<float[]> stored = new ArrayList<>();
+        index.forEachVector((chunkId, documentId, vector) -> stored.add(vector));
+        assertArrayEquals(new float[]{0.5f, 0f}, stored.get(0));
+        assertArrayEquals(new float[]{0f, 1f}, stored.get(1), 1e-6f);
+        assertThrows(IllegalArgumentException.class, () -> index.addNormalized(3, 10, new float[]{1f, 0f, 0f}));
+    }
+
+    @Test
+    void copyIsIndependentOfTheSource() {
+        FlatVectorIndex index = new FlatVectorIndex(1);
+        index.add(1, 10, new float[]{1f, 0f});
+
+        FlatVectorIndex copy = index.copy();
+        copy.add(2, 10, new float[]{0f, 1f});
+        index.removeDocument(10);
+
+        assertEquals(0, index.size());
+        assertEquals(2, copy.size());
+        assertEquals(List.of(2L), VectorFixtures.chunkIds(copy.search(new float[]{0f, 1f}, 1, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void enumerableFilterScoresOnlyItsDocumentsAfterCompaction() {
+        float[][] vectors = VectorFixtures.clustered(300, DIMENSION, 6, 25);
+        FlatVectorIndex index = new FlatVectorIndex(8);
+        VectorFixtures.addAll(index, vectors);
+        index.removeDocument(2);
+        index.removeDocument(7);
+
+        // Rows của documents phía sau đã dịch lên: bảng document -> ordinals phải trỏ đúng vector
+        Set<Long> documents = Set.of(1L, 8L, 30L);
+        Set<Long> excluded = new HashSet<>();
+        for (long documentId = 1; documentId <= 30; documentId++) {
+            if (!documents.contains(documentId)) {
+                excluded.add(documentId);
+            }
+        }
+        float[] query = vectors[75];
+        List<ScoredChunk> results = index.search(query, 12, -1.0, DocumentFilter.of(List.of(1L, 2L, 8L, 30L)));
+        assertEquals(VectorFixtures.exactTopK(vectors, query, 12, excluded), VectorFixtures.chunkIds(results));
+        assertEquals(VectorFixtures.cosine(query, vectors[(int) results.get(0).chunkId() - 1]),
+                results.get(0).score(), 1e-5);
+        assertEquals(List.of(), index.search(query, 5, -1.0, DocumentFilter.of(List.of(7L))));
+    }
+}
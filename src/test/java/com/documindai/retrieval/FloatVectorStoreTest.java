@@ -0,0 +1,139 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FloatVectorStoreTest {
+
+    @Test
+    void vectorsSpanSegmentsWithoutOverlapping() {
+        // 64 floats mỗi segment, 3 chiều -> 16 vectors mỗi segment
+        FloatVectorStore store = new FloatVectorStore(3, 2, 64);
+        store.ensureCapacity(100);
+        assertTrue(store.capacity() >= 100);
+
+        for (int i = 0; i < 100; i++) {
+            store.set(i, new float[]{i, i + 0.5f, -i});
+        }
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new float[]{i, i + 0.5f, -i}, store.get(i));
+        }
+        assertEquals(15 * 40 + 15.5f * 40.5f + 15 * 40, store.dot(15, 40), 1e-3);
+        assertEquals(17 + 17.5f, store.dot(new float[]{1, 1, 0}, 0, 17), 1e-6);
+
+        store.move(99, 3);
+        assertArrayEquals(new float[]{99, 99.5f, -99}, store.get(3));
+    }
+
+    @Test
+    void vectorsOnBothSidesOfSegmentBoundaryMoveAndCopyIndependently() {
+        // 16 vectors mỗi segment: ordinal 15 là vector cuối của segment 0, ordinal 16 là vector đầu của segment 1
+        FloatVectorStore store = new FloatVectorStore(3, 1, 64);
+        store.ensureCapacity(33);
+        assertTrue(store.segment(15) != store.segment(16));
+        assertEquals(45, store.offset(15));
+        assertEquals(0, store.offset(16));
+
+        store.set(15, new float[]{1, 2, 3});
+        store.set(16, new float[]{4, 5, 6});
+        store.set(32, new float[]{7, 8, 9});
+        assertEquals(4 + 10 + 18, store.dot(15, 16), 1e-6);
+        assertEquals(4 + 5 + 6, store.dot(new float[]{0, 1, 1, 1}, 1, 16), 1e-6);
+
+        FloatVectorStore copy = store.copy();
+        // Dồn ngược qua ranh giới ở bản gốc: 16 -> 15, 32 -> 16
+        store.move(16, 15);
+        store.move(32, 16);
+        assertArrayEquals(new float[]{4, 5, 6}, store.get(15));
+        assertArrayEquals(new float[]{7, 8, 9}, store.get(16));
+
+        // Bản sao giữ giá trị trước khi move, ghi vào bản sao không ảnh hưởng bản gốc
+        assertArrayEquals(new float[]{1, 2, 3}, copy.get(15));
+        assertArrayEquals(new float[]{4, 5, 6}, copy.get(16));
+        copy.set(16, new float[]{0, 0, 1});
+        copy.ensureCapacity(100);
+        assertArrayEquals(new float[]{7, 8, 9}, store.get(16));
+        assertEquals(48, store.capacity());
+        assertTrue(copy.capacity() >= 100);
+    }
+
+    @Test
+    void codesOnBothSidesOfSegmentBoundaryMoveAndCopyIndependently() {
+        // Code 8 bytes, 4 codes mỗi segment: ordinal 3 và 4 nằm ở hai segments
+        ByteCodeStore codes = new ByteCodeStore(8, 1, 32);
+        codes.ensureCapacity(9);
+        assertTrue(codes.segment(3) != codes.segment(4));
+        for (int ordinal = 0; ordinal < 9; ordinal++) {
+            fillCode(codes, ordinal, ordinal);
+        }
+
+        ByteCodeStore copy = codes.copy();
+        codes.move(4, 3);
+        codes.move(8, 4);
+        assertCode(codes, 3, 4);
+        assertCode(codes, 4, 8);
+        assertCode(codes, 2, 2);
+
+        assertCode(copy, 3, 3);
+        assertCode(copy, 4, 4);
+        fillCode(copy, 8, 100);
+        assertCode(codes, 8, 8);
+        assertCode(codes, 4, 8);
+    }
+
+    private static void fillCode(ByteCodeStore codes, int ordinal, int value) {
+        for (int i = 0; i < 8; i++) {
+            codes.segment(ordinal)[codes.offset(ordinal) + i] = (byte) (value * 8 + i);
+        }
+    }
+
+    private static void assertCode(ByteCodeStore codes, int ordinal, int value) {
+        for (int i = 0; i < 8; i++) {
+            assertEquals((byte) (value * 8 + i), codes.segment(ordinal)[codes.offset(ordinal) + i]);
+        }
+    }
+
+    @Test
+    void firstSegmentGrowsBeforeFullSegmentsAreAdded() {
+        FloatVectorStore store = new FloatVectorStore(4, 1, 64);
+        store.ensureCapacity(3);
+        assertEquals(3, store.capacity());
+        store.ensureCapacity(17);
+        assertEquals(32, store.capacity());
+    }
+
+    @Test
+    void overflowedCapacityIsRejected() {
+        FloatVectorStore store = new FloatVectorStore(4, 1);
+        assertThrows(IllegalStateException.class, () -> store.ensureCapacity(Integer.MIN_VALUE));
+        assertThrows(IllegalStateException.class, () -> FloatVectorStore.grownCapacity(16, -1));
+        assertEquals(Integer.MAX_VALUE - 8, FloatVectorStore.grownCapacity(Integer.MAX_VALUE - 100, Integer.MAX_VALUE - 99));
+    }
+
+    @Test
+    void largeDimensionsKeepSegmentOffsetsInsideIntRange() {
+        // 1536 chiều: 8192 vectors mỗi segment, ordinal cuối vẫn có offset hợp lệ trong segment
+        int shift = FloatVectorStore.segmentShift(1536, FloatVectorStore.SEGMENT_ELEMENTS);
+        assertEquals(13, shift);
+        long lastOffset = (long) ((1 << shift) - 1) * 1536;
+        assertTrue(lastOffset + 1536 <= FloatVectorStore.SEGMENT_ELEMENTS);
+        assertEquals(262_144, FloatVectorStore.segmentCount(Integer.MAX_VALUE, shift));
+    }
+
+    @Test
+    void codeStoreMovesCodesAcrossSegments() {
+        ByteCodeStore codes = new ByteCodeStore(8, 1, 32);
+        codes.ensureCapacity(20);
+        for (int i = 0; i < 20; i++) {
+            codes.segment(i)[codes.offset(i)] = (byte) i;
+        }
+        codes.move(19, 0);
+        assertEquals(19, codes.segment(0)[codes.offset(0)]);
+        assertEquals(4, codes.segment(4)[codes.offset(4)]);
+        assertThrows(IllegalStateException.class, () -> codes.ensureCapacity(-1));
+    }
+}
@@ -0,0 +1,116 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void recallAgainstExactScanIsHigh() {
+        float[][] vectors = VectorFixtures.clustered(2_000, DIMENSION, 20, 1);
+        float[][] queries = VectorFixtures.clustered(50, DIMENSION, 20, 2);
+        HnswVectorIndex index = new HnswVectorIndex(16, 200, 64);
+        VectorFixtures.addAll(index, vectors);
+
+        assertEquals(2_000, index.size());
+        double recall = VectorFixtures.recall(index, vectors, queries, 10, Set.of());
+        assertTrue(recall >= 0.9, "recall@10 = " + recall);
+    }
+
+    @Test
+    void compactionDropsTombstonesAndKeepsRecall() {
+        float[][] vectors = VectorFixtures.clustered(2_000, DIMENSION, 20, 3);
+        float[][] queries = VectorFixtures.clustered(50, DIMENSION, 20, 4);
+        HnswVectorIndex index = new HnswVectorIndex(16, 200, 64);
+        VectorFixtures.addAll(index, vectors);
+
+        // Xóa 120 / 200 documents: tombstones vượt quá một nửa nhưng xóa không tự build lại đồ thị
+        Set<Long> removed = LongStream.rangeClosed(1, 120).boxed().collect(Collectors.toSet());
+        removed.forEach(index::removeDocument);
+        assertEquals(800, index.size());
+        assertTrue(index.needsCompaction());
+
+        index.compact();
+        assertFalse(index.needsCompaction());
+        assertEquals(800, index.size());
+        double recall = VectorFixtures.recall(index, vectors, queries, 10, removed);
+        assertTrue(recall >= 0.9, "recall@10 after compaction = " + recall);
+        for (float[] query : queries) {
+            index.search(query, 10, -1.0, DocumentFilter.ALL)
+                    .forEach(result -> assertFalse(removed.contains(result.documentId())));
+        }
+    }
+
+    @Test
+    void documentFilterUsesExactScanOfItsNodes() {
+        float[][] vectors = VectorFixtures.clustered(500, DIMENSION, 5, 5);
+        HnswVectorIndex index = new HnswVectorIndex(8, 64, 32);
+        VectorFixtures.addAll(index, vectors);
+
+        List<ScoredChunk> results = index.search(vectors[42], 3, -1.0, DocumentFilter.of(List.of(5L)));
+        assertEquals(VectorFixtures.exactTopK(vectors, vectors[42], 3, allDocumentsExcept(5L, 50)),
+                VectorFixtures.chunkIds(results));
+    }
+
+    @Test
+    void clearKeepsDimensionAndAcceptsNewVectors() {
+        HnswVectorIndex index = new HnswVectorIndex(4, 16, 16);
+        index.add(1, 1, new float[]{1f, 0f});
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(2, index.dimension());
+
+        index.add(2, 1, new float[]{0f, 1f});
+        assertEquals(List.of(2L), VectorFixtures.chunkIds(index.search(new float[]{0f, 1f}, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    private static Set<Long> allDocumentsExcept(long documentId, int documentCount) {
+        return LongStream.rangeClosed(1, documentCount).filter(id -> id != documentId).boxed()
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void copyIsIndependentOfOriginal() {
+        float[][] vectors = VectorFixtures.clustered(500, DIMENSION, 5, 7);
+        HnswVectorIndex index = new HnswVectorIndex(8, 64, 32);
+        VectorFixtures.addAll(index, vectors);
+
+        HnswVectorIndex copy = index.copy();
+        copy.removeDocument(1L);
+        copy.add(9_001L, 901L, vectors[0]);
+
+        // Bản gốc không thấy thay đổi trên bản sao
+        assertEquals(500, index.size());
+        assertEquals(491, copy.size());
+        assertEquals(VectorFixtures.chunkId(0), index.search(vectors[0], 1, -1.0, DocumentFilter.ALL).get(0).chunkId());
+        assertEquals(9_001L, copy.search(vectors[0], 1, -1.0, DocumentFilter.ALL).get(0).chunkId());
+    }
+
+    @Test
+    void forEachVectorSkipsTombstones() {
+        float[][] vectors = VectorFixtures.clustered(100, DIMENSION, 5, 9);
+        HnswVectorIndex index = new HnswVectorIndex(8, 64, 32);
+        VectorFixtures.addAll(index, vectors);
+        index.removeDocument(2L);
+
+        Set<Long> visited = new HashSet<>();
+        index.forEachVector((chunkId, documentId, vector) -> {
+            assertFalse(documentId == 2L);
+            assertArrayEquals(VectorFixtures.normalize(vectors[(int) chunkId - 1]), vector, 1e-6f);
+            visited.add(chunkId);
+        });
+        assertEquals(90, visited.size());
+    }
+}
@@ -0,0 +1,53 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Int8VectorIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void rerankedResultsMatchExactScan() {
+        float[][] vectors = VectorFixtures.clustered(2_000, DIMENSION, 20, 41);
+        Int8VectorIndex index = new Int8VectorIndex(VectorFixtures.loader(vectors), 4);
+        VectorFixtures.addAll(index, vectors);
+
+        float[][] queries = VectorFixtures.clustered(50, DIMENSION, 20, 42);
+        double recall = VectorFixtures.recall(index, vectors, queries, 10, Set.of());
+        assertTrue(recall >= 0.95, "recall@10 = " + recall);
+
+        // Điểm trả về là cosine chính xác sau re-rank, không phải điểm lượng tử hóa
+        ScoredChunk top = index.search(queries[0], 1, -1.0, DocumentFilter.ALL).get(0);
+        assertEquals(VectorFixtures.cosine(queries[0], vectors[(int) top.chunkId() - 1]), top.score(), 1e-5);
+    }
+
+    @Test
+    void removedDocumentsAreNotReturned() {
+        float[][] vectors = VectorFixtures.clustered(300, DIMENSION, 5, 43);
+        Int8VectorIndex index = new Int8VectorIndex(VectorFixtures.loader(vectors), 4);
+        VectorFixtures.addAll(index, vectors);
+
+        assertEquals(VectorFixtures.CHUNKS_PER_DOCUMENT, index.removeDocument(1));
+        assertEquals(290, index.size());
+        // Query là chunk của document đã xóa: kết quả lấy từ các documents còn lại
+        List<ScoredChunk> results = index.search(vectors[0], 5, -1.0, DocumentFilter.ALL);
+        assertEquals(VectorFixtures.exactTopK(vectors, vectors[0], 5, Set.of(1L)), VectorFixtures.chunkIds(results));
+    }
+
+    @Test
+    void documentFilterRestrictsCandidates() {
+        float[][] vectors = VectorFixtures.clustered(300, DIMENSION, 5, 44);
+        Int8VectorIndex index = new Int8VectorIndex(VectorFixtures.loader(vectors), 4);
+        VectorFixtures.addAll(index, vectors);
+
+        List<ScoredChunk> results = index.search(vectors[0], 20, -1.0, DocumentFilter.of(Set.of(7L)));
+        assertEquals(VectorFixtures.CHUNKS_PER_DOCUMENT, results.size());
+        results.forEach(result -> assertEquals(7L, result.documentId()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IvfVectorIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Test
+    void untrainedIndexIsExact() {
+        float[][] vectors = VectorFixtures.clustered(300, DIMENSION, 8, 31);
+        IvfVectorIndex index = new IvfVectorIndex(16, 2, 2.0);
+        VectorFixtures.addAll(index, vectors);
+
+        assertFalse(index.isTrained());
+        assertFalse(index.needsTraining());
+        float[][] queries = VectorFixtures.clustered(20, DIMENSION, 8, 32);
+        assertEquals(1.0, VectorFixtures.recall(index, vectors, queries, 10, Set.of()), 1e-9);
+    }
+
+    @Test
+    void trainedIndexKeepsRecallAgainstExactScan() {
+        float[][] vectors = VectorFixtures.clustered(3_000, DIMENSION, 16, 33);
+        IvfVectorIndex index = new IvfVectorIndex(16, 4, 2.0);
+        VectorFixtures.addAll(index, vectors);
+
+        assertTrue(index.needsTraining());
+        index.train();
+        assertTrue(index.isTrained());
+        assertFalse(index.needsTraining());
+
+        float[][] queries = VectorFixtures.clustered(50, DIMENSION, 16, 34);
+        double recall = VectorFixtures.recall(index, vectors, queries, 10, Set.of());
+        assertTrue(recall >= 0.9, "recall@10 = " + recall);
+    }
+
+    @Test
+    void retrainingDropsTombstonesAndKeepsNewVectors() {
+        float[][] vectors = VectorFixtures.clustered(3_000, DIMENSION, 16, 35);
+        IvfVectorIndex index = new IvfVectorIndex(16, 4, 2.0);
+        for (int i = 0; i < 2_000; i++) {
+            index.add(VectorFixtures.chunkId(i), VectorFixtures.documentId(i), vectors[i]);
+        }
+        index.train();
+        // Vectors thêm sau khi train được gán vào danh sách gần nhất ngay khi thêm
+        for (int i = 2_000; i < 3_000; i++) {
+            index.add(VectorFixtures.chunkId(i), VectorFixtures.documentId(i), vectors[i]);
+        }
+
+        Set<Long> removed = LongStream.rangeClosed(1, 160).boxed().collect(Collectors.toSet());
+        removed.forEach(index::removeDocument);
+        assertEquals(1_400, index.size());
+        assertTrue(index.needsTraining());
+
+        index.train();
+        assertEquals(1_400, index.size());
+        float[][] queries = VectorFixtures.clustered(50, DIMENSION, 16, 36);
+        double recall = VectorFixtures.recall(index, vectors, queries, 10, removed);
+        assertTrue(recall >= 0.9, "recall@10 after retraining = " + recall);
+    }
+
+    @Test
+    void clearDiscardsTrainedQuantizer() {
+        float[][] vectors = VectorFixtures.clustered(1_000, DIMENSION, 4, 37);
+        IvfVectorIndex index = new IvfVectorIndex(4, 1, 2.0);
+        VectorFixtures.addAll(index, vectors);
+        index.train();
+
+        index.clear();
+        assertFalse(index.isTrained());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void copyIsIndependentOfOriginal() {
+        float[][] vectors = VectorFixtures.clustered(3_000, DIMENSION, 16, 37);
+        IvfVectorIndex index = new IvfVectorIndex(16, 4, 2.0);
+        VectorFixtures.addAll(index, vectors);
+        index.train();
+
+        IvfVectorIndex copy = index.copy();
+        copy.removeDocument(1L);
+        copy.add(9_001L, 901L, vectors[0]);
+
+        // Inverted lists được sao riêng: bản gốc giữ nguyên
+        assertEquals(3_000, index.size());
+        assertEquals(2_991, copy.size());
+        assertEquals(VectorFixtures.chunkId(0), index.search(vectors[0], 1, -1.0, DocumentFilter.ALL).get(0).chunkId());
+        assertEquals(9_001L, copy.search(vectors[0], 1, -1.0, DocumentFilter.ALL).get(0).chunkId());
+    }
+}
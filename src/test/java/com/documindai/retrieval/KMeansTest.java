@@ -0,0 +1,20 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KMeansTest {
+
+    @Test
+    void sampleSizeIsCappedByByteBudget() {
+        // 1536 chiều: 64 MB chứa 10922 vectors, thấp hơn 256 * 256 của PQ
+        assertEquals(10_922, KMeans.sampleSize(1_000_000, 256 * 256, 256, 1536));
+        // Số chiều nhỏ: giới hạn theo số vectors mỗi cụm
+        assertEquals(64 * 256, KMeans.sampleSize(1_000_000, 64 * 256, 64, 32));
+        // Không vượt số vectors đang có
+        assertEquals(500, KMeans.sampleSize(500, 64 * 256, 64, 32));
+        // Số chiều rất lớn vẫn giữ đủ k điểm cho k-means
+        assertEquals(4096, KMeans.sampleSize(1_000_000, 4096 * 256, 4096, 1 << 20));
+    }
+}
@@ -0,0 +1,92 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedVectorIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void searchMatchesExactScanAcrossSegments() {
+        float[][] vectors = VectorFixtures.clustered(250, DIMENSION, 5, 61);
+        MappedVectorIndex index = new MappedVectorIndex(directory, 64, 0.3);
+        try {
+            VectorFixtures.addAll(index, vectors);
+            assertEquals(250, index.size());
+            for (float[] query : VectorFixtures.clustered(10, DIMENSION, 5, 62)) {
+                assertEquals(VectorFixtures.exactTopK(vectors, query, 5, Set.of()),
+                        VectorFixtures.chunkIds(index.search(query, 5, -1.0, DocumentFilter.ALL)));
+            }
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    void reopenedIndexKeepsVectorsAndTombstones() {
+        float[][] vectors = VectorFixtures.clustered(100, DIMENSION, 5, 63);
+        MappedVectorIndex index = new MappedVectorIndex(directory, 32, 0.3);
+        VectorFixtures.addAll(index, vectors);
+        index.removeDocument(2);
+        // Chunk ghi lại: bản sau thay thế bản trước khi mở lại
+        index.add(VectorFixtures.chunkId(0), VectorFixtures.documentId(0), vectors[99]);
+        index.close();
+
+        MappedVectorIndex reopened = new MappedVectorIndex(directory, 32, 0.3);
+        try {
+            assertEquals(90, reopened.size());
+            assertEquals(DIMENSION, reopened.dimension());
+            reopened.search(vectors[15], 20, -1.0, DocumentFilter.ALL)
+                    .forEach(result -> assertNotEquals(2L, result.documentId()));
+            assertEquals(Set.of(VectorFixtures.chunkId(0), VectorFixtures.chunkId(99)),
+                    Set.copyOf(VectorFixtures.chunkIds(reopened.search(vectors[99], 2, -1.0, DocumentFilter.ALL))));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void compactionRewritesSegmentsOverTombstoneThreshold() throws IOException {
+        float[][] vectors = VectorFixtures.clustered(100, DIMENSION, 5, 64);
+        MappedVectorIndex index = new MappedVectorIndex(directory, 20, 0.3);
+        try {
+            VectorFixtures.addAll(index, vectors);
+            for (long documentId = 1; documentId <= 4; documentId++) {
+                index.removeDocument(documentId);
+            }
+            assertTrue(index.needsCompaction());
+            long segmentsBefore = segmentFiles();
+
+            index.compact();
+            assertFalse(index.needsCompaction());
+            assertEquals(60, index.size());
+            assertTrue(segmentFiles() < segmentsBefore);
+            float[] query = vectors[70];
+            assertEquals(VectorFixtures.exactTopK(vectors, query, 5, Set.of(1L, 2L, 3L, 4L)),
+                    VectorFixtures.chunkIds(index.search(query, 5, -1.0, DocumentFilter.ALL)));
+        } finally {
+            index.close();
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(VectorSegment.FILE_SUFFIX)).count();
+        }
+    }
+}
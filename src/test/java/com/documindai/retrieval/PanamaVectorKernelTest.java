@@ -0,0 +1,94 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PanamaVectorKernelTest {
+
+    private static final VectorKernel SCALAR = new ScalarVectorKernel();
+    private static final VectorKernel PANAMA = new PanamaVectorKernel();
+
+    @Test
+    void surefireLoadsVectorModule() {
+        // Thiếu --add-modules trong argLine thì VectorKernels lặng lẽ dùng scalar và test SIMD không còn ý nghĩa
+        assertTrue(VectorKernels.get().name().startsWith("panama"), VectorKernels.get().name());
+    }
+
+    @Test
+    void dotMatchesScalarOnOddLengthsAndOffsets() {
+        Random random = new Random(7);
+        for (int length : lengths()) {
+            float[] a = randomVector(random, length + 3);
+            float[] b = randomVector(random, length + 5);
+            // Offsets lệch khỏi biên lane để phủ cả phần dư scalar ở cuối
+            assertEquals(SCALAR.dot(a, 3, b, 5, length), PANAMA.dot(a, 3, b, 5, length), tolerance(length),
+                    "length " + length);
+            assertEquals(SCALAR.squaredNorm(a, 1, length), PANAMA.squaredNorm(a, 1, length), tolerance(length),
+                    "length " + length);
+        }
+    }
+
+    @Test
+    void byteBufferDotMatchesScalarInBothByteOrders() {
+        Random random = new Random(11);
+        for (int length : lengths()) {
+            float[] query = randomVector(random, length);
+            float[] stored = randomVector(random, length);
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+                ByteBuffer data = ByteBuffer.allocate(8 + length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < length; i++) {
+                    data.putFloat(8 + i * Float.BYTES, stored[i]);
+                }
+                data.order(order);
+                assertEquals(SCALAR.dot(query, data, 8, length), PANAMA.dot(query, data, 8, length),
+                        tolerance(length), "length " + length + ", " + order);
+            }
+        }
+    }
+
+    @Test
+    void normalizeAndCosineMatchScalar() {
+        Random random = new Random(13);
+        for (int length : lengths()) {
+            float[] a = randomVector(random, length);
+            float[] b = randomVector(random, length);
+            assertArrayEquals(SCALAR.normalize(a), PANAMA.normalize(a), 1e-5f, "length " + length);
+            assertEquals(SCALAR.cosine(a, b), PANAMA.cosine(a, b), 1e-5, "length " + length);
+            assertEquals(1.0, PANAMA.norm(PANAMA.normalize(a)), 1e-5, "length " + length);
+        }
+        assertNull(PANAMA.normalize(new float[37]));
+    }
+
+    /**
+     * Mọi độ dài tới 4 lượt lane cộng một (phủ mọi phần dư) và vài chiều embedding thật
+     */
+    private static int[] lengths() {
+        int lanes = PanamaVectorKernel.lanes();
+        return IntStream.concat(IntStream.rangeClosed(1, 4 * lanes + 1), IntStream.of(383, 1535, 1536, 3073))
+                .toArray();
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = random.nextFloat() * 2f - 1f;
+        }
+        return vector;
+    }
+
+    /**
+     * Cộng theo lanes đổi thứ tự cộng float: sai số tăng theo độ dài
+     */
+    private static float tolerance(int length) {
+        return 1e-6f * length + 1e-6f;
+    }
+}
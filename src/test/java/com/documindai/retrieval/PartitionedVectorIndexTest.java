@@ -0,0 +1,94 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PartitionedVectorIndexTest {
+
+    private static final float[] X = {1f, 0f};
+    private static final float[] Y = {0f, 1f};
+    private static final float[] XY = {1f, 1f};
+
+    @Test
+    void draftChangesAreInvisibleUntilPublished() {
+        PartitionedVectorIndex index = new PartitionedVectorIndex(() -> new FlatVectorIndex(2));
+        index.add(1, 10, X);
+        long version = index.version();
+
+        VersionedVectorIndex.Draft draft = index.edit();
+        draft.add(2, 10, Y);
+        draft.add(3, 20, XY);
+        assertEquals(3, draft.size());
+        assertEquals(1, index.size());
+        assertEquals(List.of(1L), VectorFixtures.chunkIds(index.search(Y, 5, -1.0, DocumentFilter.ALL)));
+
+        draft.publish();
+        assertEquals(version + 1, index.version());
+        assertEquals(3, index.size());
+        assertEquals(2, index.partitionCount());
+        assertEquals(List.of(2L, 3L, 1L), VectorFixtures.chunkIds(index.search(Y, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void addingToPublishedDocumentCopiesItsPartition() {
+        PartitionedVectorIndex index = new PartitionedVectorIndex(() -> new FlatVectorIndex(2));
+        index.update(draft -> {
+            draft.add(1, 10, X);
+            draft.add(2, 10, XY);
+        });
+
+        // Draft bị đóng không publish: partition đã publish không đổi
+        try (VersionedVectorIndex.Draft draft = index.edit()) {
+            draft.add(3, 10, Y);
+            draft.add(4, 10, Y);
+        }
+        assertEquals(2, index.size());
+        assertEquals(List.of(2L, 1L), VectorFixtures.chunkIds(index.search(Y, 5, -1.0, DocumentFilter.ALL)));
+
+        index.update(draft -> draft.add(3, 10, Y));
+        assertEquals(3, index.size());
+        assertEquals(List.of(3L, 2L, 1L), VectorFixtures.chunkIds(index.search(Y, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void documentFilterOnlyScansSelectedPartitions() {
+        PartitionedVectorIndex index = new PartitionedVectorIndex(() -> new FlatVectorIndex(2));
+        index.update(draft -> {
+            draft.add(1, 10, X);
+            draft.add(2, 20, Y);
+            draft.add(3, 30, XY);
+        });
+
+        assertEquals(List.of(1L), VectorFixtures.chunkIds(index.search(Y, 5, -1.0, DocumentFilter.of(Set.of(10L)))));
+
+        assertEquals(1, index.removeDocument(20));
+        assertEquals(2, index.partitionCount());
+        assertEquals(List.of(3L, 1L), VectorFixtures.chunkIds(index.search(Y, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void reprocessingSwapsDocumentInOneGeneration() {
+        PartitionedVectorIndex index = new PartitionedVectorIndex(() -> new FlatVectorIndex(2));
+        index.add(1, 10, X);
+
+        index.update(draft -> {
+            assertEquals(1, draft.removeDocument(10));
+            draft.add(5, 10, Y);
+        });
+        assertEquals(List.of(5L), VectorFixtures.chunkIds(index.search(X, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void draftIsSingleUse() {
+        PartitionedVectorIndex index = new PartitionedVectorIndex(() -> new FlatVectorIndex(2));
+        VersionedVectorIndex.Draft draft = index.edit();
+        assertThrows(IllegalStateException.class, index::edit);
+        draft.publish();
+        assertThrows(IllegalStateException.class, () -> draft.add(1, 10, X));
+    }
+}
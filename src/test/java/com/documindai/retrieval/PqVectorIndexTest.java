@@ -0,0 +1,74 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PqVectorIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int SUBSPACES = 8;
+
+    @Test
+    void quantizerScoreApproximatesInnerProduct() {
+        float[][] vectors = VectorFixtures.clustered(2_000, DIMENSION, 10, 51);
+        float[] data = new float[vectors.length * DIMENSION];
+        for (int i = 0; i < vectors.length; i++) {
+            System.arraycopy(VectorFixtures.normalize(vectors[i]), 0, data, i * DIMENSION, DIMENSION);
+        }
+        ProductQuantizer quantizer = ProductQuantizer.train(data, vectors.length, DIMENSION, SUBSPACES, 10,
+                new Random(42));
+
+        byte[] codes = new byte[SUBSPACES];
+        float[] query = VectorFixtures.normalize(vectors[1]);
+        float[] table = quantizer.innerProductTable(query);
+        for (int i = 0; i < 100; i++) {
+            quantizer.encode(data, i * DIMENSION, codes, 0);
+            float exact = VectorFixtures.cosine(query, vectors[i]);
+            assertEquals(exact, quantizer.score(table, codes, 0), 0.1);
+        }
+    }
+
+    @Test
+    void trainedIndexRerankKeepsRecall() {
+        float[][] vectors = VectorFixtures.clustered(3_000, DIMENSION, 20, 52);
+        PqVectorIndex index = new PqVectorIndex(SUBSPACES, VectorFixtures.loader(vectors), 8);
+        VectorFixtures.addAll(index, vectors);
+
+        assertFalse(index.isTrained());
+        index.train();
+        assertTrue(index.isTrained());
+        assertFalse(index.needsTraining());
+
+        float[][] queries = VectorFixtures.clustered(50, DIMENSION, 20, 53);
+        double recall = VectorFixtures.recall(index, vectors, queries, 10, Set.of());
+        assertTrue(recall >= 0.9, "recall@10 = " + recall);
+    }
+
+    @Test
+    void removalWorksBeforeAndAfterTraining() {
+        float[][] vectors = VectorFixtures.clustered(3_000, DIMENSION, 20, 54);
+        PqVectorIndex index = new PqVectorIndex(SUBSPACES, VectorFixtures.loader(vectors), 8);
+        VectorFixtures.addAll(index, vectors);
+
+        index.removeDocument(1);
+        index.train();
+        index.removeDocument(2);
+        assertEquals(2_980, index.size());
+        index.search(vectors[5], 10, -1.0, DocumentFilter.ALL)
+                .forEach(result -> assertTrue(result.documentId() > 2));
+    }
+
+    @Test
+    void dimensionMustSplitIntoSubspaces() {
+        PqVectorIndex index = new PqVectorIndex(SUBSPACES, chunkIds -> Map.of(), 8);
+        assertThrows(IllegalArgumentException.class, () -> index.add(1, 1, new float[30]));
+    }
+}
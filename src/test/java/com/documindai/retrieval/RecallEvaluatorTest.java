@@ -0,0 +1,83 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecallEvaluatorTest {
+
+    @Test
+    void identicalIndexHasFullRecall() {
+        float[][] vectors = VectorFixtures.clustered(300, 16, 5, 11);
+        FlatVectorIndex exact = new FlatVectorIndex();
+        FlatVectorIndex candidate = new FlatVectorIndex();
+        VectorFixtures.addAll(exact, vectors);
+        VectorFixtures.addAll(candidate, vectors);
+
+        RecallEvaluator.RecallReport report = RecallEvaluator.evaluate(exact::forEachVector, candidate, queries(vectors, 20), 10);
+        assertEquals(1.0, report.recall(), 1e-9);
+        assertEquals(20, report.queries());
+    }
+
+    @Test
+    void queryChunkItselfDoesNotCountAsHit() {
+        float[][] vectors = VectorFixtures.clustered(300, 16, 5, 12);
+        FlatVectorIndex exact = new FlatVectorIndex();
+        VectorFixtures.addAll(exact, vectors);
+
+        // Index chỉ chứa chính chunk dùng làm query: không có láng giềng thật nào nên recall phải bằng 0
+        RecallEvaluator.Query query = queries(vectors, 1).get(0);
+        FlatVectorIndex selfOnly = new FlatVectorIndex();
+        selfOnly.add(query.chunkId(), 1, query.vector());
+
+        RecallEvaluator.RecallReport report = RecallEvaluator.evaluate(exact::forEachVector, selfOnly, List.of(query), 5);
+        assertEquals(0.0, report.recall(), 1e-9);
+    }
+
+    @Test
+    void exactScanMatchesBruteForceTopK() {
+        float[][] vectors = VectorFixtures.clustered(300, 16, 5, 13);
+        FlatVectorIndex corpus = new FlatVectorIndex();
+        VectorFixtures.addAll(corpus, vectors);
+
+        // Candidate chỉ giữ nửa top-k chính xác của query (không tính chính chunk của query)
+        RecallEvaluator.Query query = queries(vectors, 1).get(0);
+        List<Long> expected = VectorFixtures.exactTopK(vectors, query.vector(), 11, Set.of()).subList(1, 11);
+        FlatVectorIndex half = new FlatVectorIndex();
+        for (long chunkId : expected.subList(0, 5)) {
+            half.add(chunkId, 1, vectors[(int) chunkId - 1]);
+        }
+
+        RecallEvaluator.RecallReport report = RecallEvaluator.evaluate(corpus::forEachVector, half, List.of(query), 10);
+        assertEquals(0.5, report.recall(), 1e-9);
+    }
+
+    @Test
+    void sampledQueriesAreDistinctCorpusVectors() {
+        float[][] vectors = VectorFixtures.clustered(300, 16, 5, 14);
+        FlatVectorIndex corpus = new FlatVectorIndex();
+        VectorFixtures.addAll(corpus, vectors);
+
+        List<RecallEvaluator.Query> queries = RecallEvaluator.sampleQueries(corpus::forEachVector, 25, 42);
+        assertEquals(25, queries.size());
+        assertEquals(25, queries.stream().map(RecallEvaluator.Query::chunkId).distinct().count());
+        for (RecallEvaluator.Query query : queries) {
+            assertArrayEquals(VectorFixtures.normalize(vectors[(int) query.chunkId() - 1]), query.vector(), 1e-6f);
+        }
+        // Corpus nhỏ hơn số queries yêu cầu: lấy toàn bộ
+        assertEquals(300, RecallEvaluator.sampleQueries(corpus::forEachVector, 500, 42).size());
+    }
+
+    private static List<RecallEvaluator.Query> queries(float[][] vectors, int count) {
+        List<RecallEvaluator.Query> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            queries.add(new RecallEvaluator.Query(vectors[i * 7], VectorFixtures.chunkId(i * 7)));
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,106 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenantShardedVectorIndexTest {
+
+    private static final float[] X = {1f, 0f};
+    private static final float[] Y = {0f, 1f};
+
+    @Test
+    void routesVectorsToTenantShards() {
+        TenantShardedVectorIndex index = new TenantShardedVectorIndex(FlatVectorIndex::new);
+        index.add(1, 10, 100, X);
+        index.add(2, 20, 200, X);
+
+        assertEquals(2, index.shardCount());
+        assertEquals(List.of(10L), chunkIds(index.search(1, X, 5, -1.0, DocumentFilter.ALL)));
+        assertEquals(List.of(20L), chunkIds(index.search(2, X, 5, -1.0, DocumentFilter.ALL)));
+        assertEquals(2, index.search(X, 5, -1.0, DocumentFilter.ALL).size());
+    }
+
+    @Test
+    void evictedTenantIsReportedUntilReloaded() {
+        TenantShardedVectorIndex index = new TenantShardedVectorIndex(FlatVectorIndex::new);
+        index.add(1, 10, 100, X);
+        index.add(2, 20, 200, Y);
+
+        assertEquals(1, index.evict(2));
+        assertTrue(index.isEvicted(2));
+        assertEquals(Set.of(2L), index.evictedTenants());
+        // Fan-out chỉ thấy shards trong bộ nhớ: bên gọi phải load lại tenants trong evictedTenants()
+        assertEquals(List.of(10L), chunkIds(index.search(Y, 5, -1.0, DocumentFilter.ALL)));
+
+        // Vectors mới của tenant đã evict không được giữ cho tới khi shard được load lại
+        index.add(2, 21, 200, Y);
+        assertEquals(1, index.size());
+
+        try (TenantShardedVectorIndex.ShardedDraft draft = index.edit()) {
+            draft.startLoad(2);
+            draft.add(2, 20, 200, Y);
+            draft.add(2, 21, 200, Y);
+            draft.publish();
+        }
+        assertFalse(index.isEvicted(2));
+        assertTrue(index.evictedTenants().isEmpty());
+        assertEquals(3, index.search(Y, 5, -1.0, DocumentFilter.ALL).size());
+    }
+
+    @Test
+    void leastRecentlyUsedTenantSkipsExcludedTenant() throws InterruptedException {
+        TenantShardedVectorIndex index = new TenantShardedVectorIndex(FlatVectorIndex::new);
+        index.add(1, 10, 100, X);
+        index.add(2, 20, 200, X);
+        index.search(1, X, 1, -1.0, DocumentFilter.ALL);
+        Thread.sleep(1);
+        index.search(2, X, 1, -1.0, DocumentFilter.ALL);
+
+        assertEquals(1L, index.leastRecentlyUsedTenant(Long.MIN_VALUE));
+        assertEquals(2L, index.leastRecentlyUsedTenant(1));
+    }
+
+    @Test
+    void removeDocumentUsesRecordedTenant() {
+        TenantShardedVectorIndex index = new TenantShardedVectorIndex(FlatVectorIndex::new);
+        index.add(1, 10, 100, X);
+        index.add(1, 11, 100, Y);
+        index.add(2, 20, 200, X);
+
+        assertEquals(2, index.removeDocument(100));
+        assertEquals(List.of(20L), chunkIds(index.search(X, 5, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void draftOfFlatShardIsInvisibleUntilPublished() {
+        TenantShardedVectorIndex index = new TenantShardedVectorIndex(FlatVectorIndex::new);
+        index.add(1, 10, 100, X);
+
+        // Đóng draft không publish: shard giữ nguyên
+        try (TenantShardedVectorIndex.ShardedDraft draft = index.edit()) {
+            draft.removeDocument(100);
+            draft.add(1, 11, 100, Y);
+        }
+        assertEquals(List.of(10L), chunkIds(index.search(1, X, 5, -1.0, DocumentFilter.ALL)));
+
+        try (TenantShardedVectorIndex.ShardedDraft draft = index.edit()) {
+            draft.removeDocument(100);
+            draft.add(1, 11, 100, Y);
+            // Truy vấn trong lúc draft còn mở vẫn thấy bản cũ của document
+            assertEquals(List.of(10L), chunkIds(index.search(1, X, 5, -1.0, DocumentFilter.ALL)));
+            draft.publish();
+        }
+        assertEquals(List.of(11L), chunkIds(index.search(1, X, 5, -1.0, DocumentFilter.ALL)));
+        assertEquals(1, index.size());
+    }
+
+    private static List<Long> chunkIds(List<ScoredChunk> hits) {
+        return hits.stream().map(ScoredChunk::chunkId).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKHeapTest {
+
+    @Test
+    void keepsHighestScoresSortedDescending() {
+        TopKHeap heap = new TopKHeap(3);
+        float[] scores = {0.1f, 0.9f, 0.5f, 0.7f, 0.3f, 0.8f};
+        for (int i = 0; i < scores.length; i++) {
+            heap.offer(i, scores[i]);
+        }
+
+        List<ScoredChunk> results = heap.toScoredChunks(new long[]{10, 11, 12, 13, 14, 15}, new long[6]);
+        assertEquals(List.of(11L, 15L, 13L), VectorFixtures.chunkIds(results));
+        assertEquals(0.9f, results.get(0).score(), 1e-6);
+    }
+
+    @Test
+    void mergeKeepsGlobalTopK() {
+        TopKHeap left = new TopKHeap(2);
+        TopKHeap right = new TopKHeap(2);
+        left.offer(0, 0.2f);
+        left.offer(1, 0.6f);
+        right.offer(2, 0.9f);
+        right.offer(3, 0.1f);
+
+        left.merge(right);
+        assertEquals(List.of(2L, 1L), VectorFixtures.chunkIds(left.toScoredChunks(new long[]{0, 1, 2, 3}, new long[4])));
+    }
+
+    @Test
+    void parallelSearchMatchesSortedScan() {
+        // Nhiều lần ngưỡng tuần tự để phủ việc chia và gộp heap giữa các workers
+        int size = ParallelTopK.SEQUENTIAL_THRESHOLD * 5 + 17;
+        Random random = new Random(71);
+        float[] scores = new float[size];
+        for (int i = 0; i < size; i++) {
+            scores[i] = random.nextFloat();
+        }
+        long[] ids = IntStream.range(0, size).mapToLong(i -> i).toArray();
+
+        TopKHeap top = ParallelTopK.search(size, 25, 0.0, ordinal -> scores[ordinal]);
+        List<Long> expected = IntStream.range(0, size).boxed()
+                .sorted((a, b) -> Float.compare(scores[b], scores[a]))
+                .limit(25)
+                .map(Integer::longValue)
+                .toList();
+        assertEquals(expected, VectorFixtures.chunkIds(top.toScoredChunks(ids, ids)));
+    }
+
+    @Test
+    void skippedOrdinalsAndThresholdAreExcluded() {
+        float[] scores = {0.9f, Float.NEGATIVE_INFINITY, 0.4f, 0.6f};
+        TopKHeap top = ParallelTopK.search(scores.length, 10, 0.5, ordinal -> scores[ordinal]);
+        long[] ids = {0, 1, 2, 3};
+        assertEquals(List.of(0L, 3L), VectorFixtures.chunkIds(top.toScoredChunks(ids, ids)));
+    }
+}
@@ -0,0 +1,135 @@
+package com.documindai.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Dữ liệu vectors phân cụm tất định và ground truth quét chính xác cho các test của vector index
+ * Chunk i thuộc document i / CHUNKS_PER_DOCUMENT, chunk ID = i + 1
+ */
+final class VectorFixtures {
+
+    static final int CHUNKS_PER_DOCUMENT = 10;
+
+    private VectorFixtures() {
+    }
+
+    /**
+     * count vectors quanh clusters tâm ngẫu nhiên, có nhiễu để các cụm không suy biến
+     */
+    static float[][] clustered(int count, int dimension, int clusters, long seed) {
+        Random random = new Random(seed);
+        float[][] centers = new float[clusters][dimension];
+        for (float[] center : centers) {
+            for (int d = 0; d < dimension; d++) {
+                center[d] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][dimension];
+        for (int i = 0; i < count; i++) {
+            float[] center = centers[random.nextInt(clusters)];
+            for (int d = 0; d < dimension; d++) {
+                vectors[i][d] = center[d] + 0.3f * (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    static long chunkId(int i) {
+        return i + 1L;
+    }
+
+    static long documentId(int i) {
+        return i / CHUNKS_PER_DOCUMENT + 1L;
+    }
+
+    static void addAll(VectorIndex index, float[][] vectors) {
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(chunkId(i), documentId(i), vectors[i]);
+        }
+    }
+
+    /**
+     * Top k chunk IDs theo cosine chính xác, bỏ qua các documents trong excludedDocuments
+     */
+    static List<Long> exactTopK(float[][] vectors, float[] query, int k, Set<Long> excludedDocuments) {
+        return IntStream.range(0, vectors.length)
+                .filter(i -> !excludedDocuments.contains(documentId(i)))
+                .boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -cosine(query, vectors[i])))
+                .limit(k)
+                .map(VectorFixtures::chunkId)
+                .toList();
+    }
+
+    /**
+     * Recall@k trung bình của index so với quét chính xác trên các queries
+     */
+    static double recall(VectorIndex index, float[][] vectors, float[][] queries, int k, Set<Long> excludedDocuments) {
+        double total = 0;
+        for (float[] query : queries) {
+            Set<Long> truth = new HashSet<>(exactTopK(vectors, query, k, excludedDocuments));
+            long hits = index.search(query, k, -1.0, DocumentFilter.ALL).stream()
+                    .filter(result -> truth.contains(result.chunkId()))
+                    .count();
+            total += (double) hits / truth.size();
+        }
+        return total / queries.length;
+    }
+
+    /**
+     * Loader full-precision cho các index nén, trả về vectors đã chuẩn hóa
+     */
+    static FullPrecisionVectorLoader loader(float[][] vectors) {
+        return chunkIds -> {
+            Map<Long, float[]> loaded = new HashMap<>();
+            for (long chunkId : chunkIds) {
+                loaded.put(chunkId, normalize(vectors[(int) (chunkId - 1)]));
+            }
+            return loaded;
+        };
+    }
+
+    static List<Long> chunkIds(List<ScoredChunk> results) {
+        List<Long> ids = new ArrayList<>(results.size());
+        results.forEach(result -> ids.add(result.chunkId()));
+        return ids;
+    }
+
+    static float cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int d = 0; d < a.length; d++) {
+            dot += a[d] * b[d];
+            normA += a[d] * a[d];
+            normB += b[d] * b[d];
+        }
+        return (float) (dot / Math.sqrt(normA * normB));
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(squaredNorm(vector));
+        float[] normalized = Arrays.copyOf(vector, vector.length);
+        for (int d = 0; d < normalized.length; d++) {
+            normalized[d] /= (float) norm;
+        }
+        return normalized;
+    }
+
+    private static double squaredNorm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        return sum;
+    }
+}
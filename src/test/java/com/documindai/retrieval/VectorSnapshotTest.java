@@ -0,0 +1,92 @@
+package com.documindai.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VectorSnapshotTest {
+
+    private static final String MODEL = "text-embedding-3-small";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTripWithHeader() throws IOException {
+        Path path = directory.resolve("index.snapshot");
+        float[][] vectors = VectorFixtures.clustered(50, 8, 3, 81);
+        try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, MODEL, 8)) {
+            for (int i = 0; i < vectors.length; i++) {
+                writer.write(VectorFixtures.chunkId(i), VectorFixtures.documentId(i), i % 2 == 0 ? 7 : -1, vectors[i]);
+            }
+            writer.commit();
+        }
+
+        List<float[]> read = new ArrayList<>();
+        List<Long> tenants = new ArrayList<>();
+        VectorSnapshot.Header header = VectorSnapshot.read(path, MODEL, (chunkId, documentId, tenantId, vector) -> {
+            assertEquals(VectorFixtures.documentId((int) chunkId - 1), documentId);
+            read.add(vector);
+            tenants.add(tenantId);
+        });
+
+        assertEquals(50, header.count());
+        assertEquals(8, header.dimension());
+        assertEquals(50, header.watermark());
+        assertEquals(MODEL, header.model());
+        for (int i = 0; i < vectors.length; i++) {
+            assertArrayEquals(vectors[i], read.get(i));
+        }
+        assertEquals(List.of(7L, -1L), tenants.subList(0, 2));
+    }
+
+    @Test
+    void uncommittedWriterLeavesNoSnapshot() throws IOException {
+        Path path = directory.resolve("index.snapshot");
+        try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, MODEL, 2)) {
+            writer.write(1, 1, 1, new float[]{1f, 0f});
+        }
+        assertFalse(Files.exists(path));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void otherModelAndCorruptedFilesAreRejected() throws IOException {
+        Path path = directory.resolve("index.snapshot");
+        try (VectorSnapshot.Writer writer = VectorSnapshot.writer(path, MODEL, 2)) {
+            writer.write(1, 1, 1, new float[]{1f, 0f});
+            writer.write(2, 1, 1, new float[]{0f, 1f});
+            writer.commit();
+        }
+        assertThrows(IOException.class, () -> VectorSnapshot.read(path, "other-model", (c, d, t, v) -> { }));
+
+        // Đổi một byte của vector: CRC không khớp
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), size - 40);
+        }
+        assertThrows(IOException.class, () -> VectorSnapshot.read(path, MODEL, (c, d, t, v) -> { }));
+
+        // File bị cắt cụt
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size / 2);
+        }
+        assertThrows(IOException.class, () -> VectorSnapshot.read(path, MODEL, (c, d, t, v) -> { }));
+    }
+}
@@ -0,0 +1,111 @@
+package com.documindai.search;
+
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.ScoredChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    private Bm25Index index() {
+        Bm25Index index = new Bm25Index(new StandardAnalyzer(), 1.2, 0.75);
+        index.add(1, 10, "spring boot vector search");
+        index.add(2, 10, "spring framework dependency injection");
+        index.add(3, 20, "vector vector vector database");
+        index.add(4, 30, "cooking recipes for dinner");
+        return index;
+    }
+
+    @Test
+    void ranksByTermFrequencyAndRarity() {
+        Bm25Index index = index();
+        assertEquals(4, index.size());
+
+        List<ScoredChunk> results = index.search("vector", 10, DocumentFilter.ALL);
+        assertEquals(List.of(3L, 1L), chunkIds(results));
+        assertTrue(results.get(0).score() > results.get(1).score());
+
+        // Chỉ các chunks chứa ít nhất một term của query
+        assertEquals(Set.of(1L, 2L, 3L), Set.copyOf(chunkIds(index.search("spring vector", 10, DocumentFilter.ALL))));
+        assertTrue(index.search("kubernetes", 10, DocumentFilter.ALL).isEmpty());
+    }
+
+    @Test
+    void scoresMatchBm25FormulaInOrder() {
+        // N = 4, độ dài trung bình 3.5; "alpha" và "beta" cùng xuất hiện trong 2 chunks
+        Bm25Index index = new Bm25Index(new StandardAnalyzer(), 1.2, 0.75);
+        index.add(1, 10, "alpha beta gamma");
+        index.add(2, 10, "alpha alpha delta");
+        index.add(3, 20, "beta epsilon zeta eta theta iota");
+        index.add(4, 30, "kappa lambda");
+
+        double idf = Math.log(1.0 + (4 - 2 + 0.5) / (2 + 0.5));
+        double[] expected = {
+                bm25(idf, 1, 3, 3.5) + bm25(idf, 1, 3, 3.5),
+                bm25(idf, 2, 3, 3.5),
+                bm25(idf, 1, 6, 3.5)};
+
+        // Khớp cả hai terms thắng tf = 2 của một term (tf bão hòa theo k1), chunk dài bị phạt theo b
+        List<ScoredChunk> results = index.search("alpha beta", 10, DocumentFilter.ALL);
+        assertEquals(List.of(1L, 2L, 3L), chunkIds(results));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], results.get(i).score(), 1e-5);
+        }
+    }
+
+    private static double bm25(double idf, int tf, int length, double averageLength) {
+        double norm = 1.2 * (1 - 0.75 + 0.75 * length / averageLength);
+        return idf * tf * (1.2 + 1) / (tf + norm);
+    }
+
+    @Test
+    void limitsAndFiltersResults() {
+        Bm25Index index = index();
+        assertEquals(1, index.search("spring vector", 1, DocumentFilter.ALL).size());
+        assertEquals(List.of(1L), chunkIds(index.search("vector", 10, DocumentFilter.of(Set.of(10L)))));
+        assertTrue(index.search("vector", 0, DocumentFilter.ALL).isEmpty());
+    }
+
+    @Test
+    void replacedAndRemovedChunksAreNotReturned() {
+        Bm25Index index = index();
+        // Ghi lại chunk 3: nội dung cũ không còn khớp
+        index.add(3, 20, "relational database");
+        assertEquals(List.of(1L), chunkIds(index.search("vector", 10, DocumentFilter.ALL)));
+        assertEquals(4, index.size());
+
+        assertEquals(2, index.removeDocument(10));
+        assertEquals(0, index.removeDocument(10));
+        assertEquals(2, index.size());
+        assertTrue(index.search("spring vector", 10, DocumentFilter.ALL).isEmpty());
+        assertEquals(List.of(3L), chunkIds(index.search("database", 10, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void compactsAfterMostChunksAreDeleted() {
+        Bm25Index index = new Bm25Index(new StandardAnalyzer(), 1.2, 0.75);
+        for (long chunkId = 1; chunkId <= 100; chunkId++) {
+            index.add(chunkId, chunkId, "term" + chunkId + " shared");
+        }
+        for (long documentId = 1; documentId <= 90; documentId++) {
+            index.removeDocument(documentId);
+        }
+
+        assertEquals(10, index.size());
+        assertEquals(10, index.search("shared", 100, DocumentFilter.ALL).size());
+        assertEquals(List.of(95L), chunkIds(index.search("term95", 10, DocumentFilter.ALL)));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, index.termCount());
+    }
+
+    private static List<Long> chunkIds(List<ScoredChunk> results) {
+        return results.stream().map(ScoredChunk::chunkId).toList();
+    }
+}
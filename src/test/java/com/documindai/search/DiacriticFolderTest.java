@@ -0,0 +1,35 @@
+package com.documindai.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DiacriticFolderTest {
+
+    @Test
+    void foldsEveryVietnameseVowelAndTone() {
+        // Mỗi nhóm: nguyên âm gốc và 5 thanh (huyền, sắc, hỏi, ngã, nặng)
+        assertEquals("aaaaaa aaaaaa aaaaaa", DiacriticFolder.fold("aàáảãạ ăằắẳẵặ âầấẩẫậ"));
+        assertEquals("eeeeee eeeeee", DiacriticFolder.fold("eèéẻẽẹ êềếểễệ"));
+        assertEquals("iiiiii", DiacriticFolder.fold("iìíỉĩị"));
+        assertEquals("oooooo oooooo oooooo", DiacriticFolder.fold("oòóỏõọ ôồốổỗộ ơờớởỡợ"));
+        assertEquals("uuuuuu uuuuuu", DiacriticFolder.fold("uùúủũụ ưừứửữự"));
+        assertEquals("yyyyyy", DiacriticFolder.fold("yỳýỷỹỵ"));
+        assertEquals("dD", DiacriticFolder.fold("đĐ"));
+    }
+
+    @Test
+    void keepsCaseAndFoldsDecomposedText() {
+        assertEquals("Hop Dong THUE NHA", DiacriticFolder.fold("Hợp Đồng THUÊ NHÀ"));
+        assertEquals("nguoi dung", DiacriticFolder.fold(Normalizer.normalize("người dùng", Normalizer.Form.NFD)));
+    }
+
+    @Test
+    void textWithoutDiacriticsIsReturnedAsIs() {
+        String text = "invoice-2024 v2.1";
+        assertSame(text, DiacriticFolder.fold(text));
+    }
+}
@@ -0,0 +1,82 @@
+package com.documindai.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FullTextIndexTest {
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private FullTextIndex index() {
+        FullTextIndex index = new FullTextIndex(analyzer, 1.2, 0.75, 2.0);
+        index.add(1, "payment-terms.pdf", "the contract defines payment terms and late fees");
+        index.add(2, "notes.txt", "terms of payment were discussed in the meeting");
+        index.add(3, "contract.docx", "service contract with renewal clause");
+        index.add(4, "recipes.md", "soup and bread");
+        return index;
+    }
+
+    @Test
+    void titleMatchesAreBoosted() {
+        FullTextIndex index = index();
+        FullTextIndex.SearchResult result = index.search(SearchQuery.parse("contract", analyzer), 0, 10);
+
+        assertEquals(2, result.totalHits());
+        assertEquals(List.of(3L, 1L), documentIds(result));
+    }
+
+    @Test
+    void phraseRequiresAdjacentTermsInOrder() {
+        FullTextIndex index = index();
+        // Cả hai documents chứa "payment" và "terms", chỉ document 1 có cụm liền nhau đúng thứ tự
+        assertEquals(Set.of(1L, 2L), Set.copyOf(documentIds(index.search(SearchQuery.parse("payment terms", analyzer), 0, 10))));
+        assertEquals(List.of(1L), documentIds(index.search(SearchQuery.parse("\"payment terms\"", analyzer), 0, 10)));
+        assertEquals(List.of(2L), documentIds(index.search(SearchQuery.parse("\"terms of payment\"", analyzer), 0, 10)));
+        assertEquals(0, index.search(SearchQuery.parse("\"terms payment\"", analyzer), 0, 10).totalHits());
+    }
+
+    @Test
+    void pagesKeepTotalHitsAndRankOrder() {
+        FullTextIndex index = new FullTextIndex(analyzer, 1.2, 0.75, 2.0);
+        for (long documentId = 1; documentId <= 25; documentId++) {
+            // Document có id lớn hơn lặp "report" nhiều hơn nên xếp trên
+            index.add(documentId, "file" + documentId, "report ".repeat((int) documentId) + "filler text here");
+        }
+        SearchQuery query = SearchQuery.parse("report", analyzer);
+
+        FullTextIndex.SearchResult all = index.search(query, 0, 25);
+        FullTextIndex.SearchResult page = index.search(query, 10, 10);
+        assertEquals(25, page.totalHits());
+        assertEquals(documentIds(all).subList(10, 20), documentIds(page));
+        assertEquals(5, index.search(query, 20, 10).hits().size());
+        assertTrue(index.search(query, 30, 10).hits().isEmpty());
+        assertEquals(25, index.search(query, 30, 10).totalHits());
+    }
+
+    @Test
+    void removedAndReplacedDocumentsAreNotReturned() {
+        FullTextIndex index = index();
+        assertTrue(index.remove(3));
+        assertFalse(index.remove(3));
+        assertEquals(3, index.size());
+        assertEquals(List.of(1L), documentIds(index.search(SearchQuery.parse("contract", analyzer), 0, 10)));
+
+        index.add(1, "payment-terms.pdf", "rewritten without the keyword");
+        assertEquals(0, index.search(SearchQuery.parse("contract", analyzer), 0, 10).totalHits());
+        assertEquals(3, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, index.termCount());
+    }
+
+    private static List<Long> documentIds(FullTextIndex.SearchResult result) {
+        return result.hits().stream().map(FullTextIndex.Hit::documentId).toList();
+    }
+}
@@ -0,0 +1,47 @@
+package com.documindai.search;
+
+import com.documindai.retrieval.ScoredChunk;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReciprocalRankFusionTest {
+
+    private static final int RRF_K = 60;
+
+    @Test
+    void fusesFixedBm25AndVectorRanksWithK60() {
+        // Điểm gốc không ảnh hưởng kết quả, chỉ thứ hạng
+        List<ScoredChunk> bm25 = List.of(hit(1, 10, 12.5), hit(2, 10, 7.0), hit(3, 20, 1.0));
+        List<ScoredChunk> vector = List.of(hit(3, 20, 0.91), hit(4, 30, 0.90), hit(1, 10, 0.42));
+
+        List<ScoredChunk> fused = ReciprocalRankFusion.fuse(List.of(bm25, vector), RRF_K, 10);
+
+        // 1 và 3 cùng 1/61 + 1/63, 2 và 4 cùng 1/62: hòa điểm thì chunk xuất hiện trước đứng trước
+        assertEquals(List.of(1L, 3L, 2L, 4L), fused.stream().map(ScoredChunk::chunkId).toList());
+        assertEquals(1.0 / 61 + 1.0 / 63, fused.get(0).score(), 1e-12);
+        assertEquals(1.0 / 63 + 1.0 / 61, fused.get(1).score(), 1e-12);
+        assertEquals(1.0 / 62, fused.get(2).score(), 1e-12);
+        assertEquals(1.0 / 62, fused.get(3).score(), 1e-12);
+        assertEquals(List.of(10L, 20L, 10L, 30L), fused.stream().map(ScoredChunk::documentId).toList());
+    }
+
+    @Test
+    void chunkRankedByBothListsBeatsTopOfOneList() {
+        List<ScoredChunk> bm25 = List.of(hit(1, 10, 9.0), hit(2, 10, 8.0));
+        List<ScoredChunk> vector = List.of(hit(3, 20, 0.9), hit(2, 10, 0.8));
+
+        List<ScoredChunk> fused = ReciprocalRankFusion.fuse(List.of(bm25, vector), RRF_K, 2);
+
+        // 2 / 62 > 1 / 61; limit cắt sau khi xếp hạng
+        assertEquals(List.of(2L, 1L), fused.stream().map(ScoredChunk::chunkId).toList());
+        assertEquals(2.0 / 62, fused.get(0).score(), 1e-12);
+        assertEquals(1.0 / 61, fused.get(1).score(), 1e-12);
+    }
+
+    private static ScoredChunk hit(long chunkId, long documentId, double score) {
+        return new ScoredChunk(chunkId, documentId, score);
+    }
+}
@@ -0,0 +1,83 @@
+package com.documindai.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VietnameseAnalyzerTest {
+
+    private static VietnameseAnalyzer analyzer(boolean foldDiacritics) {
+        return new VietnameseAnalyzer(new TermDictionary(VietnameseAnalyzer.DEFAULT_STOPWORDS, foldDiacritics, 1_000));
+    }
+
+    @Test
+    void composedAndDecomposedTextAnalyzeAlike() {
+        VietnameseAnalyzer analyzer = analyzer(false);
+        String composed = Normalizer.normalize("Hợp Đồng thuê nhà", Normalizer.Form.NFC);
+        String decomposed = Normalizer.normalize("Hợp Đồng thuê nhà", Normalizer.Form.NFD);
+        assertNotEquals(composed, decomposed);
+
+        assertEquals(List.of("hợp", "đồng", "thuê", "nhà"), analyzer.analyze(composed));
+        assertEquals(analyzer.tokenize(composed), analyzer.tokenize(decomposed));
+    }
+
+    @Test
+    void splitsOnPunctuationAndKeepsCompoundIdentifiers() {
+        // "5.2" giữ nguyên và phát thêm các phần con ở cùng vị trí, dấu câu chỉ tách từ
+        assertEquals(List.of(
+                new Analyzer.Token("điều", 0),
+                new Analyzer.Token("5.2", 1),
+                new Analyzer.Token("5", 1),
+                new Analyzer.Token("2", 1),
+                new Analyzer.Token("bên", 2),
+                new Analyzer.Token("thuê", 3),
+                new Analyzer.Token("trả", 4),
+                new Analyzer.Token("tiền", 5)), analyzer(false).tokenize("Điều 5.2: Bên thuê (trả tiền)."));
+    }
+
+    @Test
+    void stopwordsAreDroppedButKeepTheirPositions() {
+        List<Analyzer.Token> tokens = analyzer(false).tokenize("điều khoản của hợp đồng");
+
+        // "của" bị bỏ, "hợp" vẫn ở vị trí 3 để cụm từ giữ đúng khoảng cách
+        assertEquals(List.of(
+                new Analyzer.Token("điều", 0),
+                new Analyzer.Token("khoản", 1),
+                new Analyzer.Token("hợp", 3),
+                new Analyzer.Token("đồng", 4)), tokens);
+        // Từ phủ định không phải stopword
+        assertTrue(analyzer(false).analyze("không thanh toán").contains("không"));
+    }
+
+    @Test
+    void foldingAddsDiacriticFreeFormAtSamePosition() {
+        VietnameseAnalyzer analyzer = analyzer(true);
+        assertEquals(List.of(
+                new Analyzer.Token("hợp", 0),
+                new Analyzer.Token("hop", 0),
+                new Analyzer.Token("đồng", 1),
+                new Analyzer.Token("dong", 1),
+                new Analyzer.Token("pdf", 2)), analyzer.tokenize("Hợp đồng PDF"));
+
+        // Truy vấn không dấu của stopword cũng bị lọc
+        assertEquals(List.of("hop", "dong"), analyzer.analyze("hop cua dong"));
+    }
+
+    @Test
+    void phraseWithStopwordMatchesInFullTextIndex() {
+        VietnameseAnalyzer analyzer = analyzer(true);
+        FullTextIndex index = new FullTextIndex(analyzer, 1.2, 0.75, 2.0);
+        index.add(1, "hd.pdf", "điều khoản của hợp đồng thuê nhà");
+        index.add(2, "ghichu.txt", "hợp đồng điều khoản");
+
+        FullTextIndex.SearchResult result = index.search(SearchQuery.parse("\"dieu khoan cua hop dong\"", analyzer), 0, 10);
+        assertEquals(1, result.totalHits());
+        assertEquals(1L, result.hits().get(0).documentId());
+        assertTrue(analyzer.dictionarySize() > VietnameseAnalyzer.DEFAULT_STOPWORDS.size());
+    }
+}
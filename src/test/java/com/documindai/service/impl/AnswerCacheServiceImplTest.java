@@ -0,0 +1,43 @@
+package com.documindai.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AnswerCacheServiceImplTest {
+
+    private static final float[] QUERY = {1f, 0f};
+
+    private final AnswerCacheServiceImpl answerCache = new AnswerCacheServiceImpl(true, 100, 0.05, 60);
+
+    @Test
+    void answersAreNotSharedAcrossTenants() {
+        long version = answerCache.corpusVersion();
+        // Không retrieve được chunk nào ở cả hai tenants: tập chunk IDs trùng nhau nhưng câu trả lời thì không
+        answerCache.putAnswer(1L, QUERY, List.of(), version, "answer of tenant 1");
+
+        assertNull(answerCache.findAnswer(2L, QUERY, List.of(), version));
+        assertNull(answerCache.findAnswer(null, QUERY, List.of(), version));
+        assertEquals("answer of tenant 1", answerCache.findAnswer(1L, QUERY, List.of(), version));
+
+        answerCache.putAnswer(null, QUERY, List.of(), version, "answer without tenant");
+        assertEquals("answer without tenant", answerCache.findAnswer(null, QUERY, List.of(), version));
+        assertEquals("answer of tenant 1", answerCache.findAnswer(1L, QUERY, List.of(), version));
+    }
+
+    @Test
+    void corpusChangeInvalidatesAndRejectsStaleVersion() {
+        long version = answerCache.corpusVersion();
+        answerCache.putAnswer(1L, QUERY, List.of(5L), version, "answer");
+
+        answerCache.onCorpusChanged();
+        assertNull(answerCache.findAnswer(1L, QUERY, List.of(5L), answerCache.corpusVersion()));
+        // Câu trả lời tạo trên corpus cũ không được cache
+        answerCache.putAnswer(1L, QUERY, List.of(5L), version, "stale answer");
+        assertNull(answerCache.findAnswer(1L, QUERY, List.of(5L), answerCache.corpusVersion()));
+        assertEquals(0, answerCache.stats().size());
+    }
+}
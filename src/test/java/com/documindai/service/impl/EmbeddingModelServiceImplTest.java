@@ -0,0 +1,118 @@
+package com.documindai.service.impl;
+
+import com.documindai.model.EmbeddingModel;
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.EmbeddingModelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmbeddingModelServiceImplTest {
+
+    private static final String CONFIGURED_MODEL = "text-embedding-3-small";
+
+    private EmbeddingModelRepository modelRepository;
+    private DocumentChunkRepository chunkRepository;
+    private DocumentRepository documentRepository;
+    private EmbeddingModelServiceImpl embeddingModelService;
+
+    @BeforeEach
+    void setUp() {
+        modelRepository = mock(EmbeddingModelRepository.class);
+        chunkRepository = mock(DocumentChunkRepository.class);
+        documentRepository = mock(DocumentRepository.class);
+        when(modelRepository.findByName(anyString())).thenReturn(Optional.empty());
+        embeddingModelService = new EmbeddingModelServiceImpl(modelRepository, chunkRepository, documentRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(embeddingModelService, "configuredModel", CONFIGURED_MODEL);
+    }
+
+    @Test
+    void firstRunRegistersConfiguredModelForExistingEmbeddings() {
+        embeddingModelService.init();
+
+        ArgumentCaptor<EmbeddingModel> saved = ArgumentCaptor.forClass(EmbeddingModel.class);
+        verify(modelRepository).save(saved.capture());
+        assertEquals(CONFIGURED_MODEL, saved.getValue().getName());
+        assertEquals(EmbeddingModel.Status.SERVING, saved.getValue().getStatus());
+        assertNotNull(saved.getValue().getActivatedAt());
+        verify(chunkRepository).assignEmbeddingModel(CONFIGURED_MODEL);
+        verify(documentRepository).assignEmbeddingModel(CONFIGURED_MODEL);
+        assertEquals(CONFIGURED_MODEL, embeddingModelService.servingModel());
+    }
+
+    @Test
+    void servingModelComesFromDatabaseAndInterruptedShadowIsRetired() {
+        EmbeddingModel serving = model("text-embedding-ada-002", EmbeddingModel.Status.SERVING);
+        EmbeddingModel interrupted = model("text-embedding-3-large", EmbeddingModel.Status.SHADOW);
+        when(modelRepository.findByStatus(EmbeddingModel.Status.SERVING)).thenReturn(List.of(serving));
+        when(modelRepository.findByStatus(EmbeddingModel.Status.SHADOW)).thenReturn(List.of(interrupted));
+
+        embeddingModelService.init();
+
+        // Cấu hình đổi model không làm đổi model phục vụ: chỉ re-embedding mới đổi được
+        assertEquals("text-embedding-ada-002", embeddingModelService.servingModel());
+        assertEquals(EmbeddingModel.Status.RETIRED, interrupted.getStatus());
+        assertNull(embeddingModelService.shadowModel());
+        verify(chunkRepository, never()).assignEmbeddingModel(anyString());
+    }
+
+    @Test
+    void activatingShadowRetiresPreviousServingModel() {
+        EmbeddingModel previous = model(CONFIGURED_MODEL, EmbeddingModel.Status.SERVING);
+        when(modelRepository.findByStatus(EmbeddingModel.Status.SERVING)).thenReturn(List.of(previous));
+        embeddingModelService.init();
+
+        embeddingModelService.startShadow("text-embedding-3-large");
+        assertEquals("text-embedding-3-large", embeddingModelService.shadowModel());
+
+        embeddingModelService.activate("text-embedding-3-large");
+        assertEquals("text-embedding-3-large", embeddingModelService.servingModel());
+        assertNull(embeddingModelService.shadowModel());
+        assertEquals(EmbeddingModel.Status.RETIRED, previous.getStatus());
+    }
+
+    @Test
+    void servingModelCannotBecomeShadowAndEndingShadowRetiresIt() {
+        EmbeddingModel shadow = model("text-embedding-3-large", EmbeddingModel.Status.SHADOW);
+        when(modelRepository.findByStatus(EmbeddingModel.Status.SERVING))
+                .thenReturn(List.of(model(CONFIGURED_MODEL, EmbeddingModel.Status.SERVING)));
+        embeddingModelService.init();
+
+        assertThrows(IllegalStateException.class, () -> embeddingModelService.startShadow(CONFIGURED_MODEL));
+        verify(modelRepository, never()).save(any());
+
+        embeddingModelService.startShadow("text-embedding-3-large");
+        when(modelRepository.findByName("text-embedding-3-large")).thenReturn(Optional.of(shadow));
+        embeddingModelService.endShadow();
+
+        assertNull(embeddingModelService.shadowModel());
+        assertEquals(EmbeddingModel.Status.RETIRED, shadow.getStatus());
+        assertEquals(CONFIGURED_MODEL, embeddingModelService.servingModel());
+    }
+
+    private static EmbeddingModel model(String name, EmbeddingModel.Status status) {
+        EmbeddingModel model = new EmbeddingModel();
+        model.setName(name);
+        model.setStatus(status);
+        return model;
+    }
+}
@@ -0,0 +1,219 @@
+package com.documindai.service.impl;
+
+import com.documindai.exception.BadRequestException;
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.projection.ChunkContentView;
+import com.documindai.repository.projection.DocumentSummaryView;
+import com.documindai.retrieval.FlatVectorIndex;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.service.AnswerCacheService;
+import com.documindai.service.EmbeddingModelService;
+import com.documindai.service.OpenAIService;
+import com.documindai.service.VectorSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReembeddingServiceImplTest {
+
+    private static final String OLD_MODEL = "old-model";
+    private static final String NEW_MODEL = "new-model";
+
+    private DocumentChunkRepository chunkRepository;
+    private DocumentRepository documentRepository;
+    private OpenAIService openAIService;
+    private EmbeddingModelService embeddingModelService;
+    private VectorSnapshotService snapshotService;
+    private AnswerCacheService answerCacheService;
+    private VectorIndexLoader loader;
+    private VectorIndexAliasServiceImpl aliasService;
+    private ReembeddingServiceImpl reembeddingService;
+
+    private final AtomicReference<String> servingModel = new AtomicReference<>(OLD_MODEL);
+
+    @BeforeEach
+    void setUp() {
+        chunkRepository = mock(DocumentChunkRepository.class);
+        documentRepository = mock(DocumentRepository.class);
+        openAIService = mock(OpenAIService.class);
+        embeddingModelService = mock(EmbeddingModelService.class);
+        snapshotService = mock(VectorSnapshotService.class);
+        answerCacheService = mock(AnswerCacheService.class);
+        loader = mock(VectorIndexLoader.class);
+
+        when(embeddingModelService.servingModel()).thenAnswer(invocation -> servingModel.get());
+        doAnswer(invocation -> {
+            servingModel.set(invocation.getArgument(0));
+            return null;
+        }).when(embeddingModelService).activate(anyString());
+        when(loader.newModelIndex(anyString())).thenAnswer(invocation ->
+                new ModelIndex(invocation.getArgument(0), new FlatVectorIndex(), new FlatVectorIndex()));
+        doAnswer(invocation -> {
+            ModelIndex target = invocation.getArgument(0);
+            target.index().add(1L, 10L, new float[]{1f, 0f, 0f});
+            return null;
+        }).when(loader).loadVectors(any(), any());
+        when(openAIService.createEmbeddings(anyList(), eq(NEW_MODEL))).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<String>>getArgument(0).size(), List.of(1.0, 0.0, 0.0)));
+
+        aliasService = new VectorIndexAliasServiceImpl(loader, embeddingModelService);
+        aliasService.init();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        reembeddingService = new ReembeddingServiceImpl(chunkRepository, documentRepository, openAIService,
+                embeddingModelService, aliasService, snapshotService, answerCacheService, transactionTemplate);
+        ReflectionTestUtils.setField(reembeddingService, "batchSize", 2);
+        ReflectionTestUtils.setField(reembeddingService, "maxVectorsPerSecond", 0.0);
+        ReflectionTestUtils.setField(reembeddingService, "maxPasses", 3);
+        ReflectionTestUtils.setField(reembeddingService, "promoteBatchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reembeddingService.shutdown();
+    }
+
+    @Test
+    void buildsShadowIndexThenFlipsAndReportsCounters() {
+        // Chunks 1-2 (batch đầu) bị lỗi embed, chunk 3 và summary của document 10 được ghi vào slot shadow
+        List<ChunkContentView> firstBatch = List.of(chunk(1L, 10L), chunk(2L, 10L));
+        List<ChunkContentView> secondBatch = List.of(chunk(3L, 11L));
+        List<DocumentSummaryView> summaries = List.of(summary(10L));
+        when(chunkRepository.findContentsMissingModel(eq(NEW_MODEL), eq(0L), any())).thenReturn(firstBatch, List.of());
+        when(chunkRepository.findContentsMissingModel(eq(NEW_MODEL), eq(2L), any())).thenReturn(secondBatch, List.of());
+        when(documentRepository.findSummariesMissingModel(eq(NEW_MODEL), eq(0L), any())).thenReturn(summaries, List.of());
+        doThrow(new IllegalStateException("rate limited"))
+                .when(openAIService).createEmbeddings(List.of("chunk 1", "chunk 2"), NEW_MODEL);
+
+        reembeddingService.start(NEW_MODEL);
+        Map<String, Object> status = awaitPhase("COMPLETED");
+
+        assertEquals(NEW_MODEL, status.get("servingModel"));
+        assertEquals(1, status.get("chunksEmbedded"));
+        assertEquals(1, status.get("documentsEmbedded"));
+        assertEquals(2, status.get("failed"));
+        assertEquals(NEW_MODEL, aliasService.servingModel());
+        assertEquals(3, aliasService.serving().index().dimension());
+        verify(chunkRepository).updateShadowEmbedding(eq(3L), any(), eq(NEW_MODEL));
+        verify(documentRepository).updateShadowEmbedding(eq(10L), any(), eq(NEW_MODEL));
+        verify(chunkRepository, never()).updateShadowEmbedding(eq(1L), any(), any());
+
+        // Index shadow được build trước, alias đổi, rồi snapshot và model phục vụ mới được ghi nhận
+        InOrder order = inOrder(embeddingModelService, loader, snapshotService, answerCacheService);
+        order.verify(embeddingModelService).startShadow(NEW_MODEL);
+        order.verify(loader).loadVectors(any(), any());
+        order.verify(loader).markChanged();
+        order.verify(snapshotService).writeSnapshot();
+        order.verify(embeddingModelService).activate(NEW_MODEL);
+        order.verify(answerCacheService).onCorpusChanged();
+        verify(embeddingModelService, never()).endShadow();
+    }
+
+    @Test
+    void cancellingMidJobLeavesServingAliasUnchanged() throws InterruptedException {
+        ModelIndex serving = aliasService.serving();
+        CountDownLatch embedding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<ChunkContentView> batch = List.of(chunk(1L, 10L), chunk(2L, 10L));
+        when(chunkRepository.findContentsMissingModel(eq(NEW_MODEL), eq(0L), any())).thenReturn(batch);
+        doAnswer(invocation -> {
+            embedding.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(List.of(1.0, 0.0, 0.0), List.of(0.0, 1.0, 0.0));
+        }).when(openAIService).createEmbeddings(anyList(), eq(NEW_MODEL));
+
+        reembeddingService.start(NEW_MODEL);
+        assertTrue(embedding.await(5, TimeUnit.SECONDS));
+        assertEquals("EMBEDDING", reembeddingService.cancel().get("phase"));
+        release.countDown();
+
+        Map<String, Object> status = awaitPhase("CANCELLED");
+        assertEquals(2, status.get("chunksEmbedded"));
+        assertEquals(OLD_MODEL, status.get("servingModel"));
+        verify(embeddingModelService, timeout(5_000)).endShadow();
+        assertSame(serving, aliasService.serving());
+        verify(loader, never()).loadVectors(any(), any());
+        verify(embeddingModelService, never()).activate(anyString());
+        verify(snapshotService, never()).writeSnapshot();
+        assertThrows(BadRequestException.class, () -> reembeddingService.cancel());
+    }
+
+    @Test
+    void rejectsServingModelAndConcurrentJobs() throws InterruptedException {
+        assertThrows(BadRequestException.class, () -> reembeddingService.start(OLD_MODEL));
+
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(embeddingModelService).startShadow(NEW_MODEL);
+        reembeddingService.start(NEW_MODEL);
+        assertThrows(BadRequestException.class, () -> reembeddingService.start("other-model"));
+        release.countDown();
+
+        awaitPhase("COMPLETED");
+        verify(openAIService, times(0)).createEmbeddings(anyList(), anyString());
+    }
+
+    private Map<String, Object> awaitPhase(String phase) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> status = reembeddingService.status();
+            if (phase.equals(status.get("phase"))) {
+                return status;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new AssertionError("Re-embedding job did not reach " + phase + ": " + reembeddingService.status());
+    }
+
+    private static ChunkContentView chunk(Long id, Long documentId) {
+        ChunkContentView view = mock(ChunkContentView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getDocumentId()).thenReturn(documentId);
+        when(view.getContent()).thenReturn("chunk " + id);
+        return view;
+    }
+
+    private static DocumentSummaryView summary(Long id) {
+        DocumentSummaryView view = mock(DocumentSummaryView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getSummary()).thenReturn("summary " + id);
+        return view;
+    }
+}
@@ -0,0 +1,186 @@
+package com.documindai.service.impl;
+
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.FlatVectorIndex;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.VectorIndex;
+import com.documindai.service.EmbeddingModelService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VectorIndexAliasServiceImplTest {
+
+    // Model cũ có vectors 2 chiều, model mới 3 chiều: một index trộn hai models sẽ lộ ra ngay
+    private static final String OLD_MODEL = "old-model";
+    private static final String NEW_MODEL = "new-model";
+    private static final int VECTORS = 50;
+
+    private VectorIndexLoader loader;
+    private VectorIndexAliasServiceImpl aliasService;
+
+    @BeforeEach
+    void setUp() {
+        loader = mock(VectorIndexLoader.class);
+        EmbeddingModelService embeddingModelService = mock(EmbeddingModelService.class);
+        when(embeddingModelService.servingModel()).thenReturn(OLD_MODEL);
+        when(loader.newModelIndex(anyString())).thenAnswer(invocation ->
+                new ModelIndex(invocation.getArgument(0), new FlatVectorIndex(), new FlatVectorIndex()));
+        doAnswer(invocation -> {
+            fill(invocation.getArgument(0));
+            return null;
+        }).when(loader).loadVectors(any(), any());
+
+        aliasService = new VectorIndexAliasServiceImpl(loader, embeddingModelService);
+        aliasService.init();
+        fill(aliasService.serving());
+    }
+
+    @Test
+    void buildsShadowThenFlipsAlias() {
+        ModelIndex old = aliasService.serving();
+
+        aliasService.buildShadow(NEW_MODEL);
+        // Index shadow chưa phục vụ truy vấn cho tới khi được promote
+        assertSame(old, aliasService.serving());
+
+        aliasService.promoteShadow(NEW_MODEL);
+        ModelIndex promoted = aliasService.serving();
+        assertEquals(NEW_MODEL, promoted.model());
+        assertEquals(NEW_MODEL, aliasService.servingModel());
+        assertEquals(VECTORS, promoted.index().size());
+        assertEquals(3, promoted.index().dimension());
+        verify(loader).markChanged();
+        // Shadow đã được promote thì không promote lại được
+        assertThrows(IllegalStateException.class, () -> aliasService.promoteShadow(NEW_MODEL));
+    }
+
+    @Test
+    void discardedShadowLeavesServingAliasUnchanged() {
+        ModelIndex old = aliasService.serving();
+        aliasService.buildShadow(NEW_MODEL);
+
+        aliasService.discardShadow();
+
+        assertSame(old, aliasService.serving());
+        assertThrows(IllegalStateException.class, () -> aliasService.promoteShadow(NEW_MODEL));
+        verify(loader, never()).markChanged();
+        // Cập nhật sau khi bỏ shadow không còn đồng bộ sang index của model mới
+        aliasService.updateServing(List.of(1L), target -> { });
+        verify(loader, never()).reloadDocuments(any(), any());
+    }
+
+    @Test
+    void documentsChangedDuringBuildAreReloadedIntoShadow() {
+        doAnswer(invocation -> {
+            ModelIndex target = invocation.getArgument(0);
+            fill(target);
+            // Upload trong lúc build: index phục vụ được cập nhật, shadow để dành document cho lúc build xong
+            aliasService.updateServing(List.of(7L), serving -> { });
+            verify(loader, never()).reloadDocuments(eq(target), any());
+            return null;
+        }).when(loader).loadVectors(any(), any());
+
+        aliasService.buildShadow(NEW_MODEL);
+        aliasService.promoteShadow(NEW_MODEL);
+
+        verify(loader).reloadDocuments(aliasService.serving(), Set.of(7L));
+    }
+
+    @Test
+    void queriesDuringFlipSeeOneGenerationAndNoUpdateIsLost() throws InterruptedException {
+        aliasService.buildShadow(NEW_MODEL);
+        ModelIndex old = aliasService.serving();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger updatesOnOld = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(3);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            threads.add(new Thread(() -> {
+                started.countDown();
+                while (running.get() && failure.get() == null) {
+                    try {
+                        // Model và index đọc từ cùng một alias: truy vấn chạy hết trên một generation
+                        ModelIndex current = aliasService.serving();
+                        int dimension = current.model().equals(OLD_MODEL) ? 2 : 3;
+                        assertEquals(dimension, current.index().dimension());
+                        assertEquals(5, current.index().search(query(dimension), 5, -1.0, DocumentFilter.ALL).size());
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            started.countDown();
+            while (running.get()) {
+                aliasService.updateServing(List.of(1L), target -> {
+                    if (target.model().equals(OLD_MODEL)) {
+                        updatesOnOld.incrementAndGet();
+                    }
+                });
+            }
+        }));
+        threads.forEach(Thread::start);
+        started.await();
+        Thread.sleep(20);
+
+        aliasService.promoteShadow(NEW_MODEL);
+        Thread.sleep(20);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        ModelIndex promoted = aliasService.serving();
+        assertNotSame(old, promoted);
+        // Mọi cập nhật áp lên index cũ trước khi đổi alias đều được đồng bộ sang shadow
+        verify(loader, times(updatesOnOld.get())).reloadDocuments(eq(promoted), any());
+    }
+
+    /**
+     * Nạp VECTORS vectors với số chiều theo model của index
+     */
+    private static void fill(ModelIndex target) {
+        VectorIndex index = target.index();
+        int dimension = target.model().equals(OLD_MODEL) ? 2 : 3;
+        index.clear();
+        for (int i = 0; i < VECTORS; i++) {
+            float[] vector = new float[dimension];
+            vector[0] = 1f;
+            vector[1 + i % (dimension - 1)] = i / (float) VECTORS;
+            index.add(i + 1L, i / 5 + 1L, vector);
+        }
+    }
+
+    private static float[] query(int dimension) {
+        float[] query = new float[dimension];
+        query[0] = 1f;
+        return query;
+    }
+}
@@ -0,0 +1,69 @@
+package com.documindai.service.impl;
+
+import com.documindai.exception.BadRequestException;
+import com.documindai.retrieval.FlatVectorIndex;
+import com.documindai.retrieval.KernelBenchmark.BenchmarkReport;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.RecallEvaluator.RecallReport;
+import com.documindai.service.VectorIndexAliasService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VectorIndexDiagnosticsServiceImplTest {
+
+    private VectorIndexDiagnosticsServiceImpl diagnosticsService;
+
+    private VectorIndexAliasService aliasService;
+    private VectorIndexLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        aliasService = mock(VectorIndexAliasService.class);
+        loader = mock(VectorIndexLoader.class);
+        diagnosticsService = new VectorIndexDiagnosticsServiceImpl(aliasService, loader);
+    }
+
+    @Test
+    void recallGroundTruthScansServingIndexWithoutDatabase() {
+        FlatVectorIndex index = new FlatVectorIndex();
+        for (int i = 0; i < 200; i++) {
+            index.add(i + 1L, i / 10 + 1L, new float[]{1f, i / 200f, (i % 7) / 7f});
+        }
+        when(aliasService.serving()).thenReturn(new ModelIndex("model", index, new FlatVectorIndex()));
+
+        RecallReport report = diagnosticsService.evaluateRecall(5, 20);
+
+        // Index exact so với chính nó: recall tuyệt đối
+        assertEquals(1.0, report.recall(), 1e-9);
+        assertEquals(20, report.queries());
+        verify(loader, never()).forEachIndexVector(any(), any());
+        assertThrows(BadRequestException.class, () -> diagnosticsService.evaluateRecall(0, 20));
+    }
+
+    @Test
+    void benchmarkRejectsParametersOutsideLimits() {
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(0, 10, 1));
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(4097, 10, 1));
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(16, 0, 1));
+        // vectors * dimension tràn int nếu không tính bằng long
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(4096, 1_048_576, 1));
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(1536, 10_923, 1));
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(16, 10, 0));
+        assertThrows(BadRequestException.class, () -> diagnosticsService.benchmarkKernel(16, 10, 101));
+    }
+
+    @Test
+    void benchmarkRunsWithinLimits() {
+        BenchmarkReport report = diagnosticsService.benchmarkKernel(17, 64, 1);
+        assertNotNull(report.kernel());
+    }
+}
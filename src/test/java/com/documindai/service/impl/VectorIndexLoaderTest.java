@@ -0,0 +1,133 @@
+package com.documindai.service.impl;
+
+import com.documindai.repository.DocumentChunkRepository;
+import com.documindai.repository.DocumentRepository;
+import com.documindai.repository.projection.ChunkIndexView;
+import com.documindai.retrieval.DocumentFilter;
+import com.documindai.retrieval.FlatVectorIndex;
+import com.documindai.retrieval.ModelIndex;
+import com.documindai.retrieval.ScoredChunk;
+import com.documindai.retrieval.TenantShardedVectorIndex;
+import com.documindai.retrieval.VectorIndexFactory;
+import com.documindai.utils.EmbeddingCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VectorIndexLoaderTest {
+
+    private static final String MODEL = "text-embedding-3-small";
+    private static final float[] X = {1f, 0f};
+    private static final float[] Y = {0f, 1f};
+
+    // Tenant 1 upload document 100 (chunks 1, 2), tenant 2 upload document 200 (chunks 3, 4, 5)
+    private List<ChunkIndexView> rows;
+    private DocumentChunkRepository chunkRepository;
+    private VectorIndexLoader loader;
+    private TenantShardedVectorIndex sharded;
+
+    @BeforeEach
+    void setUp() {
+        rows = List.of(
+                row(1L, 100L, 1L, X),
+                row(2L, 100L, 1L, X),
+                row(3L, 200L, 2L, Y),
+                row(4L, 200L, 2L, Y),
+                row(5L, 200L, 2L, X));
+        chunkRepository = mock(DocumentChunkRepository.class);
+        when(chunkRepository.findIndexVectors(eq(MODEL), anyLong(), any())).thenAnswer(invocation ->
+                page(rows, null, invocation.getArgument(1), invocation.getArgument(2)));
+        when(chunkRepository.findTenantIndexVectors(eq(MODEL), anyLong(), anyLong(), any())).thenAnswer(invocation ->
+                page(rows, invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        VectorIndexFactory indexFactory = model -> new TenantShardedVectorIndex(FlatVectorIndex::new);
+
+        loader = new VectorIndexLoader(chunkRepository, mock(DocumentRepository.class), indexFactory);
+        // Batch 2 rows để phủ phân trang theo afterId, tối đa 1 shard trong bộ nhớ
+        ReflectionTestUtils.setField(loader, "rebuildBatchSize", 2);
+        ReflectionTestUtils.setField(loader, "maxResidentShards", 1);
+
+        ModelIndex target = loader.newModelIndex(MODEL);
+        Set<Long> indexed = new HashSet<>();
+        loader.loadVectors(target, indexed);
+        assertEquals(Set.of(100L, 200L), indexed);
+        sharded = (TenantShardedVectorIndex) target.index();
+    }
+
+    @Test
+    void tenantSearchOnlySeesItsOwnShard() {
+        assertEquals(2, sharded.shardCount());
+        assertEquals(1L, loader.tenantOf(100L));
+        assertEquals(2L, loader.tenantOf(200L));
+
+        // Y chỉ có ở tenant 2: truy vấn của tenant 1 không bao giờ trả chunk của tenant 2
+        assertEquals(Set.of(1L, 2L), chunkIds(sharded.search(1, Y, 10, -1.0, DocumentFilter.ALL)));
+        assertEquals(Set.of(3L, 4L, 5L), chunkIds(sharded.search(2, Y, 10, -1.0, DocumentFilter.ALL)));
+    }
+
+    @Test
+    void evictedShardIsReloadedFromItsTenantRowsOnly() {
+        sharded.search(1, X, 1, -1.0, DocumentFilter.ALL);
+        assertEquals(3, loader.evict(sharded, 2L));
+        assertTrue(sharded.isEvicted(2));
+        assertEquals(Set.of(1L, 2L), chunkIds(sharded.search(X, 10, -1.0, DocumentFilter.ALL)));
+
+        loader.ensureResident(sharded, MODEL, 2);
+
+        assertFalse(sharded.isEvicted(2));
+        assertEquals(Set.of(3L, 4L, 5L), chunkIds(sharded.search(2, X, 10, -1.0, DocumentFilter.ALL)));
+        verify(chunkRepository, never()).findTenantIndexVectors(eq(MODEL), eq(1L), anyLong(), any());
+        // Vượt max-resident-shards: shard lâu không dùng (tenant 1) bị evict, tenant vừa load được giữ lại
+        assertTrue(sharded.isEvicted(1));
+        assertEquals(1, sharded.shardCount());
+
+        loader.ensureResident(sharded, MODEL, 1);
+        assertEquals(Set.of(1L, 2L), chunkIds(sharded.search(1, X, 10, -1.0, DocumentFilter.ALL)));
+        assertTrue(sharded.isEvicted(2));
+    }
+
+    /**
+     * Một trang rows (của tenant nếu tenantId khác null) sau afterId, theo thứ tự ID như query thật
+     */
+    private static List<ChunkIndexView> page(List<ChunkIndexView> rows, Long tenantId, Long afterId,
+                                             Pageable pageable) {
+        return rows.stream()
+                .filter(row -> tenantId == null || row.getTenantId().equals(tenantId))
+                .filter(row -> row.getId() > afterId)
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    private static ChunkIndexView row(Long id, Long documentId, Long tenantId, float[] vector) {
+        ChunkIndexView view = mock(ChunkIndexView.class);
+        when(view.getId()).thenReturn(id);
+        when(view.getDocumentId()).thenReturn(documentId);
+        when(view.getTenantId()).thenReturn(tenantId);
+        when(view.getEmbeddingVector()).thenReturn(EmbeddingCodec.encode(vector));
+        when(view.getEmbeddingNormalized()).thenReturn(true);
+        when(view.getEmbeddingModel()).thenReturn(MODEL);
+        return view;
+    }
+
+    private static Set<Long> chunkIds(List<ScoredChunk> hits) {
+        Set<Long> chunkIds = new LinkedHashSet<>();
+        hits.forEach(hit -> chunkIds.add(hit.chunkId()));
+        return chunkIds;
+    }
+}
@@ -0,0 +1,53 @@
+package com.documindai.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingCodecTest {
+
+    @Test
+    void floatArrayRoundTrips() {
+        float[] vector = {0.25f, -1.5f, 3.0e-7f, Float.MAX_VALUE, 0f};
+        byte[] bytes = EmbeddingCodec.encode(vector);
+
+        assertEquals(vector.length * EmbeddingCodec.BYTES_PER_DIMENSION, bytes.length);
+        assertEquals(vector.length, EmbeddingCodec.dimension(bytes));
+        assertArrayEquals(vector, EmbeddingCodec.decode(bytes));
+    }
+
+    @Test
+    void encodesLittleEndianFloat32() {
+        // 1.0f = 0x3F800000, little-endian: byte thấp đứng trước
+        assertArrayEquals(new byte[]{0x00, 0x00, (byte) 0x80, 0x3F}, EmbeddingCodec.encode(new float[]{1f}));
+    }
+
+    @Test
+    void doubleListIsNarrowedToFloat() {
+        List<Double> embedding = List.of(0.1, -0.2, 0.3);
+        assertArrayEquals(new float[]{0.1f, -0.2f, 0.3f}, EmbeddingCodec.decode(EmbeddingCodec.encode(embedding)));
+    }
+
+    @Test
+    void normalizedEncodingHasUnitLength() {
+        float[] vector = EmbeddingCodec.decode(EmbeddingCodec.encodeNormalized(List.of(3.0, 4.0)));
+        assertArrayEquals(new float[]{0.6f, 0.8f}, vector, 1e-6f);
+
+        // Vector 0 được giữ nguyên
+        assertArrayEquals(new float[]{0f, 0f}, EmbeddingCodec.decode(EmbeddingCodec.encodeNormalized(List.of(0.0, 0.0))));
+    }
+
+    @Test
+    void nullAndMalformedInput() {
+        assertNull(EmbeddingCodec.encode((float[]) null));
+        assertNull(EmbeddingCodec.encode((List<Double>) null));
+        assertNull(EmbeddingCodec.decode(null));
+        assertEquals(0, EmbeddingCodec.dimension(null));
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingCodec.decode(new byte[6]));
+    }
+}
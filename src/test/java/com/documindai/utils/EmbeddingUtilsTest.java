@@ -0,0 +1,43 @@
+package com.documindai.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingUtilsTest {
+
+    private static final String MODEL = "text-embedding-3-small";
+    private static final String SHADOW = "text-embedding-3-large";
+
+    @Test
+    void flaggedBinaryVectorIsReturnedAsStored() {
+        // Cờ normalized bật: tin giá trị đã lưu, không chuẩn hóa lại
+        byte[] stored = EmbeddingCodec.encode(new float[]{0.5f, 0f});
+        assertArrayEquals(new float[]{0.5f, 0f},
+                EmbeddingUtils.readModelUnitVector(stored, null, true, MODEL, null, null, MODEL));
+    }
+
+    @Test
+    void legacyRowsAreNormalizedOnRead() {
+        byte[] stored = EmbeddingCodec.encode(new float[]{3f, 4f});
+        assertArrayEquals(new float[]{0.6f, 0.8f},
+                EmbeddingUtils.readModelUnitVector(stored, null, null, MODEL, null, null, MODEL), 1e-6f);
+        // Cột JSON cũ không có cờ normalized: luôn chuẩn hóa
+        assertArrayEquals(new float[]{0.6f, 0.8f},
+                EmbeddingUtils.readModelUnitVector(null, "[3.0, 4.0]", true, MODEL, null, null, MODEL), 1e-6f);
+        assertThrows(IllegalArgumentException.class, () ->
+                EmbeddingUtils.readModelUnitVector(EmbeddingCodec.encode(new float[]{0f, 0f}), null, false,
+                        MODEL, null, null, MODEL));
+    }
+
+    @Test
+    void shadowSlotIsUsedForItsModelOnly() {
+        byte[] shadow = EmbeddingCodec.encode(new float[]{0f, 1f, 0f});
+        byte[] stored = EmbeddingCodec.encode(new float[]{1f, 0f});
+        assertArrayEquals(new float[]{0f, 1f, 0f},
+                EmbeddingUtils.readModelUnitVector(stored, null, true, MODEL, shadow, SHADOW, SHADOW));
+        assertNull(EmbeddingUtils.readModelUnitVector(stored, null, true, MODEL, shadow, SHADOW, "other-model"));
+    }
+}